@@ -0,0 +1,124 @@
+package de.invesdwin.util.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a json result of BenchmarkRunner against a committed baseline. Scores that got worse by more than the
+ * threshold and normalized allocations that grew are reported as regressions, in which case the exit code is 1.
+ * 
+ * Usage: BenchmarkBaselineComparator baselineFile resultFile [thresholdPercent]
+ */
+@Immutable
+public final class BenchmarkBaselineComparator {
+
+    public static final double DEFAULT_THRESHOLD_PERCENT = 10D;
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    /**
+     * allocations of a few bytes per operation are mostly noise from the harness
+     */
+    private static final double ALLOCATION_TOLERANCE_BYTES = 16D;
+
+    private BenchmarkBaselineComparator() {}
+
+    //CHECKSTYLE:OFF
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: " + BenchmarkBaselineComparator.class.getSimpleName()
+                    + " baselineFile resultFile [thresholdPercent]");
+            System.exit(2);
+        }
+        final double thresholdPercent;
+        if (args.length > 2) {
+            thresholdPercent = Double.parseDouble(args[2]);
+        } else {
+            thresholdPercent = DEFAULT_THRESHOLD_PERCENT;
+        }
+        final Map<String, JsonNode> baseline = read(new File(args[0]));
+        final Map<String, JsonNode> result = read(new File(args[1]));
+        int regressions = 0;
+        for (final Map.Entry<String, JsonNode> e : result.entrySet()) {
+            final JsonNode baselineNode = baseline.get(e.getKey());
+            if (baselineNode == null) {
+                System.out.println("NEW        " + e.getKey());
+                continue;
+            }
+            final JsonNode resultNode = e.getValue();
+            final double baselineScore = baselineNode.path("primaryMetric").path("score").asDouble();
+            final double resultScore = resultNode.path("primaryMetric").path("score").asDouble();
+            final boolean higherIsBetter = "thrpt".equals(resultNode.path("mode").asText());
+            final double changePercent = (resultScore - baselineScore) / baselineScore * 100D;
+            final double worsePercent;
+            if (higherIsBetter) {
+                worsePercent = -changePercent;
+            } else {
+                worsePercent = changePercent;
+            }
+            final double baselineAllocation = getAllocation(baselineNode);
+            final double resultAllocation = getAllocation(resultNode);
+            final boolean scoreRegression = worsePercent > thresholdPercent;
+            final boolean allocationRegression = resultAllocation > baselineAllocation + ALLOCATION_TOLERANCE_BYTES;
+            final String status;
+            if (scoreRegression || allocationRegression) {
+                status = "REGRESSION";
+                regressions++;
+            } else {
+                status = "OK        ";
+            }
+            System.out.println(String.format("%s %s: score %.3f -> %.3f (%+.1f%%), alloc %.1f -> %.1f B/op", status,
+                    e.getKey(), baselineScore, resultScore, changePercent, baselineAllocation, resultAllocation));
+        }
+        for (final String key : baseline.keySet()) {
+            if (!result.containsKey(key)) {
+                System.out.println("MISSING    " + key);
+            }
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regressions found");
+            System.exit(1);
+        }
+    }
+    //CHECKSTYLE:ON
+
+    private static double getAllocation(final JsonNode node) {
+        final JsonNode secondaryMetrics = node.path("secondaryMetrics");
+        final Iterator<Map.Entry<String, JsonNode>> fields = secondaryMetrics.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            //the metric name is prefixed with a middle dot
+            if (field.getKey().endsWith(ALLOCATION_METRIC)) {
+                return field.getValue().path("score").asDouble();
+            }
+        }
+        return 0D;
+    }
+
+    private static Map<String, JsonNode> read(final File file) throws IOException {
+        final JsonNode root = new ObjectMapper().readTree(file);
+        final Map<String, JsonNode> benchmarks = new LinkedHashMap<>();
+        for (final JsonNode node : root) {
+            benchmarks.put(newKey(node), node);
+        }
+        return benchmarks;
+    }
+
+    private static String newKey(final JsonNode node) {
+        final StringBuilder sb = new StringBuilder(node.path("benchmark").asText());
+        final JsonNode params = node.path("params");
+        final Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            sb.append(" ").append(field.getKey()).append("=").append(field.getValue().asText());
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,47 @@
+package de.invesdwin.util.benchmarks;
+
+import javax.annotation.concurrent.Immutable;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler for allocation rates and writes the results as json so that they can be
+ * compared against a baseline with BenchmarkBaselineComparator.
+ * 
+ * Usage: BenchmarkRunner [includeRegex] [resultFile]
+ */
+@Immutable
+public final class BenchmarkRunner {
+
+    public static final String DEFAULT_INCLUDE = "de\\.invesdwin\\.util\\..*Benchmark";
+    public static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    private BenchmarkRunner() {}
+
+    public static void main(final String[] args) throws RunnerException {
+        final String include;
+        if (args.length > 0) {
+            include = args[0];
+        } else {
+            include = DEFAULT_INCLUDE;
+        }
+        final String resultFile;
+        if (args.length > 1) {
+            resultFile = args[1];
+        } else {
+            resultFile = DEFAULT_RESULT_FILE;
+        }
+        final Options options = new OptionsBuilder().include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+        new Runner(options).run();
+    }
+
+}
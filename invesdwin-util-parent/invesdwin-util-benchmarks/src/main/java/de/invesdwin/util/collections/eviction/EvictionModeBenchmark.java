@@ -0,0 +1,88 @@
+package de.invesdwin.util.collections.eviction;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+
+/**
+ * getOrPut measures the cost of a cache lookup with a skewed key distribution that is larger than the maximum size.
+ * fill allocates a new map and fills it up to the maximum size, thus the normalized allocation rate of the gc profiler
+ * approximates the memory footprint per map (see the comment on EvictionMode.LeastRecentlyAdded).
+ */
+@NotThreadSafe
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvictionModeBenchmark {
+
+    private static final int MAXIMUM_SIZE = 1000;
+    private static final int KEYS = MAXIMUM_SIZE * 4;
+
+    @Param
+    public EvictionMode mode;
+
+    private IEvictionMap<Integer, Integer> map;
+    private final Integer[] keys = new Integer[KEYS];
+    private final int[] sequence = new int[KEYS * 4];
+    private int sequenceIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(0);
+        for (int i = 0; i < sequence.length; i++) {
+            //squaring skews the access towards the lower keys so that there are hot and cold entries
+            final double uniform = random.nextDouble();
+            sequence[i] = (int) (uniform * uniform * KEYS);
+        }
+        map = mode.newMap(MAXIMUM_SIZE);
+    }
+
+    @Benchmark
+    public Integer getOrPut() {
+        final Integer key = keys[sequence[sequenceIndex]];
+        sequenceIndex++;
+        if (sequenceIndex == sequence.length) {
+            sequenceIndex = 0;
+        }
+        final Integer value = map.get(key);
+        if (value != null) {
+            return value;
+        }
+        map.put(key, key);
+        return key;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public IEvictionMap<Integer, Integer> fill() {
+        final IEvictionMap<Integer, Integer> newMap = mode.newMap(MAXIMUM_SIZE);
+        for (int i = 0; i < MAXIMUM_SIZE; i++) {
+            final Integer key = keys[i];
+            newMap.put(key, key);
+        }
+        return newMap;
+    }
+
+}
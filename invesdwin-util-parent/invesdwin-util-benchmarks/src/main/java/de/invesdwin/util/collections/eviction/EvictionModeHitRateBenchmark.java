@@ -0,0 +1,123 @@
+package de.invesdwin.util.collections.eviction;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+
+/**
+ * Replays an access trace that resembles a backtest against a historical cache: a forward iteration over time that
+ * looks back a few bars on each step, indicators that repeatedly request the same warmup period, occasional large
+ * one-off scans (e.g. a chart or a second instrument being loaded) and random jumps back into history. The hits and
+ * misses counters give the hit rate per eviction mode, the score gives the cost per access.
+ */
+@NotThreadSafe
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvictionModeHitRateBenchmark {
+
+    private static final int MAXIMUM_SIZE = 1000;
+    private static final int HISTORY = MAXIMUM_SIZE * 20;
+    private static final int WARMUP = MAXIMUM_SIZE / 4;
+    private static final int LOOKBACK = 20;
+    private static final int SCAN = MAXIMUM_SIZE * 3;
+    private static final int SCAN_INTERVAL = 500;
+    private static final int JUMP_INTERVAL = 50;
+    private static final int TRACE_LENGTH = HISTORY * 4;
+
+    @Param
+    public EvictionMode mode;
+
+    private IEvictionMap<Integer, Integer> map;
+    private final Integer[] keys = new Integer[HISTORY + SCAN];
+    private final int[] trace = new int[TRACE_LENGTH];
+    private int traceIndex;
+
+    @NotThreadSafe
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HitRateCounters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(0);
+        int length = 0;
+        int time = WARMUP;
+        int step = 0;
+        while (length < TRACE_LENGTH) {
+            step++;
+            if (step % SCAN_INTERVAL == 0) {
+                //one-off scan over keys that are never requested again
+                final int scanFrom = HISTORY + random.nextInt(SCAN);
+                for (int i = 0; i < SCAN && length < TRACE_LENGTH; i++) {
+                    trace[length++] = HISTORY + (scanFrom - HISTORY + i) % SCAN;
+                }
+            } else if (step % JUMP_INTERVAL == 0) {
+                //jump back to the warmup period that all indicators share
+                for (int i = 0; i < LOOKBACK && length < TRACE_LENGTH; i++) {
+                    trace[length++] = random.nextInt(WARMUP);
+                }
+            } else {
+                //forward iteration with a lookback on each bar
+                for (int i = 0; i < LOOKBACK && length < TRACE_LENGTH; i++) {
+                    trace[length++] = time - i;
+                }
+                time++;
+                if (time == HISTORY) {
+                    time = WARMUP;
+                }
+            }
+        }
+        map = mode.newMap(MAXIMUM_SIZE);
+    }
+
+    @Benchmark
+    public Integer getOrPut(final HitRateCounters counters) {
+        final Integer key = keys[trace[traceIndex]];
+        traceIndex++;
+        if (traceIndex == trace.length) {
+            traceIndex = 0;
+        }
+        final Integer value = map.get(key);
+        if (value != null) {
+            counters.hits++;
+            return value;
+        }
+        counters.misses++;
+        map.put(key, key);
+        return key;
+    }
+
+}
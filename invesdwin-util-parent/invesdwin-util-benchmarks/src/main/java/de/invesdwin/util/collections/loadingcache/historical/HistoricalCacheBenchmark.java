@@ -0,0 +1,163 @@
+package de.invesdwin.util.collections.loadingcache.historical;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.invesdwin.util.collections.iterable.ICloseableIterable;
+import de.invesdwin.util.collections.iterable.ICloseableIterator;
+import de.invesdwin.util.collections.loadingcache.historical.query.IHistoricalCacheQuery;
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+
+/**
+ * Typical query patterns against an AGapHistoricalCache that is backed by daily values in memory: iterating forward as
+ * a backtest does, random access, shifting back a number of values and reading ranges.
+ */
+@NotThreadSafe
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoricalCacheBenchmark {
+
+    private static final int VALUES = 10000;
+    private static final int SHIFT_BACK_UNITS = 100;
+    private static final int RANGE_DAYS = 100;
+
+    private FDate[] values;
+    private long[] valueMillis;
+    private AGapHistoricalCache<FDate> cache;
+    private IHistoricalCacheQuery<FDate> query;
+    private int[] randomIndexes;
+    private int sequentialIndex;
+    private int randomIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        values = new FDate[VALUES];
+        valueMillis = new long[VALUES];
+        FDate value = FDateBuilder.newDate(2000);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = value;
+            valueMillis[i] = value.millisValue();
+            value = value.addDays(1);
+        }
+        cache = new AGapHistoricalCache<FDate>() {
+            @Override
+            protected Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+                final int fromIndex = ceilingIndex(key);
+                final List<FDate> list = Arrays.asList(values);
+                return list.subList(fromIndex, list.size());
+            }
+
+            @Override
+            protected FDate readLatestValueFor(final FDate key) {
+                final int index = ceilingIndex(key);
+                if (index < VALUES && values[index].equalsNotNullSafe(key)) {
+                    return values[index];
+                }
+                return values[Math.max(0, index - 1)];
+            }
+
+            @Override
+            protected FDate innerExtractKey(final FDate value) {
+                return value;
+            }
+
+            @Override
+            protected FDate innerCalculatePreviousKey(final FDate key) {
+                return key.addDays(-1);
+            }
+
+            @Override
+            protected FDate innerCalculateNextKey(final FDate key) {
+                return key.addDays(1);
+            }
+        };
+        query = cache.query();
+        final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(0);
+        randomIndexes = new int[VALUES];
+        for (int i = 0; i < randomIndexes.length; i++) {
+            randomIndexes[i] = random.nextInt(VALUES);
+        }
+    }
+
+    private int ceilingIndex(final FDate key) {
+        final int index = Arrays.binarySearch(valueMillis, key.millisValue());
+        if (index >= 0) {
+            return index;
+        } else {
+            return -index - 1;
+        }
+    }
+
+    @Benchmark
+    public FDate getValueSequential() {
+        final FDate value = query.getValue(values[sequentialIndex]);
+        sequentialIndex++;
+        if (sequentialIndex == VALUES) {
+            sequentialIndex = 0;
+        }
+        return value;
+    }
+
+    @Benchmark
+    public FDate getValueRandom() {
+        final FDate value = query.getValue(values[randomIndexes[randomIndex]]);
+        nextRandomIndex();
+        return value;
+    }
+
+    @Benchmark
+    public void getPreviousValues(final Blackhole blackhole) {
+        final FDate key = values[randomIndexes[randomIndex]];
+        nextRandomIndex();
+        consume(query.getPreviousValues(key, SHIFT_BACK_UNITS), blackhole);
+    }
+
+    @Benchmark
+    public void getValuesRange(final Blackhole blackhole) {
+        final FDate from = values[randomIndexes[randomIndex]];
+        nextRandomIndex();
+        consume(query.getValues(from, from.addDays(RANGE_DAYS)), blackhole);
+    }
+
+    private void nextRandomIndex() {
+        randomIndex++;
+        if (randomIndex == randomIndexes.length) {
+            randomIndex = 0;
+        }
+    }
+
+    private static void consume(final ICloseableIterable<FDate> iterable, final Blackhole blackhole) {
+        try (ICloseableIterator<FDate> it = iterable.iterator()) {
+            while (true) {
+                blackhole.consume(it.next());
+            }
+        } catch (final NoSuchElementException e) {
+            //end reached
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+package de.invesdwin.util.collections.loadingcache.historical;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.invesdwin.util.collections.loadingcache.historical.query.IHistoricalCacheQuery;
+import de.invesdwin.util.error.UnknownArgumentException;
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+
+/**
+ * Many threads iterate forward through the same historical cache, each one starting at a different position as
+ * strategies in a parallel backtest do. The values map is kept small so that most requests reach loadValue, which is
+ * synchronized in AGapHistoricalCache and lock striped by range in AConcurrentGapHistoricalCache.
+ */
+@ThreadSafe
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class HistoricalCacheContentionBenchmark {
+
+    private static final int VALUES = 100_000;
+    private static final int MAXIMUM_SIZE = 100;
+
+    public enum HistoricalCacheType {
+        Gap,
+        ConcurrentGap;
+    }
+
+    @Param
+    public HistoricalCacheType type;
+
+    private FDate[] values;
+    private long[] valueMillis;
+    private IHistoricalCacheQuery<FDate> query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        values = new FDate[VALUES];
+        valueMillis = new long[VALUES];
+        FDate value = FDateBuilder.newDate(2000);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = value;
+            valueMillis[i] = value.millisValue();
+            value = value.addHours(1);
+        }
+        final AHistoricalCache<FDate> cache;
+        switch (type) {
+        case Gap:
+            cache = newGapHistoricalCache();
+            break;
+        case ConcurrentGap:
+            cache = newConcurrentGapHistoricalCache();
+            break;
+        default:
+            throw UnknownArgumentException.newInstance(HistoricalCacheType.class, type);
+        }
+        query = cache.query();
+    }
+
+    private AGapHistoricalCache<FDate> newGapHistoricalCache() {
+        return new AGapHistoricalCache<FDate>() {
+            @Override
+            protected Integer getInitialMaximumSize() {
+                return MAXIMUM_SIZE;
+            }
+
+            @Override
+            protected Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+                return HistoricalCacheContentionBenchmark.this.readAllValuesAscendingFrom(key);
+            }
+
+            @Override
+            protected FDate readLatestValueFor(final FDate key) {
+                return HistoricalCacheContentionBenchmark.this.readLatestValueFor(key);
+            }
+
+            @Override
+            protected FDate innerExtractKey(final FDate value) {
+                return value;
+            }
+
+            @Override
+            protected FDate innerCalculatePreviousKey(final FDate key) {
+                return key.addHours(-1);
+            }
+
+            @Override
+            protected FDate innerCalculateNextKey(final FDate key) {
+                return key.addHours(1);
+            }
+        };
+    }
+
+    private AConcurrentGapHistoricalCache<FDate> newConcurrentGapHistoricalCache() {
+        return new AConcurrentGapHistoricalCache<FDate>() {
+            @Override
+            protected Integer getInitialMaximumSize() {
+                return MAXIMUM_SIZE;
+            }
+
+            @Override
+            protected Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+                return HistoricalCacheContentionBenchmark.this.readAllValuesAscendingFrom(key);
+            }
+
+            @Override
+            protected FDate readLatestValueFor(final FDate key) {
+                return HistoricalCacheContentionBenchmark.this.readLatestValueFor(key);
+            }
+
+            @Override
+            protected FDate innerExtractKey(final FDate value) {
+                return value;
+            }
+
+            @Override
+            protected FDate innerCalculatePreviousKey(final FDate key) {
+                return key.addHours(-1);
+            }
+
+            @Override
+            protected FDate innerCalculateNextKey(final FDate key) {
+                return key.addHours(1);
+            }
+        };
+    }
+
+    private Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+        final int fromIndex = ceilingIndex(key);
+        final int toIndex = Math.min(VALUES, fromIndex + AGapHistoricalCache.DEFAULT_RETRIEVAL_COUNT);
+        final List<FDate> list = Arrays.asList(values);
+        return list.subList(fromIndex, toIndex);
+    }
+
+    private FDate readLatestValueFor(final FDate key) {
+        final int index = ceilingIndex(key);
+        if (index < VALUES && values[index].equalsNotNullSafe(key)) {
+            return values[index];
+        }
+        return values[Math.max(0, index - 1)];
+    }
+
+    private int ceilingIndex(final FDate key) {
+        final int index = Arrays.binarySearch(valueMillis, key.millisValue());
+        if (index >= 0) {
+            return index;
+        } else {
+            return -index - 1;
+        }
+    }
+
+    @NotThreadSafe
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom();
+            index = random.nextInt(VALUES);
+        }
+
+        private int next() {
+            final int cur = index;
+            index++;
+            if (index == VALUES) {
+                index = 0;
+            }
+            return cur;
+        }
+
+    }
+
+    @Benchmark
+    public FDate getValueSequential(final Cursor cursor) {
+        return query.getValue(values[cursor.next()]);
+    }
+
+}
@@ -0,0 +1,99 @@
+package de.invesdwin.util.collections.primitive.longkey;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.invesdwin.util.collections.primitive.PrimitiveConcurrentMapConfig;
+import de.invesdwin.util.collections.primitive.longkey.striped.StripedNonBlockingHashMapLong;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Compares the lock striped fastutil map against the striped non blocking map and a single synchronized map under
+ * contention with a read heavy and a write heavy mix.
+ */
+@ThreadSafe
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentLong2ObjectMapBenchmark {
+
+    private static final int KEYS = 1 << 16;
+    private static final int KEYS_MASK = KEYS - 1;
+
+    public enum MapType {
+        LockStriped {
+            @Override
+            public Long2ObjectMap<Object> newMap() {
+                return new ConcurrentLong2ObjectMap<>(new PrimitiveConcurrentMapConfig().setInitialCapacity(KEYS));
+            }
+        },
+        NonBlockingStriped {
+            @Override
+            public Long2ObjectMap<Object> newMap() {
+                return new StripedNonBlockingHashMapLong<>(
+                        new PrimitiveConcurrentMapConfig().setInitialCapacity(KEYS));
+            }
+        },
+        Synchronized {
+            @Override
+            public Long2ObjectMap<Object> newMap() {
+                return Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>(KEYS));
+            }
+        };
+
+        public abstract Long2ObjectMap<Object> newMap();
+    }
+
+    @Param
+    public MapType type;
+
+    private Long2ObjectMap<Object> map;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        map = type.newMap();
+        for (long i = 0; i < KEYS; i++) {
+            map.put(i, Long.valueOf(i));
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        return map.get(ThreadLocalRandom.current().nextInt() & KEYS_MASK);
+    }
+
+    @Benchmark
+    public Object getPut() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long key = random.nextInt() & KEYS_MASK;
+        //every 5th operation is a write
+        if (random.nextInt(5) == 0) {
+            return map.put(key, Long.valueOf(key));
+        } else {
+            return map.get(key);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package de.invesdwin.util.concurrent.lock;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.invesdwin.util.collections.fast.concurrent.locked.readwrite.ReadWriteLockedFastIterableDelegateMap;
+import de.invesdwin.util.collections.primitive.readwrite.ReadWriteLockedInt2IntMap;
+import de.invesdwin.util.error.UnknownArgumentException;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+/**
+ * Lookups in a read mostly map, either via ReadWriteLockedFastIterableDelegateMap (which takes the read lock of a
+ * ReentrantReadWriteLock and thus writes to the shared reader count on every lookup) or via ReadWriteLockedInt2IntMap
+ * (which does optimistic reads for primitive lookups). The score is in lookups per microsecond over all threads, run
+ * the main method to measure the scalability from 1 to 64 reader threads.
+ */
+@ThreadSafe
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadWriteLockScalabilityBenchmark {
+
+    private static final int KEYS = 1024;
+    private static final int KEYS_MASK = KEYS - 1;
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+
+    public enum ReadWriteLockType {
+        Pessimistic,
+        Optimistic;
+    }
+
+    @Param
+    public ReadWriteLockType type;
+
+    /**
+     * Each reader does a write every n lookups, 0 means read only.
+     */
+    @Param({ "0", "1000" })
+    public int writeInterval;
+
+    private ReadWriteLockedFastIterableDelegateMap<Integer, Integer> pessimisticMap;
+    private ReadWriteLockedInt2IntMap optimisticMap;
+    private Integer[] boxedKeys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        //box keys upfront so that the lookups do not measure allocations
+        boxedKeys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            boxedKeys[i] = i;
+        }
+        switch (type) {
+        case Pessimistic:
+            pessimisticMap = new ReadWriteLockedFastIterableDelegateMap<>(new Int2IntOpenHashMap(KEYS));
+            for (int i = 0; i < KEYS; i++) {
+                pessimisticMap.put(boxedKeys[i], boxedKeys[i]);
+            }
+            break;
+        case Optimistic:
+            optimisticMap = new ReadWriteLockedInt2IntMap(KEYS, Hash.DEFAULT_LOAD_FACTOR);
+            for (int i = 0; i < KEYS; i++) {
+                optimisticMap.put(i, i);
+            }
+            break;
+        default:
+            throw UnknownArgumentException.newInstance(ReadWriteLockType.class, type);
+        }
+    }
+
+    @NotThreadSafe
+    @State(Scope.Thread)
+    public static class Reader {
+
+        private int key;
+        private int lookups;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            key = System.identityHashCode(this) & KEYS_MASK;
+        }
+
+    }
+
+    @Benchmark
+    public int lookup(final Reader reader) {
+        final int key = reader.key;
+        reader.key = (key + 1) & KEYS_MASK;
+        //writes only replace values of existing keys, thus the table is never rehashed
+        final boolean write = writeInterval > 0 && ++reader.lookups == writeInterval;
+        if (write) {
+            reader.lookups = 0;
+        }
+        if (optimisticMap != null) {
+            if (write) {
+                return optimisticMap.put(key, key);
+            }
+            return optimisticMap.get(key);
+        } else {
+            final Integer boxedKey = boxedKeys[key];
+            if (write) {
+                return pessimisticMap.put(boxedKey, boxedKey);
+            }
+            return pessimisticMap.get(boxedKey);
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        for (final int threads : THREADS) {
+            final Options options = new OptionsBuilder()
+                    .include(ReadWriteLockScalabilityBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package de.invesdwin.util.concurrent.priority;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.error.UnknownArgumentException;
+
+/**
+ * Several submitters push batches of tiny prioritized tasks and wait until their batch is done. The score is in tasks
+ * per second, the target for the work stealing scheduler is above 1M tasks/s. SharedQueue is the previous design of a
+ * ThreadPoolExecutor with a single PriorityBlockingQueue.
+ */
+@ThreadSafe
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PriorityExecutorBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final int PRIORITIES = 10;
+
+    public enum PriorityExecutorType {
+        WorkStealing,
+        SharedQueue;
+    }
+
+    @Param
+    public PriorityExecutorType type;
+
+    @Param({ "4" })
+    public int parallelism;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (type) {
+        case WorkStealing:
+            executor = new WorkStealingPriorityExecutor(parallelism,
+                    Executors.newFastThreadLocalThreadFactory(PriorityExecutorBenchmark.class.getSimpleName()));
+            break;
+        case SharedQueue:
+            executor = new java.util.concurrent.ThreadPoolExecutor(parallelism, parallelism, 0L,
+                    TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(BATCH, PriorityFuture.COMPARATOR),
+                    Executors.newFastThreadLocalThreadFactory(PriorityExecutorBenchmark.class.getSimpleName()));
+            break;
+        default:
+            throw UnknownArgumentException.newInstance(PriorityExecutorType.class, type);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @NotThreadSafe
+    @State(Scope.Thread)
+    public static class Submitter {
+
+        private final IPriorityRunnable[] tasks = new IPriorityRunnable[BATCH];
+        private volatile CountDownLatch latch;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            for (int i = 0; i < tasks.length; i++) {
+                final double priority = i % PRIORITIES;
+                tasks[i] = new IPriorityRunnable() {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public double getPriority() {
+                        return priority;
+                    }
+                };
+            }
+        }
+
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void submitBatch(final Submitter submitter) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(BATCH);
+        submitter.latch = latch;
+        final IPriorityRunnable[] tasks = submitter.tasks;
+        for (int i = 0; i < tasks.length; i++) {
+            executor.execute(tasks[i]);
+        }
+        latch.await();
+    }
+
+}
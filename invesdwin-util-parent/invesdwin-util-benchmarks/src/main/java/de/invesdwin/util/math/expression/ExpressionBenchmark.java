@@ -0,0 +1,80 @@
+package de.invesdwin.util.math.expression;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.invesdwin.util.math.expression.compiler.ExpressionCompiler;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
+
+/**
+ * Parsing and evaluation of expressions over a key dependent variable x. Evaluation is measured per key for the
+ * interpreted tree, the compiled bytecode and the batch evaluation.
+ */
+@NotThreadSafe
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    @Param({ "x + 2 * x", "if(x > 2, x * 2, x - 1)", "sin(x) + cos(x) * x / (x - 3)",
+            "if(x >= 3 && x < 6, x, -x) + max(x, 1)" })
+    public String expression;
+
+    private IEvaluateDoubleKey interpreted;
+    private IEvaluateDoubleKey compiled;
+    private IEvaluateDoubleKeyBatch batch;
+    private final double[] values = new double[BATCH_SIZE];
+    private long key;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final IExpression parsed = KeyVariableExpressions.parse(expression);
+        interpreted = parsed.newEvaluateDoubleKey();
+        compiled = ExpressionCompiler.newEvaluateDoubleKey(parsed);
+        batch = parsed.newEvaluateDoubleKeyBatch();
+    }
+
+    @Benchmark
+    public IExpression parse() {
+        return KeyVariableExpressions.parse(expression);
+    }
+
+    @Benchmark
+    public double evaluateInterpreted() {
+        return interpreted.evaluateDouble(key++);
+    }
+
+    @Benchmark
+    public double evaluateCompiled() {
+        return compiled.evaluateDouble(key++);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double[] evaluateBatch() {
+        batch.evaluateDoubles(key, values, 0, BATCH_SIZE);
+        key += BATCH_SIZE;
+        return values;
+    }
+
+}
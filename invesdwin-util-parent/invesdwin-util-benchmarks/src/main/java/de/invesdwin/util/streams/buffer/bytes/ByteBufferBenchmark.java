@@ -0,0 +1,172 @@
+package de.invesdwin.util.streams.buffer.bytes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.invesdwin.util.lang.reflection.Reflections;
+import de.invesdwin.util.streams.buffer.bytes.delegate.AgronaDelegateMutableByteBuffer;
+import de.invesdwin.util.streams.buffer.bytes.delegate.ArrowDelegateByteBuffer;
+import de.invesdwin.util.streams.buffer.bytes.delegate.ChronicleDelegateByteBuffer;
+import de.invesdwin.util.streams.buffer.bytes.delegate.NioDelegateByteBuffer;
+import de.invesdwin.util.streams.buffer.bytes.extend.UnsafeByteBuffer;
+
+/**
+ * Compares primitive access, bulk copies and slicing of the IByteBuffer implementations. Run with the gc profiler to
+ * see which implementations allocate on slice.
+ */
+@NotThreadSafe
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteBufferBenchmark {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    static {
+        //java 16 otherwise requires --add-opens java.base/java.nio=ALL-UNNAMED
+        Reflections.disableJavaModuleSystemRestrictions();
+    }
+
+    public enum ByteBufferType {
+        Heap {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return ByteBuffers.allocate(size);
+            }
+        },
+        Direct {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return ByteBuffers.allocateDirect(size);
+            }
+        },
+        Mapped {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return ByteBuffers.allocateMapped(size);
+            }
+        },
+        UnsafeHeap {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return new UnsafeByteBuffer(ByteBuffers.allocateByteArray(size));
+            }
+        },
+        UnsafeDirect {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return new UnsafeByteBuffer(java.nio.ByteBuffer.allocateDirect(size));
+            }
+        },
+        NioHeap {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return new NioDelegateByteBuffer(java.nio.ByteBuffer.allocate(size));
+            }
+        },
+        NioDirect {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return new NioDelegateByteBuffer(java.nio.ByteBuffer.allocateDirect(size));
+            }
+        },
+        Agrona {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return new AgronaDelegateMutableByteBuffer(new UnsafeBuffer(java.nio.ByteBuffer.allocateDirect(size)));
+            }
+        },
+        Chronicle {
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return new ChronicleDelegateByteBuffer(net.openhft.chronicle.bytes.Bytes.allocateDirect(size), true);
+            }
+        },
+        Arrow {
+            private final BufferAllocator allocator = new RootAllocator();
+
+            @Override
+            public IByteBuffer newBuffer(final int size) {
+                return new ArrowDelegateByteBuffer(allocator.buffer(size));
+            }
+        };
+
+        public abstract IByteBuffer newBuffer(int size);
+    }
+
+    @Param
+    public ByteBufferType type;
+
+    private IByteBuffer buffer;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        buffer = type.newBuffer(BUFFER_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (buffer instanceof Closeable) {
+            final Closeable cBuffer = (Closeable) buffer;
+            cBuffer.close();
+        }
+        buffer = null;
+    }
+
+    @Benchmark
+    public long putGetLong() {
+        long sum = 0;
+        for (int i = 0; i < BUFFER_SIZE; i += Long.BYTES) {
+            buffer.putLong(i, i);
+            sum += buffer.getLong(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long putGetDouble() {
+        long sum = 0;
+        for (int i = 0; i < BUFFER_SIZE; i += Double.BYTES) {
+            buffer.putDouble(i, i);
+            sum += (long) buffer.getDouble(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public byte[] putGetBytes() {
+        buffer.putBytes(0, bytes);
+        buffer.getBytes(0, bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public IByteBuffer slice() {
+        return buffer.slice(Long.BYTES, BUFFER_SIZE / 2);
+    }
+
+}
@@ -30,6 +30,15 @@ public enum EvictionMode {
             return new CommonsLeastRecentlyUsedMap<>(maximumSize);
         }
     },
+    /**
+     * Scan resistant, keeps frequently used entries even when large one-off iterations go through the cache.
+     */
+    WindowTinyLfu {
+        @Override
+        public <K, V> IEvictionMap<K, V> newMap(final int maximumSize) {
+            return new WindowTinyLfuMap<>(maximumSize);
+        }
+    },
     Clear {
         @Override
         public <K, V> IEvictionMap<K, V> newMap(final int maximumSize) {
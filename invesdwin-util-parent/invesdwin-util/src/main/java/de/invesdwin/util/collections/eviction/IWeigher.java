@@ -0,0 +1,12 @@
+package de.invesdwin.util.collections.eviction;
+
+@FunctionalInterface
+public interface IWeigher<K, V> {
+
+    /**
+     * Should return the approximate memory consumption of the entry in bytes. The weight has to be stable for as long
+     * as the entry is in the cache, thus mutable values should not change their size after being cached.
+     */
+    long weigh(K key, V value);
+
+}
@@ -0,0 +1,375 @@
+package de.invesdwin.util.collections.eviction;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.concurrent.pool.IMemoryBudgetEvictable;
+import de.invesdwin.util.concurrent.pool.MemoryBudget;
+import de.invesdwin.util.error.FastNoSuchElementException;
+import de.invesdwin.util.time.date.millis.FDateNanos;
+
+/**
+ * Evicts the least recently used entries when either the sum of the weights exceeds the maximum weight (normally bytes)
+ * or the number of entries exceeds the maximum size. The weight is also accounted in the process-wide MemoryBudget so
+ * that it can evict entries from the coldest caches while it is enabled. The eviction mode is always least recently
+ * used.
+ *
+ * Callers still need to synchronize compound operations (isThreadSafe() is false), the internal lock only guards
+ * against the MemoryBudget evicting entries from a different thread. The views iterate over a snapshot for the same
+ * reason.
+ */
+@NotThreadSafe
+public class WeightedEvictionMap<K, V> extends AbstractMap<K, V>
+        implements IEvictionMap<K, V>, IMemoryBudgetEvictable {
+
+    private final IWeigher<K, V> weigher;
+    private final long maximumWeight;
+    private final ILock lock;
+    @GuardedBy("lock")
+    private final Map<K, Node<K, V>> map;
+    @GuardedBy("lock")
+    private Node<K, V> first;
+    @GuardedBy("lock")
+    private Node<K, V> last;
+    @GuardedBy("lock")
+    private int maximumSize;
+    /**
+     * only changed while holding the lock
+     */
+    private final AtomicLong weight;
+    private volatile long lastAccessNanos = FDateNanos.elapsedNanos();
+    private EntrySet entrySet;
+
+    public WeightedEvictionMap(final int maximumSize, final long maximumWeight, final IWeigher<K, V> weigher) {
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.lock = ILockCollectionFactory.getInstance(true).newLock(WeightedEvictionMap.class.getSimpleName());
+        this.map = ILockCollectionFactory.getInstance(false).newMap();
+        this.weight = MemoryBudget.register(this);
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    @Override
+    public long getWeight() {
+        return weight.get();
+    }
+
+    @Override
+    public long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    @Override
+    public V get(final Object key) {
+        lock.lock();
+        try {
+            final Node<K, V> node = map.get(key);
+            if (node == null) {
+                return null;
+            }
+            moveToLast(node);
+            lastAccessNanos = FDateNanos.elapsedNanos();
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        lock.lock();
+        try {
+            return map.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        final long entryWeight = weigher.weigh(key, value);
+        if (entryWeight < 0) {
+            throw new IllegalArgumentException("weight should not be negative: " + entryWeight);
+        }
+        final V oldValue;
+        lock.lock();
+        try {
+            final Node<K, V> existing = map.get(key);
+            if (existing != null) {
+                oldValue = existing.value;
+                addWeight(entryWeight - existing.weight);
+                existing.value = value;
+                existing.weight = entryWeight;
+                moveToLast(existing);
+            } else {
+                oldValue = null;
+                final Node<K, V> node = new Node<>(key, value, entryWeight);
+                map.put(key, node);
+                addLast(node);
+                addWeight(entryWeight);
+            }
+            lastAccessNanos = FDateNanos.elapsedNanos();
+            //an entry that is heavier than the maximum weight is not cached at all
+            evict(weight.get() - maximumWeight, map.size() - maximumSize);
+        } finally {
+            lock.unlock();
+        }
+        //outside of the lock so that the sweep can not deadlock with another cache
+        MemoryBudget.maybeEvict();
+        return oldValue;
+    }
+
+    @Override
+    public V remove(final Object key) {
+        lock.lock();
+        try {
+            final Node<K, V> node = map.remove(key);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            addWeight(-node.weight);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+            first = null;
+            last = null;
+            addWeight(-weight.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long evictWeight(final long evictWeight) {
+        if (!lock.tryLock()) {
+            return 0;
+        }
+        try {
+            return evict(evictWeight, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @GuardedBy("lock")
+    private long evict(final long evictWeight, final int evictSize) {
+        long evictedWeight = 0;
+        int evictedSize = 0;
+        while (first != null && (evictedWeight < evictWeight || evictedSize < evictSize)) {
+            final Node<K, V> node = first;
+            unlink(node);
+            map.remove(node.key);
+            evictedWeight += node.weight;
+            evictedSize++;
+        }
+        addWeight(-evictedWeight);
+        return evictedWeight;
+    }
+
+    @GuardedBy("lock")
+    private void addWeight(final long delta) {
+        if (delta != 0) {
+            MemoryBudget.addWeight(weight, delta);
+        }
+    }
+
+    @GuardedBy("lock")
+    private void addLast(final Node<K, V> node) {
+        node.previous = last;
+        node.next = null;
+        if (last == null) {
+            first = node;
+        } else {
+            last.next = node;
+        }
+        last = node;
+    }
+
+    @GuardedBy("lock")
+    private void unlink(final Node<K, V> node) {
+        if (node.previous == null) {
+            first = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next == null) {
+            last = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+        node.previous = null;
+        node.next = null;
+    }
+
+    @GuardedBy("lock")
+    private void moveToLast(final Node<K, V> node) {
+        if (node != last) {
+            unlink(node);
+            addLast(node);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    @Override
+    public EvictionMode getEvictionMode() {
+        return EvictionMode.LeastRecentlyUsed;
+    }
+
+    @Override
+    public void setMaximumSize(final int maximumSize) {
+        lock.lock();
+        try {
+            this.maximumSize = maximumSize;
+            evict(0, map.size() - maximumSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getMaximumSize() {
+        lock.lock();
+        try {
+            return maximumSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    @NotThreadSafe
+    private static final class Node<K, V> implements Entry<K, V> {
+        private final K key;
+        private V value;
+        private long weight;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        private Node(final K key, final V value, final long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(final V value) {
+            throw new UnsupportedOperationException("use put instead so that the weight gets updated");
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            final Node<?, ?>[] snapshot;
+            lock.lock();
+            try {
+                snapshot = map.values().toArray(new Node<?, ?>[map.size()]);
+            } finally {
+                lock.unlock();
+            }
+            return new Iterator<Entry<K, V>>() {
+                private int index;
+                private Node<K, V> current;
+
+                @Override
+                public boolean hasNext() {
+                    return index < snapshot.length;
+                }
+
+                @SuppressWarnings("unchecked")
+                @Override
+                public Entry<K, V> next() {
+                    if (!hasNext()) {
+                        throw FastNoSuchElementException.getInstance("No more elements");
+                    }
+                    current = (Node<K, V>) snapshot[index++];
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    }
+                    WeightedEvictionMap.this.remove(current.key);
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return WeightedEvictionMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            WeightedEvictionMap.this.clear();
+        }
+    }
+
+}
@@ -0,0 +1,463 @@
+package de.invesdwin.util.collections.eviction;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.error.FastNoSuchElementException;
+import de.invesdwin.util.math.Integers;
+import de.invesdwin.util.math.Longs;
+
+/**
+ * Window TinyLFU as described by Einziger, Friedman and Manes: new entries go into a small LRU window, entries evicted
+ * from the window only get admitted into the main segmented LRU when a count-min sketch estimates that they were
+ * accessed more often than the entry that would be evicted instead. Thus a single large scan can not flush the hot
+ * working set like it does with the recency based eviction modes.
+ */
+@NotThreadSafe
+public class WindowTinyLfuMap<K, V> extends AbstractMap<K, V> implements IEvictionMap<K, V> {
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Map<K, Node<K, V>> map;
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final Queue<K, V> window = new Queue<>();
+    private final Queue<K, V> probation = new Queue<>();
+    private final Queue<K, V> protectedQueue = new Queue<>();
+    private int maximumSize;
+    private int windowMaximumSize;
+    private int protectedMaximumSize;
+    private EntrySet entrySet;
+
+    public WindowTinyLfuMap(final int maximumSize) {
+        this.map = ILockCollectionFactory.getInstance(false).newMap();
+        setMaximumSize(maximumSize);
+    }
+
+    @Override
+    public V get(final Object key) {
+        final Node<K, V> node = map.get(key);
+        sketch.increment(key);
+        if (node == null) {
+            return null;
+        }
+        onAccess(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        final Node<K, V> existing = map.get(key);
+        sketch.increment(key);
+        if (existing != null) {
+            final V oldValue = existing.value;
+            existing.value = value;
+            onAccess(existing);
+            return oldValue;
+        }
+        final Node<K, V> node = new Node<>(key, value);
+        map.put(key, node);
+        node.queue = WINDOW;
+        window.addLast(node);
+        evict();
+        return null;
+    }
+
+    @Override
+    public V remove(final Object key) {
+        final Node<K, V> node = map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        queueOf(node).remove(node);
+        return node.value;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+        sketch.clear();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private void onAccess(final Node<K, V> node) {
+        switch (node.queue) {
+        case WINDOW:
+            window.moveToLast(node);
+            break;
+        case PROBATION:
+            //promote into the protected segment, the protected segment might need to demote its least recently used
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedQueue.addLast(node);
+            while (protectedQueue.size > protectedMaximumSize) {
+                final Node<K, V> demoted = protectedQueue.removeFirst();
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+            break;
+        case PROTECTED:
+            protectedQueue.moveToLast(node);
+            break;
+        default:
+            throw new IllegalStateException("Unknown queue: " + node.queue);
+        }
+    }
+
+    private void evict() {
+        Node<K, V> candidate = null;
+        while (window.size > windowMaximumSize) {
+            //entries leaving the window are candidates for the main segments
+            candidate = window.removeFirst();
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+        }
+        while (map.size() > maximumSize) {
+            final Node<K, V> victim = probation.first;
+            if (victim == null) {
+                evictFirst(protectedQueue.first != null ? protectedQueue : window);
+            } else if (candidate == null || victim == candidate) {
+                evictFirst(probation);
+                candidate = null;
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictFirst(probation);
+            } else {
+                final Node<K, V> rejected = candidate;
+                candidate = rejected.previous;
+                probation.remove(rejected);
+                map.remove(rejected.key);
+            }
+        }
+    }
+
+    private void evictFirst(final Queue<K, V> queue) {
+        final Node<K, V> node = queue.removeFirst();
+        map.remove(node.key);
+    }
+
+    private Queue<K, V> queueOf(final Node<K, V> node) {
+        switch (node.queue) {
+        case WINDOW:
+            return window;
+        case PROBATION:
+            return probation;
+        case PROTECTED:
+            return protectedQueue;
+        default:
+            throw new IllegalStateException("Unknown queue: " + node.queue);
+        }
+    }
+
+    @Override
+    public EvictionMode getEvictionMode() {
+        return EvictionMode.WindowTinyLfu;
+    }
+
+    @Override
+    public void setMaximumSize(final int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.windowMaximumSize = Integers.max(1, maximumSize * WINDOW_PERCENT / 100);
+        this.protectedMaximumSize = (int) ((long) (maximumSize - windowMaximumSize) * PROTECTED_PERCENT / 100);
+        sketch.ensureCapacity(maximumSize);
+        while (protectedQueue.size > protectedMaximumSize) {
+            final Node<K, V> demoted = protectedQueue.removeFirst();
+            demoted.queue = PROBATION;
+            probation.addLast(demoted);
+        }
+        evict();
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    @NotThreadSafe
+    private static final class Node<K, V> implements Entry<K, V> {
+        private final K key;
+        private V value;
+        private int queue;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        private Node(final K key, final V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(final V value) {
+            final V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list, the first node is the least recently used one.
+     */
+    @NotThreadSafe
+    private static final class Queue<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+        private int size;
+
+        private void addLast(final Node<K, V> node) {
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        private Node<K, V> removeFirst() {
+            final Node<K, V> node = first;
+            if (node == null) {
+                throw FastNoSuchElementException.getInstance("Queue is empty");
+            }
+            remove(node);
+            return node;
+        }
+
+        private void remove(final Node<K, V> node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        private void moveToLast(final Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        private void clear() {
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per key packed into longs. All counters get halved after a sample of
+     * ten times the maximum size so that the frequencies of formerly hot entries age out.
+     */
+    @NotThreadSafe
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final int SAMPLE_SIZE_MULTIPLIER = 10;
+
+        private long[] table = new long[0];
+        private int tableMask;
+        private int sampleSize;
+        private int size;
+
+        private void ensureCapacity(final int maximumSize) {
+            final int capacity = Integers.max(8, Integer.highestOneBit(Integers.max(1, maximumSize) - 1) << 1);
+            sampleSize = newSampleSize(maximumSize);
+            if (table.length >= capacity) {
+                return;
+            }
+            table = new long[capacity];
+            tableMask = capacity - 1;
+            size = 0;
+        }
+
+        private int frequency(final Object key) {
+            final int hash = spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final int index = indexOf(hash, i);
+                final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Integers.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private void increment(final Object key) {
+            final int hash = spread(key.hashCode());
+            final int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final int index = indexOf(hash, i);
+                final int offset = (start + i) << 2;
+                final long mask = 0xfL << offset;
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added) {
+                size++;
+                if (size >= sampleSize) {
+                    reset();
+                }
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size /= 2;
+        }
+
+        private void clear() {
+            Arrays.fill(table, 0L);
+            size = 0;
+        }
+
+        private int indexOf(final int item, final int i) {
+            long hash = (item + SEEDS[i]) * SEEDS[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+
+        private static int spread(final int hashCode) {
+            int x = hashCode;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+
+    /**
+     * Computed in long and clamped like Caffeine does, so that a large maximum size does not overflow into a negative
+     * sample size that would reset the sketch on every increment.
+     */
+    static int newSampleSize(final int maximumSize) {
+        return (int) Longs.min((long) Integers.max(maximumSize, 1) * FrequencySketch.SAMPLE_SIZE_MULTIPLIER,
+                Integer.MAX_VALUE);
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            final Iterator<Node<K, V>> delegate = map.values().iterator();
+            return new Iterator<Entry<K, V>>() {
+                private Node<K, V> current;
+
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    if (!delegate.hasNext()) {
+                        throw FastNoSuchElementException.getInstance("EntrySet iterator has no next element");
+                    }
+                    current = delegate.next();
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    }
+                    delegate.remove();
+                    queueOf(current).remove(current);
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?> e = (Entry<?, ?>) o;
+            final Node<K, V> node = map.get(e.getKey());
+            return node != null && Objects.equals(node.value, e.getValue());
+        }
+
+        @Override
+        public void clear() {
+            WindowTinyLfuMap.this.clear();
+        }
+    }
+
+}
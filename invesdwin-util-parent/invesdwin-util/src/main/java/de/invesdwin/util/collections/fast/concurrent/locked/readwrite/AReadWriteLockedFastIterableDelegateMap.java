@@ -17,6 +17,7 @@ import de.invesdwin.util.collections.iterable.buffer.NodeBufferingIterator;
 import de.invesdwin.util.collections.iterable.collection.ArrayCloseableIterator;
 import de.invesdwin.util.collections.primitive.APrimitiveConcurrentMap;
 import de.invesdwin.util.concurrent.lock.Locks;
+import de.invesdwin.util.concurrent.lock.readwrite.IOptimisticReadWriteLock;
 import de.invesdwin.util.concurrent.lock.readwrite.IReadWriteLock;
 
 /**
@@ -24,6 +25,11 @@ import de.invesdwin.util.concurrent.lock.readwrite.IReadWriteLock;
  * to the map occur.
  * 
  * The iterator returned from this map is also suitable for concurrent modification during iteration.
+ * 
+ * Size checks are done via optimistic reads when an IOptimisticReadWriteLock is given. Lookups always use the read
+ * lock, because probing an arbitrary delegate that is being modified concurrently might loop endlessly. Thus the
+ * default lock is not optimistic, since it would only make writes more expensive. Use the ReadWriteLocked* maps for
+ * optimistic lookups.
  */
 @ThreadSafe
 public abstract class AReadWriteLockedFastIterableDelegateMap<K, V> implements IFastIterableMap<K, V> {
@@ -40,6 +46,10 @@ public abstract class AReadWriteLockedFastIterableDelegateMap<K, V> implements I
     @GuardedBy("lock")
     private final Map<K, V> delegate;
     private final IReadWriteLock lock;
+    /**
+     * null if optimistic reads are not supported by the lock
+     */
+    private final IOptimisticReadWriteLock optimisticLock;
 
     private final Set<Entry<K, V>> entrySet = new EntrySet();
     private final Set<K> keySet = new KeySet();
@@ -49,24 +59,36 @@ public abstract class AReadWriteLockedFastIterableDelegateMap<K, V> implements I
         this.delegate = delegate;
         refreshFastIterable();
         this.lock = Locks.newReentrantReadWriteLock(getClass().getSimpleName());
+        this.optimisticLock = asOptimisticLock(lock);
     }
 
     protected AReadWriteLockedFastIterableDelegateMap(final Map<K, V> delegate, final IReadWriteLock lock) {
         this.delegate = delegate;
         refreshFastIterable();
         this.lock = lock;
+        this.optimisticLock = asOptimisticLock(lock);
     }
 
     public AReadWriteLockedFastIterableDelegateMap() {
         this.delegate = newDelegate();
         refreshFastIterable();
         this.lock = Locks.newReentrantReadWriteLock(getClass().getSimpleName());
+        this.optimisticLock = asOptimisticLock(lock);
     }
 
     public AReadWriteLockedFastIterableDelegateMap(final IReadWriteLock lock) {
         this.delegate = newDelegate();
         refreshFastIterable();
         this.lock = lock;
+        this.optimisticLock = asOptimisticLock(lock);
+    }
+
+    private static IOptimisticReadWriteLock asOptimisticLock(final IReadWriteLock lock) {
+        if (lock instanceof IOptimisticReadWriteLock) {
+            return (IOptimisticReadWriteLock) lock;
+        } else {
+            return null;
+        }
     }
 
     protected abstract Map<K, V> newDelegate();
@@ -285,6 +307,9 @@ public abstract class AReadWriteLockedFastIterableDelegateMap<K, V> implements I
 
     @Override
     public boolean isEmpty() {
+        if (optimisticLock != null) {
+            return optimisticLock.optimisticReadBoolean(delegate::isEmpty);
+        }
         lock.readLock().lock();
         try {
             return delegate.isEmpty();
@@ -295,6 +320,9 @@ public abstract class AReadWriteLockedFastIterableDelegateMap<K, V> implements I
 
     @Override
     public int size() {
+        if (optimisticLock != null) {
+            return optimisticLock.optimisticReadInt(delegate::size);
+        }
         lock.readLock().lock();
         try {
             return delegate.size();
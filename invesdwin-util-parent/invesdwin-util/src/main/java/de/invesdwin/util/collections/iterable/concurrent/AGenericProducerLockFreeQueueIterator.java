@@ -0,0 +1,298 @@
+package de.invesdwin.util.collections.iterable.concurrent;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.SpscArrayQueue;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.iterable.ACloseableIterator;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.Threads;
+import de.invesdwin.util.error.FastNoSuchElementException;
+import de.invesdwin.util.lang.finalizer.AFinalizer;
+import de.invesdwin.util.lang.string.Strings;
+import de.invesdwin.util.lang.string.description.TextDescription;
+
+/**
+ * Alternative to AGenericProducerQueueIterator that hands elements over via a lock free jctools array queue instead of
+ * a blocking queue with 1ms condition polling. Producer and consumer wait according to the given
+ * ProducerQueueWaitStrategy when the queue is full or empty. The consumer drains the queue in batches.
+ *
+ * The queue is single producer by default, override newQueue with an MpscArrayQueue when internalProduce passes the
+ * consumer to multiple threads.
+ */
+@NotThreadSafe
+public abstract class AGenericProducerLockFreeQueueIterator<E> extends ACloseableIterator<E> {
+
+    public static final int DEFAULT_DRAIN_BATCH_SIZE = 128;
+
+    private final class ProducerRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                final Consumer<E> consumer = new Consumer<E>() {
+                    @Override
+                    public void accept(final E t) {
+                        onElement(t);
+                    }
+                };
+                AGenericProducerLockFreeQueueIterator.this.internalProduce(consumer);
+            } catch (final NoSuchElementException e) {
+                //end reached
+            } catch (final Throwable e) {
+                //propagate exception to other thread
+                producerException = e;
+            } finally {
+                //closing does not prevent queue from getting drained completely
+                finalizer.close();
+                internalCloseProducer();
+            }
+        }
+
+        private void onElement(final E element) {
+            Assertions.assertThat(element).isNotNull();
+            if (queue.offer(element)) {
+                return;
+            }
+            if (utilizationDebugEnabled) {
+                LOGGER.info(TextDescription.format("%s: queue is full", finalizer.name));
+            }
+            try {
+                //start work immediately when a bit of space is free again
+                waitStrategy.await(() -> isInnerClosed() || queue.offer(element));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finalizer.close();
+                internalCloseProducer();
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static final org.apache.logging.log4j.Logger LOGGER = org.apache.logging.log4j.LogManager
+            .getLogger(AGenericProducerLockFreeQueueIterator.class);
+
+    private final MessagePassingQueue<E> queue;
+    private final ProducerQueueWaitStrategy waitStrategy;
+    private final GenericProducerLockFreeQueueIteratorFinalizer finalizer;
+
+    @GuardedBy("this")
+    private E nextElement;
+    @GuardedBy("this")
+    private final Object[] batch;
+    @GuardedBy("this")
+    private int batchIndex;
+    @GuardedBy("this")
+    private int batchSize;
+    private final MessagePassingQueue.Consumer<E> batchConsumer = this::addToBatch;
+    private volatile Throwable producerException;
+
+    private boolean utilizationDebugEnabled;
+
+    public AGenericProducerLockFreeQueueIterator(final String name) {
+        this(name, AGenericProducerQueueIterator.DEFAULT_QUEUE_SIZE);
+    }
+
+    public AGenericProducerLockFreeQueueIterator(final String name, final int queueSize) {
+        this(name, queueSize, ProducerQueueWaitStrategy.DEFAULT);
+    }
+
+    public AGenericProducerLockFreeQueueIterator(final String name, final int queueSize,
+            final ProducerQueueWaitStrategy waitStrategy) {
+        super(new TextDescription(name));
+        final String truncatedName = Strings.truncate(name, Threads.SAFE_THREAD_NAME_LENGTH);
+        this.finalizer = new GenericProducerLockFreeQueueIteratorFinalizer(name, newExecutor(truncatedName),
+                isShutdownExecutor());
+        this.queue = newQueue(queueSize);
+        this.waitStrategy = waitStrategy;
+        this.batch = new Object[Math.min(queueSize, getDrainBatchSize())];
+    }
+
+    protected boolean isShutdownExecutor() {
+        return true;
+    }
+
+    protected ExecutorService newExecutor(final String name) {
+        return Executors.newFixedThreadPool(name, 1).setDynamicThreadName(false);
+    }
+
+    /**
+     * Override this to return an MpscArrayQueue when elements are produced by multiple threads.
+     */
+    protected MessagePassingQueue<E> newQueue(final int queueSize) {
+        return new SpscArrayQueue<E>(queueSize);
+    }
+
+    /**
+     * How many elements the consumer takes from the queue at once.
+     */
+    protected int getDrainBatchSize() {
+        return DEFAULT_DRAIN_BATCH_SIZE;
+    }
+
+    protected void start() {
+        finalizer.started = true;
+        finalizer.executor.execute(new ProducerRunnable());
+        this.finalizer.register(this);
+        //read first element
+        this.nextElement = readNext();
+    }
+
+    protected abstract void internalProduce(Consumer<E> consumer);
+
+    /**
+     * Only the opening thread is supposed to close the producer.
+     */
+    protected abstract void internalCloseProducer();
+
+    public AGenericProducerLockFreeQueueIterator<E> setUtilizationDebugEnabled() {
+        this.utilizationDebugEnabled = true;
+        return this;
+    }
+
+    public boolean isUtilizationDebugEnabled() {
+        return utilizationDebugEnabled;
+    }
+
+    public ProducerQueueWaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    protected synchronized boolean innerHasNext() {
+        final Throwable rethrow = producerException;
+        if (rethrow != null) {
+            producerException = null;
+            throw new RuntimeException("Rethrowing async producer exception: " + rethrow, rethrow);
+        }
+        //readNext only returns null when the producer is finished and the queue is drained
+        final boolean hasNext = nextElement != null;
+        if (!hasNext) {
+            finalizer.close();
+        }
+        return hasNext;
+    }
+
+    /*
+     * always peek next and return current to prevent reaching end while being in next and thus having to return null or
+     * throw NoSuchElementException without the caller expecting this
+     */
+    @Override
+    protected synchronized E innerNext() {
+        if (hasNext()) {
+            final E curElement = nextElement;
+            nextElement = null;
+            if (curElement == null) {
+                throw new NullPointerException("ProducerLockFreeQueueIterator: curElement is null");
+            }
+            nextElement = readNext();
+            return curElement;
+        } else {
+            throw FastNoSuchElementException.getInstance("ProducerLockFreeQueueIterator: hasNext is false");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E readNext() {
+        try {
+            boolean firstPoll = true;
+            while (true) {
+                if (batchIndex < batchSize) {
+                    final E element = (E) batch[batchIndex];
+                    batch[batchIndex] = null;
+                    batchIndex++;
+                    return element;
+                }
+                batchIndex = 0;
+                batchSize = 0;
+                if (queue.drain(batchConsumer, batch.length) > 0) {
+                    continue;
+                }
+                if (isInnerClosed()) {
+                    //producer might have added elements before closing
+                    if (queue.drain(batchConsumer, batch.length) > 0) {
+                        continue;
+                    }
+                    return null;
+                }
+                if (!firstPoll && utilizationDebugEnabled) {
+                    LOGGER.info(TextDescription.format("%s: queue is empty", finalizer.name));
+                }
+                firstPoll = false;
+                waitStrategy.await(() -> isInnerClosed() || !queue.isEmpty());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void addToBatch(final E element) {
+        batch[batchSize++] = element;
+    }
+
+    protected boolean isInnerClosed() {
+        return finalizer.isClosed();
+    }
+
+    private static final class GenericProducerLockFreeQueueIteratorFinalizer extends AFinalizer {
+
+        private final String name;
+        private ExecutorService executor;
+        private final boolean shutdownExecutor;
+        private boolean started;
+        private volatile boolean cleaned;
+
+        private GenericProducerLockFreeQueueIteratorFinalizer(final String name, final ExecutorService executor,
+                final boolean shutdownExecutor) {
+            this.name = name;
+            this.executor = executor;
+            this.shutdownExecutor = shutdownExecutor;
+        }
+
+        @Override
+        protected void onClose() {
+            super.onClose();
+            if (!started) {
+                throw new IllegalStateException("start() was forgotten to be called right after the constructor");
+            }
+        }
+
+        @Override
+        protected void clean() {
+            //cannot wait here for executor to close completely since the thread could trigger it himself
+            if (shutdownExecutor) {
+                executor.shutdown();
+            }
+            executor = null;
+            cleaned = true;
+        }
+
+        @Override
+        protected boolean isCleaned() {
+            return cleaned;
+        }
+
+        @Override
+        public boolean isThreadLocal() {
+            return true;
+        }
+
+    }
+
+    @Override
+    protected void innerClose() {
+        finalizer.close();
+    }
+
+}
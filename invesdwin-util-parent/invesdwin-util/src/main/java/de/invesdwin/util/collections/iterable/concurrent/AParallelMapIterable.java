@@ -0,0 +1,56 @@
+package de.invesdwin.util.collections.iterable.concurrent;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.collections.iterable.ACloseableIterator;
+import de.invesdwin.util.collections.iterable.ICloseableIterable;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+
+@Immutable
+public abstract class AParallelMapIterable<R, E> implements ICloseableIterable<E> {
+
+    private final String name;
+    private final ICloseableIterable<R> requests;
+    private final int maxInFlight;
+    private final long maxBufferedWeight;
+    private final WrappedExecutorService executor;
+
+    public AParallelMapIterable(final String name, final ICloseableIterable<R> requests) {
+        this(name, requests, AParallelMapIterator.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AParallelMapIterable(final String name, final ICloseableIterable<R> requests, final int maxInFlight) {
+        this(name, requests, maxInFlight, Long.MAX_VALUE, null);
+    }
+
+    public AParallelMapIterable(final String name, final ICloseableIterable<R> requests, final int maxInFlight,
+            final long maxBufferedWeight, final WrappedExecutorService executor) {
+        this.name = name;
+        this.requests = requests;
+        this.maxInFlight = maxInFlight;
+        this.maxBufferedWeight = maxBufferedWeight;
+        this.executor = executor;
+    }
+
+    @Override
+    public ACloseableIterator<E> iterator() {
+        return new AParallelMapIterator<R, E>(name, requests.iterator(), maxInFlight, maxBufferedWeight, executor) {
+            @Override
+            protected E doWork(final R request) {
+                return AParallelMapIterable.this.doWork(request);
+            }
+
+            @Override
+            protected long getWeight(final E result) {
+                return AParallelMapIterable.this.getWeight(result);
+            }
+        };
+    }
+
+    protected abstract E doWork(R request);
+
+    protected long getWeight(final E result) {
+        return 0L;
+    }
+
+}
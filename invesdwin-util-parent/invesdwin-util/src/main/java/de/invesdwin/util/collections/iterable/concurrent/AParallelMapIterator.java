@@ -0,0 +1,170 @@
+package de.invesdwin.util.collections.iterable.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.collections.iterable.ACloseableIterator;
+import de.invesdwin.util.collections.iterable.ICloseableIterator;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.Threads;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+import de.invesdwin.util.concurrent.future.Futures;
+import de.invesdwin.util.error.FastNoSuchElementException;
+import de.invesdwin.util.lang.finalizer.AFinalizer;
+import de.invesdwin.util.lang.string.Strings;
+import de.invesdwin.util.lang.string.description.TextDescription;
+
+/**
+ * Streaming alternative to AParallelChunkConsumerIterator. Instead of waiting for a whole chunk, a sliding window of
+ * in-flight tasks is kept and a new request is submitted as soon as the head result is emitted. Results are emitted in
+ * the order of the requests, so a slow element only delays the elements behind it while the workers keep busy.
+ *
+ * The window is bounded by maxInFlight and by maxBufferedWeight, the latter sums up getWeight of results that are
+ * finished but not emitted yet.
+ */
+@ThreadSafe
+public abstract class AParallelMapIterator<R, E> extends ACloseableIterator<E> {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = Executors.getCpuThreadPoolCount() * 2;
+
+    @GuardedBy("this")
+    private final ParallelMapIteratorFinalizer<R, E> finalizer;
+    private final int maxInFlight;
+    private final long maxBufferedWeight;
+    private final AtomicLong bufferedWeight = new AtomicLong();
+
+    public AParallelMapIterator(final String name, final ICloseableIterator<R> requests) {
+        this(name, requests, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AParallelMapIterator(final String name, final ICloseableIterator<R> requests, final int maxInFlight) {
+        this(name, requests, maxInFlight, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * When no executor is given, a fixed thread pool with the size of maxInFlight is created and shut down on close.
+     */
+    public AParallelMapIterator(final String name, final ICloseableIterator<R> requests, final int maxInFlight,
+            final long maxBufferedWeight, final WrappedExecutorService executor) {
+        super(new TextDescription(name));
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight should be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxBufferedWeight = maxBufferedWeight;
+        this.finalizer = new ParallelMapIteratorFinalizer<>(name, requests, maxInFlight, executor);
+        this.finalizer.register(this);
+    }
+
+    @Override
+    protected synchronized boolean innerHasNext() {
+        return !finalizer.futures.isEmpty() || finalizer.requests.hasNext();
+    }
+
+    @Override
+    protected synchronized E innerNext() {
+        submitRequests();
+        final Future<E> head = finalizer.futures.pollFirst();
+        if (head == null) {
+            throw FastNoSuchElementException.getInstance("AParallelMapIterator: futures is empty");
+        }
+        try {
+            final E result = Futures.get(head);
+            bufferedWeight.addAndGet(-getWeight(result));
+            //keep the workers busy while the caller processes the result
+            submitRequests();
+            return result;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw FastNoSuchElementException.getInstance("AParallelMapIterator: InterrupedException received");
+        } catch (final Throwable t) {
+            //cancel the remaining work before propagating the error to the caller
+            close();
+            throw t;
+        }
+    }
+
+    private void submitRequests() {
+        while (finalizer.futures.size() < maxInFlight && finalizer.requests.hasNext()
+                && (finalizer.futures.isEmpty() || bufferedWeight.get() < maxBufferedWeight)) {
+            final R request = finalizer.requests.next();
+            final Future<E> future = finalizer.executor.submit(() -> {
+                final E result = doWork(request);
+                bufferedWeight.addAndGet(getWeight(result));
+                return result;
+            });
+            finalizer.futures.addLast(future);
+        }
+    }
+
+    protected abstract E doWork(R request);
+
+    /**
+     * Return e.g. an estimated size in bytes to limit the memory used by results that wait for emission. By default the
+     * window is only limited by maxInFlight.
+     */
+    protected long getWeight(final E result) {
+        return 0L;
+    }
+
+    private static final class ParallelMapIteratorFinalizer<_R, _E> extends AFinalizer {
+
+        private final Deque<Future<_E>> futures = new ArrayDeque<>();
+        private final boolean shutdownExecutor;
+        private ICloseableIterator<_R> requests;
+        private WrappedExecutorService executor;
+
+        private ParallelMapIteratorFinalizer(final String name, final ICloseableIterator<_R> requests,
+                final int maxInFlight, final WrappedExecutorService executor) {
+            this.requests = requests;
+            if (executor != null) {
+                this.executor = executor;
+                this.shutdownExecutor = false;
+            } else {
+                final String truncatedName = Strings.truncate(name, Threads.SAFE_THREAD_NAME_LENGTH);
+                this.executor = Executors.newFixedThreadPool(truncatedName, maxInFlight)
+                        .setDynamicThreadName(false);
+                this.shutdownExecutor = true;
+            }
+        }
+
+        @Override
+        protected void clean() {
+            Futures.cancel(futures);
+            futures.clear();
+            if (requests != null) {
+                requests.close();
+                requests = null;
+            }
+            if (executor != null) {
+                if (shutdownExecutor) {
+                    executor.shutdown();
+                }
+                executor = null;
+            }
+        }
+
+        @Override
+        protected boolean isCleaned() {
+            return executor == null;
+        }
+
+        @Override
+        public boolean isThreadLocal() {
+            return true;
+        }
+
+    }
+
+    @Override
+    protected void innerClose() {
+        finalizer.close();
+    }
+
+}
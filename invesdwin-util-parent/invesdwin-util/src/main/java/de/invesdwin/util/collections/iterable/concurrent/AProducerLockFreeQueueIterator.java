@@ -0,0 +1,57 @@
+package de.invesdwin.util.collections.iterable.concurrent;
+
+import java.util.function.Consumer;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.collections.iterable.ADelegateCloseableIterator;
+import de.invesdwin.util.collections.iterable.ICloseableIterator;
+
+@NotThreadSafe
+public abstract class AProducerLockFreeQueueIterator<E> extends AGenericProducerLockFreeQueueIterator<E> {
+
+    private final ICloseableIterator<E> producer;
+
+    public AProducerLockFreeQueueIterator(final String name) {
+        this(name, AGenericProducerQueueIterator.DEFAULT_QUEUE_SIZE);
+    }
+
+    public AProducerLockFreeQueueIterator(final String name, final int queueSize) {
+        this(name, queueSize, ProducerQueueWaitStrategy.DEFAULT);
+    }
+
+    public AProducerLockFreeQueueIterator(final String name, final int queueSize,
+            final ProducerQueueWaitStrategy waitStrategy) {
+        super(name, queueSize, waitStrategy);
+        this.producer = new ADelegateCloseableIterator<E>() {
+
+            @Override
+            protected ICloseableIterator<E> newDelegate() {
+                return AProducerLockFreeQueueIterator.this.newProducer();
+            }
+        };
+        start();
+    }
+
+    protected abstract ICloseableIterator<E> newProducer();
+
+    @Override
+    protected void internalProduce(final Consumer<E> consumer) {
+        while (!isInnerClosed() && producer.hasNext()) {
+            final E next = producer.next();
+            consumer.accept(next);
+        }
+    }
+
+    @Override
+    protected void internalCloseProducer() {
+        producer.close();
+    }
+
+    @Override
+    public AProducerLockFreeQueueIterator<E> setUtilizationDebugEnabled() {
+        super.setUtilizationDebugEnabled();
+        return this;
+    }
+
+}
@@ -13,6 +13,7 @@ public class ProducerQueueIterable<E> implements ICloseableIterable<E> {
     private ICloseableIterable<E> producer;
     private int queueSize;
     private boolean utilizationDebugEnabled;
+    private ProducerQueueWaitStrategy waitStrategy;
 
     public ProducerQueueIterable(final String name, final ICloseableIterable<E> producer) {
         this(name, producer, AProducerQueueIterator.DEFAULT_QUEUE_SIZE);
@@ -26,6 +27,19 @@ public class ProducerQueueIterable<E> implements ICloseableIterable<E> {
 
     @Override
     public ACloseableIterator<E> iterator() {
+        if (waitStrategy != null) {
+            final AProducerLockFreeQueueIterator<E> iterator = new AProducerLockFreeQueueIterator<E>(name, queueSize,
+                    waitStrategy) {
+                @Override
+                protected ICloseableIterator<E> newProducer() {
+                    return producer.iterator();
+                }
+            };
+            if (utilizationDebugEnabled) {
+                iterator.setUtilizationDebugEnabled();
+            }
+            return iterator;
+        }
         final AProducerQueueIterator<E> iterator = new AProducerQueueIterator<E>(name, queueSize) {
             @Override
             protected ICloseableIterator<E> newProducer() {
@@ -47,4 +61,17 @@ public class ProducerQueueIterable<E> implements ICloseableIterable<E> {
         return utilizationDebugEnabled;
     }
 
+    /**
+     * Switches to a lock free queue where producer and consumer wait with the given strategy, null restores the
+     * blocking queue.
+     */
+    public ProducerQueueIterable<E> setWaitStrategy(final ProducerQueueWaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    public ProducerQueueWaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package de.invesdwin.util.collections.iterable.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.concurrent.loop.spinwait.ABaseSpinWait;
+import de.invesdwin.util.concurrent.loop.spinwait.ISpinWaitCondition;
+import de.invesdwin.util.concurrent.loop.spinwait.SpinWait;
+import de.invesdwin.util.time.date.millis.FDateNanos;
+
+/**
+ * Defines how producers and consumers of a lock free queue wait when the queue is full or empty.
+ */
+@Immutable
+public enum ProducerQueueWaitStrategy {
+    /**
+     * Lowest latency, but burns a full CPU core per waiting thread.
+     */
+    SPIN {
+        @Override
+        public void await(final ISpinWaitCondition condition) throws Exception {
+            while (!condition.isConditionFulfilled()) {
+                ABaseSpinWait.onSpinWaitStatic();
+            }
+        }
+    },
+    /**
+     * Gives other threads a chance to run, good when there are more busy threads than cores.
+     */
+    YIELD {
+        @Override
+        public void await(final ISpinWaitCondition condition) throws Exception {
+            while (!condition.isConditionFulfilled()) {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * Minimal CPU usage at the cost of latency that depends on the timer resolution of the OS.
+     */
+    PARK {
+        @Override
+        public void await(final ISpinWaitCondition condition) throws Exception {
+            final Thread thread = Thread.currentThread();
+            while (!condition.isConditionFulfilled()) {
+                if (thread.isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+    },
+    /**
+     * Spins first and parks when the wait takes longer, see ASpinWait.
+     */
+    SPIN_WAIT {
+        private final SpinWait spinWait = new SpinWait();
+
+        @Override
+        public void await(final ISpinWaitCondition condition) throws Exception {
+            spinWait.awaitFulfill(condition, FDateNanos.elapsedNanos());
+        }
+    };
+
+    public static final ProducerQueueWaitStrategy DEFAULT = SPIN_WAIT;
+
+    private static final long PARK_NANOS = ABaseSpinWait.DEFAULT_MAX_PARK_INTERVAL.nanosValue();
+
+    /**
+     * Blocks until the condition is fulfilled.
+     */
+    public abstract void await(ISpinWaitCondition condition) throws Exception;
+
+}
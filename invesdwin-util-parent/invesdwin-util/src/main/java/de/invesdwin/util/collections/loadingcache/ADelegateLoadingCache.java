@@ -102,6 +102,11 @@ public abstract class ADelegateLoadingCache<K, V> implements ILoadingCache<K, V>
         return getDelegate().computeIfAbsent(key, mappingFunction);
     }
 
+    @Override
+    public Map<K, V> getAll(final Iterable<? extends K> keys) {
+        return getDelegate().getAll(keys);
+    }
+
     @Override
     public String toString() {
         return getDelegate().toString();
@@ -1,26 +1,51 @@
 package de.invesdwin.util.collections.loadingcache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.Function;
 
 import javax.annotation.concurrent.ThreadSafe;
 
 import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.Collections;
 import de.invesdwin.util.collections.eviction.EvictionMode;
 import de.invesdwin.util.collections.eviction.IEvictionMap;
+import de.invesdwin.util.collections.eviction.IWeigher;
+import de.invesdwin.util.collections.eviction.WeightedEvictionMap;
 import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.collections.list.Lists;
+import de.invesdwin.util.collections.loadingcache.disk.DiskTier;
 import de.invesdwin.util.collections.loadingcache.map.CaffeineLoadingCache;
+import de.invesdwin.util.collections.loadingcache.map.DiskTierLoadingCache;
 import de.invesdwin.util.collections.loadingcache.map.EvictionMapLoadingCache;
 import de.invesdwin.util.collections.loadingcache.map.NoCachingLoadingCache;
+import de.invesdwin.util.collections.loadingcache.map.RefreshAheadLoadingCache;
 import de.invesdwin.util.collections.loadingcache.map.SynchronizedEvictionMapLoadingCache;
 import de.invesdwin.util.collections.loadingcache.map.SynchronizedUnlimitedCachingLoadingCache;
 import de.invesdwin.util.collections.loadingcache.map.UnlimitedCachingLoadingCache;
+import de.invesdwin.util.collections.loadingcache.stats.CacheStatsCounter;
+import de.invesdwin.util.collections.loadingcache.stats.LoadingCacheStats;
+import de.invesdwin.util.collections.loadingcache.stats.StatsLoadingCache;
 import de.invesdwin.util.collections.recursive.FastRecursiveLoadRuntimeException;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
 import de.invesdwin.util.concurrent.reference.WeakThreadLocalReference;
+import de.invesdwin.util.math.Integers;
+import de.invesdwin.util.time.duration.Duration;
 
 @ThreadSafe
 public abstract class ALoadingCache<K, V> extends ADelegateLoadingCache<K, V> {
 
+    /**
+     * The loader that is also used by the delegate (with recursive load prevention and stats recording). Assigned
+     * during newDelegate() from the super constructor, thus it must not have an initializer.
+     */
+    private Function<K, V> loadValueF;
+
     /**
      * default unlimited size
      */
@@ -49,6 +74,20 @@ public abstract class ALoadingCache<K, V> extends ADelegateLoadingCache<K, V> {
         return ALoadingCacheConfig.DEFAULT_EVICTION_MODE;
     }
 
+    /**
+     * default is null, which bounds the cache by the number of entries only
+     */
+    protected IWeigher<K, V> getWeigher() {
+        return null;
+    }
+
+    /**
+     * default is unlimited, so that only the process-wide MemoryBudget applies when a weigher is given
+     */
+    protected long getMaximumWeight() {
+        return ALoadingCacheConfig.DEFAULT_MAXIMUM_WEIGHT;
+    }
+
     /**
      * default is false, since this comes at a cost
      */
@@ -56,14 +95,245 @@ public abstract class ALoadingCache<K, V> extends ADelegateLoadingCache<K, V> {
         return ALoadingCacheConfig.DEFAULT_PREVENT_RECURSIVE_LOAD;
     }
 
+    /**
+     * Caches with the same name share their statistics when LoadingCacheStats is enabled, default is the class name.
+     */
+    protected String getStatsName() {
+        return getClass().getName();
+    }
+
     protected abstract V loadValue(K key);
 
+    /**
+     * Can be overridden to load multiple missing keys at once in getAll(...), e.g. with a single database query. Keys
+     * that are missing in the result are not cached and not contained in the result of getAll(...). The keys are given
+     * in the requested order and contain at most getMaximumBatchSize() elements. When this throws an exception, the
+     * keys of the batch are loaded one by one via loadValue(...) instead. By default the keys are loaded one by one
+     * through the same loader as get(...), thus recursive load prevention and statistics apply.
+     */
+    protected Map<K, V> loadValues(final Collection<K> keys) {
+        Function<K, V> loadValueFCopy = loadValueF;
+        if (loadValueFCopy == null) {
+            //newDelegate() was overridden
+            loadValueFCopy = newLoadValueF();
+        }
+        final Map<K, V> values = ILockCollectionFactory.getInstance(false).newMap();
+        for (final K key : keys) {
+            final V value = loadValueFCopy.apply(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * default is 1000, the missing keys of getAll(...) are split into batches of this size
+     */
+    protected int getMaximumBatchSize() {
+        return ALoadingCacheConfig.DEFAULT_MAXIMUM_BATCH_SIZE;
+    }
+
+    /**
+     * Values older than this get reloaded asynchronously while still serving the old value, default is null to disable
+     * this.
+     */
+    protected Duration getRefreshAfterWrite() {
+        return ALoadingCacheConfig.DEFAULT_REFRESH_AFTER_WRITE;
+    }
+
+    /**
+     * Values older than this are not served anymore but reloaded synchronously, default is null to always serve stale
+     * values while refreshing. Only used when getRefreshAfterWrite() is not null.
+     */
+    protected Duration getExpireAfterWrite() {
+        return ALoadingCacheConfig.DEFAULT_EXPIRE_AFTER_WRITE;
+    }
+
+    /**
+     * The executor is bounded, when it is busy the refresh is retried on the next request. Caches that are not thread
+     * safe refresh synchronously.
+     */
+    protected WrappedExecutorService getRefreshExecutor() {
+        return RefreshExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * default is null, otherwise misses of the heap cache are looked up in this persistent tier before loading them and
+     * loaded values are written through to it. clear() does not clear the disk tier.
+     */
+    protected DiskTier<K, V> getDiskTier() {
+        return null;
+    }
+
+    /**
+     * default is false, otherwise the heap cache gets filled with the newest entries of the disk tier on creation
+     */
+    protected boolean isDiskTierPrewarm() {
+        return ALoadingCacheConfig.DEFAULT_DISK_TIER_PREWARM;
+    }
+
+    @Override
+    public Map<K, V> getAll(final Iterable<? extends K> keys) {
+        //the keys are iterated twice, which single pass iterables do not support
+        final Collection<? extends K> keysCollection;
+        if (keys instanceof Collection) {
+            keysCollection = (Collection<? extends K>) keys;
+        } else {
+            keysCollection = Lists.toListWithoutHasNext(keys);
+        }
+        final Map<K, V> present = ILockCollectionFactory.getInstance(false).newMap();
+        List<K> missing = null;
+        for (final K key : keysCollection) {
+            final V value = getIfPresent(key);
+            if (value != null) {
+                present.put(key, value);
+            } else {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(key);
+            }
+        }
+        final Map<K, V> loaded;
+        if (missing != null) {
+            loaded = loadMissing(missing);
+        } else {
+            loaded = Collections.emptyMap();
+        }
+        //keep the order of the requested keys
+        final Map<K, V> result = ILockCollectionFactory.getInstance(false).newLinkedMap();
+        for (final K key : keysCollection) {
+            V value = present.get(key);
+            if (value == null) {
+                value = loaded.get(key);
+            }
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Values that were loaded successfully stay cached even if other keys failed, so that a retry only needs to load
+     * the failed keys. The first failure is thrown with the others added as suppressed exceptions.
+     */
+    private Map<K, V> loadMissing(final List<K> missing) {
+        final Map<K, V> loaded = ILockCollectionFactory.getInstance(false).newMap();
+        final int maximumBatchSize = Integers.max(1, getMaximumBatchSize());
+        RuntimeException failure = null;
+        for (int from = 0; from < missing.size(); from += maximumBatchSize) {
+            final List<K> batch = missing.subList(from, Integers.min(missing.size(), from + maximumBatchSize));
+            failure = loadBatch(batch, loaded, failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return loaded;
+    }
+
+    private RuntimeException loadBatch(final List<K> batch, final Map<K, V> loaded, final RuntimeException failure) {
+        final Map<K, V> values;
+        try {
+            values = loadValues(batch);
+        } catch (final RuntimeException e) {
+            //find out which keys are actually failing
+            return loadOneByOne(batch, loaded, failure);
+        }
+        for (final Entry<K, V> entry : values.entrySet()) {
+            if (entry.getValue() != null) {
+                put(entry.getKey(), entry.getValue());
+                loaded.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return failure;
+    }
+
+    private RuntimeException loadOneByOne(final List<K> batch, final Map<K, V> loaded,
+            final RuntimeException failure) {
+        RuntimeException newFailure = failure;
+        for (int i = 0; i < batch.size(); i++) {
+            final K key = batch.get(i);
+            try {
+                final V value = get(key);
+                if (value != null) {
+                    loaded.put(key, value);
+                }
+            } catch (final RuntimeException e) {
+                if (newFailure == null) {
+                    newFailure = e;
+                } else if (newFailure != e) {
+                    newFailure.addSuppressed(e);
+                }
+            }
+        }
+        return newFailure;
+    }
+
     @Override
     protected ILoadingCache<K, V> newDelegate() {
+        final CacheStatsCounter stats = LoadingCacheStats.maybeGetCounter(getStatsName());
+        if (stats == null) {
+            loadValueF = newLoadValueF();
+            return maybeRefreshAhead(loadValueF);
+        } else {
+            loadValueF = stats.newRecordingLoadValue(newLoadValueF());
+            final ILoadingCache<K, V> delegate = maybeRefreshAhead(loadValueF);
+            return new StatsLoadingCache<K, V>(delegate, stats);
+        }
+    }
+
+    private ILoadingCache<K, V> maybeRefreshAhead(final Function<K, V> loadValue) {
+        final Duration refreshAfterWrite = getRefreshAfterWrite();
+        if (refreshAfterWrite == null) {
+            return maybeDiskTier(loadValue);
+        } else {
+            final WrappedExecutorService refreshExecutor;
+            if (isThreadSafe()) {
+                refreshExecutor = getRefreshExecutor();
+            } else {
+                refreshExecutor = null;
+            }
+            //refreshes call the loader directly, thus they bypass the disk tier and write through to it
+            return new RefreshAheadLoadingCache<K, V>(loadValue, this::maybeDiskTier, refreshAfterWrite,
+                    getExpireAfterWrite(), refreshExecutor);
+        }
+    }
+
+    private ILoadingCache<K, V> maybeDiskTier(final Function<K, V> loadValue) {
+        final DiskTier<K, V> diskTier = getDiskTier();
+        if (diskTier == null) {
+            return newLoadingCache(loadValue);
+        } else {
+            final DiskTierLoadingCache<K, V> cache = new DiskTierLoadingCache<K, V>(loadValue, this::newLoadingCache,
+                    diskTier);
+            final Integer maximumSize = getInitialMaximumSize();
+            if (isDiskTierPrewarm() && (maximumSize == null || maximumSize > 0)) {
+                cache.prewarm(maximumSize != null ? maximumSize : Integer.MAX_VALUE);
+            }
+            return cache;
+        }
+    }
+
+    private ILoadingCache<K, V> newLoadingCache(final Function<K, V> loadValue) {
         final Integer maximumSize = getInitialMaximumSize();
-        final Function<K, V> loadValue = newLoadValueF();
         final boolean threadSafe = isThreadSafe();
-        if (isHighConcurrency()) {
+        final IWeigher<K, V> weigher = getWeigher();
+        if (weigher != null && (maximumSize == null || maximumSize > 0)) {
+            if (getEvictionMode() != EvictionMode.LeastRecentlyUsed) {
+                throw new IllegalArgumentException("a weigher only supports " + EvictionMode.LeastRecentlyUsed
+                        + " but the eviction mode is: " + getEvictionMode());
+            }
+            //high concurrency is not supported with a weigher, synchronization is used instead
+            final WeightedEvictionMap<K, V> evictionMap = new WeightedEvictionMap<>(
+                    maximumSize != null ? maximumSize : Integer.MAX_VALUE, getMaximumWeight(), weigher);
+            if (threadSafe) {
+                return new SynchronizedEvictionMapLoadingCache<K, V>(loadValue, evictionMap);
+            } else {
+                return new EvictionMapLoadingCache<>(loadValue, evictionMap);
+            }
+        } else if (isHighConcurrency()) {
             Assertions.checkTrue(threadSafe);
             return newConcurrentLoadingCache(loadValue, maximumSize);
         } else if (maximumSize == null) {
@@ -75,8 +345,7 @@ public abstract class ALoadingCache<K, V> extends ADelegateLoadingCache<K, V> {
         } else if (maximumSize == 0) {
             return new NoCachingLoadingCache<K, V>(loadValue);
         } else {
-            final EvictionMode evictionMode = getEvictionMode();
-            final IEvictionMap<K, V> evictionMap = evictionMode.newMap(maximumSize);
+            final IEvictionMap<K, V> evictionMap = newEvictionMap(maximumSize);
             if (evictionMap.isThreadSafe()) {
                 Assertions.checkTrue(threadSafe);
             }
@@ -88,6 +357,13 @@ public abstract class ALoadingCache<K, V> extends ADelegateLoadingCache<K, V> {
         }
     }
 
+    /**
+     * Can be overridden to provide a different storage for the cached values, by default the eviction mode decides.
+     */
+    protected IEvictionMap<K, V> newEvictionMap(final int maximumSize) {
+        return getEvictionMode().newMap(maximumSize);
+    }
+
     protected Function<K, V> newLoadValueF() {
         if (isPreventRecursiveLoad()) {
             if (isHighConcurrency()) {
@@ -153,4 +429,12 @@ public abstract class ALoadingCache<K, V> extends ADelegateLoadingCache<K, V> {
         return new CaffeineLoadingCache<K, V>(loadValue, maximumSize);
     }
 
+    private static final class RefreshExecutorHolder {
+        private static final WrappedExecutorService EXECUTOR = Executors
+                .newFixedThreadPool(ALoadingCache.class.getSimpleName() + "_REFRESH", Executors.getCpuThreadPoolCount())
+                .setDynamicThreadName(false);
+
+        private RefreshExecutorHolder() {}
+    }
+
 }
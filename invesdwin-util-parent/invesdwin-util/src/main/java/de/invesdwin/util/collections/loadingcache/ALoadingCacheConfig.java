@@ -1,8 +1,15 @@
 package de.invesdwin.util.collections.loadingcache;
 
+import java.util.Collection;
+import java.util.Map;
+
 import javax.annotation.concurrent.NotThreadSafe;
 
 import de.invesdwin.util.collections.eviction.EvictionMode;
+import de.invesdwin.util.collections.eviction.IWeigher;
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.collections.loadingcache.disk.DiskTier;
+import de.invesdwin.util.time.duration.Duration;
 
 @NotThreadSafe
 public abstract class ALoadingCacheConfig<K, V> {
@@ -12,6 +19,11 @@ public abstract class ALoadingCacheConfig<K, V> {
     public static final boolean DEFAULT_THREAD_SAFE = true;
     public static final EvictionMode DEFAULT_EVICTION_MODE = EvictionMode.LeastRecentlyUsed;
     public static final boolean DEFAULT_PREVENT_RECURSIVE_LOAD = false;
+    public static final long DEFAULT_MAXIMUM_WEIGHT = Long.MAX_VALUE;
+    public static final Duration DEFAULT_REFRESH_AFTER_WRITE = null;
+    public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = null;
+    public static final int DEFAULT_MAXIMUM_BATCH_SIZE = 1000;
+    public static final boolean DEFAULT_DISK_TIER_PREWARM = false;
 
     protected boolean initialMaximumSizeOverrideEnabled = false;
     protected Integer initialMaximumSizeOverride;
@@ -19,6 +31,15 @@ public abstract class ALoadingCacheConfig<K, V> {
     protected Boolean threadSafeOverride;
     protected EvictionMode evictionModeOverride;
     protected Boolean preventRecursiveLoadOverride;
+    protected IWeigher<K, V> weigherOverride;
+    protected Long maximumWeightOverride;
+    protected boolean refreshAfterWriteOverrideEnabled = false;
+    protected Duration refreshAfterWriteOverride;
+    protected boolean expireAfterWriteOverrideEnabled = false;
+    protected Duration expireAfterWriteOverride;
+    protected Integer maximumBatchSizeOverride;
+    protected DiskTier<K, V> diskTierOverride;
+    protected Boolean diskTierPrewarmOverride;
 
     /**
      * default unlimited size
@@ -67,6 +88,81 @@ public abstract class ALoadingCacheConfig<K, V> {
         this.evictionModeOverride = evictionModeOverride;
     }
 
+    /**
+     * default is null, which bounds the cache by the number of entries only. When a weigher is given, entries get
+     * evicted once the sum of their weights exceeds the maximum weight and they also count against the process-wide
+     * MemoryBudget. The initial maximum size then stays an additional limit for the number of entries. Only the least
+     * recently used eviction mode is supported with a weigher.
+     */
+    protected IWeigher<K, V> getWeigher() {
+        return null;
+    }
+
+    public void setWeigherOverride(final IWeigher<K, V> weigherOverride) {
+        this.weigherOverride = weigherOverride;
+    }
+
+    /**
+     * default is unlimited, so that only the process-wide MemoryBudget applies; normally in bytes
+     */
+    protected long getMaximumWeight() {
+        return DEFAULT_MAXIMUM_WEIGHT;
+    }
+
+    public void setMaximumWeightOverride(final long maximumWeightOverride) {
+        this.maximumWeightOverride = maximumWeightOverride;
+    }
+
+    /**
+     * default is null to disable refresh ahead. Otherwise values older than this get reloaded in the background while
+     * the old value is still served (stale while revalidate).
+     */
+    protected Duration getRefreshAfterWrite() {
+        return DEFAULT_REFRESH_AFTER_WRITE;
+    }
+
+    public void setRefreshAfterWriteOverride(final Duration refreshAfterWriteOverride) {
+        refreshAfterWriteOverrideEnabled = true;
+        this.refreshAfterWriteOverride = refreshAfterWriteOverride;
+    }
+
+    /**
+     * default is null to always serve stale values while refreshing. Otherwise values older than this get reloaded
+     * synchronously.
+     */
+    protected Duration getExpireAfterWrite() {
+        return DEFAULT_EXPIRE_AFTER_WRITE;
+    }
+
+    public void setExpireAfterWriteOverride(final Duration expireAfterWriteOverride) {
+        expireAfterWriteOverrideEnabled = true;
+        this.expireAfterWriteOverride = expireAfterWriteOverride;
+    }
+
+    /**
+     * default is null, otherwise misses are looked up in this persistent tier (e.g. after a restart or after the entry
+     * got evicted from the heap) before loading them and loaded values are written through to it. The disk tier is
+     * neither cleared nor closed by the cache.
+     */
+    protected DiskTier<K, V> getDiskTier() {
+        return null;
+    }
+
+    public void setDiskTierOverride(final DiskTier<K, V> diskTierOverride) {
+        this.diskTierOverride = diskTierOverride;
+    }
+
+    /**
+     * default is false, otherwise the cache gets filled with the newest entries of the disk tier on creation
+     */
+    protected boolean isDiskTierPrewarm() {
+        return DEFAULT_DISK_TIER_PREWARM;
+    }
+
+    public void setDiskTierPrewarmOverride(final boolean diskTierPrewarmOverride) {
+        this.diskTierPrewarmOverride = diskTierPrewarmOverride;
+    }
+
     /**
      * default is false, since this comes at a cost
      */
@@ -74,14 +170,54 @@ public abstract class ALoadingCacheConfig<K, V> {
         return DEFAULT_PREVENT_RECURSIVE_LOAD;
     }
 
+    /**
+     * Caches with the same name share their statistics when LoadingCacheStats is enabled, default is the class name.
+     */
+    protected String getStatsName() {
+        return getClass().getName();
+    }
+
     protected abstract V loadValue(K key);
 
+    /**
+     * The missing keys of ALoadingCache.getAll(...) are split into batches of at most this size for loadValues(...),
+     * e.g. to stay below the parameter limit of a database query.
+     */
+    protected int getMaximumBatchSize() {
+        return DEFAULT_MAXIMUM_BATCH_SIZE;
+    }
+
+    public void setMaximumBatchSizeOverride(final int maximumBatchSizeOverride) {
+        this.maximumBatchSizeOverride = maximumBatchSizeOverride;
+    }
+
+    /**
+     * Can be overridden to load multiple missing keys at once in ALoadingCache.getAll(...).
+     */
+    protected Map<K, V> loadValues(final Collection<K> keys) {
+        final Map<K, V> values = ILockCollectionFactory.getInstance(false).newMap();
+        for (final K key : keys) {
+            final V value = loadValue(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     public ALoadingCache<K, V> newInstance() {
         final Integer initialMaximumSize = determineInitialMaximumSize();
         final boolean highConcurrency = determineHighConcurrency();
         final boolean threadSafe = determineThreadSafe();
         final EvictionMode evictionMode = determineEvictionMode();
         final boolean preventRecursiveLoad = determinePreventRecursiveLoad();
+        final IWeigher<K, V> weigher = determineWeigher();
+        final long maximumWeight = determineMaximumWeight();
+        final Duration refreshAfterWrite = determineRefreshAfterWrite();
+        final Duration expireAfterWrite = determineExpireAfterWrite();
+        final int maximumBatchSize = determineMaximumBatchSize();
+        final DiskTier<K, V> diskTier = determineDiskTier();
+        final boolean diskTierPrewarm = determineDiskTierPrewarm();
         return new ALoadingCache<K, V>() {
 
             @Override
@@ -109,6 +245,51 @@ public abstract class ALoadingCacheConfig<K, V> {
                 return preventRecursiveLoad;
             }
 
+            @Override
+            protected IWeigher<K, V> getWeigher() {
+                return weigher;
+            }
+
+            @Override
+            protected long getMaximumWeight() {
+                return maximumWeight;
+            }
+
+            @Override
+            protected Duration getRefreshAfterWrite() {
+                return refreshAfterWrite;
+            }
+
+            @Override
+            protected Duration getExpireAfterWrite() {
+                return expireAfterWrite;
+            }
+
+            @Override
+            protected int getMaximumBatchSize() {
+                return maximumBatchSize;
+            }
+
+            @Override
+            protected DiskTier<K, V> getDiskTier() {
+                return diskTier;
+            }
+
+            @Override
+            protected boolean isDiskTierPrewarm() {
+                return diskTierPrewarm;
+            }
+
+            @Override
+            protected String getStatsName() {
+                return ALoadingCacheConfig.this.getStatsName();
+            }
+
+            @Override
+            protected Map<K, V> loadValues(final Collection<K> keys) {
+                return ALoadingCacheConfig.this.loadValues(keys);
+            }
+
             @Override
             protected V loadValue(final K key) {
                 return ALoadingCacheConfig.this.loadValue(key);
@@ -127,6 +308,76 @@ public abstract class ALoadingCacheConfig<K, V> {
         return preventRecursiveLoad;
     }
 
+    protected Duration determineRefreshAfterWrite() {
+        final Duration refreshAfterWrite;
+        if (refreshAfterWriteOverrideEnabled) {
+            refreshAfterWrite = refreshAfterWriteOverride;
+        } else {
+            refreshAfterWrite = getRefreshAfterWrite();
+        }
+        return refreshAfterWrite;
+    }
+
+    protected Duration determineExpireAfterWrite() {
+        final Duration expireAfterWrite;
+        if (expireAfterWriteOverrideEnabled) {
+            expireAfterWrite = expireAfterWriteOverride;
+        } else {
+            expireAfterWrite = getExpireAfterWrite();
+        }
+        return expireAfterWrite;
+    }
+
+    protected DiskTier<K, V> determineDiskTier() {
+        final DiskTier<K, V> diskTier;
+        if (diskTierOverride != null) {
+            diskTier = diskTierOverride;
+        } else {
+            diskTier = getDiskTier();
+        }
+        return diskTier;
+    }
+
+    protected boolean determineDiskTierPrewarm() {
+        final boolean diskTierPrewarm;
+        if (diskTierPrewarmOverride != null) {
+            diskTierPrewarm = diskTierPrewarmOverride;
+        } else {
+            diskTierPrewarm = isDiskTierPrewarm();
+        }
+        return diskTierPrewarm;
+    }
+
+    protected int determineMaximumBatchSize() {
+        final int maximumBatchSize;
+        if (maximumBatchSizeOverride != null) {
+            maximumBatchSize = maximumBatchSizeOverride;
+        } else {
+            maximumBatchSize = getMaximumBatchSize();
+        }
+        return maximumBatchSize;
+    }
+
+    protected IWeigher<K, V> determineWeigher() {
+        final IWeigher<K, V> weigher;
+        if (weigherOverride != null) {
+            weigher = weigherOverride;
+        } else {
+            weigher = getWeigher();
+        }
+        return weigher;
+    }
+
+    protected long determineMaximumWeight() {
+        final long maximumWeight;
+        if (maximumWeightOverride != null) {
+            maximumWeight = maximumWeightOverride;
+        } else {
+            maximumWeight = getMaximumWeight();
+        }
+        return maximumWeight;
+    }
+
     protected EvictionMode determineEvictionMode() {
         final EvictionMode evictionMode;
         if (evictionModeOverride != null) {
@@ -1,6 +1,7 @@
 package de.invesdwin.util.collections.loadingcache;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -36,4 +37,19 @@ public interface ILoadingCache<K, V> {
 
     V computeIfAbsent(K key, Function<K, V> mappingFunction);
 
+    /**
+     * Returns the values in the order of the given keys, keys without a value are omitted. Implementations might load
+     * all missing values at once.
+     */
+    default Map<K, V> getAll(final Iterable<? extends K> keys) {
+        final Map<K, V> result = new LinkedHashMap<>();
+        for (final K key : keys) {
+            final V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
 }
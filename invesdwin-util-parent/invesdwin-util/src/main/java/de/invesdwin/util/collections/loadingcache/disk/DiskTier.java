@@ -0,0 +1,488 @@
+package de.invesdwin.util.collections.loadingcache.disk;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.bean.tuple.ImmutableEntry;
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.concurrent.lock.Locks;
+import de.invesdwin.util.lang.Files;
+import de.invesdwin.util.lang.Objects;
+import de.invesdwin.util.marshallers.serde.IFlyweightSerdeProvider;
+import de.invesdwin.util.marshallers.serde.ISerde;
+import de.invesdwin.util.math.Integers;
+import de.invesdwin.util.streams.buffer.bytes.ByteBuffers;
+import de.invesdwin.util.streams.buffer.bytes.ICloseableByteBuffer;
+import de.invesdwin.util.streams.buffer.bytes.IByteBuffer;
+import de.invesdwin.util.streams.buffer.file.IMemoryMappedFile;
+import de.invesdwin.util.streams.buffer.file.SegmentedMemoryMappedFile;
+import de.invesdwin.util.streams.buffer.memory.IMemoryBuffer;
+
+/**
+ * Persistent second level for loading caches (see DiskTierLoadingCache and AHistoricalCache.getDiskTier()). Values are
+ * serialized into a ring of records inside a SegmentedMemoryMappedFile, so that a lookup only costs a page cache read
+ * instead of a recompute or a database query. When the ring is full, the oldest records are dropped, just like
+ * OffHeapHistoricalEntryMap does on the heap.
+ *
+ * The records contain their serialized keys and removals are recorded as tombstones, thus the index (key to record
+ * position) is rebuilt by replaying the ring on startup. This keeps the index consistent with the data even when the
+ * process was killed, since the head position in the file header only gets advanced after a record was written
+ * completely.
+ *
+ * Only use this for values that stay valid across restarts and close it on shutdown.
+ */
+@ThreadSafe
+public class DiskTier<K, V> implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_SIZE = IMemoryMappedFile.MAX_SEGMENT_SIZE_WINDOWS;
+
+    private static final org.apache.logging.log4j.Logger LOG = org.apache.logging.log4j.LogManager
+            .getLogger(DiskTier.class);
+
+    private static final int MAGIC = 0x4C324454;
+    private static final int VERSION = 1;
+    private static final int MAGIC_INDEX = 0;
+    private static final int VERSION_INDEX = MAGIC_INDEX + Integer.BYTES;
+    private static final int CAPACITY_INDEX = VERSION_INDEX + Integer.BYTES;
+    private static final int TAIL_INDEX = CAPACITY_INDEX + Long.BYTES;
+    private static final int HEAD_INDEX = TAIL_INDEX + Long.BYTES;
+    private static final int HEADER_LENGTH = HEAD_INDEX + Long.BYTES;
+
+    private static final int PADDING_LENGTH = -1;
+    private static final int TOMBSTONE_LENGTH = -1;
+    private static final int KEY_LENGTH_INDEX = 0;
+    private static final int VALUE_LENGTH_INDEX = KEY_LENGTH_INDEX + Integer.BYTES;
+    private static final int KEY_INDEX = VALUE_LENGTH_INDEX + Integer.BYTES;
+
+    private final File file;
+    private final ISerde<K> keySerde;
+    private final ISerde<V> valueSerde;
+    private final boolean valueFlyweight;
+    private final long capacity;
+    private final ILock lock;
+    @GuardedBy("lock")
+    private final Map<K, Long> index;
+    @GuardedBy("lock")
+    private IMemoryMappedFile mappedFile;
+    @GuardedBy("lock")
+    private IMemoryBuffer memory;
+    /**
+     * logical positions that only increase, the physical position is the remainder of the capacity after the header
+     */
+    @GuardedBy("lock")
+    private long tail;
+    @GuardedBy("lock")
+    private long head;
+
+    public DiskTier(final File file, final ISerde<K> keySerde, final ISerde<V> valueSerde,
+            final long maximumDiskSize) {
+        this(file, keySerde, valueSerde, maximumDiskSize, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param file
+     *            the segments are stored in separate files with the position as suffix
+     * @param maximumDiskSize
+     *            the size of the ring including the header, the oldest records get dropped when it is full
+     */
+    public DiskTier(final File file, final ISerde<K> keySerde, final ISerde<V> valueSerde, final long maximumDiskSize,
+            final long segmentSize) {
+        if (maximumDiskSize <= HEADER_LENGTH + KEY_INDEX) {
+            throw new IllegalArgumentException("maximumDiskSize should be larger than "
+                    + (HEADER_LENGTH + KEY_INDEX) + ": " + maximumDiskSize);
+        }
+        this.file = file;
+        this.keySerde = keySerde;
+        this.valueSerde = valueSerde;
+        this.valueFlyweight = valueSerde instanceof IFlyweightSerdeProvider;
+        this.capacity = maximumDiskSize - HEADER_LENGTH;
+        this.lock = Locks.newReentrantLock(DiskTier.class.getSimpleName() + "_" + file.getName() + "_lock");
+        this.index = ILockCollectionFactory.getInstance(false).newMap();
+        try {
+            Files.forceMkdirParent(file);
+            this.mappedFile = new SegmentedMemoryMappedFile(segmentSize, true, file, 0, maximumDiskSize, false, false,
+                    true);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.memory = mappedFile.newMemoryBuffer(0, maximumDiskSize);
+        open();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    private void open() {
+        if (memory.getInt(MAGIC_INDEX) == MAGIC && memory.getInt(VERSION_INDEX) == VERSION
+                && memory.getLong(CAPACITY_INDEX) == capacity) {
+            tail = memory.getLong(TAIL_INDEX);
+            head = memory.getLong(HEAD_INDEX);
+            if (tail < 0 || head < tail || head - tail > capacity) {
+                reset();
+            } else {
+                recover();
+            }
+        } else {
+            //new file or a different layout
+            reset();
+        }
+    }
+
+    private void reset() {
+        index.clear();
+        tail = 0;
+        head = 0;
+        memory.putInt(MAGIC_INDEX, MAGIC);
+        memory.putInt(VERSION_INDEX, VERSION);
+        memory.putLong(CAPACITY_INDEX, capacity);
+        writeTail();
+        writeHead();
+    }
+
+    /**
+     * Replays the records from the tail to the head, later records and tombstones override earlier ones.
+     */
+    private void recover() {
+        long position = tail;
+        while (position < head) {
+            final long physicalPosition = toPhysical(position);
+            final long remaining = capacity - (physicalPosition - HEADER_LENGTH);
+            final int keyLength = remaining < KEY_INDEX ? PADDING_LENGTH : memory.getInt(physicalPosition);
+            if (keyLength == PADDING_LENGTH) {
+                position += remaining;
+                continue;
+            }
+            final int valueLength = memory.getInt(physicalPosition + VALUE_LENGTH_INDEX);
+            final long recordSize = (long) KEY_INDEX + keyLength + Integers.max(0, valueLength);
+            if (keyLength < 0 || valueLength < TOMBSTONE_LENGTH || recordSize > remaining
+                    || position + recordSize > head) {
+                truncate(position);
+                return;
+            }
+            final K key;
+            try {
+                key = keySerde.fromBuffer(copy(physicalPosition + KEY_INDEX, keyLength));
+            } catch (final RuntimeException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Truncating " + file + " at corrupt record: " + position, e);
+                }
+                truncate(position);
+                return;
+            }
+            if (valueLength == TOMBSTONE_LENGTH) {
+                index.remove(key);
+            } else {
+                index.put(key, position);
+            }
+            position += recordSize;
+        }
+    }
+
+    private void truncate(final long position) {
+        head = position;
+        writeHead();
+    }
+
+    public V get(final K key) {
+        lock.lock();
+        try {
+            final Long position = index.get(key);
+            if (position == null) {
+                return null;
+            }
+            return decodeValue(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads and stores the value when it is not on disk yet. The loader is called outside of the lock.
+     */
+    public V getOrLoad(final K key, final Function<? super K, ? extends V> loadValue) {
+        final V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final V loaded = loadValue.apply(key);
+        if (loaded != null) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    public boolean containsKey(final K key) {
+        lock.lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A null value removes the key.
+     */
+    public void put(final K key, final V value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        try (ICloseableByteBuffer keyBuffer = ByteBuffers.EXPANDABLE_POOL.borrowObject();
+                ICloseableByteBuffer valueBuffer = ByteBuffers.EXPANDABLE_POOL.borrowObject()) {
+            final int keyLength = keySerde.toBuffer(keyBuffer, key);
+            final int valueLength = valueSerde.toBuffer(valueBuffer, value);
+            lock.lock();
+            try {
+                if (!append(keyBuffer, keyLength, valueBuffer, valueLength)) {
+                    //too large for the ring, the previous value must not be served anymore
+                    removeLocked(key, keyBuffer, keyLength);
+                    return;
+                }
+                index.put(key, head - recordSize(keyLength, valueLength));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void remove(final K key) {
+        lock.lock();
+        try {
+            if (!index.containsKey(key)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try (ICloseableByteBuffer keyBuffer = ByteBuffers.EXPANDABLE_POOL.borrowObject()) {
+            final int keyLength = keySerde.toBuffer(keyBuffer, key);
+            lock.lock();
+            try {
+                removeLocked(key, keyBuffer, keyLength);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void removeLocked(final K key, final ICloseableByteBuffer keyBuffer, final int keyLength) {
+        if (index.remove(key) != null) {
+            //tombstone so that the key is not recovered after a restart
+            append(keyBuffer, keyLength, null, TOMBSTONE_LENGTH);
+        }
+    }
+
+    private static long recordSize(final int keyLength, final int valueLength) {
+        return (long) KEY_INDEX + keyLength + Integers.max(0, valueLength);
+    }
+
+    @GuardedBy("lock")
+    private boolean append(final ICloseableByteBuffer keyBuffer, final int keyLength,
+            final ICloseableByteBuffer valueBuffer, final int valueLength) {
+        final long recordSize = recordSize(keyLength, valueLength);
+        if (memory == null || recordSize > capacity) {
+            //closed or too large
+            return false;
+        }
+        long physicalHead = toPhysical(head);
+        final long remaining = capacity - (physicalHead - HEADER_LENGTH);
+        if (remaining < recordSize) {
+            //records do not wrap around, so skip the end of the ring
+            ensureFree(remaining);
+            if (remaining >= Integer.BYTES) {
+                memory.putInt(physicalHead, PADDING_LENGTH);
+            }
+            head += remaining;
+            physicalHead = HEADER_LENGTH;
+        }
+        ensureFree(recordSize);
+        //the tail needs to be persisted before the dropped records get overwritten
+        writeTail();
+        memory.putInt(physicalHead + KEY_LENGTH_INDEX, keyLength);
+        memory.putInt(physicalHead + VALUE_LENGTH_INDEX, valueLength);
+        keyBuffer.getBytes(0, memory, physicalHead + KEY_INDEX, keyLength);
+        if (valueLength > 0) {
+            valueBuffer.getBytes(0, memory, physicalHead + KEY_INDEX + keyLength, valueLength);
+        }
+        head += recordSize;
+        writeHead();
+        return true;
+    }
+
+    @GuardedBy("lock")
+    private void ensureFree(final long size) {
+        while (capacity - (head - tail) < size) {
+            dropTail();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void dropTail() {
+        final long physicalTail = toPhysical(tail);
+        final long remaining = capacity - (physicalTail - HEADER_LENGTH);
+        final int keyLength = remaining < KEY_INDEX ? PADDING_LENGTH : memory.getInt(physicalTail);
+        if (keyLength == PADDING_LENGTH) {
+            tail += remaining;
+            return;
+        }
+        final int valueLength = memory.getInt(physicalTail + VALUE_LENGTH_INDEX);
+        if (valueLength != TOMBSTONE_LENGTH) {
+            final K key = keySerde.fromBuffer(copy(physicalTail + KEY_INDEX, keyLength));
+            //the key might have been written again at a later position
+            final Long position = index.get(key);
+            if (position != null && position == tail) {
+                index.remove(key);
+            }
+        }
+        tail += recordSize(keyLength, valueLength);
+    }
+
+    @GuardedBy("lock")
+    private V decodeValue(final long position) {
+        final long physicalPosition = toPhysical(position);
+        final int keyLength = memory.getInt(physicalPosition + KEY_LENGTH_INDEX);
+        final int valueLength = memory.getInt(physicalPosition + VALUE_LENGTH_INDEX);
+        final long valueIndex = physicalPosition + KEY_INDEX + keyLength;
+        if (valueFlyweight) {
+            //the record might get overwritten later, so the flyweight needs its own copy
+            return valueSerde.fromBuffer(copy(valueIndex, valueLength));
+        } else {
+            return valueSerde.fromBuffer(memory.asByteBuffer(valueIndex, valueLength));
+        }
+    }
+
+    @GuardedBy("lock")
+    private IByteBuffer copy(final long index, final int length) {
+        final byte[] bytes = new byte[length];
+        memory.getBytes(index, bytes);
+        return ByteBuffers.wrap(bytes);
+    }
+
+    private long toPhysical(final long position) {
+        return HEADER_LENGTH + position % capacity;
+    }
+
+    @GuardedBy("lock")
+    private void writeTail() {
+        memory.putLong(TAIL_INDEX, tail);
+    }
+
+    @GuardedBy("lock")
+    private void writeHead() {
+        memory.putLong(HEAD_INDEX, head);
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Drops all records, does nothing when already closed.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            if (memory == null) {
+                return;
+            }
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decodes the most recently written entries and gives them to the consumer from the oldest to the newest, so that
+     * a least recently used cache keeps the newest ones. This can be used to pre-warm a cache on startup.
+     */
+    public void forEachNewest(final int maximumCount, final BiConsumer<? super K, ? super V> consumer) {
+        final List<Entry<K, V>> newest = new ArrayList<>();
+        lock.lock();
+        try {
+            final List<Entry<K, Long>> positions = new ArrayList<>(index.entrySet());
+            positions.sort((o1, o2) -> Long.compare(o2.getValue(), o1.getValue()));
+            for (int i = 0; i < positions.size() && newest.size() < maximumCount; i++) {
+                final Entry<K, Long> entry = positions.get(i);
+                try {
+                    newest.add(ImmutableEntry.of(entry.getKey(), decodeValue(entry.getValue())));
+                } catch (final RuntimeException e) {
+                    //skip values that can not be decoded anymore (e.g. the value class changed)
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn("Skipping undecodable value for key in " + file + ": " + entry.getKey(), e);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        Collections.reverse(newest);
+        for (int i = 0; i < newest.size(); i++) {
+            final Entry<K, V> entry = newest.get(i);
+            consumer.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return mappedFile == null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (mappedFile != null) {
+                writeTail();
+                writeHead();
+                index.clear();
+                memory = null;
+                mappedFile.close();
+                mappedFile = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("file", file)
+                .add("capacity", capacity)
+                .add("size", size())
+                .toString();
+    }
+
+}
@@ -0,0 +1,318 @@
+package de.invesdwin.util.collections.loadingcache.historical;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.collections.iterable.buffer.BufferingIterator;
+import de.invesdwin.util.collections.primitive.util.BucketHashUtil;
+import de.invesdwin.util.concurrent.lock.ICloseableLock;
+import de.invesdwin.util.concurrent.lock.padded.PaddedCloseableReentrantLock;
+import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
+import de.invesdwin.util.time.date.BisectDuplicateKeyHandling;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDates;
+import de.invesdwin.util.time.date.IFDateProvider;
+
+/**
+ * Alternative to AGapHistoricalCache for many threads that read the same cache at different positions. Instead of
+ * synchronizing loadValue on one monitor with a single furtherValues cursor, each load reads a range ascending from
+ * the key minus the read back step and publishes it as an immutable segment in a copy-on-write segment index. Lookups
+ * bisect the index without any locking, only loads of ranges that are not covered yet take a lock that is striped by
+ * the read back step bucket of the key. Thus readers at different positions load in parallel while readers at the same
+ * position wait for the first one and then reuse its segment.
+ *
+ * The same contract as in AGapHistoricalCache applies: new values in the db are expected to be only added on the high
+ * end. A segment ends at its newest loaded value, thus a request after the newest value reads the db again and finds
+ * values that were appended in the meantime. The oldest segments get evicted when more than getMaximumSegmentValues()
+ * values are held in the index.
+ *
+ * WARNING: This cache does not work when the underlying data changes, the loaded segments are cached here and changes
+ * do not get detected!!!
+ */
+@ThreadSafe
+public abstract class AConcurrentGapHistoricalCache<V> extends AHistoricalCache<V> {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+    public static final int DEFAULT_MAXIMUM_SEGMENT_VALUES = 100_000;
+
+    private final PaddedCloseableReentrantLock[] loadLocks;
+    private final AtomicReference<SegmentIndex<V>> segmentIndex = new AtomicReference<>(new SegmentIndex<V>(0));
+    private final AtomicLong segmentSequence = new AtomicLong();
+    private final AtomicLong resetIndex = new AtomicLong();
+
+    public AConcurrentGapHistoricalCache() {
+        final int concurrencyLevel = getConcurrencyLevel();
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException("concurrencyLevel should be positive: " + concurrencyLevel);
+        }
+        this.loadLocks = new PaddedCloseableReentrantLock[concurrencyLevel];
+        for (int i = 0; i < loadLocks.length; i++) {
+            loadLocks[i] = new PaddedCloseableReentrantLock();
+        }
+    }
+
+    /**
+     * The number of lock stripes for loading segments. Keys in different read back step buckets that map to the same
+     * stripe wait for each other.
+     */
+    protected int getConcurrencyLevel() {
+        return DEFAULT_CONCURRENCY_LEVEL;
+    }
+
+    protected long getReadBackStepMillis() {
+        return AGapHistoricalCache.DEFAULT_READ_BACK_STEP_MILLIS;
+    }
+
+    protected int getMaximumSegmentValues() {
+        return DEFAULT_MAXIMUM_SEGMENT_VALUES;
+    }
+
+    @Override
+    protected final IEvaluateGenericFDate<V> newLoadValue() {
+        return this::loadValue;
+    }
+
+    private V loadValue(final IFDateProvider pKey) {
+        final FDate key = pKey.asFDate();
+        SegmentIndex<V> index = segmentIndex.get();
+        Segment<V> segment = index.getSegment(key);
+        if (segment == null) {
+            final long readBackStepMillis = getReadBackStepMillis();
+            final long bucket = Math.floorDiv(key.millisValue(), readBackStepMillis);
+            final PaddedCloseableReentrantLock loadLock = loadLocks[BucketHashUtil.bucket(bucket, loadLocks.length)];
+            try (ICloseableLock lock = loadLock.locked()) {
+                //another reader in the same range might have loaded the segment while we were waiting
+                index = segmentIndex.get();
+                segment = index.getSegment(key);
+                if (segment == null) {
+                    segment = loadSegment(key, key.addMilliseconds(-readBackStepMillis));
+                    publishSegment(index.getResetIndex(), segment);
+                }
+            }
+        }
+        final V value = segment.getLatestValue(key);
+        if (value != null) {
+            return value;
+        }
+        //the value lies before the segment or there are no values at all
+        return readLatestValueFor(key);
+    }
+
+    private Segment<V> loadSegment(final FDate key, final FDate from) {
+        final BufferingIterator<V> values = new BufferingIterator<V>();
+        FDate curKey = from;
+        FDate tailKey = null;
+        while (true) {
+            final BufferingIterator<V> newValues = new BufferingIterator<V>();
+            newValues.consume(readAllValuesAscendingFrom(curKey));
+            //skip duplicates on further queries
+            while (tailKey != null && !newValues.isEmpty()
+                    && !extractKey(null, newValues.getHead()).isAfterNotNullSafe(tailKey)) {
+                newValues.next();
+            }
+            if (!values.consume(newValues)) {
+                break;
+            }
+            tailKey = extractKey(null, values.getTail());
+            if (tailKey.isAfterOrEqualToNotNullSafe(key)) {
+                //request fulfilled
+                break;
+            }
+            curKey = tailKey.addPicoseconds(1);
+        }
+        final FDate[] keys = new FDate[values.size()];
+        final Object[] array = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            final V value = values.next();
+            keys[i] = extractKey(null, value);
+            array[i] = value;
+        }
+        final FDate to;
+        if (tailKey != null) {
+            //also at the end of data, so that values that get appended later are loaded by a new segment
+            to = tailKey;
+        } else {
+            to = from;
+        }
+        return new Segment<V>(from, to, keys, array, segmentSequence.incrementAndGet());
+    }
+
+    private void publishSegment(final long expectedResetIndex, final Segment<V> segment) {
+        while (true) {
+            final SegmentIndex<V> current = segmentIndex.get();
+            if (current.getResetIndex() != expectedResetIndex) {
+                //cleared while loading, the segment might be outdated
+                return;
+            }
+            final SegmentIndex<V> updated = current.add(segment, getMaximumSegmentValues());
+            if (updated == current || segmentIndex.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The number of values that are currently held in the segment index.
+     */
+    public int getSegmentValuesCount() {
+        return segmentIndex.get().getValuesCount();
+    }
+
+    public int getSegmentsCount() {
+        return segmentIndex.get().getSegmentsCount();
+    }
+
+    protected abstract Iterable<? extends V> readAllValuesAscendingFrom(FDate key);
+
+    /**
+     * Same contract as AGapHistoricalCache.readLatestValueFor. This is only called when the value lies before a loaded
+     * segment or when there are no values at all.
+     */
+    protected abstract V readLatestValueFor(FDate key);
+
+    @Override
+    public void clear() {
+        super.clear();
+        segmentIndex.set(new SegmentIndex<V>(resetIndex.incrementAndGet()));
+    }
+
+    @Immutable
+    private static final class Segment<V> {
+        /**
+         * all values in db between from and to are contained in keys
+         */
+        private final FDate from;
+        private final FDate to;
+        private final FDate[] keys;
+        private final Object[] values;
+        private final long sequence;
+
+        private Segment(final FDate from, final FDate to, final FDate[] keys, final Object[] values,
+                final long sequence) {
+            this.from = from;
+            this.to = to;
+            this.keys = keys;
+            this.values = values;
+            this.sequence = sequence;
+        }
+
+        private boolean contains(final Segment<V> other) {
+            return from.isBeforeOrEqualToNotNullSafe(other.from) && to.isAfterOrEqualToNotNullSafe(other.to);
+        }
+
+        @SuppressWarnings("unchecked")
+        private V getLatestValue(final FDate key) {
+            final int index = FDates.bisect(keys, key, BisectDuplicateKeyHandling.HIGHEST);
+            if (index == FDates.MISSING_INDEX || keys[index].isAfterNotNullSafe(key)) {
+                return null;
+            }
+            return (V) values[index];
+        }
+    }
+
+    /**
+     * Segments are sorted ascending by from and to. Segments that are contained in other segments get removed, thus to
+     * is strictly increasing and the first segment with a to after or equal to the key is the only candidate to
+     * contain the key.
+     */
+    @Immutable
+    private static final class SegmentIndex<V> {
+        private final long resetIndex;
+        private final Segment<V>[] segments;
+        private final int valuesCount;
+
+        @SuppressWarnings("unchecked")
+        private SegmentIndex(final long resetIndex) {
+            this(resetIndex, new Segment[0], 0);
+        }
+
+        private SegmentIndex(final long resetIndex, final Segment<V>[] segments, final int valuesCount) {
+            this.resetIndex = resetIndex;
+            this.segments = segments;
+            this.valuesCount = valuesCount;
+        }
+
+        private long getResetIndex() {
+            return resetIndex;
+        }
+
+        private int getValuesCount() {
+            return valuesCount;
+        }
+
+        private int getSegmentsCount() {
+            return segments.length;
+        }
+
+        private Segment<V> getSegment(final FDate key) {
+            int lo = 0;
+            int hi = segments.length;
+            while (lo < hi) {
+                // same as (low+high)/2
+                final int mid = (lo + hi) >>> 1;
+                if (segments[mid].to.isBeforeNotNullSafe(key)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo < segments.length && segments[lo].from.isBeforeOrEqualToNotNullSafe(key)) {
+                return segments[lo];
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private SegmentIndex<V> add(final Segment<V> segment, final int maximumValues) {
+            final Segment<V>[] newSegments = new Segment[segments.length + 1];
+            int size = 0;
+            int newValuesCount = segment.keys.length;
+            boolean added = false;
+            for (int i = 0; i < segments.length; i++) {
+                final Segment<V> existing = segments[i];
+                if (existing.contains(segment)) {
+                    //loaded concurrently by a different stripe
+                    return this;
+                }
+                if (segment.contains(existing)) {
+                    continue;
+                }
+                if (!added && existing.from.isAfterNotNullSafe(segment.from)) {
+                    newSegments[size++] = segment;
+                    added = true;
+                }
+                newSegments[size++] = existing;
+                newValuesCount += existing.keys.length;
+            }
+            if (!added) {
+                newSegments[size++] = segment;
+            }
+            while (newValuesCount > maximumValues && size > 1) {
+                //evict the least recently added segment
+                int oldestIndex = -1;
+                for (int i = 0; i < size; i++) {
+                    final Segment<V> candidate = newSegments[i];
+                    if (candidate != segment
+                            && (oldestIndex == -1 || candidate.sequence < newSegments[oldestIndex].sequence)) {
+                        oldestIndex = i;
+                    }
+                }
+                newValuesCount -= newSegments[oldestIndex].keys.length;
+                System.arraycopy(newSegments, oldestIndex + 1, newSegments, oldestIndex, size - oldestIndex - 1);
+                size--;
+            }
+            final Segment<V>[] trimmedSegments;
+            if (size == newSegments.length) {
+                trimmedSegments = newSegments;
+            } else {
+                trimmedSegments = new Segment[size];
+                System.arraycopy(newSegments, 0, trimmedSegments, 0, size);
+            }
+            return new SegmentIndex<V>(resetIndex, trimmedSegments, newValuesCount);
+        }
+    }
+
+}
@@ -1,9 +1,12 @@
 package de.invesdwin.util.collections.loadingcache.historical;
 
 import java.util.Optional;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import de.invesdwin.util.assertions.Assertions;
@@ -12,7 +15,11 @@ import de.invesdwin.util.collections.iterable.buffer.BufferingIterator;
 import de.invesdwin.util.collections.loadingcache.historical.internal.AGapHistoricalCacheMissCounter;
 import de.invesdwin.util.collections.loadingcache.historical.key.IHistoricalCacheAdjustKeyProvider;
 import de.invesdwin.util.collections.loadingcache.historical.query.IHistoricalCacheQuery;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+import de.invesdwin.util.concurrent.future.Futures;
 import de.invesdwin.util.concurrent.reference.WeakThreadLocalReference;
+import de.invesdwin.util.error.Throwables;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.time.date.FDate;
 import de.invesdwin.util.time.date.FDates;
@@ -26,7 +33,9 @@ import de.invesdwin.util.time.duration.Duration;
  * 
  * This algorithm expects new values in the db to be only added on the high end and not anywhere inbetween.
  * 
- * This cache works best when iterating from the past to the future.
+ * This cache works best when iterating from the past to the future. When isReadAheadEnabled() is overridden, the next
+ * batch of values gets read on a background thread while the current batch is consumed during sequential forward
+ * iteration.
  * 
  * WARNING: This cache does not work when the underlying data changes, the min and max values are cached here and
  * changes do not get detected!!!
@@ -50,6 +59,10 @@ public abstract class AGapHistoricalCache<V> extends AHistoricalCache<V> {
      * having 2 here helps with queries for elements that are filtered by end time
      */
     private static final int MAX_LAST_VALUES_FROM_LOAD_FURTHER_VALUES = 2;
+    /**
+     * read ahead only starts after this many batches were loaded in sequence, random access should not cause it
+     */
+    private static final int READ_AHEAD_MIN_SEQUENTIAL_LOADS = 1;
 
     @GuardedBy("this")
     private final BufferingIterator<V> furtherValues = new BufferingIterator<V>();
@@ -105,6 +118,14 @@ public abstract class AGapHistoricalCache<V> extends AHistoricalCache<V> {
     private boolean clearRequested;
     private final AtomicInteger lastResetIndex = new AtomicInteger();
 
+    private final AtomicReference<ReadAhead<V>> readAhead = new AtomicReference<ReadAhead<V>>();
+    @GuardedBy("this")
+    private FDate readAheadPreviousKey;
+    @GuardedBy("this")
+    private FDate readAheadPreviousTailKey;
+    @GuardedBy("this")
+    private int readAheadSequentialLoads;
+
     @Override
     protected void innerIncreaseMaximumSize(final int maximumSize, final String reason) {
         super.innerIncreaseMaximumSize(maximumSize, reason);
@@ -326,7 +347,7 @@ public abstract class AGapHistoricalCache<V> extends AHistoricalCache<V> {
             FDate curKey = keyForReadAllValues;
             while (true) {
                 final BufferingIterator<V> newFurtherValuesBuffer = new BufferingIterator<V>();
-                final Iterable<? extends V> newFurtherValues = readAllValuesAscendingFrom(curKey);
+                final Iterable<? extends V> newFurtherValues = readAllValuesAscendingFromOrReadAhead(curKey);
                 newFurtherValuesBuffer.consume(newFurtherValues);
                 if (newFurtherValuesBuffer.isEmpty()) {
                     //end of data reached
@@ -361,12 +382,85 @@ public abstract class AGapHistoricalCache<V> extends AHistoricalCache<V> {
 
             if (!furtherValues.isEmpty()) {
                 assertFurtherValuesSorting(key);
+                maybeReadAhead(keyForReadAllValues);
             }
             return true;
         }
         return false;
     }
 
+    private Iterable<? extends V> readAllValuesAscendingFromOrReadAhead(final FDate key) {
+        final ReadAhead<V> pending = readAhead.getAndSet(null);
+        if (pending != null) {
+            if (pending.isUsable(key, lastResetIndex.get())) {
+                //this blocks until the background read is finished, thus there is never more than one batch ahead
+                final BufferingIterator<V> values = pending.await();
+                if (values != null) {
+                    //the read ahead started a read back step earlier since the exact key was not known yet
+                    while (!values.isEmpty() && innerExtractKey(values.getHead()).isBeforeNotNullSafe(key)) {
+                        values.next();
+                    }
+                    if (!values.isEmpty()) {
+                        return values;
+                    }
+                }
+            } else {
+                pending.cancel();
+            }
+        }
+        return readAllValuesAscendingFrom(key);
+    }
+
+    private void maybeReadAhead(final FDate keyForReadAllValues) {
+        if (!isReadAheadEnabled()) {
+            return;
+        }
+        //sequential when moving forward and continuing around the end of the previous batch
+        if (readAheadPreviousKey != null && keyForReadAllValues.isAfterNotNullSafe(readAheadPreviousKey)
+                && determineEaliestStartOfLoadFurtherValues(keyForReadAllValues)
+                        .isBeforeOrEqualToNotNullSafe(readAheadPreviousTailKey)) {
+            readAheadSequentialLoads++;
+        } else {
+            readAheadSequentialLoads = 0;
+        }
+        final FDate tailKey = innerExtractKey(furtherValues.getTail());
+        readAheadPreviousKey = keyForReadAllValues;
+        readAheadPreviousTailKey = tailKey;
+        if (readAheadSequentialLoads < READ_AHEAD_MIN_SEQUENTIAL_LOADS || tailKey.equals(maxKeyInDB)) {
+            return;
+        }
+        final WrappedExecutorService executor = getReadAheadExecutor();
+        final int maximumPoolSize = executor.getMaximumPoolSize();
+        if (maximumPoolSize > 0 && executor.getPendingCount() >= maximumPoolSize) {
+            //backpressure: rather load synchronously than queueing up reads that might become stale
+            return;
+        }
+        final int resetIndex = lastResetIndex.get();
+        //the next load will start somewhere between the read back step before the tail and the tail
+        final FDate readAheadKey = FDates.max(keyForReadAllValues, determineEaliestStartOfLoadFurtherValues(tailKey));
+        final Future<BufferingIterator<V>> future = executor.submit(() -> {
+            final BufferingIterator<V> values = new BufferingIterator<V>();
+            values.consume(readAllValuesAscendingFrom(readAheadKey));
+            return values;
+        });
+        final ReadAhead<V> replaced = readAhead.getAndSet(new ReadAhead<V>(readAheadKey, resetIndex, future));
+        if (replaced != null) {
+            replaced.cancel();
+        }
+    }
+
+    /**
+     * Can be overridden to read the next batch of values on a background thread during sequential forward iteration.
+     * Then readAllValuesAscendingFrom needs to be thread safe.
+     */
+    protected boolean isReadAheadEnabled() {
+        return false;
+    }
+
+    protected WrappedExecutorService getReadAheadExecutor() {
+        return ReadAheadExecutorHolder.EXECUTOR;
+    }
+
     private void maybeLimitOptimalReadBackStepByLoadFurtherValuesRange(final boolean furtherValuesEmpty,
             final FDate tailKey) {
         //if the further values is less than 10 we might be at the beginning of the history, thus we should not count this
@@ -604,6 +698,10 @@ public abstract class AGapHistoricalCache<V> extends AHistoricalCache<V> {
         //don't synchronize this clear method, instead just set the flag so that next loadValue clears
         clearRequested = true;
         lastResetIndex.incrementAndGet();
+        final ReadAhead<V> pending = readAhead.getAndSet(null);
+        if (pending != null) {
+            pending.cancel();
+        }
     }
 
     private void maybeClear() {
@@ -614,10 +712,57 @@ public abstract class AGapHistoricalCache<V> extends AHistoricalCache<V> {
             //a clear forces the list to be completely reloaded next time get is called
             furtherValues.clear();
             lastValuesFromFurtherValues.clear();
+            readAheadPreviousKey = null;
+            readAheadPreviousTailKey = null;
+            readAheadSequentialLoads = 0;
             clearRequested = false;
         }
     }
 
+    @Immutable
+    private static final class ReadAhead<V> {
+        private final FDate fromKey;
+        private final int resetIndex;
+        private final Future<BufferingIterator<V>> future;
+
+        private ReadAhead(final FDate fromKey, final int resetIndex, final Future<BufferingIterator<V>> future) {
+            this.fromKey = fromKey;
+            this.resetIndex = resetIndex;
+            this.future = future;
+        }
+
+        private boolean isUsable(final FDate key, final int lastResetIndex) {
+            return resetIndex == lastResetIndex && fromKey.isBeforeOrEqualToNotNullSafe(key);
+        }
+
+        /**
+         * Returns null when the read failed, then it gets retried synchronously so that the error is thrown in the
+         * right context.
+         */
+        private BufferingIterator<V> await() {
+            try {
+                return Futures.get(future);
+            } catch (final InterruptedException e) {
+                throw Throwables.propagate(e);
+            } catch (final Throwable t) {
+                return null;
+            }
+        }
+
+        private void cancel() {
+            future.cancel(true);
+        }
+    }
+
+    private static final class ReadAheadExecutorHolder {
+        private static final WrappedExecutorService EXECUTOR = Executors
+                .newFixedThreadPool(AGapHistoricalCache.class.getSimpleName() + "_READ_AHEAD",
+                        Executors.getCpuThreadPoolCount())
+                .setDynamicThreadName(false);
+
+        private ReadAheadExecutorHolder() {}
+    }
+
     public class GapValuesMap extends ValuesMap {
 
         private final WeakThreadLocalReference<LatestValueByGapCache<V>> latestValueByGapCacheHolder = new WeakThreadLocalReference<LatestValueByGapCache<V>>();
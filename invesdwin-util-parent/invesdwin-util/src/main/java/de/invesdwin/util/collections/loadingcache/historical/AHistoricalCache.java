@@ -2,12 +2,15 @@ package de.invesdwin.util.collections.loadingcache.historical;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
@@ -17,11 +20,15 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import de.invesdwin.util.assertions.Assertions;
 import de.invesdwin.util.collections.Collections;
 import de.invesdwin.util.collections.eviction.EvictionMode;
+import de.invesdwin.util.collections.eviction.IEvictionMap;
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
 import de.invesdwin.util.collections.fast.concurrent.ASynchronizedFastIterableDelegateList;
 import de.invesdwin.util.collections.loadingcache.ADelegateLoadingCache;
 import de.invesdwin.util.collections.loadingcache.ALoadingCache;
+import de.invesdwin.util.collections.loadingcache.ALoadingCacheConfig;
 import de.invesdwin.util.collections.loadingcache.DelegateLoadingCache;
 import de.invesdwin.util.collections.loadingcache.ILoadingCache;
+import de.invesdwin.util.collections.loadingcache.disk.DiskTier;
 import de.invesdwin.util.collections.loadingcache.historical.interceptor.DisabledHistoricalCacheNextQueryInterceptor;
 import de.invesdwin.util.collections.loadingcache.historical.interceptor.DisabledHistoricalCachePreviousKeysQueryInterceptor;
 import de.invesdwin.util.collections.loadingcache.historical.interceptor.DisabledHistoricalCacheRangeQueryInterceptor;
@@ -54,7 +61,10 @@ import de.invesdwin.util.collections.loadingcache.historical.query.internal.core
 import de.invesdwin.util.collections.loadingcache.historical.query.internal.core.TrailingHistoricalCacheQueryCore;
 import de.invesdwin.util.collections.loadingcache.historical.query.internal.filter.FilteringHistoricalCacheQuery;
 import de.invesdwin.util.collections.loadingcache.historical.refresh.HistoricalCacheRefreshManager;
+import de.invesdwin.util.collections.loadingcache.stats.CacheStatsCounter;
+import de.invesdwin.util.collections.loadingcache.stats.LoadingCacheStats;
 import de.invesdwin.util.lang.string.description.TextDescription;
+import de.invesdwin.util.marshallers.serde.ISerde;
 import de.invesdwin.util.math.Integers;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.time.date.FDate;
@@ -137,6 +147,48 @@ public abstract class AHistoricalCache<V> implements IHistoricalCache<V> {
         return DEFAULT_MAXIMUM_SIZE;
     }
 
+    /**
+     * Return a persistent tier that is checked before loading a value and that loaded values are written through to, so
+     * that a restart or an eviction from the heap only costs a page cache read instead of a recompute or a database
+     * query. Since clear() is also called by refreshes, the disk tier is not cleared with the cache (same as for
+     * DiskTierLoadingCache), thus only use this for history that does not change anymore or clear the disk tier
+     * explicitly. Null (the default) disables this.
+     */
+    protected DiskTier<FDate, V> getDiskTier() {
+        return null;
+    }
+
+    /**
+     * When true, the values map gets filled with the newest entries of the disk tier on its lazy initialization.
+     */
+    protected boolean isDiskTierPrewarm() {
+        return ALoadingCacheConfig.DEFAULT_DISK_TIER_PREWARM;
+    }
+
+    /**
+     * Return a serde to keep only the most recently added entries on the heap and move evicted entries into an
+     * off-heap ring buffer (see OffHeapHistoricalEntryMap). This reduces the garbage collection pressure for large
+     * caches. Only used when a maximum size is given. Null (the default) keeps all entries on the heap.
+     */
+    protected ISerde<V> getOffHeapValuesSerde() {
+        return null;
+    }
+
+    /**
+     * Override with EvictionMode.WindowTinyLfu when large one-off scans should not evict the frequently requested
+     * entries. Not used when getOffHeapValuesSerde() is given.
+     */
+    protected EvictionMode getEvictionMode() {
+        return EVICTION_MODE;
+    }
+
+    /**
+     * All instances of a historical cache class share their statistics by default when LoadingCacheStats is enabled.
+     */
+    protected String getStatsName() {
+        return getClass().getName();
+    }
+
     /**
      * Return false to get a faster implementation
      */
@@ -337,8 +389,46 @@ public abstract class AHistoricalCache<V> implements IHistoricalCache<V> {
 
     protected abstract IEvaluateGenericFDate<V> newLoadValue();
 
+    /**
+     * Can be overridden to load multiple missing keys at once in query().getEntries(...) and query().getValues(...),
+     * e.g. with a single database query instead of one round trip per key. Keys that are missing in the result fall back
+     * to newLoadValue(). Default is null to always load the keys one by one.
+     */
+    protected Function<Collection<FDate>, Map<FDate, V>> newLoadValues() {
+        return null;
+    }
+
+    /**
+     * The maximum number of keys that are given to the function from newLoadValues() at once. The keys of a bulk query
+     * are also read ahead in batches of this size, limited by the maximum size of the cache.
+     */
+    protected int getMaximumBatchSize() {
+        return ALoadingCacheConfig.DEFAULT_MAXIMUM_BATCH_SIZE;
+    }
+
     protected <T> ILoadingCache<FDate, T> newLoadingCacheProvider(final Function<FDate, T> loadValue,
             final Integer maximumSize, final boolean threadSafe) {
+        return newLoadingCacheProvider(loadValue, maximumSize, threadSafe, null);
+    }
+
+    /**
+     * @param newEvictionMap
+     *            can be null to use the EVICTION_MODE
+     */
+    protected <T> ILoadingCache<FDate, T> newLoadingCacheProvider(final Function<FDate, T> loadValue,
+            final Integer maximumSize, final boolean threadSafe,
+            final IntFunction<IEvictionMap<FDate, T>> newEvictionMap) {
+        return newLoadingCacheProvider(loadValue, maximumSize, threadSafe, newEvictionMap, null);
+    }
+
+    /**
+     * @param loadValues
+     *            can be null to load missing keys one by one in getAll(...)
+     */
+    protected <T> ILoadingCache<FDate, T> newLoadingCacheProvider(final Function<FDate, T> loadValue,
+            final Integer maximumSize, final boolean threadSafe,
+            final IntFunction<IEvictionMap<FDate, T>> newEvictionMap,
+            final Function<Collection<FDate>, Map<FDate, T>> loadValues) {
         final ALoadingCache<FDate, T> loadingCache = new ALoadingCache<FDate, T>() {
 
             @Override
@@ -356,9 +446,37 @@ public abstract class AHistoricalCache<V> implements IHistoricalCache<V> {
                 return loadValue.apply(key);
             }
 
+            @Override
+            protected Map<FDate, T> loadValues(final Collection<FDate> keys) {
+                if (loadValues != null) {
+                    return loadValues.apply(keys);
+                } else {
+                    return super.loadValues(keys);
+                }
+            }
+
+            @Override
+            protected int getMaximumBatchSize() {
+                return AHistoricalCache.this.getMaximumBatchSize();
+            }
+
             @Override
             protected EvictionMode getEvictionMode() {
-                return EVICTION_MODE;
+                return AHistoricalCache.this.getEvictionMode();
+            }
+
+            @Override
+            protected String getStatsName() {
+                return AHistoricalCache.this.getStatsName();
+            }
+
+            @Override
+            protected IEvictionMap<FDate, T> newEvictionMap(final int maximumSize) {
+                if (newEvictionMap != null) {
+                    return newEvictionMap.apply(maximumSize);
+                } else {
+                    return super.newEvictionMap(maximumSize);
+                }
             }
 
         };
@@ -665,19 +783,87 @@ public abstract class AHistoricalCache<V> implements IHistoricalCache<V> {
             return super.get(key);
         }
 
+        @Override
+        public Map<FDate, IHistoricalEntry<V>> getAll(final Iterable<? extends FDate> keys) {
+            invokeRefreshIfRequested();
+            return super.getAll(keys);
+        }
+
         @Override
         protected ILoadingCache<FDate, IHistoricalEntry<V>> newDelegate() {
             final Integer size = initialMaximumSize;
             final boolean threadSafe = isThreadSafe();
             final IEvaluateGenericFDate<V> loadValueF = internalMethods.newLoadValue();
-            return newLoadingCacheProvider(key -> {
+            final ISerde<V> offHeapValuesSerde = getOffHeapValuesSerde();
+            final IntFunction<IEvictionMap<FDate, IHistoricalEntry<V>>> newEvictionMap;
+            if (offHeapValuesSerde != null) {
+                newEvictionMap = evictionMaximumSize -> new OffHeapHistoricalEntryMap<V>(internalMethods,
+                        offHeapValuesSerde, evictionMaximumSize);
+            } else {
+                newEvictionMap = null;
+            }
+            final DiskTier<FDate, V> diskTier = getDiskTier();
+            final ILoadingCache<FDate, IHistoricalEntry<V>> delegate = newLoadingCacheProvider(key -> {
                 try {
-                    final V value = loadValueF.evaluateGeneric(key);
+                    final V value;
+                    if (diskTier != null) {
+                        value = diskTier.getOrLoad(key, loadValueF::evaluateGeneric);
+                    } else {
+                        value = loadValueF.evaluateGeneric(key);
+                    }
                     return shiftKeyProvider.maybeWrap(key, value);
                 } catch (final Throwable t) {
                     throw new RuntimeException("At: " + AHistoricalCache.this.toString(), t);
                 }
-            }, size, threadSafe);
+            }, size, threadSafe, newEvictionMap, newLoadEntries(diskTier));
+            if (diskTier != null && isDiskTierPrewarm() && isCachingEnabled()) {
+                diskTier.forEachNewest(size != null ? size : Integer.MAX_VALUE,
+                        (key, value) -> delegate.put(key, shiftKeyProvider.maybeWrap(key, value)));
+            }
+            return delegate;
+        }
+
+        private Function<Collection<FDate>, Map<FDate, IHistoricalEntry<V>>> newLoadEntries(
+                final DiskTier<FDate, V> diskTier) {
+            final Function<Collection<FDate>, Map<FDate, V>> loadValuesF = internalMethods.newLoadValues();
+            if (loadValuesF == null) {
+                return null;
+            }
+            return keys -> {
+                final Map<FDate, IHistoricalEntry<V>> entries = ILockCollectionFactory.getInstance(false).newMap();
+                final Collection<FDate> missingKeys;
+                if (diskTier != null) {
+                    missingKeys = new ArrayList<>(keys.size());
+                    for (final FDate key : keys) {
+                        final V value = diskTier.get(key);
+                        if (value != null) {
+                            entries.put(key, shiftKeyProvider.maybeWrap(key, value));
+                        } else {
+                            missingKeys.add(key);
+                        }
+                    }
+                    if (missingKeys.isEmpty()) {
+                        return entries;
+                    }
+                } else {
+                    missingKeys = keys;
+                }
+                final Map<FDate, V> values;
+                try {
+                    values = loadValuesF.apply(missingKeys);
+                } catch (final Throwable t) {
+                    throw new RuntimeException("At: " + AHistoricalCache.this.toString(), t);
+                }
+                for (final Entry<FDate, V> entry : values.entrySet()) {
+                    if (entry.getValue() != null) {
+                        if (diskTier != null) {
+                            diskTier.put(entry.getKey(), entry.getValue());
+                        }
+                        entries.put(entry.getKey(), shiftKeyProvider.maybeWrap(entry.getKey(), entry.getValue()));
+                    }
+                }
+                return entries;
+            };
         }
 
         @Override
@@ -695,6 +881,8 @@ public abstract class AHistoricalCache<V> implements IHistoricalCache<V> {
 
         private final int parentIdentityHashCode = System.identityHashCode(AHistoricalCache.this);
         private IEvaluateGenericFDate<V> loadValueF;
+        private Function<Collection<FDate>, Map<FDate, V>> loadValuesF;
+        private boolean loadValuesFInitialized;
         private IEvaluateGenericFDate<IHistoricalEntry<V>> computeEntryF;
 
         @Override
@@ -812,6 +1000,29 @@ public abstract class AHistoricalCache<V> implements IHistoricalCache<V> {
             return loadValueF;
         }
 
+        @Override
+        public Function<Collection<FDate>, Map<FDate, V>> newLoadValues() {
+            if (!loadValuesFInitialized) {
+                loadValuesF = AHistoricalCache.this.newLoadValues();
+                loadValuesFInitialized = true;
+            }
+            return loadValuesF;
+        }
+
+        @Override
+        public int getLoadValuesBatchSize() {
+            if (newLoadValues() == null || !isCachingEnabled()) {
+                return 0;
+            }
+            //reading ahead further than the cache can hold would evict the values before they are used
+            final Integer maximumSize = getMaximumSize();
+            if (maximumSize != null) {
+                return Integers.min(getMaximumBatchSize(), maximumSize);
+            } else {
+                return getMaximumBatchSize();
+            }
+        }
+
         @Override
         public FDate innerCalculatePreviousKey(final FDate key) {
             return AHistoricalCache.this.innerCalculatePreviousKey(key);
@@ -852,6 +1063,11 @@ public abstract class AHistoricalCache<V> implements IHistoricalCache<V> {
             return parentIdentityHashCode;
         }
 
+        @Override
+        public CacheStatsCounter getStatsCounter() {
+            return LoadingCacheStats.maybeGetCounter(getStatsName());
+        }
+
     }
 
     private final class InnerHistoricalCacheExtractKeyProvider implements IHistoricalCacheExtractKeyProvider<V> {
@@ -114,6 +114,13 @@ public final class IndexedHistoricalEntry<V> implements IHistoricalEntry<V> {
         return prevKey;
     }
 
+    /**
+     * Returns null if the previous key was not calculated or set yet.
+     */
+    public FDate getPrevKeyIfPresent() {
+        return prevKey;
+    }
+
     public void setPrevKey(final IHistoricalCacheInternalMethods<V> internalMethods, final FDate prev) {
         if (prev == null) {
             this.prevKey = null;
@@ -154,6 +161,13 @@ public final class IndexedHistoricalEntry<V> implements IHistoricalEntry<V> {
         return nextKey;
     }
 
+    /**
+     * Returns null if the next key was not calculated or set yet.
+     */
+    public FDate getNextKeyIfPresent() {
+        return nextKey;
+    }
+
     public void setNextKey(final IHistoricalCacheInternalMethods<V> internalMethods, final FDate next) {
         if (next == null) {
             this.nextKey = null;
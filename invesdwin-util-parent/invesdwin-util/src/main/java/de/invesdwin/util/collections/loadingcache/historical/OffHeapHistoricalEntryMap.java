@@ -0,0 +1,405 @@
+package de.invesdwin.util.collections.loadingcache.historical;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.collections.eviction.EvictionMode;
+import de.invesdwin.util.collections.eviction.IEvictionMap;
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.collections.loadingcache.historical.query.internal.IHistoricalCacheInternalMethods;
+import de.invesdwin.util.marshallers.serde.IFlyweightSerdeProvider;
+import de.invesdwin.util.marshallers.serde.ISerde;
+import de.invesdwin.util.math.Integers;
+import de.invesdwin.util.streams.buffer.bytes.ByteBuffers;
+import de.invesdwin.util.streams.buffer.bytes.ICloseableByteBuffer;
+import de.invesdwin.util.streams.buffer.memory.IMemoryBuffer;
+import de.invesdwin.util.streams.buffer.memory.MemoryBuffers;
+import de.invesdwin.util.time.date.FDate;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+/**
+ * Values map for historical caches that only keeps the most recently added entries as objects on the heap. Entries
+ * that get evicted from there are serialized with the given serde into an off-heap ring buffer and indexed by their key
+ * in millis via a primitive map. A get for an evicted key decodes the entry and moves it back to the heap. When the
+ * ring is full or more than maximumSize entries are held, the oldest records are dropped, just like the least recently
+ * added eviction does. Thus each cached value only costs its serialized bytes plus two longs in the index.
+ *
+ * A serde that implements IFlyweightSerdeProvider decodes flyweights over a private copy of the record, thus decoded
+ * values stay valid after the record gets overwritten in the ring.
+ *
+ * Keys or entries with picoseconds and entries whose value was not loaded yet are not moved off-heap, they just get
+ * evicted.
+ */
+@NotThreadSafe
+public class OffHeapHistoricalEntryMap<V> extends AbstractMap<FDate, IHistoricalEntry<V>>
+        implements IEvictionMap<FDate, IHistoricalEntry<V>> {
+
+    public static final int DEFAULT_HEAP_MAXIMUM_SIZE = 100;
+    public static final int DEFAULT_ESTIMATED_VALUE_SIZE = 64;
+
+    private static final long MISSING_POSITION = -1L;
+    private static final long NO_KEY = Long.MIN_VALUE;
+    private static final int PADDING_LENGTH = -1;
+    private static final int NULL_VALUE_LENGTH = -2;
+    private static final int LENGTH_INDEX = 0;
+    private static final int KEY_INDEX = LENGTH_INDEX + Integer.BYTES;
+    private static final int ENTRY_KEY_INDEX = KEY_INDEX + Long.BYTES;
+    private static final int PREV_KEY_INDEX = ENTRY_KEY_INDEX + Long.BYTES;
+    private static final int NEXT_KEY_INDEX = PREV_KEY_INDEX + Long.BYTES;
+    private static final int VALUE_INDEX = NEXT_KEY_INDEX + Long.BYTES;
+
+    private final IHistoricalCacheInternalMethods<V> internalMethods;
+    private final ISerde<V> serde;
+    private final ISerde<V> flyweightSerde;
+    private final int heapMaximumSize;
+    private final int estimatedRecordSize;
+    private final Map<FDate, IHistoricalEntry<V>> heap;
+    private final Long2LongOpenHashMap offHeapIndex;
+    private int maximumSize;
+    private IMemoryBuffer ring;
+    /**
+     * logical positions that only increase, the physical position is the remainder of the ring capacity
+     */
+    private long head;
+    private long tail;
+
+    public OffHeapHistoricalEntryMap(final IHistoricalCacheInternalMethods<V> internalMethods, final ISerde<V> serde,
+            final int maximumSize) {
+        this(internalMethods, serde, maximumSize, DEFAULT_HEAP_MAXIMUM_SIZE, DEFAULT_ESTIMATED_VALUE_SIZE);
+    }
+
+    /**
+     * The capacity of the ring buffer is maximumSize multiplied by the estimated record size. Thus if values are larger
+     * than estimated, less than maximumSize entries are held.
+     */
+    public OffHeapHistoricalEntryMap(final IHistoricalCacheInternalMethods<V> internalMethods, final ISerde<V> serde,
+            final int maximumSize, final int heapMaximumSize, final int estimatedValueSize) {
+        if (heapMaximumSize < 1) {
+            throw new IllegalArgumentException("heapMaximumSize should be positive: " + heapMaximumSize);
+        }
+        this.internalMethods = internalMethods;
+        this.serde = serde;
+        this.flyweightSerde = extractFlyweightSerde(serde);
+        this.heapMaximumSize = heapMaximumSize;
+        this.estimatedRecordSize = VALUE_INDEX + estimatedValueSize;
+        this.heap = ILockCollectionFactory.getInstance(false).newLinkedMap();
+        this.offHeapIndex = new Long2LongOpenHashMap();
+        this.offHeapIndex.defaultReturnValue(MISSING_POSITION);
+        this.maximumSize = maximumSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ISerde<T> extractFlyweightSerde(final ISerde<T> serde) {
+        if (serde instanceof IFlyweightSerdeProvider) {
+            final IFlyweightSerdeProvider<T> flyweightSerdeProvider = (IFlyweightSerdeProvider<T>) serde;
+            return flyweightSerdeProvider.asFlyweightSerde();
+        }
+        return null;
+    }
+
+    @Override
+    public IHistoricalEntry<V> get(final Object key) {
+        final IHistoricalEntry<V> entry = heap.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        final FDate cKey = (FDate) key;
+        if (!isOffHeapKey(cKey)) {
+            return null;
+        }
+        final long position = offHeapIndex.remove(cKey.millisValue());
+        if (position == MISSING_POSITION) {
+            return null;
+        }
+        //move back to the heap so that prev/next keys can be updated on the same instance again
+        final IHistoricalEntry<V> decoded = decode(position);
+        putHeap(cKey, decoded);
+        return decoded;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        if (heap.containsKey(key)) {
+            return true;
+        }
+        final FDate cKey = (FDate) key;
+        return isOffHeapKey(cKey) && offHeapIndex.containsKey(cKey.millisValue());
+    }
+
+    @Override
+    public IHistoricalEntry<V> put(final FDate key, final IHistoricalEntry<V> value) {
+        final IHistoricalEntry<V> existing = heap.get(key);
+        if (existing != null) {
+            heap.put(key, value);
+            return existing;
+        }
+        IHistoricalEntry<V> replaced = null;
+        if (isOffHeapKey(key)) {
+            final long position = offHeapIndex.remove(key.millisValue());
+            if (position != MISSING_POSITION) {
+                replaced = decode(position);
+            }
+        }
+        putHeap(key, value);
+        return replaced;
+    }
+
+    @Override
+    public IHistoricalEntry<V> remove(final Object key) {
+        final IHistoricalEntry<V> removed = heap.remove(key);
+        if (removed != null) {
+            return removed;
+        }
+        final FDate cKey = (FDate) key;
+        if (!isOffHeapKey(cKey)) {
+            return null;
+        }
+        final long position = offHeapIndex.remove(cKey.millisValue());
+        if (position == MISSING_POSITION) {
+            return null;
+        }
+        return decode(position);
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+        offHeapIndex.clear();
+        head = 0;
+        tail = 0;
+    }
+
+    @Override
+    public int size() {
+        return heap.size() + offHeapIndex.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heap.isEmpty() && offHeapIndex.isEmpty();
+    }
+
+    /**
+     * WARNING: this decodes all off-heap entries into a snapshot, thus it is expensive and modifications are not
+     * supported.
+     */
+    @Override
+    public Set<Entry<FDate, IHistoricalEntry<V>>> entrySet() {
+        final Map<FDate, IHistoricalEntry<V>> snapshot = ILockCollectionFactory.getInstance(false)
+                .newLinkedMap(size());
+        for (final Long2LongMap.Entry e : offHeapIndex.long2LongEntrySet()) {
+            snapshot.put(new FDate(e.getLongKey()), decode(e.getLongValue()));
+        }
+        snapshot.putAll(heap);
+        return Collections.unmodifiableSet(snapshot.entrySet());
+    }
+
+    private void putHeap(final FDate key, final IHistoricalEntry<V> value) {
+        heap.put(key, value);
+        if (heap.size() > Integers.min(heapMaximumSize, maximumSize)) {
+            final Iterator<Entry<FDate, IHistoricalEntry<V>>> eldest = heap.entrySet().iterator();
+            final Entry<FDate, IHistoricalEntry<V>> evicted = eldest.next();
+            eldest.remove();
+            offload(evicted.getKey(), evicted.getValue());
+        }
+    }
+
+    private static boolean isOffHeapKey(final FDate key) {
+        return key != null && key.picosValue() == 0;
+    }
+
+    private void offload(final FDate key, final IHistoricalEntry<V> entry) {
+        if (!isOffHeapKey(key) || !isOffHeapKey(entry.getKey()) || !entry.isValuePresent()) {
+            return;
+        }
+        final V value = entry.getValueIfPresent();
+        try (ICloseableByteBuffer buffer = ByteBuffers.EXPANDABLE_POOL.borrowObject()) {
+            final int length;
+            if (value == null) {
+                length = NULL_VALUE_LENGTH;
+            } else {
+                length = serde.toBuffer(buffer, value);
+            }
+            final int recordSize = VALUE_INDEX + Integers.max(0, length);
+            final long capacity = getRingCapacity();
+            if (recordSize > capacity) {
+                //does not fit at all
+                return;
+            }
+            long physicalHead = head % capacity;
+            final long remaining = capacity - physicalHead;
+            if (remaining < recordSize) {
+                //records do not wrap around, so skip the end of the ring
+                ensureFree(remaining);
+                if (remaining >= Integer.BYTES) {
+                    ring.putInt(physicalHead + LENGTH_INDEX, PADDING_LENGTH);
+                }
+                head += remaining;
+                physicalHead = 0;
+            }
+            ensureFree(recordSize);
+            ring.putInt(physicalHead + LENGTH_INDEX, length);
+            ring.putLong(physicalHead + KEY_INDEX, key.millisValue());
+            ring.putLong(physicalHead + ENTRY_KEY_INDEX, entry.getKey().millisValue());
+            ring.putLong(physicalHead + PREV_KEY_INDEX, toMillis(getPrevKeyIfPresent(entry)));
+            ring.putLong(physicalHead + NEXT_KEY_INDEX, toMillis(getNextKeyIfPresent(entry)));
+            if (length > 0) {
+                buffer.getBytes(0, ring, physicalHead + VALUE_INDEX, length);
+            }
+            offHeapIndex.put(key.millisValue(), head);
+            head += recordSize;
+        }
+        while (size() > maximumSize && !offHeapIndex.isEmpty()) {
+            evictTail();
+        }
+    }
+
+    private static FDate getPrevKeyIfPresent(final IHistoricalEntry<?> entry) {
+        if (entry instanceof IndexedHistoricalEntry) {
+            final IndexedHistoricalEntry<?> cEntry = (IndexedHistoricalEntry<?>) entry;
+            return cEntry.getPrevKeyIfPresent();
+        }
+        return null;
+    }
+
+    private static FDate getNextKeyIfPresent(final IHistoricalEntry<?> entry) {
+        if (entry instanceof IndexedHistoricalEntry) {
+            final IndexedHistoricalEntry<?> cEntry = (IndexedHistoricalEntry<?>) entry;
+            return cEntry.getNextKeyIfPresent();
+        }
+        return null;
+    }
+
+    private static long toMillis(final FDate key) {
+        if (key == null || key.picosValue() != 0) {
+            return NO_KEY;
+        }
+        return key.millisValue();
+    }
+
+    private long getRingCapacity() {
+        final long capacity = (long) maximumSize * estimatedRecordSize;
+        if (ring == null) {
+            //allocate lazily so that caches that never evict do not occupy any memory
+            ring = MemoryBuffers.allocateDirect(capacity);
+        } else if (ring.capacity() < capacity) {
+            grow(capacity);
+        }
+        return ring.capacity();
+    }
+
+    /**
+     * Copies the live records in their order into a larger ring.
+     */
+    private void grow(final long capacity) {
+        final IMemoryBuffer oldRing = ring;
+        final long oldCapacity = oldRing.capacity();
+        final IMemoryBuffer newRing = MemoryBuffers.allocateDirect(capacity);
+        long newHead = 0;
+        long position = tail;
+        while (position < head) {
+            final long physicalPosition = position % oldCapacity;
+            final long remaining = oldCapacity - physicalPosition;
+            final int length = remaining < VALUE_INDEX ? PADDING_LENGTH : oldRing.getInt(physicalPosition);
+            if (length == PADDING_LENGTH) {
+                position += remaining;
+                continue;
+            }
+            final int recordSize = VALUE_INDEX + Integers.max(0, length);
+            final long key = oldRing.getLong(physicalPosition + KEY_INDEX);
+            if (offHeapIndex.get(key) == position) {
+                oldRing.getBytes(physicalPosition, newRing, newHead, recordSize);
+                offHeapIndex.put(key, newHead);
+                newHead += recordSize;
+            }
+            position += recordSize;
+        }
+        ring = newRing;
+        tail = 0;
+        head = newHead;
+    }
+
+    private void ensureFree(final long size) {
+        final long capacity = ring.capacity();
+        while (capacity - (head - tail) < size) {
+            evictTail();
+        }
+    }
+
+    private void evictTail() {
+        final long capacity = ring.capacity();
+        final long physicalTail = tail % capacity;
+        final long remaining = capacity - physicalTail;
+        if (remaining < VALUE_INDEX) {
+            //too small for a record, thus only padding
+            tail += remaining;
+            return;
+        }
+        final int length = ring.getInt(physicalTail + LENGTH_INDEX);
+        if (length == PADDING_LENGTH) {
+            tail += remaining;
+            return;
+        }
+        final long key = ring.getLong(physicalTail + KEY_INDEX);
+        //the key might have been moved back to the heap or offloaded again at a later position
+        if (offHeapIndex.get(key) == tail) {
+            offHeapIndex.remove(key);
+        }
+        tail += VALUE_INDEX + Integers.max(0, length);
+    }
+
+    private IHistoricalEntry<V> decode(final long position) {
+        final long physicalPosition = position % ring.capacity();
+        final int length = ring.getInt(physicalPosition + LENGTH_INDEX);
+        final FDate entryKey = new FDate(ring.getLong(physicalPosition + ENTRY_KEY_INDEX));
+        final V value;
+        if (length == NULL_VALUE_LENGTH) {
+            value = null;
+        } else if (flyweightSerde != null) {
+            //the record might get overwritten later, so the flyweight needs its own copy
+            final byte[] bytes = new byte[length];
+            ring.getBytes(physicalPosition + VALUE_INDEX, bytes);
+            value = flyweightSerde.fromBuffer(ByteBuffers.wrap(bytes));
+        } else {
+            value = serde.fromBuffer(ring.asByteBuffer(physicalPosition + VALUE_INDEX, length));
+        }
+        final IndexedHistoricalEntry<V> entry = new IndexedHistoricalEntry<V>(internalMethods, entryKey, value);
+        final long prevKey = ring.getLong(physicalPosition + PREV_KEY_INDEX);
+        if (prevKey != NO_KEY) {
+            entry.setPrevKey(internalMethods, new FDate(prevKey));
+        }
+        final long nextKey = ring.getLong(physicalPosition + NEXT_KEY_INDEX);
+        if (nextKey != NO_KEY) {
+            entry.setNextKey(internalMethods, new FDate(nextKey));
+        }
+        return entry;
+    }
+
+    @Override
+    public EvictionMode getEvictionMode() {
+        return EvictionMode.LeastRecentlyAdded;
+    }
+
+    @Override
+    public void setMaximumSize(final int maximumSize) {
+        //the ring grows lazily on the next offload
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+}
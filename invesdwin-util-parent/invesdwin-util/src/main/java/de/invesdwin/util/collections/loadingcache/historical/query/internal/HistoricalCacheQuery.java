@@ -1,5 +1,7 @@
 package de.invesdwin.util.collections.loadingcache.historical.query.internal;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import javax.annotation.concurrent.NotThreadSafe;
@@ -17,6 +19,7 @@ import de.invesdwin.util.collections.loadingcache.historical.query.IHistoricalCa
 import de.invesdwin.util.error.FastNoSuchElementException;
 import de.invesdwin.util.lang.string.description.TextDescription;
 import de.invesdwin.util.log.ILog;
+import de.invesdwin.util.log.LogLevel;
 import de.invesdwin.util.log.adaptor.Log4j2DelegateLog;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.time.date.FDate;
@@ -126,7 +129,8 @@ public class HistoricalCacheQuery<V> implements IHistoricalCacheQuery<V> {
     }
 
     /**
-     * If a key returns null, it will get skipped.
+     * If a key returns null, it will get skipped. When the cache provides a batch loader, the keys are read ahead so that
+     * the missing values can be loaded at once.
      */
     protected final ICloseableIterable<IHistoricalEntry<V>> getEntries(final Iterable<FDate> keys,
             final HistoricalCacheAssertValue assertValue) {
@@ -134,8 +138,8 @@ public class HistoricalCacheQuery<V> implements IHistoricalCacheQuery<V> {
             @Override
             public ICloseableIterator<IHistoricalEntry<V>> iterator() {
                 return new ICloseableIterator<IHistoricalEntry<V>>() {
-                    private final ICloseableIterator<FDate> keysIterator = WrapperCloseableIterable.maybeWrap(keys)
-                            .iterator();
+                    private final ICloseableIterator<FDate> keysIterator = maybeLoadValuesBatches(
+                            WrapperCloseableIterable.maybeWrap(keys).iterator());
 
                     @Override
                     public boolean hasNext() {
@@ -157,6 +161,15 @@ public class HistoricalCacheQuery<V> implements IHistoricalCacheQuery<V> {
         };
     }
 
+    private ICloseableIterator<FDate> maybeLoadValuesBatches(final ICloseableIterator<FDate> keysIterator) {
+        final int batchSize = internalMethods.getLoadValuesBatchSize();
+        if (batchSize <= 1) {
+            return keysIterator;
+        } else {
+            return new LoadValuesBatchesKeysIterator(keysIterator, batchSize);
+        }
+    }
+
     protected final ICloseableIterable<V> getValues(final Iterable<FDate> keys,
             final HistoricalCacheAssertValue assertValue) {
         return new ICloseableIterable<V>() {
@@ -805,4 +818,61 @@ public class HistoricalCacheQuery<V> implements IHistoricalCacheQuery<V> {
         return IHistoricalEntry.unwrapEntryKey(internalMethods.getQueryCore().computeEntry(this, key, assertValue));
     }
 
+    /**
+     * Reads ahead the keys in batches and loads the missing values of each batch at once into the values map, so that
+     * the following getEntry calls are served from the cache in the requested order.
+     */
+    @NotThreadSafe
+    private final class LoadValuesBatchesKeysIterator implements ICloseableIterator<FDate> {
+
+        private final ICloseableIterator<FDate> delegate;
+        private final int batchSize;
+        private final List<FDate> batch;
+        private int batchIndex;
+
+        private LoadValuesBatchesKeysIterator(final ICloseableIterator<FDate> delegate, final int batchSize) {
+            this.delegate = delegate;
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return batchIndex < batch.size() || delegate.hasNext();
+        }
+
+        @Override
+        public FDate next() {
+            if (batchIndex >= batch.size()) {
+                readAhead();
+            }
+            return batch.get(batchIndex++);
+        }
+
+        private void readAhead() {
+            batch.clear();
+            batchIndex = 0;
+            //throws NoSuchElementException when the keys are exhausted
+            batch.add(delegate.next());
+            while (batch.size() < batchSize && delegate.hasNext()) {
+                batch.add(delegate.next());
+            }
+            try {
+                internalMethods.getValuesMap().getAll(batch);
+            } catch (final RuntimeException e) {
+                //the values that could be loaded are cached, failing keys throw again in order when they are reached
+                LOG.catching(LogLevel.WARN, new RuntimeException("Ignoring read ahead failure for " + batch.size()
+                        + " keys from [" + batch.get(0) + "], failing keys will be loaded again when reached", e));
+            }
+        }
+
+        @Override
+        public void close() {
+            batch.clear();
+            batchIndex = 0;
+            delegate.close();
+        }
+
+    }
+
 }
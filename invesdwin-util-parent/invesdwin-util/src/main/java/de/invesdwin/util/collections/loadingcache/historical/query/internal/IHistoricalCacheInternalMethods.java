@@ -1,5 +1,9 @@
 package de.invesdwin.util.collections.loadingcache.historical.query.internal;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
 import de.invesdwin.util.collections.loadingcache.ILoadingCache;
 import de.invesdwin.util.collections.loadingcache.historical.AHistoricalCache;
 import de.invesdwin.util.collections.loadingcache.historical.IHistoricalEntry;
@@ -11,6 +15,7 @@ import de.invesdwin.util.collections.loadingcache.historical.key.IHistoricalCach
 import de.invesdwin.util.collections.loadingcache.historical.key.IHistoricalCachePutProvider;
 import de.invesdwin.util.collections.loadingcache.historical.query.IHistoricalCacheQuery;
 import de.invesdwin.util.collections.loadingcache.historical.query.internal.core.IHistoricalCacheQueryCore;
+import de.invesdwin.util.collections.loadingcache.stats.CacheStatsCounter;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.time.date.FDate;
 
@@ -56,6 +61,16 @@ public interface IHistoricalCacheInternalMethods<V> {
 
     IEvaluateGenericFDate<V> newLoadValue();
 
+    /**
+     * @return null when the keys should be loaded one by one
+     */
+    Function<Collection<FDate>, Map<FDate, V>> newLoadValues();
+
+    /**
+     * @return the number of keys that bulk queries should read ahead to load them at once, 0 or 1 to disable this
+     */
+    int getLoadValuesBatchSize();
+
     FDate innerCalculatePreviousKey(FDate key);
 
     FDate innerCalculateNextKey(FDate key);
@@ -72,4 +87,9 @@ public interface IHistoricalCacheInternalMethods<V> {
 
     int getParentIdentityHashCode();
 
+    /**
+     * @return null when LoadingCacheStats is disabled
+     */
+    CacheStatsCounter getStatsCounter();
+
 }
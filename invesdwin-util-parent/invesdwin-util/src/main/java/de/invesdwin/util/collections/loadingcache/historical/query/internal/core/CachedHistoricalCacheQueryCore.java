@@ -25,6 +25,7 @@ import de.invesdwin.util.collections.loadingcache.historical.query.index.Indexed
 import de.invesdwin.util.collections.loadingcache.historical.query.index.QueryCoreIndex;
 import de.invesdwin.util.collections.loadingcache.historical.query.internal.IHistoricalCacheInternalMethods;
 import de.invesdwin.util.collections.loadingcache.historical.query.internal.core.impl.GetPreviousEntryQueryLoop;
+import de.invesdwin.util.collections.loadingcache.stats.CacheStatsCounter;
 import de.invesdwin.util.concurrent.lock.ILock;
 import de.invesdwin.util.concurrent.lock.Locks;
 import de.invesdwin.util.error.Throwables;
@@ -144,6 +145,10 @@ public class CachedHistoricalCacheQueryCore<V> extends ACachedResultHistoricalCa
             return result;
         } catch (final ResetCacheException e) {
             countResets++;
+            final CacheStatsCounter stats = delegate.getParent().getStatsCounter();
+            if (stats != null) {
+                stats.recordQueryCoreReset();
+            }
             if (countResets % COUNT_RESETS_BEFORE_WARNING == 0 || AHistoricalCache.isDebugAutomaticReoptimization()) {
                 if (LOG.isWarnEnabled()) {
                     //CHECKSTYLE:OFF
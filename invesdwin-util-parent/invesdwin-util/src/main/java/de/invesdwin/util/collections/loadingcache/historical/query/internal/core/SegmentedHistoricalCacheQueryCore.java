@@ -0,0 +1,573 @@
+package de.invesdwin.util.collections.loadingcache.historical.query.internal.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.collections.Arrays;
+import de.invesdwin.util.collections.Collections;
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.collections.iterable.EmptyCloseableIterable;
+import de.invesdwin.util.collections.iterable.ICloseableIterable;
+import de.invesdwin.util.collections.iterable.WrapperCloseableIterable;
+import de.invesdwin.util.collections.loadingcache.historical.IHistoricalEntry;
+import de.invesdwin.util.collections.loadingcache.historical.ImmutableHistoricalEntry;
+import de.invesdwin.util.collections.loadingcache.historical.query.DisabledHistoricalCacheQueryElementFilter;
+import de.invesdwin.util.collections.loadingcache.historical.query.IHistoricalCacheQueryElementFilter;
+import de.invesdwin.util.collections.loadingcache.historical.query.internal.HistoricalCacheAssertValue;
+import de.invesdwin.util.collections.loadingcache.historical.query.internal.HistoricalCacheQuery;
+import de.invesdwin.util.collections.loadingcache.historical.query.internal.IHistoricalCacheInternalMethods;
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.math.Integers;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDates;
+
+/**
+ * Remembers every contiguous range of entries that was walked by getPreviousEntries/getPreviousEntry as a segment of
+ * sorted primitive keys with the entries next to them. Instead of a single cached result that needs to be reset when
+ * the access pattern jumps around (as in CachedHistoricalCacheQueryCore), any number of disjoint segments are kept and
+ * a shift back or forward by N units inside a segment becomes index arithmetic. Walks that reach into a segment or end
+ * right before one are merged with it, so random lookbacks grow the segments instead of thrashing them.
+ *
+ * Queries with an element filter are delegated to the default core since the segments contain unfiltered entries.
+ *
+ * Enable this by overriding AHistoricalCache.newQueryCore().
+ */
+@ThreadSafe
+public class SegmentedHistoricalCacheQueryCore<V> implements IHistoricalCacheQueryCore<V> {
+
+    private static final int INITIAL_MAXIMUM_ENTRIES = 10000;
+
+    private final DefaultHistoricalCacheQueryCore<V> delegate;
+    private final ILock segmentsLock;
+    /**
+     * sorted ascending by keys, the ranges of the segments never overlap
+     */
+    @GuardedBy("segmentsLock")
+    private final List<Segment<V>> segments = new ArrayList<>();
+    @GuardedBy("segmentsLock")
+    private int entriesCount = 0;
+    @GuardedBy("segmentsLock")
+    private long accessSequence = 0;
+    private volatile int maximumEntries;
+
+    public SegmentedHistoricalCacheQueryCore(final IHistoricalCacheInternalMethods<V> parent) {
+        this.delegate = new DefaultHistoricalCacheQueryCore<V>(parent);
+        this.segmentsLock = ILockCollectionFactory.getInstance(parent.isThreadSafe())
+                .newLock(SegmentedHistoricalCacheQueryCore.class.getSimpleName() + "_segmentsLock");
+        this.maximumEntries = Integers.max(INITIAL_MAXIMUM_ENTRIES, parent.getMaximumSize());
+    }
+
+    @Override
+    public IHistoricalCacheInternalMethods<V> getParent() {
+        return delegate.getParent();
+    }
+
+    @Override
+    public IHistoricalEntry<V> getPreviousEntry(final IHistoricalCacheQueryInternalMethods<V> query, final FDate key,
+            final int shiftBackUnits) {
+        if (shiftBackUnits <= 0 || !isSegmentable(query)) {
+            return delegate.getPreviousEntry(query, key, shiftBackUnits);
+        }
+        final IHistoricalEntry<V> anchor = getAnchorEntry(query, key);
+        if (anchor == null) {
+            return null;
+        }
+        segmentsLock.lock();
+        try {
+            final Segment<V> segment = findSegment(anchor.getKey());
+            if (segment != null) {
+                final int index = segment.indexOf(anchor.getKey());
+                if (index >= 0 && index - shiftBackUnits >= segment.start) {
+                    segment.lastAccess = ++accessSequence;
+                    return segment.entries[index - shiftBackUnits];
+                }
+            }
+        } finally {
+            segmentsLock.unlock();
+        }
+        //returns the first entry when there are not enough entries available, same as the default core
+        return walkPreviousEntries(query, key, anchor, shiftBackUnits + 1).get(0);
+    }
+
+    @Override
+    public ICloseableIterable<IHistoricalEntry<V>> getPreviousEntries(
+            final IHistoricalCacheQueryInternalMethods<V> query, final FDate key, final int shiftBackUnits) {
+        if (shiftBackUnits <= 0 || !isSegmentable(query)) {
+            return delegate.getPreviousEntries(query, key, shiftBackUnits);
+        }
+        final IHistoricalEntry<V> anchor = getAnchorEntry(query, key);
+        if (anchor == null) {
+            return EmptyCloseableIterable.getInstance();
+        }
+        segmentsLock.lock();
+        try {
+            final Segment<V> segment = findSegment(anchor.getKey());
+            if (segment != null) {
+                final int index = segment.indexOf(anchor.getKey());
+                if (index >= 0 && index - shiftBackUnits + 1 >= segment.start) {
+                    segment.lastAccess = ++accessSequence;
+                    return WrapperCloseableIterable.maybeWrap(segment.subList(index - shiftBackUnits + 1, index + 1));
+                }
+            }
+        } finally {
+            segmentsLock.unlock();
+        }
+        return WrapperCloseableIterable.maybeWrap(walkPreviousEntries(query, key, anchor, shiftBackUnits));
+    }
+
+    @Override
+    public IHistoricalEntry<V> getNextEntry(final IHistoricalCacheQueryInternalMethods<V> query, final FDate key,
+            final int shiftForwardUnits) {
+        if (shiftForwardUnits > 0 && isSegmentable(query)) {
+            final IHistoricalEntry<V> anchor = getAnchorEntry(query, key);
+            if (anchor != null) {
+                final FDate to = getHighestAllowedKey();
+                segmentsLock.lock();
+                try {
+                    final Segment<V> segment = findSegment(anchor.getKey());
+                    if (segment != null) {
+                        final int index = segment.indexOf(anchor.getKey());
+                        final int resultIndex = index + shiftForwardUnits;
+                        //the default core stops at the first key that reaches the highest allowed key
+                        if (index >= 0 && resultIndex < segment.end
+                                && segment.entries[resultIndex - 1].getKey().isBeforeNotNullSafe(to)) {
+                            segment.lastAccess = ++accessSequence;
+                            return segment.entries[resultIndex];
+                        }
+                    }
+                } finally {
+                    segmentsLock.unlock();
+                }
+            }
+        }
+        return delegate.getNextEntry(query, key, shiftForwardUnits);
+    }
+
+    @Override
+    public ICloseableIterable<IHistoricalEntry<V>> getNextEntries(final IHistoricalCacheQueryInternalMethods<V> query,
+            final FDate key, final int shiftForwardUnits) {
+        if (shiftForwardUnits > 1 && isSegmentable(query)) {
+            final IHistoricalEntry<V> anchor = getAnchorEntry(query, key);
+            if (anchor != null) {
+                final FDate to = getHighestAllowedKey();
+                segmentsLock.lock();
+                try {
+                    final Segment<V> segment = findSegment(anchor.getKey());
+                    if (segment != null) {
+                        final int index = segment.indexOf(anchor.getKey());
+                        final int toIndex = index + shiftForwardUnits;
+                        if (index >= 0 && toIndex <= segment.end
+                                && segment.entries[toIndex - 2].getKey().isBeforeNotNullSafe(to)) {
+                            segment.lastAccess = ++accessSequence;
+                            return WrapperCloseableIterable.maybeWrap(segment.subList(index, toIndex));
+                        }
+                    }
+                } finally {
+                    segmentsLock.unlock();
+                }
+            }
+        }
+        return delegate.getNextEntries(query, key, shiftForwardUnits);
+    }
+
+    private FDate getHighestAllowedKey() {
+        return FDates.min(FDates.MAX_DATE, getParent().getHighestAllowedKey(true));
+    }
+
+    private boolean isSegmentable(final IHistoricalCacheQueryInternalMethods<V> query) {
+        final IHistoricalCacheQueryElementFilter<V> elementFilter = query.getElementFilter();
+        return elementFilter == null || elementFilter instanceof DisabledHistoricalCacheQueryElementFilter;
+    }
+
+    private IHistoricalEntry<V> getAnchorEntry(final IHistoricalCacheQueryInternalMethods<V> query, final FDate key) {
+        if (key == null) {
+            return null;
+        }
+        final IHistoricalEntry<V> entry = delegate.getEntry(query, key,
+                HistoricalCacheAssertValue.ASSERT_VALUE_WITH_FUTURE);
+        if (entry == null) {
+            return null;
+        }
+        return query.getAssertValue().assertValue(getParent(), key, entry);
+    }
+
+    /**
+     * Walks backwards from the anchor the same way as GetPreviousEntryQueryLoop does, but skips over the segments that
+     * are reached on the way. The lock is not held during the walk since loading entries might cause recursive queries.
+     */
+    private List<IHistoricalEntry<V>> walkPreviousEntries(final IHistoricalCacheQueryInternalMethods<V> query,
+            final FDate key, final IHistoricalEntry<V> anchor, final int shiftBackUnits) {
+        final List<IHistoricalEntry<V>> trailing = new ArrayList<>(shiftBackUnits);
+        IHistoricalEntry<V> cur = anchor;
+        boolean firstEntryReached = false;
+        while (true) {
+            if (!copyFromSegment(cur.getKey(), trailing, shiftBackUnits)) {
+                trailing.add(ImmutableHistoricalEntry.of(cur.getKey(), cur.getValue()));
+            }
+            if (trailing.size() >= shiftBackUnits) {
+                break;
+            }
+            final IHistoricalEntry<V> previous = getPreviousEntry(query, key, trailing.get(trailing.size() - 1));
+            if (previous == null) {
+                firstEntryReached = true;
+                break;
+            }
+            cur = previous;
+        }
+        Collections.reverse(trailing);
+        final FDate adjacentPreviousKey;
+        if (firstEntryReached) {
+            adjacentPreviousKey = null;
+        } else {
+            adjacentPreviousKey = getParent().calculatePreviousKey(trailing.get(0).getKey());
+        }
+        mergeSegment(trailing, adjacentPreviousKey);
+        return trailing;
+    }
+
+    private IHistoricalEntry<V> getPreviousEntry(final IHistoricalCacheQueryInternalMethods<V> query, final FDate key,
+            final IHistoricalEntry<V> entry) {
+        final FDate previousKey = getParent().calculatePreviousKey(entry.getKey());
+        if (previousKey == null) {
+            return null;
+        }
+        final IHistoricalEntry<V> potentialPreviousEntry = delegate.getEntry(query, previousKey,
+                HistoricalCacheAssertValue.ASSERT_VALUE_WITH_FUTURE);
+        if (potentialPreviousEntry == null) {
+            return null;
+        }
+        final IHistoricalEntry<V> previousEntry = query.getAssertValue()
+                .assertValue(getParent(), key, potentialPreviousEntry);
+        if (previousEntry == null || !previousEntry.getKey().isBeforeNotNullSafe(entry.getKey())) {
+            //duplicate key means that the first entry was reached
+            return null;
+        }
+        return previousEntry;
+    }
+
+    /**
+     * Adds the entries descending from the key as long as they are available in a segment and more are needed.
+     */
+    private boolean copyFromSegment(final FDate key, final List<IHistoricalEntry<V>> trailing,
+            final int shiftBackUnits) {
+        segmentsLock.lock();
+        try {
+            final Segment<V> segment = findSegment(key);
+            if (segment == null) {
+                return false;
+            }
+            final int index = segment.indexOf(key);
+            if (index < 0) {
+                return false;
+            }
+            segment.lastAccess = ++accessSequence;
+            for (int i = index; i >= segment.start && trailing.size() < shiftBackUnits; i--) {
+                trailing.add(segment.entries[i]);
+            }
+            return true;
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    /**
+     * Merges the contiguous ascending entries with all segments they overlap with and the segment that ends right
+     * before them.
+     */
+    private void mergeSegment(final List<IHistoricalEntry<V>> ascending, final FDate adjacentPreviousKey) {
+        final FDate firstKey = ascending.get(0).getKey();
+        final FDate lastKey = ascending.get(ascending.size() - 1).getKey();
+        segmentsLock.lock();
+        try {
+            int fromSegment = segments.size();
+            int toSegment = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                final Segment<V> segment = segments.get(i);
+                final boolean overlapping = !segment.getLastKey().isBeforeNotNullSafe(firstKey)
+                        && !segment.getFirstKey().isAfterNotNullSafe(lastKey);
+                final boolean adjacent = adjacentPreviousKey != null
+                        && segment.getLastKey().equalsNotNullSafe(adjacentPreviousKey);
+                if (overlapping || adjacent) {
+                    fromSegment = Integers.min(fromSegment, i);
+                    toSegment = i + 1;
+                }
+            }
+            final Segment<V> merged;
+            if (fromSegment >= toSegment) {
+                merged = new Segment<V>(ascending.size());
+                merged.addAll(ascending);
+                int insertIndex = 0;
+                while (insertIndex < segments.size()
+                        && segments.get(insertIndex).getFirstKey().isBeforeNotNullSafe(firstKey)) {
+                    insertIndex++;
+                }
+                segments.add(insertIndex, merged);
+            } else if (toSegment - fromSegment == 1
+                    && !segments.get(fromSegment).getFirstKey().isAfterNotNullSafe(firstKey)) {
+                //appending in place is the common case when iterating forward
+                merged = segments.get(fromSegment);
+                entriesCount -= merged.size();
+                merged.addAll(ascending);
+            } else {
+                int capacity = ascending.size();
+                for (int i = fromSegment; i < toSegment; i++) {
+                    final Segment<V> segment = segments.get(i);
+                    capacity += segment.size();
+                    entriesCount -= segment.size();
+                }
+                merged = new Segment<V>(capacity);
+                boolean ascendingAdded = false;
+                for (int i = fromSegment; i < toSegment; i++) {
+                    final Segment<V> segment = segments.get(i);
+                    if (!ascendingAdded && firstKey.isBeforeNotNullSafe(segment.getFirstKey())) {
+                        merged.addAll(ascending);
+                        ascendingAdded = true;
+                    }
+                    merged.addAll(segment);
+                }
+                if (!ascendingAdded) {
+                    merged.addAll(ascending);
+                }
+                segments.subList(fromSegment, toSegment).clear();
+                segments.add(fromSegment, merged);
+            }
+            merged.lastAccess = ++accessSequence;
+            entriesCount += merged.size();
+            maybeEvict(merged);
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    @GuardedBy("segmentsLock")
+    private void maybeEvict(final Segment<V> keep) {
+        while (entriesCount > maximumEntries && segments.size() > 1) {
+            //evict the least recently used segment
+            int oldestIndex = -1;
+            for (int i = 0; i < segments.size(); i++) {
+                final Segment<V> candidate = segments.get(i);
+                if (candidate != keep
+                        && (oldestIndex == -1 || candidate.lastAccess < segments.get(oldestIndex).lastAccess)) {
+                    oldestIndex = i;
+                }
+            }
+            entriesCount -= segments.remove(oldestIndex).size();
+        }
+        if (entriesCount > maximumEntries) {
+            final int removed = entriesCount - maximumEntries;
+            keep.start += removed;
+            entriesCount -= removed;
+        }
+    }
+
+    public int getSegmentsCount() {
+        segmentsLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    public int getEntriesCount() {
+        segmentsLock.lock();
+        try {
+            return entriesCount;
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    @GuardedBy("segmentsLock")
+    private Segment<V> findSegment(final FDate key) {
+        final long millis = key.millisValue();
+        int lo = 0;
+        int hi = segments.size() - 1;
+        while (lo <= hi) {
+            // same as (low+high)/2
+            final int mid = (lo + hi) >>> 1;
+            final Segment<V> segment = segments.get(mid);
+            if (segment.getLastMillis() < millis) {
+                lo = mid + 1;
+            } else if (segment.getFirstMillis() > millis) {
+                hi = mid - 1;
+            } else {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        segmentsLock.lock();
+        try {
+            segments.clear();
+            entriesCount = 0;
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    @Override
+    public void increaseMaximumSize(final int maximumSize) {
+        this.maximumEntries = Integers.max(maximumEntries, maximumSize);
+    }
+
+    @Override
+    public V getValue(final IHistoricalCacheQueryInternalMethods<V> query, final FDate key,
+            final HistoricalCacheAssertValue assertValue) {
+        return delegate.getValue(query, key, assertValue);
+    }
+
+    @Override
+    public IHistoricalEntry<V> getEntry(final IHistoricalCacheQueryInternalMethods<V> query, final FDate key,
+            final HistoricalCacheAssertValue assertValue) {
+        return delegate.getEntry(query, key, assertValue);
+    }
+
+    @Override
+    public IHistoricalEntry<V> computeEntry(final HistoricalCacheQuery<V> historicalCacheQuery, final FDate key,
+            final HistoricalCacheAssertValue assertValue) {
+        return delegate.computeEntry(historicalCacheQuery, key, assertValue);
+    }
+
+    @Override
+    public void putPrevious(final FDate previousKey, final V value, final FDate valueKey) {
+        segmentsLock.lock();
+        try {
+            final Segment<V> segment = findSegment(previousKey);
+            if (segment == null || !segment.getLastKey().equalsNotNullSafe(previousKey)) {
+                return;
+            }
+            segment.add(ImmutableHistoricalEntry.of(valueKey, value));
+            entriesCount++;
+            maybeEvict(segment);
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    @Override
+    public void putPreviousKey(final FDate previousKey, final FDate valueKey) {
+        //ignore, the entry gets added on the next walk that reaches it
+    }
+
+    /**
+     * Entries are only appended at the end or dropped at the start, thus sublists that were handed out stay valid.
+     */
+    @NotThreadSafe
+    private static final class Segment<V> {
+        private long[] keys;
+        private IHistoricalEntry<V>[] entries;
+        private int start;
+        private int end;
+        private long lastAccess;
+
+        @SuppressWarnings("unchecked")
+        private Segment(final int capacity) {
+            this.keys = new long[capacity];
+            this.entries = new IHistoricalEntry[capacity];
+        }
+
+        private int size() {
+            return end - start;
+        }
+
+        private FDate getFirstKey() {
+            return entries[start].getKey();
+        }
+
+        private FDate getLastKey() {
+            return entries[end - 1].getKey();
+        }
+
+        private long getFirstMillis() {
+            return keys[start];
+        }
+
+        private long getLastMillis() {
+            return keys[end - 1];
+        }
+
+        private int indexOf(final FDate key) {
+            final long millis = key.millisValue();
+            int lo = start;
+            int hi = end - 1;
+            while (lo <= hi) {
+                // same as (low+high)/2
+                final int mid = (lo + hi) >>> 1;
+                final long midMillis = keys[mid];
+                if (midMillis < millis) {
+                    lo = mid + 1;
+                } else if (midMillis > millis) {
+                    hi = mid - 1;
+                } else {
+                    //keys only differ in millis normally, though picoseconds might still make a difference
+                    for (int i = mid; i >= start && keys[i] == millis; i--) {
+                        if (entries[i].getKey().equalsNotNullSafe(key)) {
+                            return i;
+                        }
+                    }
+                    for (int i = mid + 1; i < end && keys[i] == millis; i++) {
+                        if (entries[i].getKey().equalsNotNullSafe(key)) {
+                            return i;
+                        }
+                    }
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private List<IHistoricalEntry<V>> subList(final int fromIndex, final int toIndex) {
+            return Arrays.asList(entries).subList(fromIndex, toIndex);
+        }
+
+        /**
+         * Only adds the entries that come after the current last key.
+         */
+        private void addAll(final List<IHistoricalEntry<V>> ascending) {
+            for (int i = 0; i < ascending.size(); i++) {
+                final IHistoricalEntry<V> entry = ascending.get(i);
+                if (end == start || entry.getKey().isAfterNotNullSafe(getLastKey())) {
+                    add(entry);
+                }
+            }
+        }
+
+        private void addAll(final Segment<V> other) {
+            for (int i = other.start; i < other.end; i++) {
+                final IHistoricalEntry<V> entry = other.entries[i];
+                if (end == start || entry.getKey().isAfterNotNullSafe(getLastKey())) {
+                    add(entry);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void add(final IHistoricalEntry<V> entry) {
+            if (end == entries.length) {
+                //copy into new arrays so that handed out sublists are not modified
+                final int size = size();
+                final int capacity = Integers.max(size * 2, size + 1);
+                final long[] newKeys = new long[capacity];
+                final IHistoricalEntry<V>[] newEntries = new IHistoricalEntry[capacity];
+                System.arraycopy(keys, start, newKeys, 0, size);
+                System.arraycopy(entries, start, newEntries, 0, size);
+                keys = newKeys;
+                entries = newEntries;
+                start = 0;
+                end = size;
+            }
+            keys[end] = entry.getKey().millisValue();
+            entries[end] = entry;
+            end++;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package de.invesdwin.util.collections.loadingcache.map;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.collections.loadingcache.ILoadingCache;
+import de.invesdwin.util.collections.loadingcache.disk.DiskTier;
+
+/**
+ * Looks up misses of the heap cache in the disk tier before calling the loader and writes loaded values through to the
+ * disk tier, so that values that got evicted from the heap or were cached before a restart only cost a page cache
+ * read. Values found on disk are promoted back into the heap cache. The views only contain the heap entries.
+ * 
+ * clear() only clears the heap cache, because it is also used to refresh the cache. Use getDiskTier().clear() to drop
+ * the persisted values as well.
+ */
+@ThreadSafe
+public class DiskTierLoadingCache<K, V> implements ILoadingCache<K, V> {
+
+    private final DiskTier<K, V> diskTier;
+    private final ILoadingCache<K, V> delegate;
+
+    /**
+     * @param newDelegate
+     *            gets the loader that should be used by the delegate so that the disk tier is checked first
+     */
+    public DiskTierLoadingCache(final Function<K, V> loadValue,
+            final Function<Function<K, V>, ILoadingCache<K, V>> newDelegate, final DiskTier<K, V> diskTier) {
+        this.diskTier = diskTier;
+        this.delegate = newDelegate.apply(key -> diskTier.getOrLoad(key, loadValue));
+    }
+
+    public DiskTier<K, V> getDiskTier() {
+        return diskTier;
+    }
+
+    /**
+     * Puts the most recently written entries of the disk tier into the heap cache.
+     */
+    public void prewarm(final int maximumCount) {
+        diskTier.forEachNewest(maximumCount, delegate::put);
+    }
+
+    @Override
+    public V get(final K key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public V getIfPresent(final K key) {
+        final V value = delegate.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        final V diskValue = diskTier.get(key);
+        if (diskValue != null) {
+            delegate.put(key, diskValue);
+        }
+        return diskValue;
+    }
+
+    /**
+     * Only clears the heap cache.
+     */
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    /**
+     * Only checks the heap cache.
+     */
+    @Override
+    public boolean containsKey(final K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public void remove(final K key) {
+        delegate.remove(key);
+        diskTier.remove(key);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        delegate.put(key, value);
+        diskTier.put(key, value);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return delegate.entrySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return delegate.values();
+    }
+
+    @Override
+    public Map<K, V> asMap() {
+        return delegate.asMap();
+    }
+
+    @Override
+    public void increaseMaximumSize(final int maximumSize) {
+        delegate.increaseMaximumSize(maximumSize);
+    }
+
+    @Override
+    public V computeIfAbsent(final K key, final Function<K, V> mappingFunction) {
+        return delegate.computeIfAbsent(key, k -> diskTier.getOrLoad(k, mappingFunction));
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+}
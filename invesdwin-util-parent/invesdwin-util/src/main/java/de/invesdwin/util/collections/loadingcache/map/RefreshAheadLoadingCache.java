@@ -0,0 +1,247 @@
+package de.invesdwin.util.collections.loadingcache.map;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.collections.loadingcache.ILoadingCache;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+import de.invesdwin.util.time.date.millis.FDateNanos;
+import de.invesdwin.util.time.duration.Duration;
+
+/**
+ * Serves values that are older than refreshAfterWrite while they get reloaded in the background (stale while
+ * revalidate). Concurrent refreshes of the same key are coalesced. Values that are older than expireAfterWrite (when
+ * given) are reloaded synchronously instead. Without an executor all refreshes happen synchronously, which is used for
+ * caches that are not thread safe.
+ */
+@ThreadSafe
+public class RefreshAheadLoadingCache<K, V> implements ILoadingCache<K, V> {
+
+    private static final org.apache.logging.log4j.Logger LOG = org.apache.logging.log4j.LogManager
+            .getLogger(RefreshAheadLoadingCache.class);
+    private static final int PRUNE_MIN_SIZE = 16;
+
+    private final Function<K, V> loadValue;
+    private final long refreshAfterWriteNanos;
+    private final long expireAfterWriteNanos;
+    private final WrappedExecutorService refreshExecutor;
+    /**
+     * The write time also serves as the generation of an entry, a background refresh only writes its value back when
+     * the entry was not written, removed or cleared in the meantime.
+     */
+    private final Map<K, Long> key_writeNanos;
+    private final Map<K, Boolean> refreshingKeys;
+    private final ILoadingCache<K, V> delegate;
+
+    /**
+     * @param newDelegate
+     *            gets the loader that should be used by the delegate so that the write time can be tracked
+     * @param expireAfterWrite
+     *            can be null to always serve stale values while refreshing
+     * @param refreshExecutor
+     *            can be null to refresh synchronously
+     */
+    public RefreshAheadLoadingCache(final Function<K, V> loadValue,
+            final Function<Function<K, V>, ILoadingCache<K, V>> newDelegate, final Duration refreshAfterWrite,
+            final Duration expireAfterWrite, final WrappedExecutorService refreshExecutor) {
+        this.loadValue = loadValue;
+        this.refreshAfterWriteNanos = refreshAfterWrite.nanosValue();
+        if (expireAfterWrite != null) {
+            this.expireAfterWriteNanos = expireAfterWrite.nanosValue();
+        } else {
+            this.expireAfterWriteNanos = Long.MAX_VALUE;
+        }
+        this.refreshExecutor = refreshExecutor;
+        this.key_writeNanos = ILockCollectionFactory.getInstance(true).newConcurrentMap();
+        this.refreshingKeys = ILockCollectionFactory.getInstance(true).newConcurrentMap();
+        this.delegate = newDelegate.apply(this::loadAndRecordWrite);
+    }
+
+    private V loadAndRecordWrite(final K key) {
+        final V value = loadValue.apply(key);
+        recordWrite(key);
+        return value;
+    }
+
+    private void recordWrite(final K key) {
+        key_writeNanos.put(key, FDateNanos.elapsedNanos());
+        maybePrune();
+    }
+
+    /**
+     * Write times of evicted keys are removed lazily when they outnumber the cached values.
+     */
+    private void maybePrune() {
+        final int size = key_writeNanos.size();
+        if (size > PRUNE_MIN_SIZE && size > delegate.size() * 2) {
+            final Iterator<K> iterator = key_writeNanos.keySet().iterator();
+            while (iterator.hasNext()) {
+                final K key = iterator.next();
+                if (!delegate.containsKey(key)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public V get(final K key) {
+        final V value = delegate.get(key);
+        return maybeRefresh(key, value);
+    }
+
+    @Override
+    public V getIfPresent(final K key) {
+        final V value = delegate.getIfPresent(key);
+        if (value == null) {
+            return null;
+        }
+        return maybeRefresh(key, value);
+    }
+
+    private V maybeRefresh(final K key, final V value) {
+        final Long writeNanos = key_writeNanos.get(key);
+        if (writeNanos == null) {
+            //value was put from the outside or write time got pruned
+            recordWrite(key);
+            return value;
+        }
+        final long ageNanos = FDateNanos.elapsedNanos() - writeNanos;
+        if (ageNanos < refreshAfterWriteNanos) {
+            return value;
+        }
+        if (refreshExecutor == null || ageNanos >= expireAfterWriteNanos) {
+            return refreshSynchronously(key, value);
+        }
+        final int maximumPoolSize = refreshExecutor.getMaximumPoolSize();
+        if (maximumPoolSize > 0 && refreshExecutor.getPendingCount() >= maximumPoolSize) {
+            //backpressure, try again on the next request
+            return value;
+        }
+        if (refreshingKeys.putIfAbsent(key, Boolean.TRUE) == null) {
+            try {
+                refreshExecutor.execute(() -> refreshInBackground(key, writeNanos));
+            } catch (final Throwable t) {
+                refreshingKeys.remove(key);
+                throw t;
+            }
+        }
+        return value;
+    }
+
+    private V refreshSynchronously(final K key, final V value) {
+        final V newValue = loadAndRecordWrite(key);
+        if (newValue == null) {
+            remove(key);
+            return null;
+        }
+        delegate.put(key, newValue);
+        return newValue;
+    }
+
+    private void refreshInBackground(final K key, final Long writeNanos) {
+        try {
+            final V newValue = loadValue.apply(key);
+            if (newValue != null && writeNanos.equals(key_writeNanos.get(key))) {
+                delegate.put(key, newValue);
+                if (!key_writeNanos.replace(key, writeNanos, FDateNanos.elapsedNanos())) {
+                    //written, removed or cleared while writing back, rather load again than serve a stale value
+                    delegate.remove(key);
+                }
+            }
+        } catch (final Throwable t) {
+            //keep serving the stale value, the next request will try again
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Refresh ahead failed for key: " + key, t);
+            }
+        } finally {
+            refreshingKeys.remove(key);
+        }
+    }
+
+    /**
+     * The write times are removed first so that pending background refreshes do not write their values back.
+     */
+    @Override
+    public void clear() {
+        key_writeNanos.clear();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public void remove(final K key) {
+        key_writeNanos.remove(key);
+        delegate.remove(key);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        //record first so that a pending background refresh does not override the value
+        key_writeNanos.put(key, FDateNanos.elapsedNanos());
+        delegate.put(key, value);
+        maybePrune();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return delegate.entrySet();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return delegate.values();
+    }
+
+    @Override
+    public Map<K, V> asMap() {
+        return delegate.asMap();
+    }
+
+    @Override
+    public void increaseMaximumSize(final int maximumSize) {
+        delegate.increaseMaximumSize(maximumSize);
+    }
+
+    @Override
+    public V computeIfAbsent(final K key, final Function<K, V> mappingFunction) {
+        final V value = delegate.computeIfAbsent(key, k -> {
+            final V newValue = mappingFunction.apply(k);
+            recordWrite(k);
+            return newValue;
+        });
+        return maybeRefresh(key, value);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+}
@@ -0,0 +1,177 @@
+package de.invesdwin.util.collections.loadingcache.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.math.statistics.LatencyHistogram;
+
+/**
+ * Lock-free counters for all caches that share the same name. Instances are only created while LoadingCacheStats is
+ * enabled, otherwise the caches do not record anything.
+ */
+@ThreadSafe
+public class CacheStatsCounter implements CacheStatsCounterMBean {
+
+    private final String name;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder queryCoreResets = new LongAdder();
+    private final LatencyHistogram loadNanos = new LatencyHistogram();
+
+    public CacheStatsCounter(final String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public void recordRequest() {
+        requests.increment();
+    }
+
+    public void recordLoad(final long nanos) {
+        loadNanos.record(nanos);
+    }
+
+    public void recordLoadFailure(final long nanos) {
+        loadFailures.increment();
+        loadNanos.record(nanos);
+    }
+
+    public void recordEvictions(final int count) {
+        evictions.add(count);
+    }
+
+    public void recordReset() {
+        resets.increment();
+    }
+
+    public void recordQueryCoreReset() {
+        queryCoreResets.increment();
+    }
+
+    /**
+     * Wraps the loader so that each invocation is counted as a miss and its latency is recorded.
+     */
+    public <K, V> Function<K, V> newRecordingLoadValue(final Function<K, V> loadValue) {
+        return key -> {
+            final long start = System.nanoTime();
+            final V value;
+            try {
+                value = loadValue.apply(key);
+            } catch (final Throwable t) {
+                recordLoadFailure(System.nanoTime() - start);
+                throw t;
+            }
+            recordLoad(System.nanoTime() - start);
+            return value;
+        };
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getHitCount() {
+        return Math.max(0L, getRequestCount() - getMissCount());
+    }
+
+    /**
+     * Each miss causes a load, thus they are the same.
+     */
+    @Override
+    public long getMissCount() {
+        return loadNanos.getCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        final long requestCount = getRequestCount();
+        if (requestCount == 0) {
+            return 0D;
+        }
+        return (double) getHitCount() / requestCount;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadNanos.getCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    @Override
+    public double getAverageLoadNanos() {
+        return loadNanos.getAverage();
+    }
+
+    @Override
+    public long getLoadNanosP50() {
+        return loadNanos.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getLoadNanosP99() {
+        return loadNanos.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getLoadNanosMax() {
+        return loadNanos.getMax();
+    }
+
+    /**
+     * Approximated by comparing the size of the cache before and after a miss, concurrent access might skew this.
+     */
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * How often the cache got cleared while not being empty.
+     */
+    @Override
+    public long getResetCount() {
+        return resets.sum();
+    }
+
+    /**
+     * How often the cached results of a historical query core had to be reset and retried.
+     */
+    @Override
+    public long getQueryCoreResetCount() {
+        return queryCoreResets.sum();
+    }
+
+    @Override
+    public void reset() {
+        requests.reset();
+        loadFailures.reset();
+        evictions.reset();
+        resets.reset();
+        queryCoreResets.reset();
+        loadNanos.reset();
+    }
+
+    public CacheStatsSnapshot snapshot() {
+        return new CacheStatsSnapshot(this);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+}
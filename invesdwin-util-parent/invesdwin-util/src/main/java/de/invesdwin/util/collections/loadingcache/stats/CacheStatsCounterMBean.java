@@ -0,0 +1,38 @@
+package de.invesdwin.util.collections.loadingcache.stats;
+
+/**
+ * Standard MBean interface so that the statistics can be inspected with jconsole/visualvm.
+ */
+public interface CacheStatsCounterMBean {
+
+    String getName();
+
+    long getRequestCount();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadCount();
+
+    long getLoadFailureCount();
+
+    double getAverageLoadNanos();
+
+    long getLoadNanosP50();
+
+    long getLoadNanosP99();
+
+    long getLoadNanosMax();
+
+    long getEvictionCount();
+
+    long getResetCount();
+
+    long getQueryCoreResetCount();
+
+    void reset();
+
+}
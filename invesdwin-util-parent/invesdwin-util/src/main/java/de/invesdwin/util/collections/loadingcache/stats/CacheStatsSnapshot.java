@@ -0,0 +1,113 @@
+package de.invesdwin.util.collections.loadingcache.stats;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.lang.Objects;
+
+@Immutable
+public class CacheStatsSnapshot {
+
+    private final String name;
+    private final long requestCount;
+    private final long loadCount;
+    private final long loadFailureCount;
+    private final double averageLoadNanos;
+    private final long loadNanosP50;
+    private final long loadNanosP99;
+    private final long loadNanosMax;
+    private final long evictionCount;
+    private final long resetCount;
+    private final long queryCoreResetCount;
+
+    public CacheStatsSnapshot(final CacheStatsCounter counter) {
+        this.name = counter.getName();
+        //read loads first, so that hits do not get negative due to concurrent requests
+        this.loadCount = counter.getLoadCount();
+        this.requestCount = Math.max(loadCount, counter.getRequestCount());
+        this.loadFailureCount = counter.getLoadFailureCount();
+        this.averageLoadNanos = counter.getAverageLoadNanos();
+        this.loadNanosP50 = counter.getLoadNanosP50();
+        this.loadNanosP99 = counter.getLoadNanosP99();
+        this.loadNanosMax = counter.getLoadNanosMax();
+        this.evictionCount = counter.getEvictionCount();
+        this.resetCount = counter.getResetCount();
+        this.queryCoreResetCount = counter.getQueryCoreResetCount();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getHitCount() {
+        return requestCount - loadCount;
+    }
+
+    public long getMissCount() {
+        return loadCount;
+    }
+
+    public double getHitRate() {
+        if (requestCount == 0) {
+            return 0D;
+        }
+        return (double) getHitCount() / requestCount;
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public double getAverageLoadNanos() {
+        return averageLoadNanos;
+    }
+
+    public long getLoadNanosP50() {
+        return loadNanosP50;
+    }
+
+    public long getLoadNanosP99() {
+        return loadNanosP99;
+    }
+
+    public long getLoadNanosMax() {
+        return loadNanosMax;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getResetCount() {
+        return resetCount;
+    }
+
+    public long getQueryCoreResetCount() {
+        return queryCoreResetCount;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .addValue(name)
+                .add("requests", requestCount)
+                .add("hitRate", getHitRate())
+                .add("loads", loadCount)
+                .add("loadFailures", loadFailureCount)
+                .add("loadNanosP50", loadNanosP50)
+                .add("loadNanosP99", loadNanosP99)
+                .add("loadNanosMax", loadNanosMax)
+                .add("evictions", evictionCount)
+                .add("resets", resetCount)
+                .add("queryCoreResets", queryCoreResetCount)
+                .toString();
+    }
+
+}
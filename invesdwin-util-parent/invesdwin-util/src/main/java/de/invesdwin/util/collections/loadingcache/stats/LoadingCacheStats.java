@@ -0,0 +1,118 @@
+package de.invesdwin.util.collections.loadingcache.stats;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+
+/**
+ * Opt-in statistics for ALoadingCache and AHistoricalCache. Caches that get created while this is disabled (the
+ * default) do not record anything and thus have no overhead at all. Caches with the same name share their counters,
+ * e.g. all instances of a historical cache class.
+ */
+@ThreadSafe
+public final class LoadingCacheStats {
+
+    public static final String JMX_DOMAIN = "de.invesdwin.util";
+    private static final org.apache.logging.log4j.Logger LOG = org.apache.logging.log4j.LogManager
+            .getLogger(LoadingCacheStats.class);
+    private static final Map<String, CacheStatsCounter> NAME_COUNTER = ILockCollectionFactory
+            .getInstance(true)
+            .newConcurrentMap();
+    private static volatile boolean enabled = false;
+    private static volatile boolean jmxEnabled = true;
+
+    private LoadingCacheStats() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Only affects caches that get created afterwards.
+     */
+    public static void setEnabled(final boolean enabled) {
+        LoadingCacheStats.enabled = enabled;
+    }
+
+    public static boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    /**
+     * Only affects counters that get created afterwards.
+     */
+    public static void setJmxEnabled(final boolean jmxEnabled) {
+        LoadingCacheStats.jmxEnabled = jmxEnabled;
+    }
+
+    /**
+     * @return null when disabled
+     */
+    public static CacheStatsCounter maybeGetCounter(final String name) {
+        if (!enabled) {
+            return null;
+        }
+        return getCounter(name);
+    }
+
+    public static CacheStatsCounter getCounter(final String name) {
+        final CacheStatsCounter existing = NAME_COUNTER.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        return NAME_COUNTER.computeIfAbsent(name, (k) -> {
+            final CacheStatsCounter counter = new CacheStatsCounter(k);
+            if (jmxEnabled) {
+                registerMBean(counter);
+            }
+            return counter;
+        });
+    }
+
+    public static CacheStatsSnapshot getSnapshot(final String name) {
+        final CacheStatsCounter counter = NAME_COUNTER.get(name);
+        if (counter == null) {
+            return null;
+        }
+        return counter.snapshot();
+    }
+
+    public static List<CacheStatsSnapshot> getSnapshots() {
+        final List<CacheStatsSnapshot> snapshots = new ArrayList<>(NAME_COUNTER.size());
+        for (final CacheStatsCounter counter : NAME_COUNTER.values()) {
+            snapshots.add(counter.snapshot());
+        }
+        return snapshots;
+    }
+
+    public static void reset() {
+        for (final CacheStatsCounter counter : NAME_COUNTER.values()) {
+            counter.reset();
+        }
+    }
+
+    private static void registerMBean(final CacheStatsCounter counter) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(
+                    JMX_DOMAIN + ":type=" + LoadingCacheStats.class.getSimpleName() + ",name="
+                            + ObjectName.quote(counter.getName()));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(counter, objectName);
+            }
+        } catch (final Throwable t) {
+            //statistics should never break the cache
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Unable to register MBean for: " + counter.getName(), t);
+            }
+        }
+    }
+
+}
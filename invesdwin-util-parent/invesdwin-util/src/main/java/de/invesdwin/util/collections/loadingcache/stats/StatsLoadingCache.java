@@ -0,0 +1,77 @@
+package de.invesdwin.util.collections.loadingcache.stats;
+
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.collections.loadingcache.DelegateLoadingCache;
+import de.invesdwin.util.collections.loadingcache.ILoadingCache;
+
+/**
+ * Counts the requests, evictions and resets of the delegate. Loads are counted by the loader that was wrapped with
+ * CacheStatsCounter.newRecordingLoadValue(...). Misses do an additional lookup and size check, which is fine since
+ * this wrapper is only used while LoadingCacheStats is enabled.
+ */
+@ThreadSafe
+public class StatsLoadingCache<K, V> extends DelegateLoadingCache<K, V> {
+
+    private final CacheStatsCounter stats;
+
+    public StatsLoadingCache(final ILoadingCache<K, V> delegate, final CacheStatsCounter stats) {
+        super(delegate);
+        this.stats = stats;
+    }
+
+    public CacheStatsCounter getStats() {
+        return stats;
+    }
+
+    @Override
+    public V get(final K key) {
+        stats.recordRequest();
+        final ILoadingCache<K, V> delegate = getDelegate();
+        final V existing = delegate.getIfPresent(key);
+        if (existing != null) {
+            return existing;
+        }
+        final int sizeBefore = delegate.size();
+        final V value = delegate.get(key);
+        maybeRecordEvictions(delegate, sizeBefore, value);
+        return value;
+    }
+
+    @Override
+    public V computeIfAbsent(final K key, final Function<K, V> mappingFunction) {
+        stats.recordRequest();
+        final ILoadingCache<K, V> delegate = getDelegate();
+        final V existing = delegate.getIfPresent(key);
+        if (existing != null) {
+            return existing;
+        }
+        final int sizeBefore = delegate.size();
+        final V value = delegate.computeIfAbsent(key, stats.newRecordingLoadValue(mappingFunction));
+        maybeRecordEvictions(delegate, sizeBefore, value);
+        return value;
+    }
+
+    private void maybeRecordEvictions(final ILoadingCache<K, V> delegate, final int sizeBefore, final V value) {
+        if (sizeBefore == 0 || value == null) {
+            return;
+        }
+        //a miss adds one entry, thus the size not growing means something got evicted
+        final int evictions = sizeBefore + 1 - delegate.size();
+        if (evictions > 0) {
+            stats.recordEvictions(evictions);
+        }
+    }
+
+    @Override
+    public void clear() {
+        final ILoadingCache<K, V> delegate = getDelegate();
+        if (!delegate.isEmpty()) {
+            stats.recordReset();
+            delegate.clear();
+        }
+    }
+
+}
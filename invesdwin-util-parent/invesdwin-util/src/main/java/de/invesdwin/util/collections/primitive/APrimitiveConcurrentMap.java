@@ -35,7 +35,7 @@ public abstract class APrimitiveConcurrentMap<K, V> extends AbstractMap<K, V> im
         for (int i = 0; i < concurrencyLevel; i++) {
             locks[i] = new PaddedCloseableReentrantReadWriteLock();
         }
-        this.lockingStrategy = config.getLockingStrategy();
+        this.lockingStrategy = config.getLockingStrategy().forLock(getClass().getSimpleName());
     }//new
 
     /** Lock must be held! */
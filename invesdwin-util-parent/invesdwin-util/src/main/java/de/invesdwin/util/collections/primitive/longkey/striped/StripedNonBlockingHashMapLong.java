@@ -82,7 +82,7 @@ public class StripedNonBlockingHashMapLong<V> extends AbstractMap<Long, V>
         final int concurrencyLevel = config.getConcurrencyLevel();
         assert concurrencyLevel > 0 : "Stripes must be positive, but " + concurrencyLevel;
         assert concurrencyLevel < 100_000_000 : "Too many stripes: " + concurrencyLevel;
-        this.lockingStrategy = config.getLockingStrategy();
+        this.lockingStrategy = config.getLockingStrategy().forLock(getClass().getSimpleName());
         this.preserveLargeArraysOnClear = preserveLargeArraysOnClear;
         m = new NonBlockingHashMapLong<>(Integers.max(config.getInitialCapacity(), concurrencyLevel), optimizeForSpace);
         s = new PaddedCloseableReentrantLock[concurrencyLevel];
@@ -68,7 +68,7 @@ public class StripedNonBlockingHashMap<K, V> extends AbstractMap<K, V>
         final int concurrencyLevel = config.getConcurrencyLevel();
         assert concurrencyLevel > 0 : "Stripes must be positive, but " + concurrencyLevel;
         assert concurrencyLevel < 100_000_000 : "Too many stripes: " + concurrencyLevel;
-        this.lockingStrategy = config.getLockingStrategy();
+        this.lockingStrategy = config.getLockingStrategy().forLock(getClass().getSimpleName());
         m = new NonBlockingHashMap<K, V>(Integers.max(config.getInitialCapacity(), concurrencyLevel));
         s = new PaddedCloseableReentrantLock[concurrencyLevel];
         for (int i = 0; i < concurrencyLevel; i++) {
@@ -0,0 +1,70 @@
+package de.invesdwin.util.collections.primitive.readwrite;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.error.FastIndexOutOfBoundsException;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+/**
+ * Adds lookups that can be done without holding a lock while the map is being modified concurrently (e.g. inside of an
+ * optimistic read). A torn read might return wrong results or throw an exception, which the caller detects by
+ * validating the optimistic read. The probe is bounded by the table capacity, thus it can not loop endlessly when it
+ * sees a table without free slots during a rehash.
+ */
+@NotThreadSafe
+public class OptimisticInt2ObjectOpenHashMap<V> extends Int2ObjectOpenHashMap<V> {
+
+    public OptimisticInt2ObjectOpenHashMap(final int expected, final float f) {
+        super(expected, f);
+    }
+
+    public OptimisticInt2ObjectOpenHashMap() {
+        super();
+    }
+
+    public V getOptimistic(final int k) {
+        if (k == 0) {
+            return containsNullKey ? value[n] : defRetValue;
+        }
+        final int[] key = this.key;
+        final int mask = this.mask;
+        int pos = HashCommon.mix(k) & mask;
+        for (int probes = 0; probes < key.length; probes++) {
+            final int curr = key[pos];
+            if (curr == 0) {
+                return defRetValue;
+            }
+            if (k == curr) {
+                return value[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+        throw newProbeExceededException();
+    }
+
+    public boolean containsKeyOptimistic(final int k) {
+        if (k == 0) {
+            return containsNullKey;
+        }
+        final int[] key = this.key;
+        final int mask = this.mask;
+        int pos = HashCommon.mix(k) & mask;
+        for (int probes = 0; probes < key.length; probes++) {
+            final int curr = key[pos];
+            if (curr == 0) {
+                return false;
+            }
+            if (k == curr) {
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        throw newProbeExceededException();
+    }
+
+    private static FastIndexOutOfBoundsException newProbeExceededException() {
+        return FastIndexOutOfBoundsException.getInstance("probe exceeded the table capacity");
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.invesdwin.util.collections.primitive.readwrite;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.error.FastIndexOutOfBoundsException;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+
+/**
+ * Adds lookups that can be done without holding a lock while the map is being modified concurrently (e.g. inside of an
+ * optimistic read). A torn read might return wrong results or throw an exception, which the caller detects by
+ * validating the optimistic read. The probe is bounded by the table capacity, thus it can not loop endlessly when it
+ * sees a table without free slots during a rehash.
+ */
+@NotThreadSafe
+public class OptimisticObject2ObjectLinkedOpenHashMap<K, V> extends Object2ObjectLinkedOpenHashMap<K, V> {
+
+    public OptimisticObject2ObjectLinkedOpenHashMap(final int expected, final float f) {
+        super(expected, f);
+    }
+
+    public OptimisticObject2ObjectLinkedOpenHashMap() {
+        super();
+    }
+
+    public V getOptimistic(final Object k) {
+        if (k == null) {
+            return containsNullKey ? value[n] : defRetValue;
+        }
+        final K[] key = this.key;
+        final int mask = this.mask;
+        int pos = HashCommon.mix(k.hashCode()) & mask;
+        for (int probes = 0; probes < key.length; probes++) {
+            final K curr = key[pos];
+            if (curr == null) {
+                return defRetValue;
+            }
+            if (k.equals(curr)) {
+                return value[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+        throw newProbeExceededException();
+    }
+
+    public boolean containsKeyOptimistic(final Object k) {
+        if (k == null) {
+            return containsNullKey;
+        }
+        final K[] key = this.key;
+        final int mask = this.mask;
+        int pos = HashCommon.mix(k.hashCode()) & mask;
+        for (int probes = 0; probes < key.length; probes++) {
+            final K curr = key[pos];
+            if (curr == null) {
+                return false;
+            }
+            if (k.equals(curr)) {
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        throw newProbeExceededException();
+    }
+
+    private static FastIndexOutOfBoundsException newProbeExceededException() {
+        return FastIndexOutOfBoundsException.getInstance("probe exceeded the table capacity");
+    }
+
+}
@@ -13,7 +13,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.jspecify.annotations.Nullable;
 
 import de.invesdwin.util.concurrent.lock.ICloseableLock;
-import de.invesdwin.util.concurrent.lock.padded.CloseableReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.padded.StampedReentrantReadWriteLock;
 import it.unimi.dsi.fastutil.ints.Int2IntFunction;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
@@ -34,15 +34,15 @@ import it.unimi.dsi.fastutil.objects.ObjectSet;
  */
 @ThreadSafe
 public class ReadWriteLockedInt2IntMap implements Int2IntMap {
-    protected final Int2IntOpenHashMap m;
-    protected final CloseableReentrantReadWriteLock lock = new CloseableReentrantReadWriteLock();
+    protected final OptimisticInt2IntOpenHashMap m;
+    protected final StampedReentrantReadWriteLock lock = new StampedReentrantReadWriteLock();
 
     public ReadWriteLockedInt2IntMap(final int expected, final float f) {
-        m = new Int2IntOpenHashMap(expected, f);
+        m = new OptimisticInt2IntOpenHashMap(expected, f);
     }//new
 
     public ReadWriteLockedInt2IntMap() {
-        m = new Int2IntOpenHashMap();
+        m = new OptimisticInt2IntOpenHashMap();
     }//new
 
     protected ICloseableLock read() {
@@ -55,16 +55,12 @@ public class ReadWriteLockedInt2IntMap implements Int2IntMap {
 
     @Override
     public int size() {
-        try (ICloseableLock lock = read()) {
-            return m.size();
-        }
+        return lock.optimisticReadInt(m::size);
     }
 
     @Override
     public boolean isEmpty() {
-        try (ICloseableLock lock = read()) {
-            return m.isEmpty();
-        }
+        return lock.optimisticReadBoolean(m::isEmpty);
     }
 
     public int[] keyArray() {
@@ -109,16 +105,12 @@ public class ReadWriteLockedInt2IntMap implements Int2IntMap {
 
     @Override
     public boolean containsKey(final int key) {
-        try (ICloseableLock lock = read()) {
-            return m.containsKey(key);
-        }
+        return lock.optimisticReadBoolean(() -> m.containsKeyOptimistic(key));
     }
 
     @Override
     public int get(final int key) {
-        try (ICloseableLock lock = read()) {
-            return m.get(key);
-        }
+        return lock.optimisticReadInt(() -> m.getOptimistic(key));
     }
 
     @Override
@@ -14,7 +14,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.jspecify.annotations.Nullable;
 
 import de.invesdwin.util.concurrent.lock.ICloseableLock;
-import de.invesdwin.util.concurrent.lock.padded.CloseableReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.padded.StampedReentrantReadWriteLock;
 import it.unimi.dsi.fastutil.ints.Int2ObjectFunction;
 import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
@@ -36,15 +36,15 @@ import it.unimi.dsi.fastutil.objects.ObjectSortedSet;
  */
 @ThreadSafe
 public class ReadWriteLockedInt2ObjectLinkedMap<V> implements Int2ObjectSortedMap<V> {
-    protected final Int2ObjectLinkedOpenHashMap<V> m;
-    protected final CloseableReentrantReadWriteLock lock = new CloseableReentrantReadWriteLock();
+    protected final OptimisticInt2ObjectLinkedOpenHashMap<V> m;
+    protected final StampedReentrantReadWriteLock lock = new StampedReentrantReadWriteLock();
 
     public ReadWriteLockedInt2ObjectLinkedMap(final int expected, final float f) {
-        m = new Int2ObjectLinkedOpenHashMap<>(expected, f);
+        m = new OptimisticInt2ObjectLinkedOpenHashMap<>(expected, f);
     }//new
 
     public ReadWriteLockedInt2ObjectLinkedMap() {
-        m = new Int2ObjectLinkedOpenHashMap<>();
+        m = new OptimisticInt2ObjectLinkedOpenHashMap<>();
     }//new
 
     protected ICloseableLock read() {
@@ -57,16 +57,12 @@ public class ReadWriteLockedInt2ObjectLinkedMap<V> implements Int2ObjectSortedMa
 
     @Override
     public int size() {
-        try (ICloseableLock lock = read()) {
-            return m.size();
-        }
+        return lock.optimisticReadInt(m::size);
     }
 
     @Override
     public boolean isEmpty() {
-        try (ICloseableLock lock = read()) {
-            return m.isEmpty();
-        }
+        return lock.optimisticReadBoolean(m::isEmpty);
     }
 
     public int[] keyArray() {
@@ -125,16 +121,12 @@ public class ReadWriteLockedInt2ObjectLinkedMap<V> implements Int2ObjectSortedMa
 
     @Override
     public boolean containsKey(final int key) {
-        try (ICloseableLock lock = read()) {
-            return m.containsKey(key);
-        }
+        return lock.optimisticReadBoolean(() -> m.containsKeyOptimistic(key));
     }
 
     @Override
     public V get(final int key) {
-        try (ICloseableLock lock = read()) {
-            return m.get(key);
-        }
+        return lock.optimisticRead(() -> m.getOptimistic(key));
     }
 
     @Override
@@ -14,7 +14,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.jspecify.annotations.Nullable;
 
 import de.invesdwin.util.concurrent.lock.ICloseableLock;
-import de.invesdwin.util.concurrent.lock.padded.CloseableReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.padded.StampedReentrantReadWriteLock;
 import it.unimi.dsi.fastutil.ints.Int2ObjectFunction;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
@@ -34,15 +34,15 @@ import it.unimi.dsi.fastutil.objects.ObjectSet;
  */
 @ThreadSafe
 public class ReadWriteLockedInt2ObjectMap<V> implements Int2ObjectMap<V> {
-    protected final Int2ObjectOpenHashMap<V> m;
-    protected final CloseableReentrantReadWriteLock lock = new CloseableReentrantReadWriteLock();
+    protected final OptimisticInt2ObjectOpenHashMap<V> m;
+    protected final StampedReentrantReadWriteLock lock = new StampedReentrantReadWriteLock();
 
     public ReadWriteLockedInt2ObjectMap(final int expected, final float f) {
-        m = new Int2ObjectOpenHashMap<>(expected, f);
+        m = new OptimisticInt2ObjectOpenHashMap<>(expected, f);
     }//new
 
     public ReadWriteLockedInt2ObjectMap() {
-        m = new Int2ObjectOpenHashMap<>();
+        m = new OptimisticInt2ObjectOpenHashMap<>();
     }//new
 
     protected ICloseableLock read() {
@@ -55,16 +55,12 @@ public class ReadWriteLockedInt2ObjectMap<V> implements Int2ObjectMap<V> {
 
     @Override
     public int size() {
-        try (ICloseableLock lock = read()) {
-            return m.size();
-        }
+        return lock.optimisticReadInt(m::size);
     }
 
     @Override
     public boolean isEmpty() {
-        try (ICloseableLock lock = read()) {
-            return m.isEmpty();
-        }
+        return lock.optimisticReadBoolean(m::isEmpty);
     }
 
     public int[] keyArray() {
@@ -109,16 +105,12 @@ public class ReadWriteLockedInt2ObjectMap<V> implements Int2ObjectMap<V> {
 
     @Override
     public boolean containsKey(final int key) {
-        try (ICloseableLock lock = read()) {
-            return m.containsKey(key);
-        }
+        return lock.optimisticReadBoolean(() -> m.containsKeyOptimistic(key));
     }
 
     @Override
     public V get(final int key) {
-        try (ICloseableLock lock = read()) {
-            return m.get(key);
-        }
+        return lock.optimisticRead(() -> m.getOptimistic(key));
     }
 
     @Override
@@ -12,7 +12,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.jspecify.annotations.Nullable;
 
 import de.invesdwin.util.concurrent.lock.ICloseableLock;
-import de.invesdwin.util.concurrent.lock.padded.CloseableReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.padded.StampedReentrantReadWriteLock;
 import it.unimi.dsi.fastutil.objects.Object2ObjectFunction;
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
@@ -30,15 +30,15 @@ import it.unimi.dsi.fastutil.objects.ObjectSortedSet;
  */
 @ThreadSafe
 public class ReadWriteLockedObject2ObjectLinkedMap<K, V> implements Object2ObjectSortedMap<K, V> {
-    protected final Object2ObjectLinkedOpenHashMap<K, V> m;
-    protected final CloseableReentrantReadWriteLock lock = new CloseableReentrantReadWriteLock();
+    protected final OptimisticObject2ObjectLinkedOpenHashMap<K, V> m;
+    protected final StampedReentrantReadWriteLock lock = new StampedReentrantReadWriteLock();
 
     public ReadWriteLockedObject2ObjectLinkedMap(final int expected, final float f) {
-        m = new Object2ObjectLinkedOpenHashMap<>(expected, f);
+        m = new OptimisticObject2ObjectLinkedOpenHashMap<>(expected, f);
     }//new
 
     public ReadWriteLockedObject2ObjectLinkedMap() {
-        m = new Object2ObjectLinkedOpenHashMap<>();
+        m = new OptimisticObject2ObjectLinkedOpenHashMap<>();
     }//new
 
     protected ICloseableLock read() {
@@ -51,16 +51,12 @@ public class ReadWriteLockedObject2ObjectLinkedMap<K, V> implements Object2Objec
 
     @Override
     public int size() {
-        try (ICloseableLock lock = read()) {
-            return m.size();
-        }
+        return lock.optimisticReadInt(m::size);
     }
 
     @Override
     public boolean isEmpty() {
-        try (ICloseableLock lock = read()) {
-            return m.isEmpty();
-        }
+        return lock.optimisticReadBoolean(m::isEmpty);
     }
 
     public K[] keyArray(final K[] keyArray) {
@@ -110,16 +106,12 @@ public class ReadWriteLockedObject2ObjectLinkedMap<K, V> implements Object2Objec
 
     @Override
     public boolean containsKey(final Object key) {
-        try (ICloseableLock lock = read()) {
-            return m.containsKey(key);
-        }
+        return lock.optimisticReadBoolean(() -> m.containsKeyOptimistic(key));
     }
 
     @Override
     public V get(final Object key) {
-        try (ICloseableLock lock = read()) {
-            return m.get(key);
-        }
+        return lock.optimisticRead(() -> m.getOptimistic(key));
     }
 
     @Override
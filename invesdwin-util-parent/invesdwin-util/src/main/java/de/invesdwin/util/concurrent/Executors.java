@@ -10,8 +10,9 @@ import javax.annotation.concurrent.Immutable;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 
+import de.invesdwin.util.concurrent.internal.VirtualThreadPerTaskExecutor;
 import de.invesdwin.util.concurrent.internal.WrappedThreadFactory;
-import de.invesdwin.util.concurrent.priority.PriorityThreadPoolExecutor;
+import de.invesdwin.util.concurrent.priority.WorkStealingPriorityExecutor;
 import de.invesdwin.util.math.Integers;
 import io.netty.util.concurrent.DefaultThreadFactory;
 
@@ -55,10 +56,14 @@ public final class Executors {
         return new WrappedExecutorService(ex, name);
     }
 
+    /**
+     * Runs tasks with a lower priority value first (see IPriorityProvider), using per worker queues with work stealing.
+     * Low priority tasks are run anyway after they waited for WorkStealingPriorityExecutor.DEFAULT_MAX_AGE.
+     */
     public static WrappedExecutorService newFixedPriorityThreadPool(final String name, final int nThreads) {
         final int theads = Integers.max(1, nThreads);
-        final java.util.concurrent.ThreadPoolExecutor ex = new PriorityThreadPoolExecutor(theads, theads, 0L,
-                TimeUnit.MILLISECONDS, newFastThreadLocalThreadFactory(name));
+        final WorkStealingPriorityExecutor ex = new WorkStealingPriorityExecutor(theads,
+                newFastThreadLocalThreadFactory(name));
         return new WrappedExecutorService(ex, name);
     }
 
@@ -89,6 +94,41 @@ public final class Executors {
         return new WrappedExecutorService(ex, name);
     }
 
+    /**
+     * Starts a virtual thread per task so that blocking I/O tasks can scale to many thousands without occupying a
+     * platform thread each. Falls back to a fixed thread pool of MAX_CACHED_POOL_SIZE threads when virtual threads are
+     * not supported by the running java version.
+     */
+    public static WrappedExecutorService newVirtualThreadPool(final String name) {
+        return newVirtualThreadPool(name, 0);
+    }
+
+    /**
+     * Same as newVirtualThreadPool(name) but limits the number of tasks running at the same time. Pending tasks wait
+     * on a semaphore inside their own virtual thread, thus setWaitOnFullPendingCount can be used to additionally block
+     * the submitter when the limit is reached.
+     * 
+     * @param maxConcurrency
+     *            0 or less for no limit
+     */
+    public static WrappedExecutorService newVirtualThreadPool(final String name, final int maxConcurrency) {
+        if (VirtualThreadPerTaskExecutor.isSupported()) {
+            return new WrappedExecutorService(new VirtualThreadPerTaskExecutor(name, maxConcurrency), name);
+        } else {
+            final int threads;
+            if (maxConcurrency > 0) {
+                threads = Integers.min(maxConcurrency, MAX_CACHED_POOL_SIZE);
+            } else {
+                threads = MAX_CACHED_POOL_SIZE;
+            }
+            return newFixedThreadPool(name, threads);
+        }
+    }
+
+    public static boolean isVirtualThreadPoolSupported() {
+        return VirtualThreadPerTaskExecutor.isSupported();
+    }
+
     /**
      * Returns the number of cpu cores for ThreadPools that are cpu intensive.
      */
@@ -28,10 +28,12 @@ import de.invesdwin.util.collections.fast.IFastIterableSet;
 import de.invesdwin.util.concurrent.future.InterruptingFuture;
 import de.invesdwin.util.concurrent.handler.IExecutorExceptionHandler;
 import de.invesdwin.util.concurrent.internal.IWrappedExecutorServiceInternal;
+import de.invesdwin.util.concurrent.internal.VirtualThreadPerTaskExecutor;
 import de.invesdwin.util.concurrent.internal.WrappedCallable;
 import de.invesdwin.util.concurrent.internal.WrappedRunnable;
 import de.invesdwin.util.concurrent.internal.WrappedThreadFactory;
 import de.invesdwin.util.concurrent.lock.Locks;
+import de.invesdwin.util.concurrent.priority.WorkStealingPriorityExecutor;
 import de.invesdwin.util.error.Throwables;
 import de.invesdwin.util.lang.finalizer.AWarningFinalizer;
 import de.invesdwin.util.lang.string.Strings;
@@ -89,7 +91,7 @@ public class WrappedExecutorService implements ListeningExecutorService, Closeab
             .getInstance(true)
             .newFastIterableLinkedSet();
     private final AtomicInteger pendingCount = new AtomicInteger();
-    private final Object pendingCountWaitLock = new Object();
+    private final Lock pendingCountWaitLock;
     private final AtomicBoolean dynamicThreadName = new AtomicBoolean(true);
     private volatile boolean keepThreadLocals = true;
     private volatile boolean closeable = false;
@@ -122,6 +124,8 @@ public class WrappedExecutorService implements ListeningExecutorService, Closeab
         this.finalizer.shutdownHook = shutdownHook;
         this.pendingCountLock = Locks
                 .newReentrantLock(WrappedExecutorService.class.getSimpleName() + "_" + name + "_pendingCountLock");
+        this.pendingCountWaitLock = Locks
+                .newReentrantLock(WrappedExecutorService.class.getSimpleName() + "_" + name + "_pendingCountWaitLock");
         this.zeroPendingCountCondition = getOrCreatePendingCountCondition(0);
         this.fullPendingCountCondition = getOrCreatePendingCountCondition(getMaximumPoolSize());
         this.waitOnFullPendingCountCondition = zeroPendingCountCondition;
@@ -186,15 +190,19 @@ public class WrappedExecutorService implements ListeningExecutorService, Closeab
             if (pendingCount.get() >= fullPendingCountCondition.getLimit()) {
                 /*
                  * Only one waiting thread may be woken up when this limit is reached, this is ensured by the while loop
-                 * inside awaitPendingCount and the outer lock
+                 * inside awaitPendingCount and the outer lock. Not using synchronized here so that virtual threads
+                 * waiting here do not pin their carrier thread.
                  */
-                synchronized (pendingCountWaitLock) {
+                pendingCountWaitLock.lockInterruptibly();
+                try {
                     /*
                      * putting another while loop here significantly reduces performance since it seems to spin a lot.
                      * Though that loop is not needed here anyway
                      */
                     awaitPendingCount(fullPendingCountCondition);
                     notifyPendingCountListeners(pendingCount.incrementAndGet());
+                } finally {
+                    pendingCountWaitLock.unlock();
                 }
             } else {
                 notifyPendingCountListeners(pendingCount.incrementAndGet());
@@ -257,6 +265,12 @@ public class WrappedExecutorService implements ListeningExecutorService, Closeab
                 cDelegate.setThreadFactory(threadFactory);
             }
             threadFactory.setParent(internal);
+        } else if (delegate instanceof VirtualThreadPerTaskExecutor) {
+            final VirtualThreadPerTaskExecutor cDelegate = (VirtualThreadPerTaskExecutor) delegate;
+            cDelegate.getThreadFactory().setParent(internal);
+        } else if (delegate instanceof WorkStealingPriorityExecutor) {
+            final WorkStealingPriorityExecutor cDelegate = (WorkStealingPriorityExecutor) delegate;
+            cDelegate.getThreadFactory().setParent(internal);
         }
 
         return decorate(delegate);
@@ -377,12 +391,15 @@ public class WrappedExecutorService implements ListeningExecutorService, Closeab
     public PendingCountCondition getOrCreatePendingCountCondition(final int limit) {
         PendingCountCondition condition = pendingCount_condition.get(limit);
         if (condition == null) {
-            synchronized (pendingCount_condition) {
+            pendingCountLock.lock();
+            try {
                 condition = pendingCount_condition.get(limit);
                 if (condition == null) {
                     condition = new PendingCountCondition(limit, pendingCountLock.newCondition());
                     pendingCount_condition.put(limit, condition);
                 }
+            } finally {
+                pendingCountLock.unlock();
             }
         }
         return condition;
@@ -405,6 +422,12 @@ public class WrappedExecutorService implements ListeningExecutorService, Closeab
         if (delegate instanceof java.util.concurrent.ThreadPoolExecutor) {
             final java.util.concurrent.ThreadPoolExecutor cDelegate = (java.util.concurrent.ThreadPoolExecutor) delegate;
             return cDelegate.getMaximumPoolSize();
+        } else if (delegate instanceof VirtualThreadPerTaskExecutor) {
+            final VirtualThreadPerTaskExecutor cDelegate = (VirtualThreadPerTaskExecutor) delegate;
+            return cDelegate.getMaxConcurrency();
+        } else if (delegate instanceof WorkStealingPriorityExecutor) {
+            final WorkStealingPriorityExecutor cDelegate = (WorkStealingPriorityExecutor) delegate;
+            return cDelegate.getParallelism();
         }
         return 0;
     }
@@ -0,0 +1,142 @@
+package de.invesdwin.util.concurrent.internal;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Starts a new virtual thread for each task. Since virtual threads are cheap, tasks that block on I/O do not occupy a
+ * platform thread while waiting. The optional concurrency limit is enforced by a semaphore that is acquired inside the
+ * virtual thread, so submitting never blocks (use setWaitOnFullPendingCount on the WrappedExecutorService for
+ * backpressure on the submitter).
+ *
+ * Virtual threads are looked up via reflection so that this still compiles against Java 8. Use isSupported() to check
+ * availability before creating an instance.
+ */
+@ThreadSafe
+public class VirtualThreadPerTaskExecutor extends AbstractExecutorService {
+
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR_METHOD;
+
+    static {
+        ThreadFactory virtualThreadFactory = null;
+        Method newThreadPerTaskExecutorMethod = null;
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            //use the public interface so that the implementation class does not need to be accessible
+            final Method factoryMethod = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            virtualThreadFactory = (ThreadFactory) factoryMethod.invoke(builder);
+            newThreadPerTaskExecutorMethod = java.util.concurrent.Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (final Throwable t) {
+            //java < 21 or preview features not enabled
+            virtualThreadFactory = null;
+            newThreadPerTaskExecutorMethod = null;
+        }
+        VIRTUAL_THREAD_FACTORY = virtualThreadFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR_METHOD = newThreadPerTaskExecutorMethod;
+    }
+
+    private final WrappedThreadFactory threadFactory;
+    private final ExecutorService delegate;
+    private final int maxConcurrency;
+    private final Semaphore semaphore;
+
+    /**
+     * @param maxConcurrency
+     *            0 or less to allow an unlimited amount of tasks to run at the same time
+     */
+    public VirtualThreadPerTaskExecutor(final String name, final int maxConcurrency) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this java version");
+        }
+        this.threadFactory = new WrappedThreadFactory(name, VIRTUAL_THREAD_FACTORY);
+        try {
+            this.delegate = (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR_METHOD.invoke(null, threadFactory);
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+        if (maxConcurrency > 0 && maxConcurrency < Integer.MAX_VALUE) {
+            this.maxConcurrency = maxConcurrency;
+            this.semaphore = new Semaphore(maxConcurrency);
+        } else {
+            this.maxConcurrency = 0;
+            this.semaphore = null;
+        }
+    }
+
+    public static boolean isSupported() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    public WrappedThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    /**
+     * Returns 0 when the concurrency is unlimited.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getAvailableConcurrency() {
+        if (semaphore == null) {
+            return Integer.MAX_VALUE;
+        }
+        return semaphore.availablePermits();
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (semaphore == null) {
+            delegate.execute(command);
+        } else {
+            delegate.execute(() -> {
+                /*
+                 * keep the limit even when interrupted by shutdownNow, the interrupted flag is restored so the task can
+                 * abort early
+                 */
+                semaphore.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    semaphore.release();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+}
@@ -26,10 +26,16 @@ import de.invesdwin.util.time.duration.Duration;
 @ThreadSafe
 public class FileChannelLock implements Closeable, ILock {
 
-    @GuardedBy("this")
+    /**
+     * Not using synchronized so that virtual threads do not pin their carrier thread while doing file I/O.
+     */
+    private final ILock finalizerLock;
+    @GuardedBy("finalizerLock")
     private final FileChannelLockFinalizer finalizer;
 
     public FileChannelLock(final File file) {
+        this.finalizerLock = Locks
+                .newReentrantLock(FileChannelLock.class.getSimpleName() + "_" + file.getName() + "_finalizerLock");
         this.finalizer = new FileChannelLockFinalizer(file, isDeleteFileAfterUnlock(), isThreadLockEnabled());
     }
 
@@ -72,7 +78,8 @@ public class FileChannelLock implements Closeable, ILock {
     }
 
     @Override
-    public synchronized boolean tryLock() {
+    public boolean tryLock() {
+        finalizerLock.lock();
         try {
             if (finalizer.locked) {
                 return true;
@@ -111,22 +118,39 @@ public class FileChannelLock implements Closeable, ILock {
             return true;
         } catch (final IOException e) {
             throw new IllegalStateException("Unable to lock file: " + finalizer.file, e);
+        } finally {
+            finalizerLock.unlock();
         }
     }
 
     @Override
-    public synchronized boolean isLocked() {
-        return finalizer.locked;
+    public boolean isLocked() {
+        finalizerLock.lock();
+        try {
+            return finalizer.locked;
+        } finally {
+            finalizerLock.unlock();
+        }
     }
 
     @Override
-    public synchronized boolean isHeldByCurrentThread() {
-        return finalizer.locked && (finalizer.threadLock == null || finalizer.threadLock.isHeldByCurrentThread());
+    public boolean isHeldByCurrentThread() {
+        finalizerLock.lock();
+        try {
+            return finalizer.locked && (finalizer.threadLock == null || finalizer.threadLock.isHeldByCurrentThread());
+        } finally {
+            finalizerLock.unlock();
+        }
     }
 
     @Override
-    public synchronized void unlock() {
-        finalizer.close();
+    public void unlock() {
+        finalizerLock.lock();
+        try {
+            finalizer.close();
+        } finally {
+            finalizerLock.unlock();
+        }
     }
 
     protected boolean isDeleteFileAfterUnlock() {
@@ -17,8 +17,11 @@ import de.invesdwin.norva.apt.staticfacade.StaticFacadeDefinition;
 import de.invesdwin.util.concurrent.lock.internal.ALocksStaticFacade;
 import de.invesdwin.util.concurrent.lock.internal.TimeoutLock;
 import de.invesdwin.util.concurrent.lock.internal.TimeoutReentrantLock;
+import de.invesdwin.util.concurrent.lock.internal.readwrite.OptimisticReadWriteLock;
 import de.invesdwin.util.concurrent.lock.internal.readwrite.TimeoutReadWriteLock;
 import de.invesdwin.util.concurrent.lock.internal.readwrite.TimeoutReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.padded.StampedReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.readwrite.IOptimisticReadWriteLock;
 import de.invesdwin.util.concurrent.lock.readwrite.IReadWriteLock;
 import de.invesdwin.util.concurrent.lock.readwrite.IReentrantReadWriteLock;
 import de.invesdwin.util.concurrent.lock.strategy.DefaultLockingStrategy;
@@ -26,6 +29,7 @@ import de.invesdwin.util.concurrent.lock.strategy.ILockingStrategy;
 import de.invesdwin.util.concurrent.lock.trace.DisabledLockTrace;
 import de.invesdwin.util.concurrent.lock.trace.EnabledLockTrace;
 import de.invesdwin.util.concurrent.lock.trace.ILockTrace;
+import de.invesdwin.util.concurrent.lock.trace.ProfilingLockTrace;
 import de.invesdwin.util.lang.string.Strings;
 import de.invesdwin.util.lang.string.UniqueNameGenerator;
 import de.invesdwin.util.time.date.millis.FDateNanos;
@@ -86,6 +90,16 @@ public final class Locks extends ALocksStaticFacade {
         return maybeWrap(name, lock);
     }
 
+    /**
+     * A reentrant read write lock that additionally allows optimistic reads for lookups. Cycle detection is not
+     * supported for this lock.
+     */
+    public static IOptimisticReadWriteLock newOptimisticReadWriteLock(final String lockName) {
+        final String name = UNIQUE_NAME_GENERATOR.get(lockName);
+        final StampedReentrantReadWriteLock lock = new StampedReentrantReadWriteLock();
+        return new OptimisticReadWriteLock(maybeWrap(name, lock), lock);
+    }
+
     public static void setCycleDetectingLockFactory(final CycleDetectingLockFactory cycleDetectingLockFactory) {
         Locks.cycleDetectingLockFactory = cycleDetectingLockFactory;
     }
@@ -244,11 +258,54 @@ public final class Locks extends ALocksStaticFacade {
         }
     }
 
+    /**
+     * Only affects locks that get created afterwards. Keeps the current lock trace as a delegate, so this can be
+     * combined with setLockTraceEnabled(true) when that is called first.
+     */
+    public static void setLockProfilingEnabled(final boolean lockProfilingEnabled) {
+        final ILockTrace defaultLockTraceCopy = defaultLockTrace;
+        if (lockProfilingEnabled) {
+            if (!(defaultLockTraceCopy instanceof ProfilingLockTrace)) {
+                Locks.defaultLockTrace = new ProfilingLockTrace(defaultLockTraceCopy);
+            }
+        } else {
+            if (defaultLockTraceCopy instanceof ProfilingLockTrace) {
+                final ProfilingLockTrace profiler = (ProfilingLockTrace) defaultLockTraceCopy;
+                profiler.stopLogReporter();
+                Locks.defaultLockTrace = profiler.getDelegate();
+            }
+        }
+    }
+
+    public static boolean isLockProfilingEnabled() {
+        return defaultLockTrace instanceof ProfilingLockTrace;
+    }
+
+    /**
+     * Use this to dump the profile or to start a periodic log reporter.
+     * 
+     * @return null when profiling is disabled
+     */
+    public static ProfilingLockTrace getLockProfiler() {
+        final ILockTrace defaultLockTraceCopy = defaultLockTrace;
+        if (defaultLockTraceCopy instanceof ProfilingLockTrace) {
+            return (ProfilingLockTrace) defaultLockTraceCopy;
+        } else {
+            return null;
+        }
+    }
+
     public static boolean isLockTraceEnabled() {
         return isLockTraceEnabled(defaultLockTrace);
     }
 
+    /**
+     * Lock profiling alone does not count as an enabled lock trace, see isLockProfilingEnabled().
+     */
     public static boolean isLockTraceEnabled(final ILockTrace lockTrace) {
+        if (lockTrace instanceof ProfilingLockTrace) {
+            return isLockTraceEnabled(((ProfilingLockTrace) lockTrace).getDelegate());
+        }
         return lockTrace != DisabledLockTrace.INSTANCE;
     }
 
@@ -273,6 +330,10 @@ public final class Locks extends ALocksStaticFacade {
         Locks.lockWaitTimeoutOnlyWriteLocks = onlyWriteLocks;
     }
 
+    /**
+     * E.g. AdaptiveLockingStrategy.INSTANCE to let each lock choose between spinning, yielding and parking based on
+     * its observed hold times. This needs to be set before the locks are created.
+     */
     public static void setLockingStrategy(final ILockingStrategy lockingStrategy) {
         if (lockingStrategy == null) {
             Locks.lockingStrategy = DefaultLockingStrategy.INSTANCE;
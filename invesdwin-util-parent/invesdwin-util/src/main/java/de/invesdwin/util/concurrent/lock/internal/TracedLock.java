@@ -60,7 +60,10 @@ public final class TracedLock implements ILock {
     @Override
     public void lock() {
         try {
-            delegate.lock();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lock();
+            }
             onLocked();
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -70,9 +73,13 @@ public final class TracedLock implements ILock {
     @Override
     public void lockInterruptibly() throws InterruptedException {
         try {
-            delegate.lockInterruptibly();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lockInterruptibly();
+            }
             onLocked();
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -95,12 +102,19 @@ public final class TracedLock implements ILock {
     @Override
     public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
         try {
-            final boolean locked = delegate.tryLock(time, unit);
+            boolean locked = delegate.tryLock();
+            if (!locked) {
+                lockTrace.locking(getName());
+                locked = delegate.tryLock(time, unit);
+            }
             if (locked) {
                 onLocked();
+            } else {
+                lockTrace.lockFailed(getName());
             }
             return locked;
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -46,7 +46,10 @@ public class WrappedTracedReentrantLock implements IReentrantLock {
     @Override
     public void lock() {
         try {
-            delegate.lock();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lock();
+            }
             onLocked();
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -56,9 +59,13 @@ public class WrappedTracedReentrantLock implements IReentrantLock {
     @Override
     public void lockInterruptibly() throws InterruptedException {
         try {
-            delegate.lockInterruptibly();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lockInterruptibly();
+            }
             onLocked();
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -81,12 +88,19 @@ public class WrappedTracedReentrantLock implements IReentrantLock {
     @Override
     public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
         try {
-            final boolean locked = delegate.tryLock(time, unit);
+            boolean locked = delegate.tryLock();
+            if (!locked) {
+                lockTrace.locking(getName());
+                locked = delegate.tryLock(time, unit);
+            }
             if (locked) {
                 onLocked();
+            } else {
+                lockTrace.lockFailed(getName());
             }
             return locked;
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
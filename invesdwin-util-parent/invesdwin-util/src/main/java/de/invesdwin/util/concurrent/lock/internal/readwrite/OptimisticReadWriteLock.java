@@ -0,0 +1,155 @@
+package de.invesdwin.util.concurrent.lock.internal.readwrite;
+
+import java.util.concurrent.locks.Condition;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.concurrent.lock.padded.StampedReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.readwrite.IOptimisticReadWriteLock;
+import de.invesdwin.util.concurrent.lock.readwrite.IReentrantReadWriteLock;
+import de.invesdwin.util.concurrent.lock.readwrite.IReentrantWriteLock;
+import de.invesdwin.util.concurrent.lock.strategy.ILockingStrategy;
+import de.invesdwin.util.concurrent.lock.trace.ILockTrace;
+import de.invesdwin.util.lang.Objects;
+
+/**
+ * Pessimistic reads and writes go through the (traced, timed out or strategy) wrapped lock, optimistic reads directly
+ * to the StampedLock.
+ */
+@ThreadSafe
+public class OptimisticReadWriteLock implements IOptimisticReadWriteLock {
+
+    private final IReentrantReadWriteLock delegate;
+    private final StampedReentrantReadWriteLock stampedLock;
+
+    public OptimisticReadWriteLock(final IReentrantReadWriteLock delegate,
+            final StampedReentrantReadWriteLock stampedLock) {
+        this.delegate = delegate;
+        this.stampedLock = stampedLock;
+    }
+
+    @Override
+    public long tryOptimisticRead() {
+        return stampedLock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(final long stamp) {
+        return stampedLock.validate(stamp);
+    }
+
+    @Override
+    public int optimisticReadInt(final IntSupplier read) {
+        return stampedLock.optimisticReadInt(read, delegate.readLock());
+    }
+
+    @Override
+    public boolean optimisticReadBoolean(final BooleanSupplier read) {
+        return stampedLock.optimisticReadBoolean(read, delegate.readLock());
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public ILock readLock() {
+        return delegate.readLock();
+    }
+
+    @Override
+    public IReentrantWriteLock writeLock() {
+        return delegate.writeLock();
+    }
+
+    @Override
+    public boolean isFair() {
+        return delegate.isFair();
+    }
+
+    @Override
+    public int getReadLockCount() {
+        return delegate.getReadLockCount();
+    }
+
+    @Override
+    public boolean isWriteLocked() {
+        return delegate.isWriteLocked();
+    }
+
+    @Override
+    public boolean isWriteLockedByCurrentThread() {
+        return delegate.isWriteLockedByCurrentThread();
+    }
+
+    @Override
+    public int getWriteHoldCount() {
+        return delegate.getWriteHoldCount();
+    }
+
+    @Override
+    public int getReadHoldCount() {
+        return delegate.getReadHoldCount();
+    }
+
+    @Override
+    public boolean hasQueuedThreads() {
+        return delegate.hasQueuedThreads();
+    }
+
+    @Override
+    public boolean hasQueuedThread(final Thread thread) {
+        return delegate.hasQueuedThread(thread);
+    }
+
+    @Override
+    public int getQueueLength() {
+        return delegate.getQueueLength();
+    }
+
+    @Override
+    public boolean hasWaiters(final Condition condition) {
+        return delegate.hasWaiters(condition);
+    }
+
+    @Override
+    public int getWaitQueueLength(final Condition condition) {
+        return delegate.getWaitQueueLength(condition);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).addValue(delegate).toString();
+    }
+
+    @Override
+    public ILockingStrategy getStrategy() {
+        return delegate.getStrategy();
+    }
+
+    //CHECKSTYLE:OFF
+    @Override
+    public IOptimisticReadWriteLock withStrategy(final ILockingStrategy strategy) {
+        //CHECKSTYLE:ON
+        final IReentrantReadWriteLock strategyDelegate = delegate.withStrategy(strategy);
+        if (strategyDelegate == delegate) {
+            return this;
+        }
+        return new OptimisticReadWriteLock(strategyDelegate, stampedLock);
+    }
+
+    @Override
+    public ILockTrace getLockTrace() {
+        return delegate.getLockTrace();
+    }
+
+    @Override
+    public boolean isDisabled() {
+        return delegate.isDisabled();
+    }
+
+}
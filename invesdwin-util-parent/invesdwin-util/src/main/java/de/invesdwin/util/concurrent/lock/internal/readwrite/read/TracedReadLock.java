@@ -68,7 +68,10 @@ public class TracedReadLock implements ILock {
     @Override
     public void lock() {
         try {
-            delegate.lock();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lock();
+            }
             onLocked();
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -78,9 +81,13 @@ public class TracedReadLock implements ILock {
     @Override
     public void lockInterruptibly() throws InterruptedException {
         try {
-            delegate.lockInterruptibly();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lockInterruptibly();
+            }
             onLocked();
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -103,12 +110,19 @@ public class TracedReadLock implements ILock {
     @Override
     public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
         try {
-            final boolean locked = delegate.tryLock(time, unit);
+            boolean locked = delegate.tryLock();
+            if (!locked) {
+                lockTrace.locking(getName());
+                locked = delegate.tryLock(time, unit);
+            }
             if (locked) {
                 onLocked();
+            } else {
+                lockTrace.lockFailed(getName());
             }
             return locked;
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
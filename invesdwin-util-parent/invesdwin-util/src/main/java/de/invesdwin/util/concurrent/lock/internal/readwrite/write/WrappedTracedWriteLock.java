@@ -70,7 +70,10 @@ public class WrappedTracedWriteLock implements ILock {
     public void lock() {
         try {
             assertReadLockNotHeldByCurrentThread();
-            delegate.lock();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lock();
+            }
             onLocked();
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -89,9 +92,13 @@ public class WrappedTracedWriteLock implements ILock {
     public void lockInterruptibly() throws InterruptedException {
         try {
             assertReadLockNotHeldByCurrentThread();
-            delegate.lockInterruptibly();
+            if (!delegate.tryLock()) {
+                lockTrace.locking(getName());
+                delegate.lockInterruptibly();
+            }
             onLocked();
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
@@ -116,12 +123,19 @@ public class WrappedTracedWriteLock implements ILock {
     public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
         try {
             assertReadLockNotHeldByCurrentThread();
-            final boolean locked = delegate.tryLock(time, unit);
+            boolean locked = delegate.tryLock();
+            if (!locked) {
+                lockTrace.locking(getName());
+                locked = delegate.tryLock(time, unit);
+            }
             if (locked) {
                 onLocked();
+            } else {
+                lockTrace.lockFailed(getName());
             }
             return locked;
         } catch (final InterruptedException t) {
+            lockTrace.lockFailed(getName());
             throw t;
         } catch (final Throwable t) {
             throw lockTrace.handleLockException(getName(), t);
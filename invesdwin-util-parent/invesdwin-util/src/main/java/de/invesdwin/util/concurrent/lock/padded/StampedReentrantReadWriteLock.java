@@ -0,0 +1,197 @@
+package de.invesdwin.util.concurrent.lock.padded;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A ReentrantReadWriteLock that additionally allows optimistic reads via a StampedLock. The StampedLock is only
+ * acquired by the outermost write lock, so pessimistic reads and writes keep the reentrant semantics (e.g. reading
+ * while holding the write lock), while optimistic readers do not write to the shared reader count of the lock which
+ * causes cache line contention with many reader threads.
+ * 
+ * Conditions are not supported on the write lock, because awaiting would release the write lock without releasing
+ * the StampedLock.
+ * 
+ * @see de.invesdwin.util.concurrent.lock.readwrite.IOptimisticReadWriteLock
+ */
+@ThreadSafe
+public class StampedReentrantReadWriteLock extends CloseableReentrantReadWriteLock {
+
+    private final StampedLock stampedLock = new StampedLock();
+    private final StampedWriteLock writeLock = new StampedWriteLock(this);
+
+    @Override
+    public WriteLock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * @return 0 if the write lock is held
+     */
+    public long tryOptimisticRead() {
+        return stampedLock.tryOptimisticRead();
+    }
+
+    /**
+     * @return true if the write lock was not acquired since the stamp was issued
+     */
+    public boolean validate(final long stamp) {
+        return stampedLock.validate(stamp);
+    }
+
+    public int optimisticReadInt(final IntSupplier read) {
+        return optimisticReadInt(read, readLock());
+    }
+
+    /**
+     * Reads optimistically and retries with the given read lock when a write happened concurrently. The read needs to
+     * terminate even when it sees the data in an inconsistent state, exceptions are treated like a failed validation.
+     */
+    public int optimisticReadInt(final IntSupplier read, final Lock readLock) {
+        final long stamp = stampedLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                final int result = read.getAsInt();
+                if (stampedLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (final RuntimeException e) {
+                //inconsistent state due to a concurrent write, retry with the read lock
+            }
+        }
+        readLock.lock();
+        try {
+            return read.getAsInt();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public boolean optimisticReadBoolean(final BooleanSupplier read) {
+        return optimisticReadBoolean(read, readLock());
+    }
+
+    /**
+     * @see #optimisticReadInt(IntSupplier, Lock)
+     */
+    public boolean optimisticReadBoolean(final BooleanSupplier read, final Lock readLock) {
+        final long stamp = stampedLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                final boolean result = read.getAsBoolean();
+                if (stampedLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (final RuntimeException e) {
+                //inconsistent state due to a concurrent write, retry with the read lock
+            }
+        }
+        readLock.lock();
+        try {
+            return read.getAsBoolean();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public <T> T optimisticRead(final Supplier<T> read) {
+        return optimisticRead(read, readLock());
+    }
+
+    /**
+     * @see #optimisticReadInt(IntSupplier, Lock)
+     */
+    public <T> T optimisticRead(final Supplier<T> read, final Lock readLock) {
+        final long stamp = stampedLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                final T result = read.get();
+                if (stampedLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (final RuntimeException e) {
+                //inconsistent state due to a concurrent write, retry with the read lock
+            }
+        }
+        readLock.lock();
+        try {
+            return read.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private final class StampedWriteLock extends WriteLock {
+
+        /**
+         * only written and read by the owner of the write lock
+         */
+        @GuardedBy("writeLock")
+        private long writeStamp;
+
+        private StampedWriteLock(final StampedReentrantReadWriteLock parent) {
+            super(parent);
+        }
+
+        private void onLocked() {
+            if (getHoldCount() == 1) {
+                //writers are already exclusive, thus this does not block
+                writeStamp = stampedLock.writeLock();
+            }
+        }
+
+        @Override
+        public void lock() {
+            super.lock();
+            onLocked();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            super.lockInterruptibly();
+            onLocked();
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (super.tryLock()) {
+                onLocked();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(final long timeout, final TimeUnit unit) throws InterruptedException {
+            if (super.tryLock(timeout, unit)) {
+                onLocked();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void unlock() {
+            if (getHoldCount() == 1) {
+                stampedLock.unlockWrite(writeStamp);
+            }
+            super.unlock();
+        }
+
+        @Deprecated
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("not supported");
+        }
+
+    }
+
+}
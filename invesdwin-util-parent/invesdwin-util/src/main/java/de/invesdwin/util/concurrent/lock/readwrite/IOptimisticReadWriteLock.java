@@ -0,0 +1,47 @@
+package de.invesdwin.util.concurrent.lock.readwrite;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+import de.invesdwin.util.concurrent.lock.strategy.ILockingStrategy;
+
+/**
+ * Allows reads without writing to the shared reader count of the lock:
+ * 
+ * <pre>
+ * return lock.optimisticReadInt(delegate::size);
+ * </pre>
+ * 
+ * The optimistic read might see the data in an inconsistent state, thus it should only read plain fields (e.g. the
+ * size of a collection) or do lookups that are bounded (e.g. OptimisticInt2IntOpenHashMap.getOptimistic). An unbounded
+ * probe of a structure that is being modified (e.g. a hash map during a rehash) might loop endlessly.
+ * 
+ * @see java.util.concurrent.locks.StampedLock
+ */
+public interface IOptimisticReadWriteLock extends IReentrantReadWriteLock {
+
+    /**
+     * @return 0 if the write lock is held
+     */
+    long tryOptimisticRead();
+
+    /**
+     * @return true if the write lock was not acquired since the stamp was issued
+     */
+    boolean validate(long stamp);
+
+    /**
+     * Reads optimistically and retries with the read lock when a write happened concurrently. The read needs to
+     * terminate even when it sees the data in an inconsistent state, exceptions are treated like a failed validation.
+     */
+    int optimisticReadInt(IntSupplier read);
+
+    /**
+     * @see #optimisticReadInt(IntSupplier)
+     */
+    boolean optimisticReadBoolean(BooleanSupplier read);
+
+    @Override
+    IOptimisticReadWriteLock withStrategy(ILockingStrategy strategy);
+
+}
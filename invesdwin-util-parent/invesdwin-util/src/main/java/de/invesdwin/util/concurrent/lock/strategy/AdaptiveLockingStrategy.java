@@ -0,0 +1,344 @@
+package de.invesdwin.util.concurrent.lock.strategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.invesdwin.util.concurrent.Threads;
+import de.invesdwin.util.concurrent.loop.spinwait.ABaseSpinWait;
+import de.invesdwin.util.lang.Objects;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.date.millis.FDateNanos;
+import de.invesdwin.util.time.duration.Duration;
+
+/**
+ * Chooses per lock between spinning, yielding and parking depending on how long the lock is typically held. Short
+ * critical sections (e.g. in the primitive concurrent maps) are cheapest to wait for by spinning, while long ones (e.g.
+ * in historical caches) should park the waiting thread instead of burning CPU. Spinning and yielding are bounded, after
+ * the budget is used up the waiting thread parks anyway.
+ *
+ * Hold times are sampled on every n-th acquisition when the lock is wrapped via Locks.maybeWrap (or
+ * ILock.withStrategy), because only then unlock goes through the strategy. For locks that use the strategy directly
+ * (e.g. in the primitive concurrent maps) the wait times of contended acquisitions are used as an estimate instead.
+ *
+ * Each wrapped lock gets its own instance (see forLock), its statistics can be read via lock.getStrategy() or
+ * getActiveInstances().
+ */
+@ThreadSafe
+public final class AdaptiveLockingStrategy implements ILockingStrategy {
+
+    public static final Duration DEFAULT_SPIN_MAX_HOLD = new Duration(2, FTimeUnit.MICROSECONDS);
+    public static final Duration DEFAULT_YIELD_MAX_HOLD = new Duration(50, FTimeUnit.MICROSECONDS);
+    /**
+     * Hold times are measured on every 16th acquisition to keep the overhead low.
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+    public static final AdaptiveLockingStrategy INSTANCE = new AdaptiveLockingStrategy(DEFAULT_SPIN_MAX_HOLD,
+            DEFAULT_YIELD_MAX_HOLD, DEFAULT_SAMPLE_INTERVAL);
+
+    /**
+     * Exponentially weighted moving average that gives each new sample a weight of 1/8.
+     */
+    private static final int AVERAGE_SHIFT = 3;
+    /**
+     * Waiting a bit longer than the average hold time catches most releases.
+     */
+    private static final int SPIN_BUDGET_MULTIPLIER = 4;
+    private static final int YIELD_BUDGET_MULTIPLIER = 2;
+    /**
+     * Parked locks still try yielding on every 64th contended acquisition, so that they can find back to spinning when
+     * the lock is no longer held for long (the wait times of parked threads include the wake up latency).
+     */
+    private static final int PARK_PROBE_MASK = 64 - 1;
+    private static final boolean SPIN_ALLOWED = Runtime.getRuntime().availableProcessors() > 1;
+    private static final Set<AdaptiveLockingStrategy> ACTIVE_INSTANCES = newActiveInstancesSet();
+
+    public enum AdaptiveLockingMode {
+        Spin,
+        Yield,
+        Park;
+    }
+
+    private final String lockName;
+    private final long spinMaxHoldNanos;
+    private final long yieldMaxHoldNanos;
+    private final int sampleInterval;
+    private final int sampleMask;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private volatile long averageWaitNanos;
+    private volatile long averageHoldNanos;
+    private volatile AdaptiveLockingMode mode = AdaptiveLockingMode.Spin;
+    private volatile Thread holdSampleThread;
+    private volatile long holdSampleStartNanos;
+    /**
+     * racy on purpose, lost increments only shift the sampling a bit
+     */
+    private int sampleCounter;
+    private int contendedCounter;
+
+    /**
+     * @param sampleInterval
+     *            gets rounded up to a power of two
+     */
+    public AdaptiveLockingStrategy(final Duration spinMaxHold, final Duration yieldMaxHold,
+            final int sampleInterval) {
+        this(null, spinMaxHold.nanosValue(), yieldMaxHold.nanosValue(), sampleInterval);
+    }
+
+    private AdaptiveLockingStrategy(final String lockName, final long spinMaxHoldNanos, final long yieldMaxHoldNanos,
+            final int sampleInterval) {
+        this.lockName = lockName;
+        this.spinMaxHoldNanos = spinMaxHoldNanos;
+        this.yieldMaxHoldNanos = yieldMaxHoldNanos;
+        this.sampleInterval = Integer.highestOneBit(Math.max(1, sampleInterval) * 2 - 1);
+        this.sampleMask = this.sampleInterval - 1;
+    }
+
+    @Override
+    public ILockingStrategy forLock(final String lockName) {
+        final AdaptiveLockingStrategy instance = new AdaptiveLockingStrategy(lockName, spinMaxHoldNanos,
+                yieldMaxHoldNanos, sampleInterval);
+        ACTIVE_INSTANCES.add(instance);
+        return instance;
+    }
+
+    /**
+     * The name of the lock, null for the shared instance that was not created via forLock.
+     */
+    public String getLockName() {
+        return lockName;
+    }
+
+    public AdaptiveLockingMode getMode() {
+        return mode;
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    public long getContendedCount() {
+        return contendedAcquisitions.sum();
+    }
+
+    public double getContentionRate() {
+        final long acquisitionCount = getAcquisitionCount();
+        if (acquisitionCount == 0) {
+            return 0D;
+        }
+        return (double) getContendedCount() / acquisitionCount;
+    }
+
+    public Duration getAverageWait() {
+        return new Duration(averageWaitNanos, FTimeUnit.NANOSECONDS);
+    }
+
+    public Duration getAverageHold() {
+        return new Duration(averageHoldNanos, FTimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void lock(final Lock lock) {
+        final boolean sample = isSample();
+        if (lock.tryLock()) {
+            onAcquired(sample);
+            return;
+        }
+        final long startNanos = FDateNanos.elapsedNanos();
+        try {
+            if (!tryLockAdaptive(lock, startNanos, Long.MAX_VALUE, false)) {
+                lock.lock();
+            }
+        } catch (final InterruptedException e) {
+            //not interruptible
+            throw new RuntimeException(e);
+        }
+        onContendedAcquired(sample, startNanos);
+    }
+
+    @Override
+    public void lockInterruptibly(final Lock lock) throws InterruptedException {
+        final boolean sample = isSample();
+        if (lock.tryLock()) {
+            onAcquired(sample);
+            return;
+        }
+        final long startNanos = FDateNanos.elapsedNanos();
+        if (!tryLockAdaptive(lock, startNanos, Long.MAX_VALUE, true)) {
+            lock.lockInterruptibly();
+        }
+        onContendedAcquired(sample, startNanos);
+    }
+
+    @Override
+    public boolean tryLock(final Lock lock) {
+        final boolean sample = isSample();
+        if (lock.tryLock()) {
+            onAcquired(sample);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean tryLock(final Lock lock, final long time, final TimeUnit unit) throws InterruptedException {
+        final boolean sample = isSample();
+        if (lock.tryLock()) {
+            onAcquired(sample);
+            return true;
+        }
+        final long startNanos = FDateNanos.elapsedNanos();
+        final long maxWaitNanos = unit.toNanos(time);
+        if (!tryLockAdaptive(lock, startNanos, maxWaitNanos, true)) {
+            final long remainingNanos = maxWaitNanos - (FDateNanos.elapsedNanos() - startNanos);
+            if (!lock.tryLock(remainingNanos, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        onContendedAcquired(sample, startNanos);
+        return true;
+    }
+
+    @Override
+    public void unlock(final Lock lock) {
+        if (holdSampleThread == Thread.currentThread()) {
+            final long holdNanos = FDateNanos.elapsedNanos() - holdSampleStartNanos;
+            holdSampleThread = null;
+            averageHoldNanos = newAverage(averageHoldNanos, holdNanos);
+            updateMode();
+        }
+        lock.unlock();
+    }
+
+    private boolean isSample() {
+        final int counter = sampleCounter + 1;
+        sampleCounter = counter;
+        return (counter & sampleMask) == 0;
+    }
+
+    private void onAcquired(final boolean sample) {
+        acquisitions.increment();
+        if (sample) {
+            //start first so that the matching thread never sees the start of a previous sample
+            holdSampleStartNanos = FDateNanos.elapsedNanos();
+            holdSampleThread = Thread.currentThread();
+        }
+    }
+
+    private void onContendedAcquired(final boolean sample, final long startNanos) {
+        final long waitNanos = FDateNanos.elapsedNanos() - startNanos;
+        contendedAcquisitions.increment();
+        averageWaitNanos = newAverage(averageWaitNanos, waitNanos);
+        updateMode();
+        onAcquired(sample);
+    }
+
+    /**
+     * Returns true when the lock was acquired within the spin or yield budget of the current mode.
+     */
+    private boolean tryLockAdaptive(final Lock lock, final long startNanos, final long maxWaitNanos,
+            final boolean interruptible) throws InterruptedException {
+        AdaptiveLockingMode modeCopy = mode;
+        if (modeCopy == AdaptiveLockingMode.Park) {
+            final int counter = contendedCounter + 1;
+            contendedCounter = counter;
+            if ((counter & PARK_PROBE_MASK) != 0) {
+                return false;
+            }
+            modeCopy = AdaptiveLockingMode.Yield;
+        }
+        if (modeCopy == AdaptiveLockingMode.Spin && !SPIN_ALLOWED) {
+            modeCopy = AdaptiveLockingMode.Yield;
+        }
+        final long budgetNanos;
+        if (modeCopy == AdaptiveLockingMode.Spin) {
+            budgetNanos = Math.min(maxWaitNanos, spinMaxHoldNanos * SPIN_BUDGET_MULTIPLIER);
+        } else {
+            budgetNanos = Math.min(maxWaitNanos, yieldMaxHoldNanos * YIELD_BUDGET_MULTIPLIER);
+        }
+        while (true) {
+            if (modeCopy == AdaptiveLockingMode.Spin) {
+                ABaseSpinWait.onSpinWaitStatic();
+            } else {
+                Thread.yield();
+            }
+            if (lock.tryLock()) {
+                return true;
+            }
+            if (interruptible) {
+                Threads.throwIfInterrupted();
+            }
+            if (FDateNanos.elapsedNanos() - startNanos >= budgetNanos) {
+                return false;
+            }
+        }
+    }
+
+    private void updateMode() {
+        final long holdNanos = averageHoldNanos;
+        //the wait time of contended acquisitions approximates the hold time when unlock is not sampled
+        final long estimateNanos = holdNanos > 0 ? holdNanos : averageWaitNanos;
+        final AdaptiveLockingMode newMode;
+        if (estimateNanos <= spinMaxHoldNanos) {
+            newMode = AdaptiveLockingMode.Spin;
+        } else if (estimateNanos <= yieldMaxHoldNanos) {
+            newMode = AdaptiveLockingMode.Yield;
+        } else {
+            newMode = AdaptiveLockingMode.Park;
+        }
+        if (mode != newMode) {
+            //only write on change to not invalidate the cache line of other cores all the time
+            mode = newMode;
+        }
+    }
+
+    private static long newAverage(final long average, final long sample) {
+        if (average == 0) {
+            return sample;
+        }
+        return average + ((sample - average) >> AVERAGE_SHIFT);
+    }
+
+    @Override
+    public boolean isDisabled() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .add("lockName", lockName)
+                .add("mode", mode)
+                .add("acquisitions", getAcquisitionCount())
+                .add("contended", getContendedCount())
+                .add("averageWait", getAverageWait())
+                .add("averageHold", getAverageHold())
+                .toString();
+    }
+
+    /**
+     * Returns the per lock instances of locks that are still reachable, e.g. to log the most contended locks.
+     */
+    public static List<AdaptiveLockingStrategy> getActiveInstances() {
+        return new ArrayList<>(ACTIVE_INSTANCES);
+    }
+
+    private static Set<AdaptiveLockingStrategy> newActiveInstancesSet() {
+        final ConcurrentMap<AdaptiveLockingStrategy, Boolean> map = Caffeine.newBuilder()
+                .weakKeys()
+                .<AdaptiveLockingStrategy, Boolean> build()
+                .asMap();
+        return Collections.newSetFromMap(map);
+    }
+
+}
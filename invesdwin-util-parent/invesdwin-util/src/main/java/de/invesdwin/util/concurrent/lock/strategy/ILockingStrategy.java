@@ -13,6 +13,22 @@ public interface ILockingStrategy {
 
     boolean tryLock(Lock lock, long time, TimeUnit unit) throws InterruptedException;
 
+    /**
+     * Only called by the strategy lock wrappers, locks that are used with the strategy directly are unlocked without
+     * it.
+     */
+    default void unlock(final Lock lock) {
+        lock.unlock();
+    }
+
+    /**
+     * Called once for each lock that gets wrapped with this strategy. Strategies that keep state per lock (e.g.
+     * statistics) return a new instance here, stateless strategies return themselves.
+     */
+    default ILockingStrategy forLock(final String lockName) {
+        return this;
+    }
+
     boolean isDisabled();
 
 }
@@ -18,7 +18,7 @@ public final class StrategyLock implements ILock {
     private final ILock delegate;
 
     private StrategyLock(final ILockingStrategy strategy, final ILock delegate) {
-        this.strategy = strategy;
+        this.strategy = strategy.forLock(delegate.getName());
         this.delegate = delegate;
     }
 
@@ -68,7 +68,7 @@ public final class StrategyLock implements ILock {
 
     @Override
     public void unlock() {
-        delegate.unlock();
+        strategy.unlock(delegate);
     }
 
     @Override
@@ -18,7 +18,7 @@ public final class StrategyReentrantLock implements IReentrantLock {
     private final IReentrantLock delegate;
 
     private StrategyReentrantLock(final ILockingStrategy strategy, final IReentrantLock delegate) {
-        this.strategy = strategy;
+        this.strategy = strategy.forLock(delegate.getName());
         this.delegate = delegate;
     }
 
@@ -58,7 +58,7 @@ public final class StrategyReentrantLock implements IReentrantLock {
 
     @Override
     public void unlock() {
-        delegate.unlock();
+        strategy.unlock(delegate);
     }
 
     @Override
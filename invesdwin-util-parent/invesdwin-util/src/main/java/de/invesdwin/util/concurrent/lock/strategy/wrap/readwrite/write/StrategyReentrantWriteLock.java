@@ -18,7 +18,7 @@ public final class StrategyReentrantWriteLock implements IReentrantWriteLock {
     private final IReentrantWriteLock delegate;
 
     private StrategyReentrantWriteLock(final ILockingStrategy strategy, final IReentrantWriteLock delegate) {
-        this.strategy = strategy;
+        this.strategy = strategy.forLock(delegate.getName());
         this.delegate = delegate;
     }
 
@@ -54,7 +54,7 @@ public final class StrategyReentrantWriteLock implements IReentrantWriteLock {
 
     @Override
     public void unlock() {
-        delegate.unlock();
+        strategy.unlock(delegate);
     }
 
     @Override
@@ -12,6 +12,18 @@ import de.invesdwin.util.concurrent.lock.readwrite.IReentrantReadWriteLock;
 
 public interface ILockTrace {
 
+    /**
+     * Called before an acquisition (lock, lockInterruptibly, tryLock with timeout) blocks because an immediate tryLock
+     * did not succeed. Uncontended acquisitions thus only call locked.
+     */
+    default void locking(final String name) {}
+
+    /**
+     * Called when a tryLock with timeout did not acquire the lock or when an acquisition got interrupted. Exceptions
+     * are reported via handleLockException instead.
+     */
+    default void lockFailed(final String name) {}
+
     void locked(String name);
 
     void unlocked(String name);
@@ -0,0 +1,136 @@
+package de.invesdwin.util.concurrent.lock.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.concurrent.lock.trace.LockContentionSnapshot.LockCallSite;
+import de.invesdwin.util.math.statistics.LatencyHistogram;
+
+/**
+ * Counters of ProfilingLockTrace for all locks that share the same (normalized) name.
+ */
+@ThreadSafe
+public class LockContentionProfile {
+
+    /**
+     * Further call sites get aggregated to avoid unbounded memory when call sites are generated (e.g. by lambdas).
+     */
+    public static final int MAX_CALL_SITES = 64;
+    public static final String OTHER_CALL_SITES = "<other>";
+
+    private final String name;
+    private final int sampleInterval;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LatencyHistogram waitNanos = new LatencyHistogram();
+    private final LatencyHistogram holdNanos = new LatencyHistogram();
+    private final Map<String, CallSiteCounter> callSite_counter = ILockCollectionFactory.getInstance(true)
+            .newConcurrentMap();
+
+    public LockContentionProfile(final String name, final int sampleInterval) {
+        this.name = name;
+        this.sampleInterval = sampleInterval;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Only every n-th acquisition per thread gets timed, the histograms thus only contain a fraction of the
+     * acquisitions.
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public void recordAcquisition() {
+        acquisitions.increment();
+    }
+
+    public void recordWait(final long nanos) {
+        waitNanos.record(nanos);
+    }
+
+    public void recordHold(final long nanos) {
+        holdNanos.record(nanos);
+    }
+
+    public void recordContention(final String callSite, final long waitNanos) {
+        contendedAcquisitions.increment();
+        CallSiteCounter counter = callSite_counter.get(callSite);
+        if (counter == null) {
+            final String key;
+            if (callSite_counter.size() >= MAX_CALL_SITES) {
+                key = OTHER_CALL_SITES;
+            } else {
+                key = callSite;
+            }
+            counter = callSite_counter.computeIfAbsent(key, (k) -> new CallSiteCounter());
+        }
+        counter.count.increment();
+        counter.waitNanos.add(waitNanos);
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Sampled acquisitions that waited at least ProfilingLockTrace.getCallSiteMinWait().
+     */
+    public long getContendedCount() {
+        return contendedAcquisitions.sum();
+    }
+
+    public LatencyHistogram getWaitNanos() {
+        return waitNanos;
+    }
+
+    public LatencyHistogram getHoldNanos() {
+        return holdNanos;
+    }
+
+    /**
+     * Sorted descending by the total wait time.
+     */
+    public List<LockCallSite> getTopCallSites(final int limit) {
+        final List<LockCallSite> callSites = new ArrayList<>(callSite_counter.size());
+        callSite_counter.forEach((callSite, counter) -> callSites
+                .add(new LockCallSite(callSite, counter.count.sum(), counter.waitNanos.sum())));
+        callSites.sort(LockCallSite.COMPARATOR);
+        if (callSites.size() > limit) {
+            return new ArrayList<>(callSites.subList(0, limit));
+        } else {
+            return callSites;
+        }
+    }
+
+    public void reset() {
+        acquisitions.reset();
+        contendedAcquisitions.reset();
+        waitNanos.reset();
+        holdNanos.reset();
+        callSite_counter.clear();
+    }
+
+    public LockContentionSnapshot snapshot(final int topCallSites) {
+        return new LockContentionSnapshot(this, topCallSites);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot(LockContentionSnapshot.DEFAULT_TOP_CALL_SITES).toString();
+    }
+
+    private static final class CallSiteCounter {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+    }
+
+}
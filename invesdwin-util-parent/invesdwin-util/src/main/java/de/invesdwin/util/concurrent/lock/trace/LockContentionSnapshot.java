@@ -0,0 +1,209 @@
+package de.invesdwin.util.concurrent.lock.trace;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.lang.Objects;
+import de.invesdwin.util.math.statistics.LatencyHistogram;
+
+@Immutable
+public class LockContentionSnapshot {
+
+    public static final int DEFAULT_TOP_CALL_SITES = 5;
+
+    /**
+     * Sorts descending by the estimated total wait time, thus the lock that throttles the most comes first.
+     */
+    public static final Comparator<LockContentionSnapshot> COMPARATOR = new Comparator<LockContentionSnapshot>() {
+        @Override
+        public int compare(final LockContentionSnapshot o1, final LockContentionSnapshot o2) {
+            return Long.compare(o2.getEstimatedTotalWaitNanos(), o1.getEstimatedTotalWaitNanos());
+        }
+    };
+
+    private final String name;
+    private final int sampleInterval;
+    private final long acquisitionCount;
+    private final long contendedCount;
+    private final long sampledWaitCount;
+    private final long sampledWaitNanos;
+    private final long waitNanosP50;
+    private final long waitNanosP99;
+    private final long waitNanosMax;
+    private final long sampledHoldCount;
+    private final long sampledHoldNanos;
+    private final long holdNanosP50;
+    private final long holdNanosP99;
+    private final long holdNanosMax;
+    private final List<LockCallSite> topCallSites;
+
+    public LockContentionSnapshot(final LockContentionProfile profile, final int topCallSites) {
+        this.name = profile.getName();
+        this.sampleInterval = profile.getSampleInterval();
+        this.acquisitionCount = profile.getAcquisitionCount();
+        this.contendedCount = profile.getContendedCount();
+        final LatencyHistogram waitNanos = profile.getWaitNanos();
+        this.sampledWaitCount = waitNanos.getCount();
+        this.sampledWaitNanos = waitNanos.getTotal();
+        this.waitNanosP50 = waitNanos.getValueAtPercentile(50);
+        this.waitNanosP99 = waitNanos.getValueAtPercentile(99);
+        this.waitNanosMax = waitNanos.getMax();
+        final LatencyHistogram holdNanos = profile.getHoldNanos();
+        this.sampledHoldCount = holdNanos.getCount();
+        this.sampledHoldNanos = holdNanos.getTotal();
+        this.holdNanosP50 = holdNanos.getValueAtPercentile(50);
+        this.holdNanosP99 = holdNanos.getValueAtPercentile(99);
+        this.holdNanosMax = holdNanos.getMax();
+        this.topCallSites = Collections.unmodifiableList(profile.getTopCallSites(topCallSites));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitionCount;
+    }
+
+    /**
+     * Sampled acquisitions that had to wait long enough to record their call site.
+     */
+    public long getContendedCount() {
+        return contendedCount;
+    }
+
+    public long getSampledWaitCount() {
+        return sampledWaitCount;
+    }
+
+    public double getAverageWaitNanos() {
+        if (sampledWaitCount == 0) {
+            return 0D;
+        }
+        return (double) sampledWaitNanos / sampledWaitCount;
+    }
+
+    /**
+     * Extrapolates the sampled wait times to all acquisitions.
+     */
+    public long getEstimatedTotalWaitNanos() {
+        return sampledWaitNanos * sampleInterval;
+    }
+
+    public long getWaitNanosP50() {
+        return waitNanosP50;
+    }
+
+    public long getWaitNanosP99() {
+        return waitNanosP99;
+    }
+
+    public long getWaitNanosMax() {
+        return waitNanosMax;
+    }
+
+    public long getSampledHoldCount() {
+        return sampledHoldCount;
+    }
+
+    public double getAverageHoldNanos() {
+        if (sampledHoldCount == 0) {
+            return 0D;
+        }
+        return (double) sampledHoldNanos / sampledHoldCount;
+    }
+
+    /**
+     * Extrapolates the sampled hold times to all acquisitions.
+     */
+    public long getEstimatedTotalHoldNanos() {
+        return sampledHoldNanos * sampleInterval;
+    }
+
+    public long getHoldNanosP50() {
+        return holdNanosP50;
+    }
+
+    public long getHoldNanosP99() {
+        return holdNanosP99;
+    }
+
+    public long getHoldNanosMax() {
+        return holdNanosMax;
+    }
+
+    public List<LockCallSite> getTopCallSites() {
+        return topCallSites;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                .addValue(name)
+                .add("acquisitions", acquisitionCount)
+                .add("contended", contendedCount)
+                .add("estimatedTotalWaitNanos", getEstimatedTotalWaitNanos())
+                .add("waitNanosP50", waitNanosP50)
+                .add("waitNanosP99", waitNanosP99)
+                .add("waitNanosMax", waitNanosMax)
+                .add("holdNanosP50", holdNanosP50)
+                .add("holdNanosP99", holdNanosP99)
+                .add("holdNanosMax", holdNanosMax)
+                .add("topCallSites", topCallSites)
+                .toString();
+    }
+
+    @Immutable
+    public static class LockCallSite {
+
+        /**
+         * Sorts descending by the total wait time.
+         */
+        public static final Comparator<LockCallSite> COMPARATOR = new Comparator<LockCallSite>() {
+            @Override
+            public int compare(final LockCallSite o1, final LockCallSite o2) {
+                return Long.compare(o2.getWaitNanos(), o1.getWaitNanos());
+            }
+        };
+
+        private final String callSite;
+        private final long count;
+        private final long waitNanos;
+
+        public LockCallSite(final String callSite, final long count, final long waitNanos) {
+            this.callSite = callSite;
+            this.count = count;
+            this.waitNanos = waitNanos;
+        }
+
+        public String getCallSite() {
+            return callSite;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this)
+                    .addValue(callSite)
+                    .add("count", count)
+                    .add("waitNanos", waitNanos)
+                    .toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,420 @@
+package de.invesdwin.util.concurrent.lock.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableScheduledFuture;
+
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.WrappedScheduledExecutorService;
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.concurrent.lock.IReentrantLock;
+import de.invesdwin.util.concurrent.lock.readwrite.IReadWriteLock;
+import de.invesdwin.util.concurrent.lock.readwrite.IReentrantReadWriteLock;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.duration.Duration;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * Aggregates acquisition counts, wait and hold time histograms and the top contending call sites per lock name. Locks
+ * with the same name but a different sequence number (see Locks.newReentrantLock) share their profile, so that e.g.
+ * all instances of CachedHistoricalCacheQueryCore_cachedQueryActiveLock can be compared against other locks.
+ *
+ * Only every n-th acquisition per thread gets timed to keep the overhead low, call sites are only resolved for
+ * sampled acquisitions that waited at least callSiteMinWait. A wait is only recorded when the lock could not be
+ * acquired immediately. Other trace features (e.g. from EnabledLockTrace) are delegated.
+ */
+@ThreadSafe
+public class ProfilingLockTrace implements ILockTrace {
+
+    public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+    public static final Duration DEFAULT_CALL_SITE_MIN_WAIT = new Duration(10, FTimeUnit.MICROSECONDS);
+    public static final int DEFAULT_DUMP_LOCKS = 20;
+
+    private static final org.apache.logging.log4j.Logger LOG = org.apache.logging.log4j.LogManager
+            .getLogger(ProfilingLockTrace.class);
+    /**
+     * Locks that are released by a different thread would otherwise leak their hold samples.
+     */
+    private static final int MAX_HELD_SAMPLES = 16;
+    private static final Pattern SEQUENCE_NUMBER_PATTERN = Pattern.compile("_\\d+(?=(_readLock|_writeLock)?$)");
+    private static final String[] IGNORED_CALL_SITE_PREFIXES = { "de.invesdwin.util.concurrent.lock.internal.",
+            "de.invesdwin.util.concurrent.lock.strategy.", "de.invesdwin.util.concurrent.lock.ILock",
+            "de.invesdwin.util.concurrent.lock.Locks", "java.util.concurrent.locks.",
+            "com.google.common.util.concurrent.CycleDetectingLockFactory" };
+
+    private final ILockTrace delegate;
+    private final int sampleMask;
+    private final long callSiteMinWaitNanos;
+    private final Map<String, LockContentionProfile> name_profile = ILockCollectionFactory.getInstance(true)
+            .newConcurrentMap();
+    /**
+     * Lock names are the same instances on each call, thus weak identity keys avoid normalizing the name on each
+     * acquisition without leaking the names of discarded locks.
+     */
+    private final LoadingCache<String, LockContentionProfile> lockName_profile = Caffeine.newBuilder()
+            .weakKeys()
+            .build(this::newProfile);
+    private final FastThreadLocal<ThreadState> threadState = new FastThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() throws Exception {
+            return new ThreadState();
+        }
+    };
+    @GuardedBy("this")
+    private WrappedScheduledExecutorService reporterExecutor;
+    @GuardedBy("this")
+    private ListenableScheduledFuture<?> reporterFuture;
+
+    public ProfilingLockTrace(final ILockTrace delegate) {
+        this(delegate, DEFAULT_SAMPLE_INTERVAL, DEFAULT_CALL_SITE_MIN_WAIT);
+    }
+
+    /**
+     * @param sampleInterval
+     *            gets rounded up to a power of two, 1 times every acquisition
+     */
+    public ProfilingLockTrace(final ILockTrace delegate, final int sampleInterval, final Duration callSiteMinWait) {
+        this.delegate = delegate;
+        this.sampleMask = Integer.highestOneBit(Math.max(1, sampleInterval) * 2 - 1) - 1;
+        this.callSiteMinWaitNanos = callSiteMinWait.nanosValue();
+    }
+
+    public ILockTrace getDelegate() {
+        return delegate;
+    }
+
+    public int getSampleInterval() {
+        return sampleMask + 1;
+    }
+
+    public Duration getCallSiteMinWait() {
+        return new Duration(callSiteMinWaitNanos, FTimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void locking(final String lockName) {
+        delegate.locking(lockName);
+        final ThreadState state = threadState.get();
+        state.pendingLockName = lockName;
+        state.pendingSampled = state.isSample(sampleMask);
+        if (state.pendingSampled) {
+            state.pendingStartNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void locked(final String lockName) {
+        delegate.locked(lockName);
+        final LockContentionProfile profile = lockName_profile.get(lockName);
+        profile.recordAcquisition();
+        final ThreadState state = threadState.get();
+        final boolean waited;
+        final boolean sampled;
+        if (lockName.equals(state.pendingLockName)) {
+            waited = true;
+            sampled = state.pendingSampled;
+            state.pendingLockName = null;
+        } else {
+            //acquired immediately
+            waited = false;
+            sampled = state.isSample(sampleMask);
+        }
+        if (!sampled) {
+            return;
+        }
+        final long nowNanos = System.nanoTime();
+        if (waited) {
+            final long waitNanos = nowNanos - state.pendingStartNanos;
+            profile.recordWait(waitNanos);
+            if (waitNanos >= callSiteMinWaitNanos) {
+                profile.recordContention(newCallSite(), waitNanos);
+            }
+        }
+        state.addHeld(lockName, nowNanos);
+    }
+
+    @Override
+    public void unlocked(final String lockName) {
+        delegate.unlocked(lockName);
+        final ThreadState state = threadState.get();
+        final int index = state.indexOfHeld(lockName);
+        if (index >= 0) {
+            final long holdNanos = System.nanoTime() - state.heldStartNanos[index];
+            state.removeHeld(index);
+            lockName_profile.get(lockName).recordHold(holdNanos);
+        }
+    }
+
+    @Override
+    public void lockFailed(final String lockName) {
+        delegate.lockFailed(lockName);
+        //otherwise a later tryLock would record the time since this acquisition as a wait
+        threadState.get().pendingLockName = null;
+    }
+
+    @Override
+    public RuntimeException handleLockException(final String lockName, final Throwable lockException) {
+        threadState.get().pendingLockName = null;
+        return delegate.handleLockException(lockName, lockException);
+    }
+
+    @Override
+    public boolean isLockedByThisThread(final String lockName) {
+        return delegate.isLockedByThisThread(lockName);
+    }
+
+    /**
+     * Removes the sequence number that makes lock names unique, so that all instances of a lock get aggregated.
+     * Override this to profile each instance separately.
+     */
+    protected String getProfileName(final String lockName) {
+        return SEQUENCE_NUMBER_PATTERN.matcher(lockName).replaceFirst("");
+    }
+
+    private LockContentionProfile newProfile(final String lockName) {
+        return name_profile.computeIfAbsent(getProfileName(lockName),
+                (k) -> new LockContentionProfile(k, getSampleInterval()));
+    }
+
+    private static String newCallSite() {
+        final StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        for (int i = 0; i < stackTrace.length; i++) {
+            final StackTraceElement element = stackTrace[i];
+            if (!isIgnoredCallSite(element.getClassName())) {
+                return element.toString();
+            }
+        }
+        return LockContentionProfile.OTHER_CALL_SITES;
+    }
+
+    private static boolean isIgnoredCallSite(final String className) {
+        if (className.equals(ProfilingLockTrace.class.getName())) {
+            return true;
+        }
+        for (int i = 0; i < IGNORED_CALL_SITE_PREFIXES.length; i++) {
+            if (className.startsWith(IGNORED_CALL_SITE_PREFIXES[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return null if no lock with this name (without sequence number) was acquired yet
+     */
+    public LockContentionSnapshot getSnapshot(final String name) {
+        final LockContentionProfile profile = name_profile.get(name);
+        if (profile == null) {
+            return null;
+        }
+        return profile.snapshot(LockContentionSnapshot.DEFAULT_TOP_CALL_SITES);
+    }
+
+    /**
+     * Sorted descending by the estimated total wait time.
+     */
+    public List<LockContentionSnapshot> getSnapshots(final int topCallSites) {
+        final List<LockContentionSnapshot> snapshots = new ArrayList<>(name_profile.size());
+        for (final LockContentionProfile profile : name_profile.values()) {
+            snapshots.add(profile.snapshot(topCallSites));
+        }
+        snapshots.sort(LockContentionSnapshot.COMPARATOR);
+        return snapshots;
+    }
+
+    public void reset() {
+        for (final LockContentionProfile profile : name_profile.values()) {
+            profile.reset();
+        }
+    }
+
+    public String dump() {
+        return dump(DEFAULT_DUMP_LOCKS);
+    }
+
+    /**
+     * Returns a human readable report of the locks with the highest estimated total wait time.
+     */
+    public String dump(final int maxLocks) {
+        final List<LockContentionSnapshot> snapshots = getSnapshots(LockContentionSnapshot.DEFAULT_TOP_CALL_SITES);
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Lock contention profile of ");
+        sb.append(snapshots.size());
+        sb.append(" locks (sampleInterval=");
+        sb.append(getSampleInterval());
+        sb.append("):");
+        final int count = Math.min(maxLocks, snapshots.size());
+        for (int i = 0; i < count; i++) {
+            final LockContentionSnapshot snapshot = snapshots.get(i);
+            sb.append("\n");
+            sb.append(i + 1);
+            sb.append(". ");
+            sb.append(snapshot.getName());
+            sb.append(": acquisitions=");
+            sb.append(snapshot.getAcquisitionCount());
+            sb.append(" contended=");
+            sb.append(snapshot.getContendedCount());
+            sb.append(" estimatedTotalWait=");
+            sb.append(new Duration(snapshot.getEstimatedTotalWaitNanos(), FTimeUnit.NANOSECONDS));
+            sb.append(" wait[p50=");
+            sb.append(snapshot.getWaitNanosP50());
+            sb.append("ns p99=");
+            sb.append(snapshot.getWaitNanosP99());
+            sb.append("ns max=");
+            sb.append(snapshot.getWaitNanosMax());
+            sb.append("ns] hold[p50=");
+            sb.append(snapshot.getHoldNanosP50());
+            sb.append("ns p99=");
+            sb.append(snapshot.getHoldNanosP99());
+            sb.append("ns max=");
+            sb.append(snapshot.getHoldNanosMax());
+            sb.append("ns]");
+            for (final LockContentionSnapshot.LockCallSite callSite : snapshot.getTopCallSites()) {
+                sb.append("\n    ");
+                sb.append(callSite.getCount());
+                sb.append("x ");
+                sb.append(new Duration(callSite.getWaitNanos(), FTimeUnit.NANOSECONDS));
+                sb.append(" at ");
+                sb.append(callSite.getCallSite());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Logs the dump periodically on INFO level, replaces a previously started reporter.
+     */
+    public synchronized void startLogReporter(final Duration interval) {
+        stopLogReporter();
+        reporterExecutor = Executors.newScheduledThreadPool(ProfilingLockTrace.class.getSimpleName() + "_REPORTER", 1)
+                .setDynamicThreadName(false);
+        reporterFuture = reporterExecutor.scheduleAtFixedRate(this::logDump, interval.longValue(),
+                interval.longValue(), interval.getTimeUnit().timeUnitValue());
+    }
+
+    public synchronized void stopLogReporter() {
+        if (reporterFuture != null) {
+            reporterFuture.cancel(true);
+            reporterFuture = null;
+        }
+        if (reporterExecutor != null) {
+            reporterExecutor.shutdownNow();
+            reporterExecutor = null;
+        }
+    }
+
+    public synchronized boolean isLogReporterRunning() {
+        return reporterFuture != null;
+    }
+
+    private void logDump() {
+        if (LOG.isInfoEnabled()) {
+            LOG.info(dump());
+        }
+    }
+
+    @Override
+    public ILock wrap(final String lockName, final Lock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.WrappedTracedLock(this, lockName, lock);
+    }
+
+    @Override
+    public IReentrantLock wrap(final String lockName, final ReentrantLock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.WrappedTracedReentrantLock(this, lockName, lock);
+    }
+
+    @Override
+    public IReadWriteLock wrap(final String lockName, final ReadWriteLock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.readwrite.WrappedTracedReadWriteLock(this, lockName,
+                lock);
+    }
+
+    @Override
+    public IReentrantReadWriteLock wrap(final String lockName, final ReentrantReadWriteLock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.readwrite.WrappedTracedReentrantReadWriteLock(this,
+                lockName, lock);
+    }
+
+    @Override
+    public ILock maybeWrap(final ILock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.TracedLock(this, lock);
+    }
+
+    @Override
+    public IReentrantLock maybeWrap(final IReentrantLock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.TracedReentrantLock(this, lock);
+    }
+
+    @Override
+    public IReadWriteLock maybeWrap(final IReadWriteLock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.readwrite.TracedReadWriteLock(this, lock);
+    }
+
+    @Override
+    public IReentrantReadWriteLock maybeWrap(final IReentrantReadWriteLock lock) {
+        return new de.invesdwin.util.concurrent.lock.internal.readwrite.TracedReentrantReadWriteLock(this, lock);
+    }
+
+    @NotThreadSafe
+    private static final class ThreadState {
+
+        private int sampleCounter;
+        private String pendingLockName;
+        private boolean pendingSampled;
+        private long pendingStartNanos;
+        private final String[] heldLockNames = new String[MAX_HELD_SAMPLES];
+        private final long[] heldStartNanos = new long[MAX_HELD_SAMPLES];
+        private int heldCount;
+
+        private boolean isSample(final int sampleMask) {
+            sampleCounter++;
+            return (sampleCounter & sampleMask) == 0;
+        }
+
+        private void addHeld(final String lockName, final long startNanos) {
+            if (heldCount == MAX_HELD_SAMPLES) {
+                //drop the oldest sample
+                removeHeld(0);
+            }
+            heldLockNames[heldCount] = lockName;
+            heldStartNanos[heldCount] = startNanos;
+            heldCount++;
+        }
+
+        /**
+         * @return -1 if the acquisition of this lock was not sampled
+         */
+        private int indexOfHeld(final String lockName) {
+            for (int i = heldCount - 1; i >= 0; i--) {
+                if (lockName.equals(heldLockNames[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void removeHeld(final int index) {
+            final int moved = heldCount - 1 - index;
+            System.arraycopy(heldLockNames, index + 1, heldLockNames, index, moved);
+            System.arraycopy(heldStartNanos, index + 1, heldStartNanos, index, moved);
+            heldCount--;
+            heldLockNames[heldCount] = null;
+        }
+
+    }
+
+}
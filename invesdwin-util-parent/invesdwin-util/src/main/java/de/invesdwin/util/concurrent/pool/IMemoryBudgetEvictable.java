@@ -0,0 +1,20 @@
+package de.invesdwin.util.concurrent.pool;
+
+public interface IMemoryBudgetEvictable {
+
+    long getWeight();
+
+    /**
+     * Used to find the coldest caches that should be evicted first.
+     */
+    long getLastAccessNanos();
+
+    /**
+     * Should not block when the cache is currently in use by another thread, instead return 0 so that other caches
+     * are evicted.
+     * 
+     * @return the weight that was actually evicted
+     */
+    long evictWeight(long weight);
+
+}
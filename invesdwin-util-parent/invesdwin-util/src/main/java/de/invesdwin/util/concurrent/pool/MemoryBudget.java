@@ -0,0 +1,159 @@
+package de.invesdwin.util.concurrent.pool;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.concurrent.lock.Locks;
+import de.invesdwin.util.math.Longs;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.date.millis.FDateNanos;
+import de.invesdwin.util.time.duration.Duration;
+
+/**
+ * Process-wide byte budget that is shared by all weighted caches (see WeightedEvictionMap). When the budget is exceeded
+ * or the JVM is running low on memory (see MemoryLimit), the caches that were accessed least recently get evicted
+ * first. Disabled by default, so that only the per cache maximum weights apply.
+ */
+@ThreadSafe
+public final class MemoryBudget {
+
+    public static final long DISABLED = Long.MAX_VALUE;
+    /**
+     * When the free memory limit is reached, evict 20% of the budgeted weight from the coldest caches.
+     */
+    public static final double MEMORY_LIMIT_REACHED_EVICTION_RATE = 0.2;
+    /**
+     * Give the GC time to reclaim the evicted memory before evicting again because of the memory limit.
+     */
+    private static final Duration MEMORY_LIMIT_REACHED_EVICTION_INTERVAL = new Duration(1, FTimeUnit.SECONDS);
+    private static final Comparator<IMemoryBudgetEvictable> COLDEST_FIRST = (o1, o2) -> Long
+            .compare(o1.getLastAccessNanos(), o2.getLastAccessNanos());
+    private static final ILock SWEEP_LOCK = Locks
+            .newReentrantLock(MemoryBudget.class.getSimpleName() + "_sweepLock");
+    /**
+     * Always accounted (also while disabled), so that enabling the budget does not need to recalculate the weight while
+     * caches are concurrently changing it. Striped so that caches do not contend on a single counter.
+     */
+    private static final LongAdder WEIGHT = new LongAdder();
+    private static final Cache<IMemoryBudgetEvictable, AtomicLong> EVICTABLE_WEIGHT;
+    private static final Map<IMemoryBudgetEvictable, AtomicLong> EVICTABLES;
+    private static volatile long maximumWeight = DISABLED;
+    private static long lastMemoryLimitReachedEvictionNanos = FDateNanos.elapsedNanos();
+
+    static {
+        //weak keys so that caches that are not referenced anymore do not leak, their weight is subtracted on removal
+        EVICTABLE_WEIGHT = Caffeine.newBuilder()
+                .weakKeys()
+                .executor(Runnable::run)
+                .<IMemoryBudgetEvictable, AtomicLong> removalListener((key, value, cause) -> WEIGHT.add(-value.get()))
+                .build();
+        EVICTABLES = EVICTABLE_WEIGHT.asMap();
+    }
+
+    private MemoryBudget() {}
+
+    public static boolean isEnabled() {
+        return maximumWeight != DISABLED;
+    }
+
+    public static long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Use DISABLED to only apply the per cache maximum weights.
+     */
+    public static void setMaximumWeight(final long maximumWeight) {
+        MemoryBudget.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * The weight of all registered caches. Caches that got garbage collected are subtracted once the weak references
+     * are cleaned up, which happens at the latest during the next eviction sweep.
+     */
+    public static long getWeight() {
+        return WEIGHT.sum();
+    }
+
+    /**
+     * @return the weight of the evictable, it should only be changed via addWeight(AtomicLong, long) so that the
+     *         budget stays in sync
+     */
+    public static AtomicLong register(final IMemoryBudgetEvictable evictable) {
+        return EVICTABLES.computeIfAbsent(evictable, (key) -> new AtomicLong());
+    }
+
+    /**
+     * Subtracts the weight of the evictable from the budget, its weight should not be changed anymore afterwards.
+     */
+    public static void unregister(final IMemoryBudgetEvictable evictable) {
+        EVICTABLE_WEIGHT.invalidate(evictable);
+    }
+
+    public static void addWeight(final AtomicLong evictableWeight, final long weight) {
+        evictableWeight.addAndGet(weight);
+        WEIGHT.add(weight);
+    }
+
+    public static boolean isExceeded() {
+        return WEIGHT.sum() > maximumWeight;
+    }
+
+    public static void maybeEvict() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (isExceeded()) {
+            maybeEvictUnchecked(false);
+        } else if (MemoryLimit.isMemoryLimitReached()) {
+            maybeEvictUnchecked(true);
+        }
+    }
+
+    public static boolean maybeEvictUnchecked(final boolean memoryLimitReached) {
+        if (!SWEEP_LOCK.tryLock()) {
+            //another thread is already evicting
+            return false;
+        }
+        try {
+            if (memoryLimitReached && MEMORY_LIMIT_REACHED_EVICTION_INTERVAL
+                    .isGreaterThanNanos(FDateNanos.elapsedNanos() - lastMemoryLimitReachedEvictionNanos)) {
+                return false;
+            }
+            //subtract the weight of caches that got garbage collected
+            EVICTABLE_WEIGHT.cleanUp();
+            final long weight = WEIGHT.sum();
+            long remaining = weight - maximumWeight;
+            if (memoryLimitReached) {
+                remaining = Longs.max(remaining, (long) (weight * MEMORY_LIMIT_REACHED_EVICTION_RATE));
+                lastMemoryLimitReachedEvictionNanos = FDateNanos.elapsedNanos();
+            }
+            if (remaining <= 0) {
+                return false;
+            }
+            final IMemoryBudgetEvictable[] evictables = EVICTABLES.keySet().toArray(new IMemoryBudgetEvictable[0]);
+            Arrays.sort(evictables, COLDEST_FIRST);
+            boolean evicted = false;
+            for (int i = 0; i < evictables.length && remaining > 0; i++) {
+                final long evictedWeight = evictables[i].evictWeight(remaining);
+                if (evictedWeight > 0) {
+                    remaining -= evictedWeight;
+                    evicted = true;
+                }
+            }
+            return evicted;
+        } finally {
+            SWEEP_LOCK.unlock();
+        }
+    }
+
+}
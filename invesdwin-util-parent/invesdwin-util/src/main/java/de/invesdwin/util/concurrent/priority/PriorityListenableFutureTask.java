@@ -0,0 +1,56 @@
+package de.invesdwin.util.concurrent.priority;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.util.concurrent.ExecutionList;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * A ListenableFutureTask that remembers the priority of the task it was created for, so that executors do not need to
+ * unwrap the task via reflection to find the priority.
+ */
+@ThreadSafe
+public class PriorityListenableFutureTask<V> extends FutureTask<V> implements ListenableFuture<V>, IPriorityRunnable {
+
+    private final ExecutionList executionList = new ExecutionList();
+    private final double priority;
+
+    public PriorityListenableFutureTask(final Callable<V> callable) {
+        super(callable);
+        this.priority = extractPriority(callable);
+    }
+
+    public PriorityListenableFutureTask(final Runnable runnable, final V result) {
+        super(runnable, result);
+        this.priority = extractPriority(runnable);
+    }
+
+    @Override
+    public double getPriority() {
+        return priority;
+    }
+
+    @Override
+    public void addListener(final Runnable listener, final Executor executor) {
+        executionList.add(listener, executor);
+    }
+
+    @Override
+    protected void done() {
+        executionList.execute();
+    }
+
+    public static double extractPriority(final Object task) {
+        if (task instanceof IPriorityProvider) {
+            final IPriorityProvider provider = (IPriorityProvider) task;
+            return provider.getPriority();
+        } else {
+            return IPriorityProvider.MISSING_PRIORITY;
+        }
+    }
+
+}
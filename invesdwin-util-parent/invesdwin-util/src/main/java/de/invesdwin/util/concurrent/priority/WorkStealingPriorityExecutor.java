@@ -0,0 +1,493 @@
+package de.invesdwin.util.concurrent.priority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import de.invesdwin.util.concurrent.internal.WrappedThreadFactory;
+import de.invesdwin.util.math.Integers;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.duration.Duration;
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A fixed size executor that runs tasks with a lower priority value first (see IPriorityProvider). Each worker has its
+ * own priority queue so that workers do not contend on a single shared queue. Tasks submitted from a worker go into the
+ * queue of that worker, other tasks are distributed round robin. Idle workers steal from the other queues. Tasks with
+ * equal priority run in submission order.
+ *
+ * To prevent starvation of low priority tasks, a worker runs the oldest task of its queue instead of the one with the
+ * highest priority as soon as it waited longer than maxAge.
+ *
+ * Submitted tasks are PriorityListenableFutureTasks which carry the priority themselves, so no reflection is needed to
+ * find the priority and no decorator is needed to get ListenableFutures.
+ */
+@ThreadSafe
+public class WorkStealingPriorityExecutor extends AbstractExecutorService implements ListeningExecutorService {
+
+    public static final Duration DEFAULT_MAX_AGE = new Duration(10, FTimeUnit.SECONDS);
+    private static final Duration KEEP_ALIVE_TIMEOUT = new Duration(60, FTimeUnit.SECONDS);
+
+    private static final int STATE_RUNNING = 0;
+    private static final int STATE_SHUTDOWN = 1;
+    private static final int STATE_STOP = 2;
+
+    private final WrappedThreadFactory threadFactory;
+    private final long maxAgeNanos;
+    private final long keepAliveNanos;
+    private final WorkerQueue[] queues;
+    private final AtomicIntegerArray slotsStarted;
+    private final AtomicReferenceArray<Thread> slotThreads;
+    private final FastThreadLocal<WorkerQueue> currentWorkerQueue = new FastThreadLocal<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger nextQueue = new AtomicInteger();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger aliveCount = new AtomicInteger();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition workAvailable = idleLock.newCondition();
+    private final Condition terminated = idleLock.newCondition();
+    private volatile int state = STATE_RUNNING;
+
+    public WorkStealingPriorityExecutor(final int parallelism, final WrappedThreadFactory threadFactory) {
+        this(parallelism, threadFactory, DEFAULT_MAX_AGE);
+    }
+
+    public WorkStealingPriorityExecutor(final int parallelism, final WrappedThreadFactory threadFactory,
+            final Duration maxAge) {
+        final int workers = Integers.max(1, parallelism);
+        this.threadFactory = threadFactory;
+        this.maxAgeNanos = maxAge.nanosValue();
+        this.keepAliveNanos = KEEP_ALIVE_TIMEOUT.nanosValue();
+        this.queues = new WorkerQueue[workers];
+        for (int i = 0; i < workers; i++) {
+            queues[i] = new WorkerQueue();
+        }
+        this.slotsStarted = new AtomicIntegerArray(workers);
+        this.slotThreads = new AtomicReferenceArray<>(workers);
+    }
+
+    public WrappedThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    public int getParallelism() {
+        return queues.length;
+    }
+
+    public int getQueuedCount() {
+        return Integers.max(0, queuedCount.get());
+    }
+
+    public int getAliveCount() {
+        return aliveCount.get();
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(final Runnable runnable, final T value) {
+        return new PriorityListenableFutureTask<T>(runnable, value);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
+        return new PriorityListenableFutureTask<T>(callable);
+    }
+
+    @Override
+    public ListenableFuture<?> submit(final Runnable task) {
+        return (ListenableFuture<?>) super.submit(task);
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submit(final Runnable task, final T result) {
+        return (ListenableFuture<T>) super.submit(task, result);
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submit(final Callable<T> task) {
+        return (ListenableFuture<T>) super.submit(task);
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null) {
+            throw new NullPointerException("command should not be null");
+        }
+        if (state != STATE_RUNNING) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        final Node node = new Node(command, PriorityListenableFutureTask.extractPriority(command),
+                sequence.incrementAndGet(), System.nanoTime());
+        //increment before offering so that idle workers that check the count do not miss the task
+        final int queued = queuedCount.incrementAndGet();
+        WorkerQueue queue = currentWorkerQueue.get();
+        if (queue == null) {
+            queue = queues[Math.abs(nextQueue.getAndIncrement() % queues.length)];
+        }
+        queue.offer(node);
+        final int idle = idleCount.get();
+        if (idle > 0) {
+            idleLock.lock();
+            try {
+                workAvailable.signal();
+            } finally {
+                idleLock.unlock();
+            }
+        }
+        if (queued > idle) {
+            //the idle workers can not take all queued tasks, grow like core threads of a ThreadPoolExecutor
+            maybeStartWorker();
+        }
+    }
+
+    private void maybeStartWorker() {
+        if (aliveCount.get() >= queues.length) {
+            return;
+        }
+        for (int slot = 0; slot < queues.length; slot++) {
+            if (slotsStarted.get(slot) == 0 && slotsStarted.compareAndSet(slot, 0, 1)) {
+                aliveCount.incrementAndGet();
+                final int finalSlot = slot;
+                final Thread thread = threadFactory.newThread(() -> runWorker(finalSlot));
+                slotThreads.set(slot, thread);
+                thread.start();
+                return;
+            }
+        }
+    }
+
+    private void runWorker(final int slot) {
+        final WorkerQueue ownQueue = queues[slot];
+        currentWorkerQueue.set(ownQueue);
+        try {
+            while (true) {
+                if (state >= STATE_STOP) {
+                    return;
+                }
+                final long nowNanos = System.nanoTime();
+                Node node = ownQueue.poll(nowNanos, maxAgeNanos);
+                if (node == null) {
+                    node = steal(slot, nowNanos);
+                }
+                if (node != null) {
+                    queuedCount.decrementAndGet();
+                    runTask(node);
+                } else if (state == STATE_SHUTDOWN && queuedCount.get() <= 0) {
+                    return;
+                } else if (!awaitWork()) {
+                    return;
+                }
+            }
+        } finally {
+            currentWorkerQueue.remove();
+            workerExited(slot);
+        }
+    }
+
+    private Node steal(final int slot, final long nowNanos) {
+        for (int i = 1; i < queues.length; i++) {
+            final WorkerQueue victim = queues[(slot + i) % queues.length];
+            if (victim.size > 0) {
+                final Node node = victim.poll(nowNanos, maxAgeNanos);
+                if (node != null) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void runTask(final Node node) {
+        if (state < STATE_STOP) {
+            //clear interrupts from cancelled tasks before running the next one
+            Thread.interrupted();
+        }
+        try {
+            node.run();
+        } catch (final Throwable t) {
+            //keep the worker alive, the default behaviour of threads is to log uncaught exceptions
+            final Thread currentThread = Thread.currentThread();
+            currentThread.getUncaughtExceptionHandler().uncaughtException(currentThread, t);
+        }
+    }
+
+    /**
+     * Returns false when the keep alive timeout was reached without new work.
+     */
+    private boolean awaitWork() {
+        idleLock.lock();
+        try {
+            idleCount.incrementAndGet();
+            try {
+                if (queuedCount.get() > 0 || state != STATE_RUNNING) {
+                    return true;
+                }
+                try {
+                    workAvailable.awaitNanos(keepAliveNanos);
+                } catch (final InterruptedException e) {
+                    //check the state again
+                    return true;
+                }
+                return queuedCount.get() > 0 || state != STATE_RUNNING;
+            } finally {
+                idleCount.decrementAndGet();
+            }
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    private void workerExited(final int slot) {
+        slotThreads.set(slot, null);
+        slotsStarted.set(slot, 0);
+        final int alive = aliveCount.decrementAndGet();
+        if (state == STATE_RUNNING) {
+            if (queuedCount.get() > 0) {
+                //a task might have been added while this worker was timing out
+                maybeStartWorker();
+            }
+        } else if (alive == 0) {
+            idleLock.lock();
+            try {
+                terminated.signalAll();
+            } finally {
+                idleLock.unlock();
+            }
+        }
+    }
+
+    private void signalAllWorkers() {
+        idleLock.lock();
+        try {
+            workAvailable.signalAll();
+            terminated.signalAll();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (state == STATE_RUNNING) {
+            state = STATE_SHUTDOWN;
+        }
+        signalAllWorkers();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        state = STATE_STOP;
+        for (int slot = 0; slot < queues.length; slot++) {
+            final Thread thread = slotThreads.get(slot);
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        final List<Runnable> remaining = new ArrayList<>();
+        for (int i = 0; i < queues.length; i++) {
+            queues[i].drainTo(remaining);
+        }
+        queuedCount.addAndGet(-remaining.size());
+        signalAllWorkers();
+        return remaining;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state != STATE_RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return state != STATE_RUNNING && aliveCount.get() == 0 && queuedCount.get() <= 0;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        idleLock.lock();
+        try {
+            while (!isTerminated()) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = terminated.awaitNanos(remainingNanos);
+            }
+            return true;
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[parallelism=" + queues.length + ", alive=" + aliveCount.get()
+                + ", queued=" + getQueuedCount() + "]";
+    }
+
+    private static final class Node implements IPriorityRunnable {
+
+        private static final Comparator<Node> COMPARATOR = new Comparator<Node>() {
+            @Override
+            public int compare(final Node o1, final Node o2) {
+                final int compare = PriorityFuture.COMPARATOR.compare(o1, o2);
+                if (compare != 0) {
+                    return compare;
+                }
+                return Long.compare(o1.sequence, o2.sequence);
+            }
+        };
+
+        private final Runnable task;
+        private final double priority;
+        private final long sequence;
+        private final long enqueuedNanos;
+        /**
+         * nodes are referenced by the heap and the fifo of a queue, the one that did not return the node skips it later
+         */
+        @GuardedBy("WorkerQueue.lock")
+        private boolean taken;
+
+        private Node(final Runnable task, final double priority, final long sequence, final long enqueuedNanos) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        @Override
+        public double getPriority() {
+            return priority;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+    }
+
+    private static final class WorkerQueue {
+
+        private static final int COMPACT_MIN_STALE = 64;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        @GuardedBy("lock")
+        private final PriorityQueue<Node> heap = new PriorityQueue<>(Node.COMPARATOR);
+        @GuardedBy("lock")
+        private final ArrayDeque<Node> fifo = new ArrayDeque<>();
+        /**
+         * number of nodes that are not taken yet, volatile so that thieves can skip empty queues without locking
+         */
+        private volatile int size;
+
+        private void offer(final Node node) {
+            lock.lock();
+            try {
+                heap.add(node);
+                fifo.addLast(node);
+                size++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Node poll(final long nowNanos, final long maxAgeNanos) {
+            if (size == 0) {
+                return null;
+            }
+            lock.lock();
+            try {
+                if (size == 0) {
+                    return null;
+                }
+                final Node oldest = peekFifo();
+                final Node node;
+                if (nowNanos - oldest.enqueuedNanos >= maxAgeNanos) {
+                    //aging prevents starvation of low priority tasks
+                    node = fifo.pollFirst();
+                } else {
+                    node = pollHeap();
+                }
+                node.taken = true;
+                size--;
+                maybeCompact();
+                return node;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @GuardedBy("lock")
+        private Node peekFifo() {
+            Node node = fifo.peekFirst();
+            while (node.taken) {
+                fifo.pollFirst();
+                node = fifo.peekFirst();
+            }
+            return node;
+        }
+
+        @GuardedBy("lock")
+        private Node pollHeap() {
+            Node node = heap.poll();
+            while (node.taken) {
+                node = heap.poll();
+            }
+            return node;
+        }
+
+        /**
+         * Removes taken nodes that are not at the head of the other structure, so they do not pile up at high task
+         * rates.
+         */
+        @GuardedBy("lock")
+        private void maybeCompact() {
+            if (fifo.size() > COMPACT_MIN_STALE + size * 2) {
+                fifo.removeIf(n -> n.taken);
+            }
+            if (heap.size() > COMPACT_MIN_STALE + size * 2) {
+                heap.removeIf(n -> n.taken);
+            }
+        }
+
+        private void drainTo(final List<Runnable> remaining) {
+            lock.lock();
+            try {
+                Node node = fifo.pollFirst();
+                while (node != null) {
+                    if (!node.taken) {
+                        node.taken = true;
+                        remaining.add(node.task);
+                    }
+                    node = fifo.pollFirst();
+                }
+                heap.clear();
+                size = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
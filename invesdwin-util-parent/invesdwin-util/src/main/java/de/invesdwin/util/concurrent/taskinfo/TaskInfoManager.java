@@ -17,6 +17,8 @@ import de.invesdwin.util.collections.factory.ILockCollectionFactory;
 import de.invesdwin.util.collections.factory.pool.set.ICloseableSet;
 import de.invesdwin.util.collections.factory.pool.set.PooledSet;
 import de.invesdwin.util.collections.fast.IFastIterableSet;
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.concurrent.lock.Locks;
 import de.invesdwin.util.concurrent.taskinfo.provider.ITaskInfoProvider;
 import de.invesdwin.util.concurrent.taskinfo.provider.TaskInfoStatus;
 import de.invesdwin.util.concurrent.taskinfo.provider.WeakReferenceTaskInfoProvider;
@@ -31,38 +33,47 @@ import io.netty.util.concurrent.FastThreadLocal;
 @ThreadSafe
 public final class TaskInfoManager {
 
-    @GuardedBy("this.class")
+    @GuardedBy("LOCK")
     private static final Map<String, Map<Integer, WeakReferenceTaskInfoProvider>> NAME_TASKS = ILockCollectionFactory
             .getInstance(false)
             .newLinkedMap();
-    @GuardedBy("this.class")
+    @GuardedBy("LOCK")
     private static final IFastIterableSet<ITaskInfoListener> LISTENERS = ILockCollectionFactory.getInstance(false)
             .newFastIterableLinkedSet();
     private static final FastThreadLocal<Stack<WeakReferenceTaskInfoProvider>> CURRENT_THREAD_TASK_INFO_NAME = new FastThreadLocal<>();
     private static final int MAX_DESCRIPTIONS = 3;
+    /**
+     * Not using synchronized so that virtual threads do not pin their carrier thread while listeners are notified.
+     */
+    private static final ILock LOCK = Locks.newReentrantLock(TaskInfoManager.class.getSimpleName() + "_LOCK");
 
     private TaskInfoManager() {}
 
-    public static synchronized void onCreated(final ITaskInfoProvider taskInfoProvider) {
-        final String name = taskInfoProvider.getName();
-        Map<Integer, WeakReferenceTaskInfoProvider> tasks = NAME_TASKS.get(name);
-        boolean added = false;
-        if (tasks == null) {
-            tasks = ILockCollectionFactory.getInstance(false).newLinkedMap();
-            Assertions.checkNull(NAME_TASKS.put(name, tasks));
-            added = true;
-        } else {
-            final TaskInfo taskInfo = getTaskInfo(name, tasks.values());
-            if (taskInfo.isCompleted()) {
-                tasks.clear();
+    public static void onCreated(final ITaskInfoProvider taskInfoProvider) {
+        LOCK.lock();
+        try {
+            final String name = taskInfoProvider.getName();
+            Map<Integer, WeakReferenceTaskInfoProvider> tasks = NAME_TASKS.get(name);
+            boolean added = false;
+            if (tasks == null) {
+                tasks = ILockCollectionFactory.getInstance(false).newLinkedMap();
+                Assertions.checkNull(NAME_TASKS.put(name, tasks));
+                added = true;
+            } else {
+                final TaskInfo taskInfo = getTaskInfo(name, tasks.values());
+                if (taskInfo.isCompleted()) {
+                    tasks.clear();
+                }
             }
-        }
-        final int identityHashCode = System.identityHashCode(taskInfoProvider);
-        final WeakReferenceTaskInfoProvider weakReferenceTaskInfoProvider = new WeakReferenceTaskInfoProvider(
-                identityHashCode, taskInfoProvider);
-        added = tasks.putIfAbsent(identityHashCode, weakReferenceTaskInfoProvider) == null && added;
-        if (added) {
-            triggerOnTaskInfoAdded(name);
+            final int identityHashCode = System.identityHashCode(taskInfoProvider);
+            final WeakReferenceTaskInfoProvider weakReferenceTaskInfoProvider = new WeakReferenceTaskInfoProvider(
+                    identityHashCode, taskInfoProvider);
+            added = tasks.putIfAbsent(identityHashCode, weakReferenceTaskInfoProvider) == null && added;
+            if (added) {
+                triggerOnTaskInfoAdded(name);
+            }
+        } finally {
+            LOCK.unlock();
         }
     }
 
@@ -92,59 +103,74 @@ public final class TaskInfoManager {
         }
     }
 
-    public static synchronized void onCompleted(final ITaskInfoProvider taskInfoProvider) {
-        if (taskInfoProvider.isIneritable()) {
-            final Stack<WeakReferenceTaskInfoProvider> taskInfoNameList = CURRENT_THREAD_TASK_INFO_NAME.get();
-            while (taskInfoNameList != null && !taskInfoNameList.isEmpty()) {
-                final WeakReferenceTaskInfoProvider peek = taskInfoNameList.peek();
-                if (peek.equals(taskInfoProvider) || peek.getStatus() == TaskInfoStatus.COMPLETED) {
-                    taskInfoNameList.pop();
-                } else {
-                    break;
+    public static void onCompleted(final ITaskInfoProvider taskInfoProvider) {
+        LOCK.lock();
+        try {
+            if (taskInfoProvider.isIneritable()) {
+                final Stack<WeakReferenceTaskInfoProvider> taskInfoNameList = CURRENT_THREAD_TASK_INFO_NAME.get();
+                while (taskInfoNameList != null && !taskInfoNameList.isEmpty()) {
+                    final WeakReferenceTaskInfoProvider peek = taskInfoNameList.peek();
+                    if (peek.equals(taskInfoProvider) || peek.getStatus() == TaskInfoStatus.COMPLETED) {
+                        taskInfoNameList.pop();
+                    } else {
+                        break;
+                    }
                 }
             }
-        }
-        final String name = taskInfoProvider.getName();
-        final Map<Integer, WeakReferenceTaskInfoProvider> tasks = NAME_TASKS.get(name);
-        if (tasks != null) {
-            final TaskInfo taskInfo = getTaskInfo(name, tasks.values());
-            if (taskInfo.isCompleted()) {
+            final String name = taskInfoProvider.getName();
+            final Map<Integer, WeakReferenceTaskInfoProvider> tasks = NAME_TASKS.get(name);
+            if (tasks != null) {
+                final TaskInfo taskInfo = getTaskInfo(name, tasks.values());
+                if (taskInfo.isCompleted()) {
+                    if (taskInfoProvider.isIneritable()) {
+                        CURRENT_THREAD_TASK_INFO_NAME.remove();
+                    }
+                    Assertions.checkSame(NAME_TASKS.remove(name), tasks);
+                    triggerOnTaskInfoRemoved(name);
+                }
+            } else {
                 if (taskInfoProvider.isIneritable()) {
                     CURRENT_THREAD_TASK_INFO_NAME.remove();
                 }
-                Assertions.checkSame(NAME_TASKS.remove(name), tasks);
-                triggerOnTaskInfoRemoved(name);
-            }
-        } else {
-            if (taskInfoProvider.isIneritable()) {
-                CURRENT_THREAD_TASK_INFO_NAME.remove();
             }
+        } finally {
+            LOCK.unlock();
         }
     }
 
-    public static synchronized List<TaskInfo> getTaskInfos() {
-        final List<TaskInfo> taskInfos = new ArrayList<>();
-        try (ICloseableSet<String> completedTaskInfoNames = PooledSet.getInstance()) {
-            for (final Entry<String, Map<Integer, WeakReferenceTaskInfoProvider>> entry : NAME_TASKS.entrySet()) {
-                final String name = entry.getKey();
-                final Collection<WeakReferenceTaskInfoProvider> tasks = entry.getValue().values();
-                final TaskInfo taskInfo = getTaskInfo(name, tasks);
-                if (taskInfo.isCompleted()) {
-                    completedTaskInfoNames.add(name);
-                } else {
-                    taskInfos.add(taskInfo);
+    public static List<TaskInfo> getTaskInfos() {
+        LOCK.lock();
+        try {
+            final List<TaskInfo> taskInfos = new ArrayList<>();
+            try (ICloseableSet<String> completedTaskInfoNames = PooledSet.getInstance()) {
+                for (final Entry<String, Map<Integer, WeakReferenceTaskInfoProvider>> entry : NAME_TASKS.entrySet()) {
+                    final String name = entry.getKey();
+                    final Collection<WeakReferenceTaskInfoProvider> tasks = entry.getValue().values();
+                    final TaskInfo taskInfo = getTaskInfo(name, tasks);
+                    if (taskInfo.isCompleted()) {
+                        completedTaskInfoNames.add(name);
+                    } else {
+                        taskInfos.add(taskInfo);
+                    }
                 }
+                for (final String name : completedTaskInfoNames) {
+                    Assertions.checkNotNull(NAME_TASKS.remove(name));
+                    triggerOnTaskInfoRemoved(name);
+                }
+                return taskInfos;
             }
-            for (final String name : completedTaskInfoNames) {
-                Assertions.checkNotNull(NAME_TASKS.remove(name));
-                triggerOnTaskInfoRemoved(name);
-            }
-            return taskInfos;
+        } finally {
+            LOCK.unlock();
         }
     }
 
-    public static synchronized List<String> getTaskInfoNames() {
-        return new ArrayList<>(NAME_TASKS.keySet());
+    public static List<String> getTaskInfoNames() {
+        LOCK.lock();
+        try {
+            return new ArrayList<>(NAME_TASKS.keySet());
+        } finally {
+            LOCK.unlock();
+        }
     }
 
     public static String getCurrentThreadTaskInfoName() {
@@ -167,18 +193,23 @@ public final class TaskInfoManager {
         }
     }
 
-    public static synchronized TaskInfo getTaskInfo(final String name) {
-        final Map<Integer, WeakReferenceTaskInfoProvider> tasks = NAME_TASKS.get(name);
-        if (tasks == null) {
-            return null;
-        } else {
-            final TaskInfo taskInfo = getTaskInfo(name, tasks.values());
-            if (taskInfo.isCompleted()) {
-                Assertions.checkNotNull(NAME_TASKS.remove(name));
+    public static TaskInfo getTaskInfo(final String name) {
+        LOCK.lock();
+        try {
+            final Map<Integer, WeakReferenceTaskInfoProvider> tasks = NAME_TASKS.get(name);
+            if (tasks == null) {
                 return null;
             } else {
-                return taskInfo;
+                final TaskInfo taskInfo = getTaskInfo(name, tasks.values());
+                if (taskInfo.isCompleted()) {
+                    Assertions.checkNotNull(NAME_TASKS.remove(name));
+                    return null;
+                } else {
+                    return taskInfo;
+                }
             }
+        } finally {
+            LOCK.unlock();
         }
     }
 
@@ -240,18 +271,28 @@ public final class TaskInfoManager {
         return new TaskInfo(name, createdCount, startedCount, completedCount, tasksCount, progress, descriptions);
     }
 
-    public static synchronized boolean registerListener(final ITaskInfoListener l) {
-        if (LISTENERS.add(l)) {
-            for (final String name : getTaskInfoNames()) {
-                l.onTaskInfoAdded(name);
+    public static boolean registerListener(final ITaskInfoListener l) {
+        LOCK.lock();
+        try {
+            if (LISTENERS.add(l)) {
+                for (final String name : getTaskInfoNames()) {
+                    l.onTaskInfoAdded(name);
+                }
+                return true;
+            } else {
+                return false;
             }
-            return true;
-        } else {
-            return false;
+        } finally {
+            LOCK.unlock();
         }
     }
 
-    public static synchronized boolean unregisterListener(final ITaskInfoListener l) {
-        return LISTENERS.remove(l);
+    public static boolean unregisterListener(final ITaskInfoListener l) {
+        LOCK.lock();
+        try {
+            return LISTENERS.remove(l);
+        } finally {
+            LOCK.unlock();
+        }
     }
 }
@@ -157,6 +157,12 @@ public class ExpressionParser implements IExpressionParser {
         for (final String name : new String[] { "count", "countNotNaN", "countNotNull", "countExists" }) {
             putDefaultFunction(StatisticalFunctions.newCountFunction(name));
         }
+        for (final String name : new String[] { "highest", "runningMaximum", "runningMax" }) {
+            putDefaultFunction(StatisticalFunctions.newHighestFunction(name));
+        }
+        for (final String name : new String[] { "lowest", "runningMinimum", "runningMin" }) {
+            putDefaultFunction(StatisticalFunctions.newLowestFunction(name));
+        }
         for (final String name : new String[] { "median", "runningMedian" }) {
             putDefaultFunction(StatisticalFunctions.newMedianFunction(name));
         }
@@ -169,6 +175,9 @@ public class ExpressionParser implements IExpressionParser {
         for (final String name : new String[] { "sum", "runningSum" }) {
             putDefaultFunction(StatisticalFunctions.newSumFunction(name));
         }
+        for (final String name : new String[] { "avg", "average", "mean" }) {
+            putDefaultFunction(StatisticalFunctions.newAverageFunction(name));
+        }
         for (final String name : new String[] { "variance", "var" }) {
             putDefaultFunction(StatisticalFunctions.newVarianceFunction(name));
         }
@@ -181,6 +190,27 @@ public class ExpressionParser implements IExpressionParser {
         for (final String name : new String[] { "sampleStandardDeviation", "sampleStddev" }) {
             putDefaultFunction(StatisticalFunctions.newSampleStandardDeviationFunction(name));
         }
+        for (final String name : new String[] { "rollingCount" }) {
+            putDefaultFunction(StatisticalFunctions.newCountFunction(name, true));
+        }
+        for (final String name : new String[] { "rollingSum" }) {
+            putDefaultFunction(StatisticalFunctions.newSumFunction(name, true));
+        }
+        for (final String name : new String[] { "rollingAvg", "rollingAverage", "rollingMean" }) {
+            putDefaultFunction(StatisticalFunctions.newAverageFunction(name, true));
+        }
+        for (final String name : new String[] { "rollingVariance", "rollingVar" }) {
+            putDefaultFunction(StatisticalFunctions.newVarianceFunction(name, true));
+        }
+        for (final String name : new String[] { "rollingSampleVariance", "rollingSampleVar" }) {
+            putDefaultFunction(StatisticalFunctions.newSampleVarianceFunction(name, true));
+        }
+        for (final String name : new String[] { "rollingStandardDeviation", "rollingStddev" }) {
+            putDefaultFunction(StatisticalFunctions.newStandardDeviationFunction(name, true));
+        }
+        for (final String name : new String[] { "rollingSampleStandardDeviation", "rollingSampleStddev" }) {
+            putDefaultFunction(StatisticalFunctions.newSampleStandardDeviationFunction(name, true));
+        }
 
         DEFAULT_VARIABLES = ILockCollectionFactory.getInstance(false).newLinkedMap();
 
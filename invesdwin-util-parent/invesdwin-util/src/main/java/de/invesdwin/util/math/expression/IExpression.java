@@ -9,6 +9,7 @@ import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanNullableKey;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGeneric;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericKey;
@@ -30,6 +31,14 @@ public interface IExpression extends IParsedExpressionProvider {
      */
     IEvaluateDoubleKey newEvaluateDoubleKey();
 
+    /**
+     * evaluates the expression for a range of consecutive long keys at once, expressions that can not do this natively
+     * fall back to evaluating each key individually
+     */
+    default IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch() {
+        return IEvaluateDoubleKeyBatch.valueOf(newEvaluateDoubleKey());
+    }
+
     /**
      * evaluates the expression using the current available time/long key
      */
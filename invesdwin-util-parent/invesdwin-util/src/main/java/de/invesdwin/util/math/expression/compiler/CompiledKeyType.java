@@ -0,0 +1,105 @@
+package de.invesdwin.util.math.expression.compiler;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.math.expression.eval.IParsedExpression;
+import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.time.date.IFDateProvider;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+
+@Immutable
+enum CompiledKeyType {
+    KEY(IEvaluateDoubleKey.class, IEvaluateBooleanKey.class, Type.LONG_TYPE) {
+        @Override
+        public Object newEvaluateDouble(final IParsedExpression expression) {
+            return expression.newEvaluateDoubleKey();
+        }
+
+        @Override
+        public Object newEvaluateBoolean(final IParsedExpression expression) {
+            return expression.newEvaluateBooleanKey();
+        }
+
+        @Override
+        public void loadKey(final MethodVisitor mv) {
+            mv.visitVarInsn(Opcodes.LLOAD, 1);
+        }
+    },
+    FDATE(IEvaluateDoubleFDate.class, IEvaluateBooleanFDate.class, Type.getType(IFDateProvider.class)) {
+        @Override
+        public Object newEvaluateDouble(final IParsedExpression expression) {
+            return expression.newEvaluateDoubleFDate();
+        }
+
+        @Override
+        public Object newEvaluateBoolean(final IParsedExpression expression) {
+            return expression.newEvaluateBooleanFDate();
+        }
+
+        @Override
+        public void loadKey(final MethodVisitor mv) {
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+        }
+    };
+
+    public static final String EVALUATE_DOUBLE_METHOD = "evaluateDouble";
+    public static final String EVALUATE_BOOLEAN_METHOD = "evaluateBoolean";
+
+    private final Class<?> evaluateDoubleType;
+    private final String evaluateDoubleInternalName;
+    private final String evaluateDoubleDescriptor;
+    private final String evaluateDoubleMethodDescriptor;
+    private final String evaluateBooleanInternalName;
+    private final String evaluateBooleanDescriptor;
+    private final String evaluateBooleanMethodDescriptor;
+
+    CompiledKeyType(final Class<?> evaluateDoubleType, final Class<?> evaluateBooleanType, final Type keyType) {
+        this.evaluateDoubleType = evaluateDoubleType;
+        this.evaluateDoubleInternalName = Type.getInternalName(evaluateDoubleType);
+        this.evaluateDoubleDescriptor = Type.getDescriptor(evaluateDoubleType);
+        this.evaluateDoubleMethodDescriptor = Type.getMethodDescriptor(Type.DOUBLE_TYPE, keyType);
+        this.evaluateBooleanInternalName = Type.getInternalName(evaluateBooleanType);
+        this.evaluateBooleanDescriptor = Type.getDescriptor(evaluateBooleanType);
+        this.evaluateBooleanMethodDescriptor = Type.getMethodDescriptor(Type.BOOLEAN_TYPE, keyType);
+    }
+
+    public Class<?> getEvaluateDoubleType() {
+        return evaluateDoubleType;
+    }
+
+    public String getEvaluateDoubleInternalName() {
+        return evaluateDoubleInternalName;
+    }
+
+    public String getEvaluateDoubleDescriptor() {
+        return evaluateDoubleDescriptor;
+    }
+
+    public String getEvaluateDoubleMethodDescriptor() {
+        return evaluateDoubleMethodDescriptor;
+    }
+
+    public String getEvaluateBooleanInternalName() {
+        return evaluateBooleanInternalName;
+    }
+
+    public String getEvaluateBooleanDescriptor() {
+        return evaluateBooleanDescriptor;
+    }
+
+    public String getEvaluateBooleanMethodDescriptor() {
+        return evaluateBooleanMethodDescriptor;
+    }
+
+    public abstract Object newEvaluateDouble(IParsedExpression expression);
+
+    public abstract Object newEvaluateBoolean(IParsedExpression expression);
+
+    public abstract void loadKey(MethodVisitor mv);
+
+}
@@ -0,0 +1,329 @@
+package de.invesdwin.util.math.expression.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.Doubles;
+import de.invesdwin.util.math.expression.eval.IParsedExpression;
+import de.invesdwin.util.math.expression.eval.function.DoubleFunctionCall;
+import de.invesdwin.util.math.expression.eval.operation.DoubleBinaryOperation;
+import de.invesdwin.util.math.expression.eval.operation.Op;
+import de.invesdwin.util.math.expression.function.LogicalFunctions;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+
+/**
+ * Generates a single class for an expression tree. Arithmetic and comparisons of DoubleBinaryOperation, constants and
+ * if-branches are translated into bytecode. Everything else (variables, functions, boolean operations) becomes a leaf
+ * that is stored in a final field and evaluated through the interpreter. Since each expression gets its own class,
+ * every call site to a leaf stays monomorphic and can be inlined by the JIT.
+ */
+@NotThreadSafe
+final class ExpressionBytecodeGenerator {
+
+    private static final String DOUBLES = Type.getInternalName(Doubles.class);
+    private static final String DOUBLE_FROM_DOUBLES = "(DD)D";
+    private static final String BOOLEAN_FROM_DOUBLES = "(DD)Z";
+    private static final String BOOLEAN_NULLABLE_FROM_DOUBLES = "(DD)Ljava/lang/Boolean;";
+    private static final String DOUBLE_FROM_BOOLEAN_NULLABLE = "(Ljava/lang/Boolean;)D";
+    private static final String CONSTRUCTOR_DESCRIPTOR = "([Ljava/lang/Object;)V";
+    private static final String LEAF_FIELD_PREFIX = "leaf";
+
+    private final CompiledKeyType keyType;
+    private final String internalName;
+    private final List<Object> leaves = new ArrayList<>();
+    private final List<String> leafDescriptors = new ArrayList<>();
+    private final List<String> leafInternalNames = new ArrayList<>();
+    private int compiledNodes;
+
+    ExpressionBytecodeGenerator(final CompiledKeyType keyType, final String className) {
+        this.keyType = keyType;
+        this.internalName = className.replace('.', '/');
+    }
+
+    public Object[] getLeaves() {
+        return leaves.toArray();
+    }
+
+    /**
+     * When nothing could be compiled, it is cheaper to use the interpreter directly.
+     */
+    public boolean isCompiled() {
+        return compiledNodes > 0;
+    }
+
+    public byte[] generate(final IParsedExpression expression) {
+        final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalName, null,
+                "java/lang/Object", new String[] { keyType.getEvaluateDoubleInternalName() });
+
+        //the method has to be generated first so that the leaves are collected
+        final MethodVisitor evaluate = cw.visitMethod(Opcodes.ACC_PUBLIC, CompiledKeyType.EVALUATE_DOUBLE_METHOD,
+                keyType.getEvaluateDoubleMethodDescriptor(), null, null);
+        evaluate.visitCode();
+        emitDouble(evaluate, expression);
+        evaluate.visitInsn(Opcodes.DRETURN);
+        evaluate.visitMaxs(0, 0);
+        evaluate.visitEnd();
+
+        for (int i = 0; i < leaves.size(); i++) {
+            cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, LEAF_FIELD_PREFIX + i, leafDescriptors.get(i), null,
+                    null).visitEnd();
+        }
+
+        final MethodVisitor constructor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null,
+                null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        for (int i = 0; i < leaves.size(); i++) {
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitVarInsn(Opcodes.ALOAD, 1);
+            constructor.visitLdcInsn(i);
+            constructor.visitInsn(Opcodes.AALOAD);
+            constructor.visitTypeInsn(Opcodes.CHECKCAST, leafInternalNames.get(i));
+            constructor.visitFieldInsn(Opcodes.PUTFIELD, internalName, LEAF_FIELD_PREFIX + i, leafDescriptors.get(i));
+        }
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Pushes the double result of the expression onto the stack.
+     */
+    private void emitDouble(final MethodVisitor mv, final IParsedExpression expression) {
+        if (expression.isConstant()) {
+            mv.visitLdcInsn(expression.newEvaluateDouble().evaluateDouble());
+            compiledNodes++;
+        } else if (expression.getClass() == DoubleBinaryOperation.class
+                && emitDoubleBinaryOperation(mv, (DoubleBinaryOperation) expression)) {
+            compiledNodes++;
+        } else if (expression instanceof DoubleFunctionCall && emitIf(mv, (DoubleFunctionCall) expression)) {
+            compiledNodes++;
+        } else {
+            emitLeaf(mv, keyType.newEvaluateDouble(expression), keyType.getEvaluateDoubleInternalName(),
+                    keyType.getEvaluateDoubleDescriptor(), CompiledKeyType.EVALUATE_DOUBLE_METHOD,
+                    keyType.getEvaluateDoubleMethodDescriptor());
+        }
+    }
+
+    /**
+     * Pushes the boolean result (as int) of the expression onto the stack.
+     */
+    private void emitBoolean(final MethodVisitor mv, final IParsedExpression expression) {
+        if (expression.getClass() == DoubleBinaryOperation.class
+                && emitComparison(mv, (DoubleBinaryOperation) expression)) {
+            compiledNodes++;
+        } else {
+            emitLeaf(mv, keyType.newEvaluateBoolean(expression), keyType.getEvaluateBooleanInternalName(),
+                    keyType.getEvaluateBooleanDescriptor(), CompiledKeyType.EVALUATE_BOOLEAN_METHOD,
+                    keyType.getEvaluateBooleanMethodDescriptor());
+        }
+    }
+
+    private void emitLeaf(final MethodVisitor mv, final Object leaf, final String leafInternalName,
+            final String leafDescriptor, final String methodName, final String methodDescriptor) {
+        final int index = leaves.size();
+        leaves.add(leaf);
+        leafInternalNames.add(leafInternalName);
+        leafDescriptors.add(leafDescriptor);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, internalName, LEAF_FIELD_PREFIX + index, leafDescriptor);
+        keyType.loadKey(mv);
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, leafInternalName, methodName, methodDescriptor, true);
+    }
+
+    /**
+     * Mirrors the double evaluation of DoubleBinaryOperation.
+     */
+    private boolean emitDoubleBinaryOperation(final MethodVisitor mv, final DoubleBinaryOperation operation) {
+        final Op op = operation.getOp();
+        final String method;
+        final int opcode;
+        final boolean nullableComparison;
+        switch (op) {
+        case ADD:
+            method = null;
+            opcode = Opcodes.DADD;
+            nullableComparison = false;
+            break;
+        case SUBTRACT:
+            method = null;
+            opcode = Opcodes.DSUB;
+            nullableComparison = false;
+            break;
+        case MULTIPLY:
+            method = null;
+            opcode = Opcodes.DMUL;
+            nullableComparison = false;
+            break;
+        case MODULO:
+            method = null;
+            opcode = Opcodes.DREM;
+            nullableComparison = false;
+            break;
+        case DIVIDE:
+            method = "divide";
+            opcode = 0;
+            nullableComparison = false;
+            break;
+        case POWER:
+            method = "pow";
+            opcode = 0;
+            nullableComparison = false;
+            break;
+        case GT:
+            method = "isGreaterThanNullable";
+            opcode = 0;
+            nullableComparison = true;
+            break;
+        case GT_EQ:
+            method = "isGreaterThanOrEqualToNullable";
+            opcode = 0;
+            nullableComparison = true;
+            break;
+        case LT:
+            method = "isLessThanNullable";
+            opcode = 0;
+            nullableComparison = true;
+            break;
+        case LT_EQ:
+            method = "isLessThanOrEqualToNullable";
+            opcode = 0;
+            nullableComparison = true;
+            break;
+        case EQ:
+            method = "equalsNullable";
+            opcode = 0;
+            nullableComparison = true;
+            break;
+        case NEQ:
+            method = "notEqualsNullable";
+            opcode = 0;
+            nullableComparison = true;
+            break;
+        default:
+            return false;
+        }
+        final IParsedExpression left = operation.getLeft();
+        final IParsedExpression right = operation.getRight();
+        if (left.isConstant() && right.isConstant()) {
+            final double a = left.newEvaluateDouble().evaluateDouble();
+            final double b = right.newEvaluateDouble().evaluateDouble();
+            mv.visitLdcInsn(op.newDoubleFromDoubles().applyDoubleFromDoubles(a, b));
+            return true;
+        }
+        if (isConstantNaN(left) || isConstantNaN(right)) {
+            mv.visitLdcInsn(Double.NaN);
+            return true;
+        }
+        emitDouble(mv, left);
+        emitDouble(mv, right);
+        if (method == null) {
+            mv.visitInsn(opcode);
+        } else if (nullableComparison) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, DOUBLES, method, BOOLEAN_NULLABLE_FROM_DOUBLES, false);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, DOUBLES, "fromBoolean", DOUBLE_FROM_BOOLEAN_NULLABLE, false);
+        } else {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, DOUBLES, method, DOUBLE_FROM_DOUBLES, false);
+        }
+        return true;
+    }
+
+    /**
+     * Mirrors the boolean evaluation of DoubleBinaryOperation for comparisons.
+     */
+    private boolean emitComparison(final MethodVisitor mv, final DoubleBinaryOperation operation) {
+        final Op op = operation.getOp();
+        final String method;
+        switch (op) {
+        case GT:
+            method = "isGreaterThan";
+            break;
+        case GT_EQ:
+            method = "isGreaterThanOrEqualTo";
+            break;
+        case LT:
+            method = "isLessThan";
+            break;
+        case LT_EQ:
+            method = "isLessThanOrEqualTo";
+            break;
+        case EQ:
+            method = "equals";
+            break;
+        case NEQ:
+            method = "notEquals";
+            break;
+        default:
+            return false;
+        }
+        final IParsedExpression left = operation.getLeft();
+        final IParsedExpression right = operation.getRight();
+        if (left.isConstant() && right.isConstant()) {
+            final double a = left.newEvaluateDouble().evaluateDouble();
+            final double b = right.newEvaluateDouble().evaluateDouble();
+            emitBooleanConstant(mv, op.newBooleanFromDoubles().applyBooleanFromDoubles(a, b));
+            return true;
+        }
+        if (isConstantNaN(left) || isConstantNaN(right)) {
+            emitBooleanConstant(mv, false);
+            return true;
+        }
+        emitDouble(mv, left);
+        emitDouble(mv, right);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, DOUBLES, method, BOOLEAN_FROM_DOUBLES, false);
+        return true;
+    }
+
+    /**
+     * Mirrors LogicalFunctions.IF, constant conditions only emit the branch that is taken.
+     */
+    private boolean emitIf(final MethodVisitor mv, final DoubleFunctionCall call) {
+        final IParsedExpression[] parameters = call.getParameters();
+        if (call.getFunction() != LogicalFunctions.IF || parameters.length != 3) {
+            return false;
+        }
+        final IParsedExpression condition = parameters[0];
+        if (condition.isConstant()) {
+            if (condition.newEvaluateBoolean().evaluateBoolean()) {
+                emitDouble(mv, parameters[1]);
+            } else {
+                emitDouble(mv, parameters[2]);
+            }
+            return true;
+        }
+        final Label elseLabel = new Label();
+        final Label endLabel = new Label();
+        emitBoolean(mv, condition);
+        mv.visitJumpInsn(Opcodes.IFEQ, elseLabel);
+        emitDouble(mv, parameters[1]);
+        mv.visitJumpInsn(Opcodes.GOTO, endLabel);
+        mv.visitLabel(elseLabel);
+        emitDouble(mv, parameters[2]);
+        mv.visitLabel(endLabel);
+        return true;
+    }
+
+    private static void emitBooleanConstant(final MethodVisitor mv, final boolean value) {
+        if (value) {
+            mv.visitInsn(Opcodes.ICONST_1);
+        } else {
+            mv.visitInsn(Opcodes.ICONST_0);
+        }
+    }
+
+    private static boolean isConstantNaN(final IParsedExpression expression) {
+        return expression.isConstant() && Doubles.isNaN(expression.newEvaluateDouble().evaluateDouble());
+    }
+
+}
@@ -0,0 +1,57 @@
+package de.invesdwin.util.math.expression.compiler;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.math.expression.IExpression;
+import de.invesdwin.util.math.expression.eval.IParsedExpression;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import net.bytebuddy.dynamic.loading.ByteArrayClassLoader;
+
+/**
+ * Optional alternative to the lambda based interpreter of IExpression. The simplified expression tree is turned into
+ * one generated class per expression with inlined arithmetic, constant folded branches and direct field access to the
+ * leaves (variables and functions) which are still evaluated by the interpreter.
+ * 
+ * Generating a class is expensive, thus this should only be used for expressions that are evaluated very often.
+ */
+@Immutable
+public final class ExpressionCompiler {
+
+    private static final String CLASS_NAME_PREFIX = ExpressionCompiler.class.getPackage().getName()
+            + ".CompiledExpression$";
+    private static final AtomicLong CLASS_NAME_SEQUENCE = new AtomicLong();
+
+    private ExpressionCompiler() {}
+
+    public static IEvaluateDoubleKey newEvaluateDoubleKey(final IExpression expression) {
+        return (IEvaluateDoubleKey) compile(CompiledKeyType.KEY, expression.asParsedExpression());
+    }
+
+    public static IEvaluateDoubleFDate newEvaluateDoubleFDate(final IExpression expression) {
+        return (IEvaluateDoubleFDate) compile(CompiledKeyType.FDATE, expression.asParsedExpression());
+    }
+
+    private static Object compile(final CompiledKeyType keyType, final IParsedExpression expression) {
+        final String className = CLASS_NAME_PREFIX + CLASS_NAME_SEQUENCE.incrementAndGet();
+        final ExpressionBytecodeGenerator generator = new ExpressionBytecodeGenerator(keyType, className);
+        final byte[] bytecode = generator.generate(expression);
+        if (!generator.isCompiled()) {
+            //the whole expression is a single leaf, thus the interpreter can be used directly
+            return generator.getLeaves()[0];
+        }
+        //each expression gets its own class loader so that the class can be garbage collected with the expression
+        final ClassLoader classLoader = new ByteArrayClassLoader(ExpressionCompiler.class.getClassLoader(),
+                Collections.singletonMap(className, bytecode));
+        try {
+            final Class<?> compiledClass = Class.forName(className, true, classLoader);
+            return compiledClass.getConstructor(Object[].class).newInstance(new Object[] { generator.getLeaves() });
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package de.invesdwin.util.math.expression.eval;
 
+import java.util.Arrays;
+
 import javax.annotation.concurrent.Immutable;
 
 import de.invesdwin.util.lang.Objects;
@@ -18,6 +20,7 @@ import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanNullableKey;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGeneric;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericKey;
@@ -59,6 +62,11 @@ public class ConstantExpression implements IParsedExpression {
         return key -> doubleValue;
     }
 
+    @Override
+    public IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch() {
+        return (fromKey, values, offset, length) -> Arrays.fill(values, offset, offset + length, doubleValue);
+    }
+
     @Override
     public IEvaluateDouble newEvaluateDouble() {
         return () -> doubleValue;
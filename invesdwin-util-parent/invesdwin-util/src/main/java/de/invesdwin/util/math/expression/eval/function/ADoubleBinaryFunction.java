@@ -2,11 +2,13 @@ package de.invesdwin.util.math.expression.eval.function;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
+import de.invesdwin.util.math.Doubles;
 import de.invesdwin.util.math.expression.IExpression;
 import de.invesdwin.util.math.expression.function.ADoubleFunction;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 
 @NotThreadSafe
 public abstract class ADoubleBinaryFunction extends ADoubleFunction {
@@ -38,6 +40,28 @@ public abstract class ADoubleBinaryFunction extends ADoubleFunction {
         };
     }
 
+    @Override
+    public IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch(final String context, final IExpression[] args) {
+        final IEvaluateDoubleKeyBatch aF = args[0].newEvaluateDoubleKeyBatch();
+        final IEvaluateDoubleKeyBatch bF = args[1].newEvaluateDoubleKeyBatch();
+        return new IEvaluateDoubleKeyBatch() {
+            private double[] buffer = Doubles.EMPTY_ARRAY;
+
+            @Override
+            public void evaluateDoubles(final long fromKey, final double[] values, final int offset,
+                    final int length) {
+                if (buffer.length < length) {
+                    buffer = new double[length];
+                }
+                aF.evaluateDoubles(fromKey, values, offset, length);
+                bF.evaluateDoubles(fromKey, buffer, 0, length);
+                for (int i = 0; i < length; i++) {
+                    values[offset + i] = eval(values[offset + i], buffer[i]);
+                }
+            }
+        };
+    }
+
     @Override
     public IEvaluateDouble newEvaluateDouble(final String context, final IExpression[] args) {
         final IEvaluateDouble aF = args[0].newEvaluateDouble();
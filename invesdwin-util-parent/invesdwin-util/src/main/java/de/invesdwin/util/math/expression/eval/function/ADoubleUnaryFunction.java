@@ -7,6 +7,7 @@ import de.invesdwin.util.math.expression.function.ADoubleFunction;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 
 @Immutable
 public abstract class ADoubleUnaryFunction extends ADoubleFunction {
@@ -34,6 +35,18 @@ public abstract class ADoubleUnaryFunction extends ADoubleFunction {
         };
     }
 
+    @Override
+    public IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch(final String context, final IExpression[] args) {
+        final IEvaluateDoubleKeyBatch aF = args[0].newEvaluateDoubleKeyBatch();
+        return (fromKey, values, offset, length) -> {
+            aF.evaluateDoubles(fromKey, values, offset, length);
+            final int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                values[i] = eval(values[i]);
+            }
+        };
+    }
+
     @Override
     public IEvaluateDouble newEvaluateDouble(final String context, final IExpression[] args) {
         final IEvaluateDouble aF = args[0].newEvaluateDouble();
@@ -17,6 +17,7 @@ import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanNullableKey;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGeneric;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericKey;
@@ -50,6 +51,11 @@ public class DoubleFunctionCall extends AFunctionCall<ADoubleFunction> {
         return function.newEvaluateDoubleKey(getContext(), parameters);
     }
 
+    @Override
+    public IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch() {
+        return function.newEvaluateDoubleKeyBatch(getContext(), parameters);
+    }
+
     @Override
     public IEvaluateDouble newEvaluateDouble() {
         return function.newEvaluateDouble(getContext(), parameters);
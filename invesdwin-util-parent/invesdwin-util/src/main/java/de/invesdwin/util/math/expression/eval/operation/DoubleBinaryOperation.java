@@ -26,6 +26,7 @@ import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanNullableKey;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGeneric;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateGenericKey;
@@ -71,6 +72,11 @@ public class DoubleBinaryOperation implements IBinaryOperation {
         return right;
     }
 
+    @Override
+    public IBinaryOperation setRight(final IParsedExpression right) {
+        return newBinaryOperation(left, right);
+    }
+
     @Override
     public void seal() {
         sealed = true;
@@ -571,6 +577,38 @@ public class DoubleBinaryOperation implements IBinaryOperation {
         }
     }
 
+    @Override
+    public IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch() {
+        if (getClass() != DoubleBinaryOperation.class) {
+            //subclasses have their own semantics per key
+            return IEvaluateDoubleKeyBatch.valueOf(newEvaluateDoubleKey());
+        }
+        if (left.isConstant() && right.isConstant()) {
+            final double a = left.newEvaluateDouble().evaluateDouble();
+            final double b = right.newEvaluateDouble().evaluateDouble();
+            final IDoubleFromDoublesBinaryOp opF = op.newDoubleFromDoubles();
+            final double result = opF.applyDoubleFromDoubles(a, b);
+            return DoubleBinaryOperationKeyBatch.fill(result);
+        } else if (left.isConstant()) {
+            final double a = left.newEvaluateDouble().evaluateDouble();
+            if (Doubles.isNaN(a)) {
+                return DoubleBinaryOperationKeyBatch.fill(Double.NaN);
+            }
+            return new DoubleBinaryOperationKeyBatch(op, DoubleBinaryOperationKeyBatch.fill(a),
+                    right.newEvaluateDoubleKeyBatch());
+        } else if (right.isConstant()) {
+            final double b = right.newEvaluateDouble().evaluateDouble();
+            if (Doubles.isNaN(b)) {
+                return DoubleBinaryOperationKeyBatch.fill(Double.NaN);
+            }
+            return new DoubleBinaryOperationKeyBatch(op, left.newEvaluateDoubleKeyBatch(),
+                    DoubleBinaryOperationKeyBatch.fill(b));
+        } else {
+            return new DoubleBinaryOperationKeyBatch(op, left.newEvaluateDoubleKeyBatch(),
+                    right.newEvaluateDoubleKeyBatch());
+        }
+    }
+
     @Override
     public IEvaluateDouble newEvaluateDouble() {
         if (left.isConstant() && right.isConstant()) {
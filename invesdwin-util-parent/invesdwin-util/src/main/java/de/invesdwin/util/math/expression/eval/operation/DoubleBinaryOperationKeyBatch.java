@@ -0,0 +1,119 @@
+package de.invesdwin.util.math.expression.eval.operation;
+
+import java.util.Arrays;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.Doubles;
+import de.invesdwin.util.math.expression.eval.operation.lambda.IDoubleFromDoublesBinaryOp;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
+
+/**
+ * Evaluates both sides into primitive arrays first and then applies the operation in a tight loop that the JIT can
+ * unroll and auto-vectorize. A constant side is expanded into the buffer so that only one loop per operation is
+ * needed.
+ */
+@NotThreadSafe
+final class DoubleBinaryOperationKeyBatch implements IEvaluateDoubleKeyBatch {
+
+    private final Op op;
+    private final IEvaluateDoubleKeyBatch leftF;
+    private final IEvaluateDoubleKeyBatch rightF;
+    private double[] buffer = Doubles.EMPTY_ARRAY;
+
+    DoubleBinaryOperationKeyBatch(final Op op, final IEvaluateDoubleKeyBatch leftF,
+            final IEvaluateDoubleKeyBatch rightF) {
+        this.op = op;
+        this.leftF = leftF;
+        this.rightF = rightF;
+    }
+
+    @Override
+    public void evaluateDoubles(final long fromKey, final double[] values, final int offset, final int length) {
+        if (buffer.length < length) {
+            buffer = new double[length];
+        }
+        leftF.evaluateDoubles(fromKey, values, offset, length);
+        rightF.evaluateDoubles(fromKey, buffer, 0, length);
+        apply(op, values, offset, buffer, length);
+    }
+
+    static IEvaluateDoubleKeyBatch fill(final double value) {
+        return (fromKey, values, offset, length) -> Arrays.fill(values, offset, offset + length, value);
+    }
+
+    /**
+     * Stores the result of (a op b) in a.
+     */
+    static void apply(final Op op, final double[] a, final int offset, final double[] b, final int length) {
+        switch (op) {
+        case GT:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.fromBoolean(Doubles.isGreaterThanNullable(a[offset + i], b[i]));
+            }
+            break;
+        case GT_EQ:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.fromBoolean(Doubles.isGreaterThanOrEqualToNullable(a[offset + i], b[i]));
+            }
+            break;
+        case LT:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.fromBoolean(Doubles.isLessThanNullable(a[offset + i], b[i]));
+            }
+            break;
+        case LT_EQ:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.fromBoolean(Doubles.isLessThanOrEqualToNullable(a[offset + i], b[i]));
+            }
+            break;
+        case EQ:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.fromBoolean(Doubles.equalsNullable(a[offset + i], b[i]));
+            }
+            break;
+        case NEQ:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.fromBoolean(Doubles.notEqualsNullable(a[offset + i], b[i]));
+            }
+            break;
+        case ADD:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] += b[i];
+            }
+            break;
+        case SUBTRACT:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] -= b[i];
+            }
+            break;
+        case MULTIPLY:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] *= b[i];
+            }
+            break;
+        case MODULO:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] %= b[i];
+            }
+            break;
+        case DIVIDE:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.divide(a[offset + i], b[i]);
+            }
+            break;
+        case POWER:
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = Doubles.pow(a[offset + i], b[i]);
+            }
+            break;
+        default:
+            final IDoubleFromDoublesBinaryOp opF = op.newDoubleFromDoubles();
+            for (int i = 0; i < length; i++) {
+                a[offset + i] = opF.applyDoubleFromDoubles(a[offset + i], b[i]);
+            }
+            break;
+        }
+    }
+
+}
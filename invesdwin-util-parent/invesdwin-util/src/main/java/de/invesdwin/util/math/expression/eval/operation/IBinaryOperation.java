@@ -13,6 +13,8 @@ public interface IBinaryOperation extends IParsedExpression {
 
     IParsedExpression getRight();
 
+    IBinaryOperation setRight(IParsedExpression right);
+
     void seal();
 
     boolean isSealed();
@@ -10,6 +10,7 @@ import de.invesdwin.util.math.expression.eval.function.DoubleFunctionCall;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 
 @NotThreadSafe
 public abstract class ADoubleFunction extends AFunction {
@@ -20,6 +21,10 @@ public abstract class ADoubleFunction extends AFunction {
 
     public abstract IEvaluateDouble newEvaluateDouble(String context, IExpression[] args);
 
+    public IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch(final String context, final IExpression[] args) {
+        return IEvaluateDoubleKeyBatch.valueOf(newEvaluateDoubleKey(context, args));
+    }
+
     @Override
     public IParsedExpression newCall(final String context, final IParsedExpression[] parameters) {
         return new DoubleFunctionCall(context, this, parameters);
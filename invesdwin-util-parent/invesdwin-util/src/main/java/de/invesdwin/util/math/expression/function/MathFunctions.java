@@ -12,6 +12,7 @@ import de.invesdwin.util.math.expression.eval.function.ADoubleUnaryFunction;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
 import de.invesdwin.util.math.random.IRandomGenerator;
 import de.invesdwin.util.math.random.PseudoRandomGenerators;
 
@@ -1802,6 +1803,18 @@ public final class MathFunctions {
             };
         }
 
+        @Override
+        public IEvaluateDoubleKeyBatch newEvaluateDoubleKeyBatch(final String context, final IExpression[] args) {
+            final IEvaluateDoubleKeyBatch aF = args[0].newEvaluateDoubleKeyBatch();
+            return (fromKey, values, offset, length) -> {
+                aF.evaluateDoubles(fromKey, values, offset, length);
+                final int end = offset + length;
+                for (int i = offset; i < end; i++) {
+                    values[i] = -values[i];
+                }
+            };
+        }
+
         @Override
         public IEvaluateDouble newEvaluateDouble(final String context, final IExpression[] args) {
             final IEvaluateDouble aF = args[0].newEvaluateDouble();
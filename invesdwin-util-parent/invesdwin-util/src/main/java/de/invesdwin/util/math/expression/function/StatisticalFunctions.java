@@ -6,23 +6,55 @@ import de.invesdwin.util.math.Doubles;
 import de.invesdwin.util.math.expression.ExpressionReturnType;
 import de.invesdwin.util.math.expression.IExpression;
 import de.invesdwin.util.math.expression.IFunctionParameterInfo;
+import de.invesdwin.util.math.expression.function.rolling.RollingAvgAggregate;
+import de.invesdwin.util.math.expression.function.rolling.RollingCountAggregate;
+import de.invesdwin.util.math.expression.function.rolling.RollingMaximumAggregate;
+import de.invesdwin.util.math.expression.function.rolling.RollingMinimumAggregate;
+import de.invesdwin.util.math.expression.function.rolling.RollingSortedAggregate;
+import de.invesdwin.util.math.expression.function.rolling.RollingSumAggregate;
+import de.invesdwin.util.math.expression.function.rolling.RollingVarianceAggregate;
+import de.invesdwin.util.math.expression.function.rolling.RollingWindowEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.function.rolling.RollingWindowEvaluateDoubleKey;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
 import de.invesdwin.util.math.expression.lambda.IEvaluateInteger;
 import de.invesdwin.util.math.expression.lambda.IEvaluateIntegerFDate;
 import de.invesdwin.util.math.expression.lambda.IEvaluateIntegerKey;
-import de.invesdwin.util.math.statistics.RunningMedian;
 import de.invesdwin.util.math.stream.doubl.DoubleStreamStdev;
 import de.invesdwin.util.math.stream.doubl.DoubleStreamVariance;
 import de.invesdwin.util.time.date.IFDateProvider;
 
+/**
+ * The historical functions walk the previous values for every evaluated key. The rolling variants of count, sum,
+ * average, variance and standard deviation instead keep a window of the previous values inside the evaluators they
+ * create (e.g. via IExpression.newEvaluateDoubleKey()) and only add the newest value when the keys are evaluated in
+ * sequence. Such an evaluator is not thread safe and must not be shared between threads, instead each thread should
+ * create its own evaluator from the (thread safe) expression. Also the rolling variants only pick up changes of the
+ * newest value, values of older keys are assumed to not change anymore (e.g. a series that is only appended to).
+ * Highest, lowest, median and percentile always keep a window inside their evaluators.
+ */
 @Immutable
 public final class StatisticalFunctions {
 
+    private static final String ROLLING_DESCRIPTION = " The rolling variant only adds the newest value when evaluated "
+            + "in sequence, thus values of older keys should not change anymore.";
+
     private StatisticalFunctions() {}
 
+    private static String describe(final boolean rolling, final String description) {
+        if (rolling) {
+            return description + ROLLING_DESCRIPTION;
+        } else {
+            return description;
+        }
+    }
+
     public static IFunctionFactory newCountFunction(final String name) {
+        return newCountFunction(name, false);
+    }
+
+    public static IFunctionFactory newCountFunction(final String name, final boolean rolling) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -138,7 +170,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Count not NaN/Null (Historical)";
+                        return rolling ? "Count not NaN/Null (Rolling)" : "Count not NaN/Null (Historical)";
                     }
 
                     @Override
@@ -148,7 +180,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Counts previous values that are not NaN/Null (the count should normally equal to the lookback value in series without missing values): isNaN(value[0]) + isNaN(value[1]) + ... + isNaN(value[n-1])";
+                        return describe(rolling, "Counts previous values that are not NaN/Null (the count should normally equal to the lookback value in series without missing values): isNaN(value[0]) + isNaN(value[1]) + ... + isNaN(value[n-1])");
                     }
 
                     @Override
@@ -160,6 +192,11 @@ public final class StatisticalFunctions {
                     public IEvaluateIntegerKey newEvaluateIntegerKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        if (rolling) {
+                            final RollingWindowEvaluateDoubleKey rollingF = new RollingWindowEvaluateDoubleKey(
+                                    conditionF, countF, previousKeyFunction, new RollingCountAggregate());
+                            return key -> (int) rollingF.evaluateDouble(key);
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             int countNotNan = 0;
@@ -182,6 +219,11 @@ public final class StatisticalFunctions {
                             final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        if (rolling) {
+                            final RollingWindowEvaluateDoubleFDate rollingF = new RollingWindowEvaluateDoubleFDate(
+                                    conditionF, countF, previousKeyFunction, new RollingCountAggregate());
+                            return key -> (int) rollingF.evaluateDouble(key);
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             int countNotNan = 0;
@@ -205,6 +247,10 @@ public final class StatisticalFunctions {
     }
 
     public static IFunctionFactory newSumFunction(final String name) {
+        return newSumFunction(name, false);
+    }
+
+    public static IFunctionFactory newSumFunction(final String name, final boolean rolling) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -320,7 +366,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Sum (Historical)";
+                        return rolling ? "Sum (Rolling)" : "Sum (Historical)";
                     }
 
                     @Override
@@ -330,7 +376,8 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Adds together the previous values: value[0] + value[1] + ... + value[n-1]";
+                        return describe(rolling,
+                                "Adds together the previous values: value[0] + value[1] + ... + value[n-1]");
                     }
 
                     @Override
@@ -342,6 +389,10 @@ public final class StatisticalFunctions {
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                    new RollingSumAggregate());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             double sum = 0D;
@@ -363,6 +414,10 @@ public final class StatisticalFunctions {
                     public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                    new RollingSumAggregate());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             double sum = 0D;
@@ -385,7 +440,11 @@ public final class StatisticalFunctions {
         };
     }
 
-    public static IFunctionFactory newProductFunction(final String name) {
+    public static IFunctionFactory newAverageFunction(final String name) {
+        return newAverageFunction(name, false);
+    }
+
+    public static IFunctionFactory newAverageFunction(final String name, final boolean rolling) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -428,7 +487,7 @@ public final class StatisticalFunctions {
 
                                 @Override
                                 public String getName() {
-                                    return "Value";
+                                    return "value";
                                 }
 
                                 @Override
@@ -501,7 +560,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Product (Historical)";
+                        return rolling ? "Average (Rolling)" : "Average (Historical)";
                     }
 
                     @Override
@@ -511,7 +570,9 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Multiplies together the previous values: value[0] * value[1] * ... * value[n-1]";
+                        return describe(rolling,
+                                "Calculates the arithmetic mean of the previous values that are not NaN/Null: "
+                                + "(value[0] + value[1] + ... + value[n-1]) / n");
                     }
 
                     @Override
@@ -523,20 +584,26 @@ public final class StatisticalFunctions {
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                    new RollingAvgAggregate());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             double sum = 0D;
+                            int countNotNan = 0;
                             long curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    sum *= result;
+                                    sum += result;
+                                    countNotNan++;
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return sum;
+                            return sum / countNotNan;
                         };
                     }
 
@@ -544,20 +611,26 @@ public final class StatisticalFunctions {
                     public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                    new RollingAvgAggregate());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             double sum = 0D;
+                            int countNotNan = 0;
                             IFDateProvider curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    sum *= result;
+                                    sum += result;
+                                    countNotNan++;
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return sum;
+                            return sum / countNotNan;
                         };
                     }
                 };
@@ -566,7 +639,7 @@ public final class StatisticalFunctions {
         };
     }
 
-    public static IFunctionFactory newVarianceFunction(final String name) {
+    public static IFunctionFactory newProductFunction(final String name) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -682,7 +755,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Variance (Historical)";
+                        return "Product (Historical)";
                     }
 
                     @Override
@@ -692,8 +765,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Calculates the variance of the previous values."
-                                + "Normally the sample standard deviaition is to be preferred, since in real life there are normally no complete populations to be measured.";
+                        return "Multiplies together the previous values: value[0] * value[1] * ... * value[n-1]";
                     }
 
                     @Override
@@ -701,47 +773,45 @@ public final class StatisticalFunctions {
                         throw new UnsupportedOperationException("use time or long key instead");
                     }
 
-                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
                         return key -> {
                             final int count = countF.evaluateInteger(key);
-                            final DoubleStreamVariance variance = new DoubleStreamVariance();
+                            double sum = 0D;
                             long curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    variance.process(result);
+                                    sum *= result;
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return variance.getVariance();
+                            return sum;
                         };
                     }
 
-                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
                         return key -> {
                             final int count = countF.evaluateInteger(key);
-                            final DoubleStreamVariance variance = new DoubleStreamVariance();
+                            double sum = 0D;
                             IFDateProvider curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    variance.process(result);
+                                    sum *= result;
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return variance.getVariance();
+                            return sum;
                         };
                     }
                 };
@@ -750,7 +820,11 @@ public final class StatisticalFunctions {
         };
     }
 
-    public static IFunctionFactory newSampleVarianceFunction(final String name) {
+    public static IFunctionFactory newVarianceFunction(final String name) {
+        return newVarianceFunction(name, false);
+    }
+
+    public static IFunctionFactory newVarianceFunction(final String name, final boolean rolling) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -866,7 +940,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Sample Variance (Historical)";
+                        return rolling ? "Variance (Rolling)" : "Variance (Historical)";
                     }
 
                     @Override
@@ -876,7 +950,8 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Calculates the sample variance of the previous values.";
+                        return describe(rolling, "Calculates the variance of the previous values."
+                                + "Normally the sample standard deviaition is to be preferred, since in real life there are normally no complete populations to be measured.");
                     }
 
                     @Override
@@ -884,10 +959,15 @@ public final class StatisticalFunctions {
                         throw new UnsupportedOperationException("use time or long key instead");
                     }
 
+                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newVariance());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             final DoubleStreamVariance variance = new DoubleStreamVariance();
@@ -901,18 +981,23 @@ public final class StatisticalFunctions {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return variance.getSampleVariance();
+                            return variance.getVariance();
                         };
                     }
 
+                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
-                        return key1 -> {
-                            final int count = countF.evaluateInteger(key1);
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newVariance());
+                        }
+                        return key -> {
+                            final int count = countF.evaluateInteger(key);
                             final DoubleStreamVariance variance = new DoubleStreamVariance();
-                            IFDateProvider curKey = key1;
+                            IFDateProvider curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
@@ -922,7 +1007,7 @@ public final class StatisticalFunctions {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return variance.getSampleVariance();
+                            return variance.getVariance();
                         };
                     }
                 };
@@ -931,7 +1016,11 @@ public final class StatisticalFunctions {
         };
     }
 
-    public static IFunctionFactory newStandardDeviationFunction(final String name) {
+    public static IFunctionFactory newSampleVarianceFunction(final String name) {
+        return newSampleVarianceFunction(name, false);
+    }
+
+    public static IFunctionFactory newSampleVarianceFunction(final String name, final boolean rolling) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -1047,7 +1136,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Standard Deviation (Historical)";
+                        return rolling ? "Sample Variance (Rolling)" : "Sample Variance (Historical)";
                     }
 
                     @Override
@@ -1057,8 +1146,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Calculates the standard deviation of the previous values. "
-                                + "Normally the sample standard deviaition is to be preferred, since in real life there are normally no complete populations to be measured.";
+                        return describe(rolling, "Calculates the sample variance of the previous values.");
                     }
 
                     @Override
@@ -1066,47 +1154,53 @@ public final class StatisticalFunctions {
                         throw new UnsupportedOperationException("use time or long key instead");
                     }
 
-                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newSampleVariance());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
-                            final DoubleStreamStdev standardDeviation = new DoubleStreamStdev();
+                            final DoubleStreamVariance variance = new DoubleStreamVariance();
                             long curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    standardDeviation.process(result);
+                                    variance.process(result);
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return standardDeviation.getStandardDeviation();
+                            return variance.getSampleVariance();
                         };
                     }
 
-                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
-                        return key -> {
-                            final int count = countF.evaluateInteger(key);
-                            final DoubleStreamStdev standardDeviation = new DoubleStreamStdev();
-                            IFDateProvider curKey = key;
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newSampleVariance());
+                        }
+                        return key1 -> {
+                            final int count = countF.evaluateInteger(key1);
+                            final DoubleStreamVariance variance = new DoubleStreamVariance();
+                            IFDateProvider curKey = key1;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    standardDeviation.process(result);
+                                    variance.process(result);
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return standardDeviation.getStandardDeviation();
+                            return variance.getSampleVariance();
                         };
                     }
                 };
@@ -1115,7 +1209,11 @@ public final class StatisticalFunctions {
         };
     }
 
-    public static IFunctionFactory newSampleStandardDeviationFunction(final String name) {
+    public static IFunctionFactory newStandardDeviationFunction(final String name) {
+        return newStandardDeviationFunction(name, false);
+    }
+
+    public static IFunctionFactory newStandardDeviationFunction(final String name, final boolean rolling) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -1231,7 +1329,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Sample Standard Deviation (Historical)";
+                        return rolling ? "Standard Deviation (Rolling)" : "Standard Deviation (Historical)";
                     }
 
                     @Override
@@ -1241,7 +1339,8 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Calculates the sample standard deviation of the previous values.";
+                        return describe(rolling, "Calculates the standard deviation of the previous values. "
+                                + "Normally the sample standard deviaition is to be preferred, since in real life there are normally no complete populations to be measured.");
                     }
 
                     @Override
@@ -1249,10 +1348,15 @@ public final class StatisticalFunctions {
                         throw new UnsupportedOperationException("use time or long key instead");
                     }
 
+                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newStandardDeviation());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             final DoubleStreamStdev standardDeviation = new DoubleStreamStdev();
@@ -1266,14 +1370,19 @@ public final class StatisticalFunctions {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return standardDeviation.getSampleStandardDeviation();
+                            return standardDeviation.getStandardDeviation();
                         };
                     }
 
+                    @SuppressWarnings("deprecation")
                     @Override
                     public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newStandardDeviation());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
                             final DoubleStreamStdev standardDeviation = new DoubleStreamStdev();
@@ -1287,7 +1396,7 @@ public final class StatisticalFunctions {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return standardDeviation.getSampleStandardDeviation();
+                            return standardDeviation.getStandardDeviation();
                         };
                     }
                 };
@@ -1296,7 +1405,11 @@ public final class StatisticalFunctions {
         };
     }
 
-    public static IFunctionFactory newMedianFunction(final String name) {
+    public static IFunctionFactory newSampleStandardDeviationFunction(final String name) {
+        return newSampleStandardDeviationFunction(name, false);
+    }
+
+    public static IFunctionFactory newSampleStandardDeviationFunction(final String name, final boolean rolling) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -1412,7 +1525,8 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getName() {
-                        return "Median (Historical)";
+                        return rolling ? "Sample Standard Deviation (Rolling)"
+                                : "Sample Standard Deviation (Historical)";
                     }
 
                     @Override
@@ -1422,7 +1536,7 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Calculates the median of the previous values.";
+                        return describe(rolling, "Calculates the sample standard deviation of the previous values.");
                     }
 
                     @Override
@@ -1434,20 +1548,24 @@ public final class StatisticalFunctions {
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
                         final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
                         final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newSampleStandardDeviation());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
-                            final RunningMedian median = new RunningMedian(count);
+                            final DoubleStreamStdev standardDeviation = new DoubleStreamStdev();
                             long curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    median.add(result);
+                                    standardDeviation.process(result);
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return median.getMedian();
+                            return standardDeviation.getSampleStandardDeviation();
                         };
                     }
 
@@ -1455,20 +1573,24 @@ public final class StatisticalFunctions {
                     public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
                         final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        if (rolling) {
+                            return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                    RollingVarianceAggregate.newSampleStandardDeviation());
+                        }
                         return key -> {
                             final int count = countF.evaluateInteger(key);
-                            final RunningMedian median = new RunningMedian(count);
+                            final DoubleStreamStdev standardDeviation = new DoubleStreamStdev();
                             IFDateProvider curKey = key;
                             for (int i = 1; i <= count; i++) {
                                 final double result = conditionF.evaluateDouble(curKey);
                                 if (!Doubles.isNaN(result)) {
-                                    median.add(result);
+                                    standardDeviation.process(result);
                                 }
                                 if (i != count) {
                                     curKey = previousKeyFunction.getPreviousKey(curKey, 1);
                                 }
                             }
-                            return median.getMedian();
+                            return standardDeviation.getSampleStandardDeviation();
                         };
                     }
                 };
@@ -1477,7 +1599,10 @@ public final class StatisticalFunctions {
         };
     }
 
-    public static IFunctionFactory newPercentileFunction(final String name) {
+    /**
+     * Creates evaluators that keep a monotonic deque of the window, they are not thread safe.
+     */
+    public static IFunctionFactory newHighestFunction(final String name) {
         return new IFunctionFactory() {
             @Override
             public String getExpressionName() {
@@ -1515,17 +1640,17 @@ public final class StatisticalFunctions {
 
                                 @Override
                                 public String getExpressionName() {
-                                    return "percentile";
+                                    return "value";
                                 }
 
                                 @Override
                                 public String getName() {
-                                    return "Percentile";
+                                    return "value";
                                 }
 
                                 @Override
                                 public String getDescription() {
-                                    return "0.25 for the lower quartile, 0.5 for the median, 0.75 for the upper quartile";
+                                    return "The numeric expression to evaluate.";
                                 }
 
                                 @Override
@@ -1548,7 +1673,128 @@ public final class StatisticalFunctions {
 
                                 @Override
                                 public String getType() {
-                                    return ExpressionReturnType.Boolean.toString();
+                                    return ExpressionReturnType.Integer.toString();
+                                }
+
+                                @Override
+                                public String getExpressionName() {
+                                    return "count";
+                                }
+
+                                @Override
+                                public String getName() {
+                                    return "Count";
+                                }
+
+                                @Override
+                                public String getDescription() {
+                                    return "How many previous keys/periods/bars should be checked?";
+                                }
+
+                                @Override
+                                public boolean isOptional() {
+                                    return false;
+                                }
+
+                                @Override
+                                public boolean isVarArgs() {
+                                    return false;
+                                }
+
+                                @Override
+                                public String getDefaultValue() {
+                                    return "100";
+                                }
+                            };
+                        default:
+                            throw new ArrayIndexOutOfBoundsException(index);
+                        }
+                    }
+
+                    @Override
+                    public int getNumberOfArguments() {
+                        return 2;
+                    }
+
+                    @Override
+                    public String getName() {
+                        return "Highest (Historical)";
+                    }
+
+                    @Override
+                    public String getExpressionName() {
+                        return name;
+                    }
+
+                    @Override
+                    public String getDescription() {
+                        return "Returns the highest of the previous values that are not NaN/Null: "
+                                + "max(value[0], value[1], ..., value[n-1])";
+                    }
+
+                    @Override
+                    public IEvaluateDouble newEvaluateDouble(final String context, final IExpression[] args) {
+                        throw new UnsupportedOperationException("use time or long key instead");
+                    }
+
+                    @Override
+                    public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
+                        final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
+                        final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                new RollingMaximumAggregate());
+                    }
+
+                    @Override
+                    public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
+                        final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
+                        final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                new RollingMaximumAggregate());
+                    }
+                };
+            }
+
+        };
+    }
+
+    /**
+     * Creates evaluators that keep a monotonic deque of the window, they are not thread safe.
+     */
+    public static IFunctionFactory newLowestFunction(final String name) {
+        return new IFunctionFactory() {
+            @Override
+            public String getExpressionName() {
+                return name;
+            }
+
+            @Override
+            public ADoubleFunction newFunction(final IPreviousKeyFunction previousKeyFunction) {
+                if (previousKeyFunction == null) {
+                    return null;
+                }
+
+                return new ADoubleFunction() {
+
+                    @Override
+                    public Object getProperty(final String property) {
+                        return null;
+                    }
+
+                    @Override
+                    public boolean isNaturalFunction(final IExpression[] args) {
+                        return false;
+                    }
+
+                    @Override
+                    protected IFunctionParameterInfo getParameterInfo(final int index) {
+                        switch (index) {
+                        case 0:
+                            return new IFunctionParameterInfo() {
+
+                                @Override
+                                public String getType() {
+                                    return ExpressionReturnType.Double.toString();
                                 }
 
                                 @Override
@@ -1558,7 +1804,7 @@ public final class StatisticalFunctions {
 
                                 @Override
                                 public String getName() {
-                                    return "Value";
+                                    return "value";
                                 }
 
                                 @Override
@@ -1581,7 +1827,7 @@ public final class StatisticalFunctions {
                                     return null;
                                 }
                             };
-                        case 2:
+                        case 1:
                             return new IFunctionParameterInfo() {
 
                                 @Override
@@ -1626,12 +1872,12 @@ public final class StatisticalFunctions {
 
                     @Override
                     public int getNumberOfArguments() {
-                        return 3;
+                        return 2;
                     }
 
                     @Override
                     public String getName() {
-                        return "Percentile (Historical)";
+                        return "Lowest (Historical)";
                     }
 
                     @Override
@@ -1641,7 +1887,8 @@ public final class StatisticalFunctions {
 
                     @Override
                     public String getDescription() {
-                        return "Calculates the percentile of the previous values.";
+                        return "Returns the lowest of the previous values that are not NaN/Null: "
+                                + "min(value[0], value[1], ..., value[n-1])";
                     }
 
                     @Override
@@ -1651,24 +1898,370 @@ public final class StatisticalFunctions {
 
                     @Override
                     public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
-                        final IEvaluateDoubleKey percentileF = args[0].newEvaluateDoubleKey();
-                        final IEvaluateDoubleKey condition = args[1].newEvaluateDoubleKey();
-                        final IEvaluateIntegerKey countF = args[2].newEvaluateIntegerKey();
-                        return key -> {
-                            final double percentile = percentileF.evaluateDouble(key);
-                            final int count = countF.evaluateInteger(key);
-                            final RunningMedian median = new RunningMedian(count);
-                            long curKey = key;
-                            for (int i = 1; i <= count; i++) {
-                                final double result = condition.evaluateDouble(curKey);
-                                if (!Doubles.isNaN(result)) {
-                                    median.add(result);
-                                }
-                                if (i != count) {
-                                    curKey = previousKeyFunction.getPreviousKey(curKey, 1);
+                        final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
+                        final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                new RollingMinimumAggregate());
+                    }
+
+                    @Override
+                    public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
+                        final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
+                        final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                new RollingMinimumAggregate());
+                    }
+                };
+            }
+
+        };
+    }
+
+    /**
+     * Creates evaluators that keep the window sorted, they are not thread safe.
+     */
+    public static IFunctionFactory newMedianFunction(final String name) {
+        return new IFunctionFactory() {
+            @Override
+            public String getExpressionName() {
+                return name;
+            }
+
+            @Override
+            public ADoubleFunction newFunction(final IPreviousKeyFunction previousKeyFunction) {
+                if (previousKeyFunction == null) {
+                    return null;
+                }
+
+                return new ADoubleFunction() {
+
+                    @Override
+                    public Object getProperty(final String property) {
+                        return null;
+                    }
+
+                    @Override
+                    public boolean isNaturalFunction(final IExpression[] args) {
+                        return false;
+                    }
+
+                    @Override
+                    protected IFunctionParameterInfo getParameterInfo(final int index) {
+                        switch (index) {
+                        case 0:
+                            return new IFunctionParameterInfo() {
+
+                                @Override
+                                public String getType() {
+                                    return ExpressionReturnType.Double.toString();
                                 }
-                            }
-                            return median.getPercentile(percentile);
+
+                                @Override
+                                public String getExpressionName() {
+                                    return "value";
+                                }
+
+                                @Override
+                                public String getName() {
+                                    return "Value";
+                                }
+
+                                @Override
+                                public String getDescription() {
+                                    return "The numeric expression to evaluate.";
+                                }
+
+                                @Override
+                                public boolean isOptional() {
+                                    return false;
+                                }
+
+                                @Override
+                                public boolean isVarArgs() {
+                                    return false;
+                                }
+
+                                @Override
+                                public String getDefaultValue() {
+                                    return null;
+                                }
+                            };
+                        case 1:
+                            return new IFunctionParameterInfo() {
+
+                                @Override
+                                public String getType() {
+                                    return ExpressionReturnType.Integer.toString();
+                                }
+
+                                @Override
+                                public String getExpressionName() {
+                                    return "count";
+                                }
+
+                                @Override
+                                public String getName() {
+                                    return "Count";
+                                }
+
+                                @Override
+                                public String getDescription() {
+                                    return "How many previous keys/periods/bars should be checked?";
+                                }
+
+                                @Override
+                                public boolean isOptional() {
+                                    return false;
+                                }
+
+                                @Override
+                                public boolean isVarArgs() {
+                                    return false;
+                                }
+
+                                @Override
+                                public String getDefaultValue() {
+                                    return "100";
+                                }
+                            };
+                        default:
+                            throw new ArrayIndexOutOfBoundsException(index);
+                        }
+                    }
+
+                    @Override
+                    public int getNumberOfArguments() {
+                        return 2;
+                    }
+
+                    @Override
+                    public String getName() {
+                        return "Median (Historical)";
+                    }
+
+                    @Override
+                    public String getExpressionName() {
+                        return name;
+                    }
+
+                    @Override
+                    public String getDescription() {
+                        return "Calculates the median of the previous values.";
+                    }
+
+                    @Override
+                    public IEvaluateDouble newEvaluateDouble(final String context, final IExpression[] args) {
+                        throw new UnsupportedOperationException("use time or long key instead");
+                    }
+
+                    @Override
+                    public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
+                        final IEvaluateDoubleKey conditionF = args[0].newEvaluateDoubleKey();
+                        final IEvaluateIntegerKey countF = args[1].newEvaluateIntegerKey();
+                        return new RollingWindowEvaluateDoubleKey(conditionF, countF, previousKeyFunction,
+                                new RollingSortedAggregate());
+                    }
+
+                    @Override
+                    public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context, final IExpression[] args) {
+                        final IEvaluateDoubleFDate conditionF = args[0].newEvaluateDoubleFDate();
+                        final IEvaluateIntegerFDate countF = args[1].newEvaluateIntegerFDate();
+                        return new RollingWindowEvaluateDoubleFDate(conditionF, countF, previousKeyFunction,
+                                new RollingSortedAggregate());
+                    }
+                };
+            }
+
+        };
+    }
+
+    /**
+     * Creates evaluators that keep the window sorted, they are not thread safe.
+     */
+    public static IFunctionFactory newPercentileFunction(final String name) {
+        return new IFunctionFactory() {
+            @Override
+            public String getExpressionName() {
+                return name;
+            }
+
+            @Override
+            public ADoubleFunction newFunction(final IPreviousKeyFunction previousKeyFunction) {
+                if (previousKeyFunction == null) {
+                    return null;
+                }
+
+                return new ADoubleFunction() {
+
+                    @Override
+                    public Object getProperty(final String property) {
+                        return null;
+                    }
+
+                    @Override
+                    public boolean isNaturalFunction(final IExpression[] args) {
+                        return false;
+                    }
+
+                    @Override
+                    protected IFunctionParameterInfo getParameterInfo(final int index) {
+                        switch (index) {
+                        case 0:
+                            return new IFunctionParameterInfo() {
+
+                                @Override
+                                public String getType() {
+                                    return ExpressionReturnType.Double.toString();
+                                }
+
+                                @Override
+                                public String getExpressionName() {
+                                    return "percentile";
+                                }
+
+                                @Override
+                                public String getName() {
+                                    return "Percentile";
+                                }
+
+                                @Override
+                                public String getDescription() {
+                                    return "0.25 for the lower quartile, 0.5 for the median, 0.75 for the upper quartile";
+                                }
+
+                                @Override
+                                public boolean isOptional() {
+                                    return false;
+                                }
+
+                                @Override
+                                public boolean isVarArgs() {
+                                    return false;
+                                }
+
+                                @Override
+                                public String getDefaultValue() {
+                                    return null;
+                                }
+                            };
+                        case 1:
+                            return new IFunctionParameterInfo() {
+
+                                @Override
+                                public String getType() {
+                                    return ExpressionReturnType.Boolean.toString();
+                                }
+
+                                @Override
+                                public String getExpressionName() {
+                                    return "value";
+                                }
+
+                                @Override
+                                public String getName() {
+                                    return "Value";
+                                }
+
+                                @Override
+                                public String getDescription() {
+                                    return "The numeric expression to evaluate.";
+                                }
+
+                                @Override
+                                public boolean isOptional() {
+                                    return false;
+                                }
+
+                                @Override
+                                public boolean isVarArgs() {
+                                    return false;
+                                }
+
+                                @Override
+                                public String getDefaultValue() {
+                                    return null;
+                                }
+                            };
+                        case 2:
+                            return new IFunctionParameterInfo() {
+
+                                @Override
+                                public String getType() {
+                                    return ExpressionReturnType.Integer.toString();
+                                }
+
+                                @Override
+                                public String getExpressionName() {
+                                    return "count";
+                                }
+
+                                @Override
+                                public String getName() {
+                                    return "Count";
+                                }
+
+                                @Override
+                                public String getDescription() {
+                                    return "How many previous keys/periods/bars should be checked?";
+                                }
+
+                                @Override
+                                public boolean isOptional() {
+                                    return false;
+                                }
+
+                                @Override
+                                public boolean isVarArgs() {
+                                    return false;
+                                }
+
+                                @Override
+                                public String getDefaultValue() {
+                                    return "100";
+                                }
+                            };
+                        default:
+                            throw new ArrayIndexOutOfBoundsException(index);
+                        }
+                    }
+
+                    @Override
+                    public int getNumberOfArguments() {
+                        return 3;
+                    }
+
+                    @Override
+                    public String getName() {
+                        return "Percentile (Historical)";
+                    }
+
+                    @Override
+                    public String getExpressionName() {
+                        return name;
+                    }
+
+                    @Override
+                    public String getDescription() {
+                        return "Calculates the percentile of the previous values.";
+                    }
+
+                    @Override
+                    public IEvaluateDouble newEvaluateDouble(final String context, final IExpression[] args) {
+                        throw new UnsupportedOperationException("use time or long key instead");
+                    }
+
+                    @Override
+                    public IEvaluateDoubleKey newEvaluateDoubleKey(final String context, final IExpression[] args) {
+                        final IEvaluateDoubleKey percentileF = args[0].newEvaluateDoubleKey();
+                        final IEvaluateDoubleKey condition = args[1].newEvaluateDoubleKey();
+                        final IEvaluateIntegerKey countF = args[2].newEvaluateIntegerKey();
+                        final RollingSortedAggregate sorted = new RollingSortedAggregate();
+                        final RollingWindowEvaluateDoubleKey rollingF = new RollingWindowEvaluateDoubleKey(condition,
+                                countF, previousKeyFunction, sorted);
+                        return key -> {
+                            final double percentile = percentileF.evaluateDouble(key);
+                            rollingF.evaluateDouble(key);
+                            return sorted.getPercentile(percentile);
                         };
                     }
 
@@ -1677,21 +2270,13 @@ public final class StatisticalFunctions {
                         final IEvaluateDoubleFDate percentileF = args[0].newEvaluateDoubleFDate();
                         final IEvaluateDoubleFDate condition = args[1].newEvaluateDoubleFDate();
                         final IEvaluateIntegerFDate countF = args[2].newEvaluateIntegerFDate();
+                        final RollingSortedAggregate sorted = new RollingSortedAggregate();
+                        final RollingWindowEvaluateDoubleFDate rollingF = new RollingWindowEvaluateDoubleFDate(
+                                condition, countF, previousKeyFunction, sorted);
                         return key -> {
                             final double percentile = percentileF.evaluateDouble(key);
-                            final int count = countF.evaluateInteger(key);
-                            final RunningMedian median = new RunningMedian(count);
-                            IFDateProvider curKey = key;
-                            for (int i = 1; i <= count; i++) {
-                                final double result = condition.evaluateDouble(curKey);
-                                if (!Doubles.isNaN(result)) {
-                                    median.add(result);
-                                }
-                                if (i != count) {
-                                    curKey = previousKeyFunction.getPreviousKey(curKey, 1);
-                                }
-                            }
-                            return median.getPercentile(percentile);
+                            rollingF.evaluateDouble(key);
+                            return sorted.getPercentile(percentile);
                         };
                     }
                 };
@@ -0,0 +1,58 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayFIFOQueue;
+
+/**
+ * Keeps only the values that can still become the extremum of the window. The first element of the deque is always
+ * the current extremum, thus add/remove are amortized O(1).
+ */
+@NotThreadSafe
+public abstract class ARollingMonotonicDequeAggregate implements IRollingWindowAggregate {
+
+    private final DoubleArrayFIFOQueue deque = new DoubleArrayFIFOQueue();
+
+    /**
+     * @return true if the existing value can never become the extremum anymore after the newer value was added
+     */
+    protected abstract boolean isDominatedBy(double existing, double newer);
+
+    @Override
+    public void add(final double value) {
+        while (!deque.isEmpty() && isDominatedBy(deque.lastDouble(), value)) {
+            deque.dequeueLastDouble();
+        }
+        deque.enqueue(value);
+    }
+
+    @Override
+    public void remove(final double value) {
+        /*
+         * since removals happen in FIFO order, the oldest value is only still contained if it is the extremum (equal
+         * values are not dominated, thus duplicates are kept)
+         */
+        if (!deque.isEmpty() && Double.compare(deque.firstDouble(), value) == 0) {
+            deque.dequeueDouble();
+        }
+    }
+
+    @Override
+    public void reset() {
+        deque.clear();
+    }
+
+    @Override
+    public double getValue() {
+        if (deque.isEmpty()) {
+            return Double.NaN;
+        }
+        return deque.firstDouble();
+    }
+
+    @Override
+    public boolean isRoundingErrorAccumulating() {
+        return false;
+    }
+
+}
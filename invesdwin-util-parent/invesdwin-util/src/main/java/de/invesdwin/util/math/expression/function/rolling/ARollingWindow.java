@@ -0,0 +1,131 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.Doubles;
+import de.invesdwin.util.math.Integers;
+
+/**
+ * Ring buffer of the values inside the lookback window that keeps the aggregate up to date. Sequential evaluation only
+ * needs to push the newest value while the oldest value gets evicted, random access requires a full walk to rebuild the
+ * window. Values that are already inside the window are not evaluated again (except for the newest one), thus changes
+ * to older values are only picked up by the next full walk.
+ */
+@NotThreadSafe
+public abstract class ARollingWindow {
+
+    private final IRollingWindowAggregate aggregate;
+    private double[] values = Doubles.EMPTY_ARRAY;
+    private int capacity;
+    private int size;
+    private int oldestIndex;
+    private int pushesSinceRecalculation;
+
+    public ARollingWindow(final IRollingWindowAggregate aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    public IRollingWindowAggregate getAggregate() {
+        return aggregate;
+    }
+
+    protected final double getAggregateValue() {
+        return aggregate.getValue();
+    }
+
+    protected final int getCapacity() {
+        return capacity;
+    }
+
+    protected final boolean isFull() {
+        return capacity > 0 && size == capacity;
+    }
+
+    protected final void reset(final int newCapacity) {
+        if (values.length < newCapacity) {
+            values = new double[newCapacity];
+        }
+        capacity = Integers.max(0, newCapacity);
+        size = 0;
+        oldestIndex = 0;
+        pushesSinceRecalculation = 0;
+        aggregate.reset();
+    }
+
+    /**
+     * During a full walk the values are supplied from the newest to the oldest one. They only reach the aggregate in
+     * finishWalk(), because aggregates expect FIFO order.
+     */
+    protected final void addOlder(final double value) {
+        final int index = capacity - 1 - size;
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * Feeds the values of the full walk from the oldest to the newest one into the aggregate.
+     */
+    protected final void finishWalk() {
+        oldestIndex = capacity - size;
+        recalculate();
+    }
+
+    /**
+     * Appends the newest value while evicting the oldest one.
+     */
+    protected final void push(final double value) {
+        final double evicted = values[oldestIndex];
+        values[oldestIndex] = value;
+        oldestIndex++;
+        if (oldestIndex == capacity) {
+            oldestIndex = 0;
+        }
+        if (!Doubles.isNaN(evicted)) {
+            aggregate.remove(evicted);
+        }
+        if (!Doubles.isNaN(value)) {
+            aggregate.add(value);
+        }
+        if (aggregate.isRoundingErrorAccumulating()) {
+            pushesSinceRecalculation++;
+            if (pushesSinceRecalculation >= capacity) {
+                recalculate();
+            }
+        }
+    }
+
+    /**
+     * The same key was evaluated again, the newest value might have changed (e.g. a live bar was updated).
+     */
+    protected final void replaceNewest(final double value) {
+        final int newestIndex;
+        if (oldestIndex == 0) {
+            newestIndex = capacity - 1;
+        } else {
+            newestIndex = oldestIndex - 1;
+        }
+        final double previousValue = values[newestIndex];
+        if (Double.compare(previousValue, value) == 0) {
+            return;
+        }
+        values[newestIndex] = value;
+        //removal is only supported in FIFO order, thus rebuild the aggregate
+        recalculate();
+    }
+
+    private void recalculate() {
+        aggregate.reset();
+        for (int i = 0; i < size; i++) {
+            int index = oldestIndex + i;
+            if (index >= capacity) {
+                index -= capacity;
+            }
+            final double value = values[index];
+            if (!Doubles.isNaN(value)) {
+                aggregate.add(value);
+            }
+        }
+        pushesSinceRecalculation = 0;
+    }
+
+}
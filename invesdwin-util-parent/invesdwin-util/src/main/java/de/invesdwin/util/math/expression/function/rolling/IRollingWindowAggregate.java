@@ -0,0 +1,26 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+/**
+ * An aggregate that is maintained incrementally over a sliding window of values. Values are removed in the same order
+ * as they were added (FIFO), NaN values are filtered by the window before they reach the aggregate.
+ */
+public interface IRollingWindowAggregate {
+
+    void add(double value);
+
+    /**
+     * Always called with the oldest value that is still contained in the aggregate.
+     */
+    void remove(double value);
+
+    void reset();
+
+    double getValue();
+
+    /**
+     * When true, the window will periodically rebuild the aggregate from scratch to prevent floating point errors from
+     * adding up due to add/remove cycles.
+     */
+    boolean isRoundingErrorAccumulating();
+
+}
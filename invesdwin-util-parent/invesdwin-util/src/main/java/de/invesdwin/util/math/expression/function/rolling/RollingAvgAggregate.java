@@ -0,0 +1,20 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Returns NaN when the window contains no values that are not NaN.
+ */
+@NotThreadSafe
+public class RollingAvgAggregate extends RollingSumAggregate {
+
+    @Override
+    public double getValue() {
+        final int count = getCount();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return getSum() / count;
+    }
+
+}
@@ -0,0 +1,38 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Counts the values that are not NaN.
+ */
+@NotThreadSafe
+public class RollingCountAggregate implements IRollingWindowAggregate {
+
+    private int count;
+
+    @Override
+    public void add(final double value) {
+        count++;
+    }
+
+    @Override
+    public void remove(final double value) {
+        count--;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+    }
+
+    @Override
+    public double getValue() {
+        return count;
+    }
+
+    @Override
+    public boolean isRoundingErrorAccumulating() {
+        return false;
+    }
+
+}
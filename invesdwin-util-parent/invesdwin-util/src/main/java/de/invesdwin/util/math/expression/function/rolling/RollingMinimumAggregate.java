@@ -0,0 +1,13 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+@NotThreadSafe
+public class RollingMinimumAggregate extends ARollingMonotonicDequeAggregate {
+
+    @Override
+    protected boolean isDominatedBy(final double existing, final double newer) {
+        return existing > newer;
+    }
+
+}
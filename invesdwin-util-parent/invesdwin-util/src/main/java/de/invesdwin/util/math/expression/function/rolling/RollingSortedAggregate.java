@@ -0,0 +1,90 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import java.util.Arrays;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.Doubles;
+import de.invesdwin.util.math.Integers;
+
+/**
+ * Keeps the window values in a sorted primitive array so that any order statistic (median, percentile) is a simple
+ * index lookup. Insertion and removal are a binary search plus an arraycopy, which for typical lookback windows is
+ * faster than tree or heap based structures that box their values. Results are consistent with RunningMedian.
+ */
+@NotThreadSafe
+public class RollingSortedAggregate implements IRollingWindowAggregate {
+
+    private double[] sorted = Doubles.EMPTY_ARRAY;
+    private int size;
+
+    @Override
+    public void add(final double value) {
+        if (size == sorted.length) {
+            sorted = Arrays.copyOf(sorted, Integers.max(16, size * 2));
+        }
+        int index = Arrays.binarySearch(sorted, 0, size, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        System.arraycopy(sorted, index, sorted, index + 1, size - index);
+        sorted[index] = value;
+        size++;
+    }
+
+    @Override
+    public void remove(final double value) {
+        final int index = Arrays.binarySearch(sorted, 0, size, value);
+        if (index < 0) {
+            throw new IllegalStateException("Value not found: " + value);
+        }
+        size--;
+        System.arraycopy(sorted, index + 1, sorted, index, size - index);
+    }
+
+    @Override
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getMedian() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        if (size == 1) {
+            return sorted[0];
+        }
+        final int middle = size / 2;
+        if (size % 2 == 0) {
+            return (sorted[middle] + sorted[middle - 1]) / 2D;
+        } else {
+            return sorted[middle];
+        }
+    }
+
+    public double getPercentile(final double percentileRate) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        if (size == 1) {
+            return sorted[0];
+        }
+        final int percentileIndex = Integers.ceil(size * percentileRate);
+        return sorted[Integers.between(percentileIndex - 1, 0, size - 1)];
+    }
+
+    @Override
+    public double getValue() {
+        return getMedian();
+    }
+
+    @Override
+    public boolean isRoundingErrorAccumulating() {
+        return false;
+    }
+
+}
@@ -0,0 +1,76 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+@NotThreadSafe
+public class RollingSumAggregate implements IRollingWindowAggregate {
+
+    private double sum;
+    private int count;
+    /*
+     * infinite values would turn the sum into NaN on removal (Infinity - Infinity), thus they are tracked separately
+     */
+    private int positiveInfinityCount;
+    private int negativeInfinityCount;
+
+    @Override
+    public void add(final double value) {
+        count++;
+        if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinityCount++;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinityCount++;
+        } else {
+            sum += value;
+        }
+    }
+
+    @Override
+    public void remove(final double value) {
+        count--;
+        if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinityCount--;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinityCount--;
+        } else {
+            sum -= value;
+        }
+    }
+
+    @Override
+    public void reset() {
+        sum = 0D;
+        count = 0;
+        positiveInfinityCount = 0;
+        negativeInfinityCount = 0;
+    }
+
+    public double getSum() {
+        if (positiveInfinityCount > 0) {
+            if (negativeInfinityCount > 0) {
+                return Double.NaN;
+            } else {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else if (negativeInfinityCount > 0) {
+            return Double.NEGATIVE_INFINITY;
+        } else {
+            return sum;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public double getValue() {
+        return getSum();
+    }
+
+    @Override
+    public boolean isRoundingErrorAccumulating() {
+        return true;
+    }
+
+}
@@ -0,0 +1,111 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.Doubles;
+
+/**
+ * Welford's online algorithm with support for removals. Results are consistent with DoubleStreamVariance and
+ * DoubleStreamStdev.
+ */
+@NotThreadSafe
+public final class RollingVarianceAggregate implements IRollingWindowAggregate {
+
+    private final boolean sample;
+    private final boolean standardDeviation;
+    private int count;
+    private double avg;
+    private double squareSum;
+    private int nonFiniteCount;
+
+    private RollingVarianceAggregate(final boolean sample, final boolean standardDeviation) {
+        this.sample = sample;
+        this.standardDeviation = standardDeviation;
+    }
+
+    @Override
+    public void add(final double value) {
+        if (!Double.isFinite(value)) {
+            nonFiniteCount++;
+            return;
+        }
+        count++;
+        final double delta = value - avg;
+        avg += delta / count;
+        squareSum += delta * (value - avg);
+    }
+
+    @Override
+    public void remove(final double value) {
+        if (!Double.isFinite(value)) {
+            nonFiniteCount--;
+            return;
+        }
+        if (count <= 1) {
+            count = 0;
+            avg = 0D;
+            squareSum = 0D;
+            return;
+        }
+        count--;
+        final double delta = value - avg;
+        avg -= delta / count;
+        squareSum -= delta * (value - avg);
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        avg = 0D;
+        squareSum = 0D;
+        nonFiniteCount = 0;
+    }
+
+    public double getVariance() {
+        if (nonFiniteCount > 0) {
+            return Double.NaN;
+        }
+        if (count < 2) {
+            return 0D;
+        }
+        //removals might produce tiny negative values due to rounding
+        final double positiveSquareSum = Doubles.max(0D, squareSum);
+        if (sample) {
+            return positiveSquareSum / (count - 1);
+        } else {
+            return positiveSquareSum / count;
+        }
+    }
+
+    @Override
+    public double getValue() {
+        final double variance = getVariance();
+        if (standardDeviation) {
+            return Doubles.sqrt(variance);
+        } else {
+            return variance;
+        }
+    }
+
+    @Override
+    public boolean isRoundingErrorAccumulating() {
+        return true;
+    }
+
+    public static RollingVarianceAggregate newVariance() {
+        return new RollingVarianceAggregate(false, false);
+    }
+
+    public static RollingVarianceAggregate newSampleVariance() {
+        return new RollingVarianceAggregate(true, false);
+    }
+
+    public static RollingVarianceAggregate newStandardDeviation() {
+        return new RollingVarianceAggregate(false, true);
+    }
+
+    public static RollingVarianceAggregate newSampleStandardDeviation() {
+        return new RollingVarianceAggregate(true, true);
+    }
+
+}
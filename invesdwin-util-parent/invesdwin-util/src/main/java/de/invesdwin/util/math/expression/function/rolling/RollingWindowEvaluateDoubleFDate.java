@@ -0,0 +1,66 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.expression.function.IPreviousKeyFunction;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateIntegerFDate;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.IFDateProvider;
+
+/**
+ * Evaluates an aggregate over value[0] ... value[count-1] in O(1) per key when keys are evaluated in ascending order.
+ * Any other access pattern falls back to walking the previous keys.
+ *
+ * The window is mutable state, thus each thread needs its own instance.
+ */
+@NotThreadSafe
+public class RollingWindowEvaluateDoubleFDate extends ARollingWindow implements IEvaluateDoubleFDate {
+
+    private final IEvaluateDoubleFDate valueF;
+    private final IEvaluateIntegerFDate countF;
+    private final IPreviousKeyFunction previousKeyFunction;
+    private FDate lastKey;
+
+    public RollingWindowEvaluateDoubleFDate(final IEvaluateDoubleFDate valueF, final IEvaluateIntegerFDate countF,
+            final IPreviousKeyFunction previousKeyFunction, final IRollingWindowAggregate aggregate) {
+        super(aggregate);
+        this.valueF = valueF;
+        this.countF = countF;
+        this.previousKeyFunction = previousKeyFunction;
+    }
+
+    @Override
+    public double evaluateDouble(final IFDateProvider key) {
+        final int count = countF.evaluateInteger(key);
+        if (count <= 0) {
+            reset(0);
+            lastKey = null;
+            return getAggregateValue();
+        }
+        final FDate keyDate = key.asFDate();
+        if (isFull() && getCapacity() == count && lastKey != null) {
+            if (lastKey.equalsNotNullSafe(keyDate)) {
+                replaceNewest(valueF.evaluateDouble(key));
+                return getAggregateValue();
+            }
+            if (lastKey.equals(previousKeyFunction.getPreviousKey(key, 1).asFDate())) {
+                push(valueF.evaluateDouble(key));
+                lastKey = keyDate;
+                return getAggregateValue();
+            }
+        }
+        reset(count);
+        IFDateProvider curKey = key;
+        for (int i = 1; i <= count; i++) {
+            addOlder(valueF.evaluateDouble(curKey));
+            if (i != count) {
+                curKey = previousKeyFunction.getPreviousKey(curKey, 1);
+            }
+        }
+        finishWalk();
+        lastKey = keyDate;
+        return getAggregateValue();
+    }
+
+}
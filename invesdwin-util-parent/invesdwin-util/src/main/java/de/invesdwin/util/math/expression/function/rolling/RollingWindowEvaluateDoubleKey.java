@@ -0,0 +1,62 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.expression.function.IPreviousKeyFunction;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateIntegerKey;
+
+/**
+ * Evaluates an aggregate over value[0] ... value[count-1] in O(1) per key when keys are evaluated in ascending order.
+ * Any other access pattern falls back to walking the previous keys.
+ *
+ * The window is mutable state, thus each thread needs its own instance.
+ */
+@NotThreadSafe
+public class RollingWindowEvaluateDoubleKey extends ARollingWindow implements IEvaluateDoubleKey {
+
+    private final IEvaluateDoubleKey valueF;
+    private final IEvaluateIntegerKey countF;
+    private final IPreviousKeyFunction previousKeyFunction;
+    private long lastKey;
+
+    public RollingWindowEvaluateDoubleKey(final IEvaluateDoubleKey valueF, final IEvaluateIntegerKey countF,
+            final IPreviousKeyFunction previousKeyFunction, final IRollingWindowAggregate aggregate) {
+        super(aggregate);
+        this.valueF = valueF;
+        this.countF = countF;
+        this.previousKeyFunction = previousKeyFunction;
+    }
+
+    @Override
+    public double evaluateDouble(final long key) {
+        final int count = countF.evaluateInteger(key);
+        if (count <= 0) {
+            reset(0);
+            return getAggregateValue();
+        }
+        if (isFull() && getCapacity() == count) {
+            if (key == lastKey) {
+                replaceNewest(valueF.evaluateDouble(key));
+                return getAggregateValue();
+            }
+            if (previousKeyFunction.getPreviousKey(key, 1) == lastKey) {
+                push(valueF.evaluateDouble(key));
+                lastKey = key;
+                return getAggregateValue();
+            }
+        }
+        reset(count);
+        long curKey = key;
+        for (int i = 1; i <= count; i++) {
+            addOlder(valueF.evaluateDouble(curKey));
+            if (i != count) {
+                curKey = previousKeyFunction.getPreviousKey(curKey, 1);
+            }
+        }
+        finishWalk();
+        lastKey = key;
+        return getAggregateValue();
+    }
+
+}
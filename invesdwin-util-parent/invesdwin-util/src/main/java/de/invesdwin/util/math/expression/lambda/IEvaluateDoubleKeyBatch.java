@@ -0,0 +1,42 @@
+package de.invesdwin.util.math.expression.lambda;
+
+import de.invesdwin.util.collections.array.primitive.IDoublePrimitiveArray;
+import de.invesdwin.util.collections.array.primitive.heap.HeapDoublePrimitiveArray;
+
+@FunctionalInterface
+public interface IEvaluateDoubleKeyBatch {
+
+    /**
+     * evaluates the expression for the consecutive long keys fromKey until (fromKey + length - 1) and writes the
+     * results into values starting at the given offset
+     */
+    void evaluateDoubles(long fromKey, double[] values, int offset, int length);
+
+    /**
+     * evaluates the expression for the consecutive long keys starting at fromKey until all values are filled
+     */
+    default void evaluateDoubles(final long fromKey, final IDoublePrimitiveArray values) {
+        final int length = values.size();
+        if (values instanceof HeapDoublePrimitiveArray) {
+            evaluateDoubles(fromKey, values.asArray(), 0, length);
+        } else {
+            final double[] array = new double[length];
+            evaluateDoubles(fromKey, array, 0, length);
+            for (int i = 0; i < length; i++) {
+                values.set(i, array[i]);
+            }
+        }
+    }
+
+    /**
+     * Fallback for expressions that can not be evaluated in batches natively.
+     */
+    static IEvaluateDoubleKeyBatch valueOf(final IEvaluateDoubleKey f) {
+        return (fromKey, values, offset, length) -> {
+            for (int i = 0; i < length; i++) {
+                values[offset + i] = f.evaluateDouble(fromKey + i);
+            }
+        };
+    }
+
+}
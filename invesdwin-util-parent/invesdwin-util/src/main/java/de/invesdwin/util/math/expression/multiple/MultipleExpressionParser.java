@@ -118,7 +118,7 @@ public class MultipleExpressionParser implements IExpressionParser {
         }
         final String expression = collectExpression();
         try {
-            final IParsedExpression parsed = (IParsedExpression) newNestedParser(expression).parse();
+            final IParsedExpression parsed = share((IParsedExpression) newNestedParser(expression).parse());
             return newParsedExpression(variables, parsed);
         } catch (final ParseException e) {
             throw new ParseException(newNestedPosition(positionBefore, e), e.getMessage(), e);
@@ -179,14 +179,26 @@ public class MultipleExpressionParser implements IExpressionParser {
         final IPosition positionBefore = tokenizer.current();
         final String definition = collectExpression();
         try {
-            final IParsedExpression parsedDefinition = (IParsedExpression) newNestedParser(definition).parse();
+            final IParsedExpression parsedDefinition = share((IParsedExpression) newNestedParser(definition).parse());
             final IVariable variable = newVariable(variableName, parsedDefinition);
+            final SharedSubexpressions sharedSubexpressions = getSharedSubexpressions();
+            if (sharedSubexpressions != null) {
+                sharedSubexpressions.putVariable(variable, parsedDefinition);
+            }
             variables.put(variableNameLower, variable);
         } catch (final ParseException e) {
             throw new ParseException(newNestedPosition(positionBefore, e), e.getMessage(), e);
         }
     }
 
+    private IParsedExpression share(final IParsedExpression parsed) {
+        final SharedSubexpressions sharedSubexpressions = getSharedSubexpressions();
+        if (sharedSubexpressions == null) {
+            return parsed;
+        }
+        return sharedSubexpressions.share(parsed);
+    }
+
     private String collectExpression() {
         final StringBuilder sb = new StringBuilder();
         int consumed = 0;
@@ -464,4 +476,12 @@ public class MultipleExpressionParser implements IExpressionParser {
         return expression.simplify();
     }
 
+    /**
+     * Override this to return an instance that is reused between the parsers of a rule set, so that common
+     * subexpressions are only evaluated once per key.
+     */
+    protected SharedSubexpressions getSharedSubexpressions() {
+        return null;
+    }
+
 }
@@ -0,0 +1,162 @@
+package de.invesdwin.util.math.expression.multiple;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.math.Doubles;
+import de.invesdwin.util.math.Integers;
+import de.invesdwin.util.math.expression.delegate.ADelegateParsedExpression;
+import de.invesdwin.util.math.expression.eval.IParsedExpression;
+import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanNullableFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanNullableKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateIntegerFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateIntegerKey;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.IFDateProvider;
+
+/**
+ * A node that is referenced by multiple expressions. All keyed evaluations go through one shared evaluator that
+ * remembers the result for the last key, thus the delegate is only computed once per key.
+ */
+@NotThreadSafe
+final class SharedParsedExpression extends ADelegateParsedExpression {
+
+    private final String key;
+    private final IParsedExpression delegate;
+    private MemoEvaluateDoubleKey evaluateDoubleKey;
+    private MemoEvaluateDoubleFDate evaluateDoubleFDate;
+
+    SharedParsedExpression(final String key, final IParsedExpression delegate) {
+        this.key = key;
+        this.delegate = delegate;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    void invalidate() {
+        if (evaluateDoubleKey != null) {
+            evaluateDoubleKey.invalidate();
+        }
+        if (evaluateDoubleFDate != null) {
+            evaluateDoubleFDate.invalidate();
+        }
+    }
+
+    @Override
+    protected IParsedExpression getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public IEvaluateDoubleKey newEvaluateDoubleKey() {
+        if (evaluateDoubleKey == null) {
+            evaluateDoubleKey = new MemoEvaluateDoubleKey(delegate.newEvaluateDoubleKey());
+        }
+        return evaluateDoubleKey;
+    }
+
+    @Override
+    public IEvaluateIntegerKey newEvaluateIntegerKey() {
+        final IEvaluateDoubleKey f = newEvaluateDoubleKey();
+        return key -> Integers.checkedCastNoOverflow(f.evaluateDouble(key));
+    }
+
+    @Override
+    public IEvaluateBooleanKey newEvaluateBooleanKey() {
+        final IEvaluateDoubleKey f = newEvaluateDoubleKey();
+        return key -> Doubles.toBoolean(f.evaluateDouble(key));
+    }
+
+    @Override
+    public IEvaluateBooleanNullableKey newEvaluateBooleanNullableKey() {
+        final IEvaluateDoubleKey f = newEvaluateDoubleKey();
+        return key -> Doubles.toBooleanNullable(f.evaluateDouble(key));
+    }
+
+    @Override
+    public IEvaluateDoubleFDate newEvaluateDoubleFDate() {
+        if (evaluateDoubleFDate == null) {
+            evaluateDoubleFDate = new MemoEvaluateDoubleFDate(delegate.newEvaluateDoubleFDate());
+        }
+        return evaluateDoubleFDate;
+    }
+
+    @Override
+    public IEvaluateIntegerFDate newEvaluateIntegerFDate() {
+        final IEvaluateDoubleFDate f = newEvaluateDoubleFDate();
+        return key -> Integers.checkedCastNoOverflow(f.evaluateDouble(key));
+    }
+
+    @Override
+    public IEvaluateBooleanFDate newEvaluateBooleanFDate() {
+        final IEvaluateDoubleFDate f = newEvaluateDoubleFDate();
+        return key -> Doubles.toBoolean(f.evaluateDouble(key));
+    }
+
+    @Override
+    public IEvaluateBooleanNullableFDate newEvaluateBooleanNullableFDate() {
+        final IEvaluateDoubleFDate f = newEvaluateDoubleFDate();
+        return key -> Doubles.toBooleanNullable(f.evaluateDouble(key));
+    }
+
+    @NotThreadSafe
+    private static final class MemoEvaluateDoubleKey implements IEvaluateDoubleKey {
+
+        private final IEvaluateDoubleKey delegate;
+        private boolean memoized;
+        private long lastKey;
+        private double lastValue;
+
+        private MemoEvaluateDoubleKey(final IEvaluateDoubleKey delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public double evaluateDouble(final long key) {
+            if (!memoized || lastKey != key) {
+                lastValue = delegate.evaluateDouble(key);
+                lastKey = key;
+                memoized = true;
+            }
+            return lastValue;
+        }
+
+        private void invalidate() {
+            memoized = false;
+        }
+
+    }
+
+    @NotThreadSafe
+    private static final class MemoEvaluateDoubleFDate implements IEvaluateDoubleFDate {
+
+        private final IEvaluateDoubleFDate delegate;
+        private FDate lastKey;
+        private double lastValue;
+
+        private MemoEvaluateDoubleFDate(final IEvaluateDoubleFDate delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public double evaluateDouble(final IFDateProvider key) {
+            final FDate date = key.asFDate();
+            if (lastKey == null || !lastKey.equalsNotNullSafe(date)) {
+                lastValue = delegate.evaluateDouble(date);
+                lastKey = date;
+            }
+            return lastValue;
+        }
+
+        private void invalidate() {
+            lastKey = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package de.invesdwin.util.math.expression.multiple;
+
+import java.util.Map;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.math.expression.IExpression;
+import de.invesdwin.util.math.expression.eval.IParsedExpression;
+import de.invesdwin.util.math.expression.eval.function.AFunctionCall;
+import de.invesdwin.util.math.expression.eval.operation.IBinaryOperation;
+import de.invesdwin.util.math.expression.eval.variable.AVariableReference;
+import de.invesdwin.util.math.expression.tokenizer.ExpressionContextUtil;
+import de.invesdwin.util.math.expression.variable.IVariable;
+
+/**
+ * Deduplicates structurally equal subtrees of all expressions that are parsed with the same instance (e.g. the same
+ * sma(close,20) being used in entry, exit and filter rules). Shared nodes memoize their last result per key, so a
+ * subterm is only computed once per key no matter how many expressions reference it.
+ *
+ * All parsers using the same instance should resolve names to the same functions and variables. Because the memo is
+ * shared, the resulting expressions should only be evaluated by a single thread. Functions are expected to return the
+ * same value when evaluated multiple times for the same key, when the newest values change (e.g. a live bar got
+ * updated) invalidate() needs to be called before the same key is evaluated again.
+ */
+@NotThreadSafe
+public class SharedSubexpressions {
+
+    private final Map<String, SharedParsedExpression> key_shared = ILockCollectionFactory.getInstance(false)
+            .newMap();
+    private final Map<IVariable, String> variable_key = ILockCollectionFactory.getInstance(false)
+            .newIdentityMap();
+
+    public IParsedExpression share(final IParsedExpression expression) {
+        if (expression.isConstant() || expression instanceof AVariableReference
+                || expression instanceof SharedParsedExpression) {
+            return expression;
+        }
+        final IParsedExpression rebuilt = shareChildren(expression);
+        final String key = newKey(rebuilt);
+        if (key == null) {
+            return rebuilt;
+        }
+        SharedParsedExpression shared = key_shared.get(key);
+        if (shared == null) {
+            shared = new SharedParsedExpression(key, rebuilt);
+            key_shared.put(key, shared);
+        }
+        return shared;
+    }
+
+    /**
+     * Variables that are defined inside of an expression are identified by their shared definition instead of their
+     * name, so that equal names with different definitions are not mixed up.
+     */
+    public void putVariable(final IVariable variable, final IParsedExpression sharedDefinition) {
+        final String key;
+        if (sharedDefinition instanceof SharedParsedExpression) {
+            key = ((SharedParsedExpression) sharedDefinition).getKey();
+        } else if (sharedDefinition.isConstant()) {
+            key = sharedDefinition.toString();
+        } else {
+            //not shareable, thus references to this variable can not be shared either
+            key = null;
+        }
+        variable_key.put(variable, key);
+    }
+
+    public int size() {
+        return key_shared.size();
+    }
+
+    /**
+     * Forgets the memoized results, so that the next evaluation of the same key computes the value again.
+     */
+    public void invalidate() {
+        for (final SharedParsedExpression shared : key_shared.values()) {
+            shared.invalidate();
+        }
+    }
+
+    public void clear() {
+        key_shared.clear();
+        variable_key.clear();
+    }
+
+    private IParsedExpression shareChildren(final IParsedExpression expression) {
+        if (expression instanceof IBinaryOperation) {
+            final IBinaryOperation operation = (IBinaryOperation) expression;
+            final IParsedExpression left = share(operation.getLeft());
+            final IParsedExpression right = share(operation.getRight());
+            if (left == operation.getLeft() && right == operation.getRight()) {
+                return operation;
+            }
+            final IBinaryOperation rebuilt = operation.setLeft(left).setRight(right);
+            if (operation.isSealed()) {
+                rebuilt.seal();
+            }
+            return rebuilt;
+        } else if (expression instanceof AFunctionCall) {
+            final AFunctionCall<?> call = (AFunctionCall<?>) expression;
+            final IParsedExpression[] parameters = call.getParameters();
+            final IParsedExpression[] sharedParameters = new IParsedExpression[parameters.length];
+            boolean changed = false;
+            for (int i = 0; i < parameters.length; i++) {
+                sharedParameters[i] = share(parameters[i]);
+                changed |= sharedParameters[i] != parameters[i];
+            }
+            if (!changed) {
+                return call;
+            }
+            return call.getFunction().newCall(call.getContext(), sharedParameters);
+        } else {
+            return expression;
+        }
+    }
+
+    /**
+     * Returns null if the expression can not be shared.
+     */
+    private String newKey(final IExpression expression) {
+        if (expression instanceof SharedParsedExpression) {
+            return ((SharedParsedExpression) expression).getKey();
+        } else if (expression instanceof AVariableReference) {
+            final IVariable variable = ((AVariableReference<?>) expression).getVariable();
+            if (variable_key.containsKey(variable)) {
+                return variable_key.get(variable);
+            }
+            return expression.toString();
+        } else if (expression.isConstant()) {
+            return expression.toString();
+        } else if (expression instanceof IBinaryOperation) {
+            final IBinaryOperation operation = (IBinaryOperation) expression;
+            final String left = newKey(operation.getLeft());
+            final String right = newKey(operation.getRight());
+            if (left == null || right == null) {
+                return null;
+            }
+            //different operation classes (e.g. simple crosses above) share the same op but evaluate differently
+            return "(" + left + " " + operation.getClass().getName() + ":" + operation.getOp().name() + " " + right
+                    + ")";
+        } else if (expression instanceof AFunctionCall) {
+            final AFunctionCall<?> call = (AFunctionCall<?>) expression;
+            final StringBuilder sb = new StringBuilder();
+            ExpressionContextUtil.putContext(call.getContext(), sb);
+            sb.append(call.getFunction().getExpressionName());
+            sb.append("(");
+            final IParsedExpression[] parameters = call.getParameters();
+            for (int i = 0; i < parameters.length; i++) {
+                final String parameter = newKey(parameters[i]);
+                if (parameter == null) {
+                    return null;
+                }
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(parameter);
+            }
+            sb.append(")");
+            return sb.toString();
+        } else if (containsDefinedVariable(expression)) {
+            return null;
+        } else {
+            return expression.toString();
+        }
+    }
+
+    private boolean containsDefinedVariable(final IExpression expression) {
+        if (expression instanceof AVariableReference) {
+            return variable_key.containsKey(((AVariableReference<?>) expression).getVariable());
+        }
+        final IExpression[] children = expression.getChildren();
+        for (int i = 0; i < children.length; i++) {
+            if (containsDefinedVariable(children[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,109 @@
+package de.invesdwin.util.math.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Lock-free log-linear histogram in the style of HdrHistogram: each power of two is split into 8 linear sub-buckets,
+ * thus recorded values have a relative error of at most 12.5% while the memory stays constant at about 4KB.
+ */
+@ThreadSafe
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+    private static final int LINEAR_EXPONENT = SUB_BUCKET_BITS + 1;
+    private static final int BUCKETS = LINEAR_BUCKETS + (Long.SIZE - 1 - LINEAR_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(final long value) {
+        final long nonNegativeValue = value < 0 ? 0 : value;
+        buckets.incrementAndGet(bucketIndex(nonNegativeValue));
+        count.increment();
+        total.add(nonNegativeValue);
+        max.accumulate(nonNegativeValue);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getAverage() {
+        final long countSum = count.sum();
+        if (countSum == 0) {
+            return 0D;
+        }
+        return (double) total.sum() / countSum;
+    }
+
+    /**
+     * @param percentile
+     *            between 0 and 100
+     * @return the highest value that is equivalent to the bucket containing the percentile
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long[] counts = new long[BUCKETS];
+        long totalCount = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            totalCount += counts[i];
+        }
+        if (totalCount == 0) {
+            return 0L;
+        }
+        final long countAtPercentile = Math.max(1L, (long) Math.ceil(percentile / 100D * totalCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - LINEAR_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestEquivalentValue(final int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        final int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + LINEAR_EXPONENT;
+        final int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        final long nextLowestEquivalentValue = (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+        return nextLowestEquivalentValue - 1;
+    }
+
+}
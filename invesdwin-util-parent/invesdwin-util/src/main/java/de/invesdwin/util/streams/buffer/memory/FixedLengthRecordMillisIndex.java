@@ -0,0 +1,216 @@
+package de.invesdwin.util.streams.buffer.memory;
+
+import java.nio.ByteOrder;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.error.UnknownArgumentException;
+import de.invesdwin.util.streams.buffer.file.IMemoryMappedFile;
+import de.invesdwin.util.time.date.BisectDuplicateKeyHandling;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDates;
+
+/**
+ * Bisects records of a fixed length that are sorted ascending by a long millis field directly inside an IMemoryBuffer
+ * (e.g. from an IMemoryMappedFile) without deserializing records or allocating FDate instances per probe.
+ *
+ * Optionally every skipInterval'th key is copied into a sparse in-memory skip index, so that only one block of the
+ * buffer is touched during the final bisect. This reduces page faults on large mapped files.
+ *
+ * The semantics are the same as FDates.bisect: the index of the last record with a key less than or equal to the
+ * requested key is returned, the first record if all keys are after the requested key and MISSING_INDEX if there are
+ * no records.
+ */
+@Immutable
+public class FixedLengthRecordMillisIndex {
+
+    public static final int NO_SKIP_INDEX = 0;
+    public static final int DEFAULT_SKIP_INTERVAL = 4096;
+
+    private final IMemoryBuffer buffer;
+    private final int recordLength;
+    private final int millisOffset;
+    private final boolean reverse;
+    private final long size;
+    private final int skipInterval;
+    private final long[] skipKeys;
+
+    public FixedLengthRecordMillisIndex(final IMemoryBuffer buffer, final int recordLength, final int millisOffset) {
+        this(buffer, recordLength, millisOffset, ByteOrder.BIG_ENDIAN, NO_SKIP_INDEX);
+    }
+
+    /**
+     * @param skipInterval
+     *            use NO_SKIP_INDEX to bisect the whole buffer on each request
+     */
+    public FixedLengthRecordMillisIndex(final IMemoryBuffer buffer, final int recordLength, final int millisOffset,
+            final ByteOrder order, final int skipInterval) {
+        if (recordLength < Long.BYTES) {
+            throw new IllegalArgumentException("recordLength [" + recordLength + "] should be at least " + Long.BYTES);
+        }
+        if (millisOffset < 0 || millisOffset > recordLength - Long.BYTES) {
+            throw new IllegalArgumentException(
+                    "millisOffset [" + millisOffset + "] should be between 0 and " + (recordLength - Long.BYTES));
+        }
+        if (skipInterval < 0) {
+            throw new IllegalArgumentException("skipInterval should not be negative: " + skipInterval);
+        }
+        this.buffer = buffer;
+        this.recordLength = recordLength;
+        this.millisOffset = millisOffset;
+        this.reverse = order != buffer.getOrder();
+        this.size = buffer.capacity() / recordLength;
+        this.skipInterval = skipInterval;
+        this.skipKeys = newSkipKeys();
+    }
+
+    private long[] newSkipKeys() {
+        if (skipInterval == NO_SKIP_INDEX || size <= skipInterval) {
+            return null;
+        }
+        final long count = (size + skipInterval - 1) / skipInterval;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("skipInterval [" + skipInterval + "] is too small for [" + size
+                    + "] records, the skip index would exceed the maximum array length");
+        }
+        final long[] keys = new long[(int) count];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = getMillis((long) i * skipInterval);
+        }
+        return keys;
+    }
+
+    public static FixedLengthRecordMillisIndex valueOf(final IMemoryMappedFile file, final int recordLength,
+            final int millisOffset) {
+        return new FixedLengthRecordMillisIndex(file.newMemoryBuffer(0, file.capacity()), recordLength, millisOffset,
+                ByteOrder.BIG_ENDIAN, DEFAULT_SKIP_INTERVAL);
+    }
+
+    public IMemoryBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    public int getMillisOffset() {
+        return millisOffset;
+    }
+
+    public int getSkipInterval() {
+        return skipInterval;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long getMillis(final long recordIndex) {
+        final long index = recordIndex * recordLength + millisOffset;
+        if (reverse) {
+            return buffer.getLongReverse(index);
+        } else {
+            return buffer.getLong(index);
+        }
+    }
+
+    public long getRecordOffset(final long recordIndex) {
+        return recordIndex * recordLength;
+    }
+
+    public long bisect(final FDate skippingKeysAbove, final BisectDuplicateKeyHandling duplicateKeyHandling) {
+        return bisect(skippingKeysAbove.millisValue(), duplicateKeyHandling);
+    }
+
+    public long bisect(final long skippingKeysAbove) {
+        return bisect(skippingKeysAbove, BisectDuplicateKeyHandling.UNDEFINED);
+    }
+
+    public long bisect(final long skippingKeysAbove, final BisectDuplicateKeyHandling duplicateKeyHandling) {
+        if (size == 0) {
+            return FDates.MISSING_INDEX;
+        }
+        final long firstKey = getMillis(0);
+        if (firstKey >= skippingKeysAbove) {
+            return applyDuplicateKeyHandling(0, firstKey, duplicateKeyHandling);
+        }
+        final long lastIndex = size - 1;
+        final long lastKey = getMillis(lastIndex);
+        if (lastKey <= skippingKeysAbove) {
+            return applyDuplicateKeyHandling(lastIndex, lastKey, duplicateKeyHandling);
+        }
+        final long floor = firstIndex(skippingKeysAbove, false) - 1;
+        if (getMillis(floor) == skippingKeysAbove) {
+            return applyDuplicateKeyHandling(floor, skippingKeysAbove, duplicateKeyHandling);
+        }
+        //no duplicate key handling needed because this is the last value before the actual requested key
+        return floor;
+    }
+
+    private long applyDuplicateKeyHandling(final long potentialIndex, final long potentialKey,
+            final BisectDuplicateKeyHandling duplicateKeyHandling) {
+        switch (duplicateKeyHandling) {
+        case LOWEST:
+            return firstIndex(potentialKey, true);
+        case HIGHEST:
+            return firstIndex(potentialKey, false) - 1;
+        case UNDEFINED:
+            return potentialIndex;
+        default:
+            throw UnknownArgumentException.newInstance(BisectDuplicateKeyHandling.class, duplicateKeyHandling);
+        }
+    }
+
+    /**
+     * Returns the first record index with a key after (or equal if inclusive) the given key, or size if there is none.
+     */
+    private long firstIndex(final long key, final boolean inclusive) {
+        long lo = 0;
+        long hi = size;
+        if (skipKeys != null) {
+            final int skipIndex = firstIndex(skipKeys, key, inclusive);
+            if (skipIndex > 0) {
+                //the record of the previous skip key does not match, so the result has to be after it
+                lo = (long) (skipIndex - 1) * skipInterval + 1;
+            }
+            if (skipIndex < skipKeys.length) {
+                hi = (long) skipIndex * skipInterval;
+            }
+        }
+        while (lo < hi) {
+            // same as (low+high)/2
+            final long mid = (lo + hi) >>> 1;
+            if (matches(getMillis(mid), key, inclusive)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private static int firstIndex(final long[] keys, final long key, final boolean inclusive) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            // same as (low+high)/2
+            final int mid = (lo + hi) >>> 1;
+            if (matches(keys[mid], key, inclusive)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private static boolean matches(final long millis, final long key, final boolean inclusive) {
+        if (inclusive) {
+            return millis >= key;
+        } else {
+            return millis > key;
+        }
+    }
+
+}
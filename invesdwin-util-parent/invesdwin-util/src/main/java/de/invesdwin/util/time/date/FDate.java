@@ -31,6 +31,7 @@ import de.invesdwin.util.math.decimal.scaled.Percent;
 import de.invesdwin.util.time.date.format.FDateTimeFormatter;
 import de.invesdwin.util.time.date.format.FDateTimeFormatters;
 import de.invesdwin.util.time.date.holiday.IHolidayManager;
+import de.invesdwin.util.time.date.holiday.provider.custom.CompiledHolidayManager;
 import de.invesdwin.util.time.date.millis.FDateMillis;
 import de.invesdwin.util.time.date.millis.FDatePicos;
 import de.invesdwin.util.time.date.millis.WeekAdjustment;
@@ -1447,6 +1448,10 @@ public class FDate extends Number implements IDate, Serializable, Cloneable, Com
         if (holidayManager == null) {
             return this;
         }
+        if (holidayManager instanceof CompiledHolidayManager) {
+            final CompiledHolidayManager cHolidayManager = (CompiledHolidayManager) holidayManager;
+            return cHolidayManager.getNextNonHoliday(this);
+        }
         FDate day = this.withoutTime();
         while (holidayManager.isHoliday(day)) {
             day = day.addDays(1);
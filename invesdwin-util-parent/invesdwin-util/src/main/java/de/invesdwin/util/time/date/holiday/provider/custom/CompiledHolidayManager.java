@@ -0,0 +1,251 @@
+package de.invesdwin.util.time.date.holiday.provider.custom;
+
+import java.util.Map;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.collections.array.primitive.ILongPrimitiveArray;
+import de.invesdwin.util.collections.array.primitive.bitset.LongArrayPrimitiveBitSetBase;
+import de.invesdwin.util.collections.factory.ILockCollectionFactory;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+import de.invesdwin.util.time.date.FDates;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.date.holiday.IHolidayManager;
+import de.invesdwin.util.time.date.millis.FDateMillis;
+import de.invesdwin.util.time.date.timezone.FTimeZone;
+
+/**
+ * Materializes the holidays of the delegate for a range of years into a bitset with one bit per day. isHoliday then
+ * only needs one index computation, next/previous workday are answered by scanning the bitset words and the workdays
+ * between two dates are counted with prefix sums over the words. Days outside of the year range are answered by the
+ * delegate.
+ *
+ * Days are bounded in FDates.getDefaultTimeZone() at the time of compilation, just like FDate.withoutTime() and the
+ * delegates do. When the default timezone is changed afterwards, all requests are answered by the delegate.
+ *
+ * The jollyday and strata providers as well as the Xetra and Eurex futures calendars of CustomHolidayManagerProvider
+ * hand out compiled instances, thus HolidayManagers.getInstance(...) and HolidayManagers.XETRA are compiled.
+ */
+@Immutable
+public class CompiledHolidayManager implements IHolidayManager {
+
+    public static final int DEFAULT_FROM_YEAR = 1970;
+    public static final int DEFAULT_TO_YEAR = 2070;
+
+    private static final int BITS_PER_WORD = Long.SIZE;
+    private static final Map<String, CompiledHolidayManager> CALENDARID_COMPILED = ILockCollectionFactory
+            .getInstance(true)
+            .newConcurrentMap();
+
+    private final IHolidayManager delegate;
+    private final FTimeZone timeZone;
+    private final int fromYear;
+    private final int toYear;
+    private final long fromEpochDay;
+    private final int days;
+    private final LongArrayPrimitiveBitSetBase holidays;
+    private final ILongPrimitiveArray words;
+    /**
+     * number of holidays in all words before the given word index
+     */
+    private final int[] holidaysBeforeWord;
+
+    public CompiledHolidayManager(final IHolidayManager delegate) {
+        this(delegate, DEFAULT_FROM_YEAR, DEFAULT_TO_YEAR);
+    }
+
+    public CompiledHolidayManager(final IHolidayManager delegate, final int fromYear, final int toYear) {
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException(
+                    "fromYear [" + fromYear + "] should not be after toYear [" + toYear + "]");
+        }
+        this.delegate = delegate;
+        this.timeZone = FDates.getDefaultTimeZone();
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.fromEpochDay = toEpochDay(FDateBuilder.newDate(fromYear).millisValue());
+        final long toEpochDayExclusive = toEpochDay(FDateBuilder.newDate(toYear + 1).millisValue());
+        this.days = (int) (toEpochDayExclusive - fromEpochDay);
+        this.holidays = new LongArrayPrimitiveBitSetBase(days);
+        for (int i = 0; i < days; i++) {
+            if (delegate.isHoliday(fromIndex(i))) {
+                holidays.set(i);
+            }
+        }
+        this.words = holidays.getWords();
+        this.holidaysBeforeWord = new int[words.size() + 1];
+        for (int i = 0; i < words.size(); i++) {
+            holidaysBeforeWord[i + 1] = holidaysBeforeWord[i] + Long.bitCount(words.get(i));
+        }
+    }
+
+    public IHolidayManager getDelegate() {
+        return delegate;
+    }
+
+    public int getFromYear() {
+        return fromYear;
+    }
+
+    public int getToYear() {
+        return toYear;
+    }
+
+    public FTimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /**
+     * The bitset is only valid as long as the default timezone was not changed since compilation.
+     */
+    public boolean isDefaultTimeZone() {
+        final FTimeZone defaultTimeZone = FDates.getDefaultTimeZone();
+        return defaultTimeZone == timeZone || timeZone.equals(defaultTimeZone);
+    }
+
+    @Override
+    public boolean isHoliday(final long millis) {
+        final long index = toEpochDay(millis) - fromEpochDay;
+        if (index < 0 || index >= days || !isDefaultTimeZone()) {
+            return delegate.isHoliday(millis);
+        }
+        return holidays.get((int) index);
+    }
+
+    @Override
+    public boolean isHoliday(final FDate date) {
+        final long index = toEpochDay(date.millisValue()) - fromEpochDay;
+        if (index < 0 || index >= days || !isDefaultTimeZone()) {
+            return delegate.isHoliday(date);
+        }
+        return holidays.get((int) index);
+    }
+
+    /**
+     * Returns the start of the given day if it is not a holiday, otherwise the start of the next day that is not a
+     * holiday. Same as FDate.getNextNonHoliday(holidayManager).
+     */
+    public FDate getNextNonHoliday(final FDate date) {
+        final FDate withoutTime = date.withoutTime();
+        final long index = toEpochDay(withoutTime.millisValue()) - fromEpochDay;
+        if (index >= 0 && index < days && isDefaultTimeZone()) {
+            final int next = holidays.nextClearBit((int) index);
+            if (next < days) {
+                //same day boundaries as the uncompiled loop
+                return withoutTime.addDays(next - index);
+            }
+        }
+        FDate day = withoutTime;
+        while (isHoliday(day)) {
+            day = day.addDays(1);
+        }
+        return day;
+    }
+
+    /**
+     * Returns the start of the given day if it is not a holiday, otherwise the start of the previous day that is not a
+     * holiday.
+     */
+    public FDate getPreviousNonHoliday(final FDate date) {
+        final FDate withoutTime = date.withoutTime();
+        final long index = toEpochDay(withoutTime.millisValue()) - fromEpochDay;
+        if (index >= 0 && index < days && isDefaultTimeZone()) {
+            final int previous = holidays.previousClearBit((int) index);
+            if (previous >= 0) {
+                return withoutTime.addDays(previous - index);
+            }
+        }
+        FDate day = withoutTime;
+        while (isHoliday(day)) {
+            day = day.addDays(-1);
+        }
+        return day;
+    }
+
+    /**
+     * Counts the days that are not holidays between the two dates, both days are included.
+     */
+    public int countNonHolidays(final FDate fromInclusive, final FDate toInclusive) {
+        final FDate fromWithoutTime = fromInclusive.withoutTime();
+        final long fromIndex = toEpochDay(fromWithoutTime.millisValue()) - fromEpochDay;
+        final long toIndex = toEpochDay(toInclusive.millisValue()) - fromEpochDay;
+        if (fromIndex > toIndex) {
+            return 0;
+        }
+        if (fromIndex >= 0 && toIndex < days && isDefaultTimeZone()) {
+            final int daysBetween = (int) (toIndex - fromIndex + 1);
+            return daysBetween - (holidaysBefore((int) toIndex + 1) - holidaysBefore((int) fromIndex));
+        }
+        int count = 0;
+        FDate day = fromWithoutTime;
+        for (long i = fromIndex; i <= toIndex; i++) {
+            if (!isHoliday(day)) {
+                count++;
+            }
+            day = day.addDays(1);
+        }
+        return count;
+    }
+
+    private int holidaysBefore(final int index) {
+        final int wordIndex = LongArrayPrimitiveBitSetBase.wordIndex(index);
+        final int bitsInWord = index % BITS_PER_WORD;
+        if (bitsInWord == 0) {
+            return holidaysBeforeWord[wordIndex];
+        }
+        final long mask = (1L << bitsInWord) - 1;
+        return holidaysBeforeWord[wordIndex] + Long.bitCount(words.get(wordIndex) & mask);
+    }
+
+    /**
+     * Start of the day in the timezone, this matches FDate.withoutTime() for any time of that day.
+     */
+    private FDate fromIndex(final int index) {
+        final long dayMillis = (fromEpochDay + index) * FTimeUnit.MILLISECONDS_IN_DAY;
+        return new FDate(FDateMillis.revertTimeZoneOffset(dayMillis, timeZone.getOffsetMilliseconds(dayMillis)));
+    }
+
+    /**
+     * Day of the date in the timezone, thus the same day the delegate sees via the date fields of FDate.
+     */
+    private long toEpochDay(final long millis) {
+        if (timeZone.isUTC()) {
+            return Math.floorDiv(millis, FTimeUnit.MILLISECONDS_IN_DAY);
+        }
+        final long localMillis = FDateMillis.applyTimeZoneOffset(millis, timeZone.getOffsetMilliseconds(millis));
+        return Math.floorDiv(localMillis, FTimeUnit.MILLISECONDS_IN_DAY);
+    }
+
+    @Override
+    public String getHolidayCalendarId() {
+        return delegate.getHolidayCalendarId();
+    }
+
+    @Override
+    public String toString() {
+        return getHolidayCalendarId();
+    }
+
+    /**
+     * Compiled instances are cached per calendar id, they get recompiled when the default timezone was changed.
+     */
+    public static CompiledHolidayManager maybeWrap(final IHolidayManager holidayManager) {
+        if (holidayManager == null) {
+            return null;
+        }
+        if (holidayManager instanceof CompiledHolidayManager) {
+            return (CompiledHolidayManager) holidayManager;
+        }
+        final String holidayCalendarId = holidayManager.getHolidayCalendarId();
+        final CompiledHolidayManager existing = CALENDARID_COMPILED.get(holidayCalendarId);
+        if (existing != null && existing.getDelegate() == holidayManager && existing.isDefaultTimeZone()) {
+            return existing;
+        }
+        //concurrent compilation of the same calendar is harmless, the last one wins
+        final CompiledHolidayManager compiled = new CompiledHolidayManager(holidayManager);
+        CALENDARID_COMPILED.put(holidayCalendarId, compiled);
+        return compiled;
+    }
+
+}
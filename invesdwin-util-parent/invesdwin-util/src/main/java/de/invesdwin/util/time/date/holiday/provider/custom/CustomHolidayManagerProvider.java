@@ -38,10 +38,11 @@ public final class CustomHolidayManagerProvider implements IHolidayManagerProvid
         registerHolidayManager(MonthlyExpirationSecondFridayHolidayManager.INSTANCE);
         registerHolidayManager(NewYearsEveHolidayManager.INSTANCE);
         registerHolidayManager(WeekendHolidayManager.INSTANCE);
-        registerHolidayManager(XetraFuturesHolidayManager.INSTANCE);
-        registerHolidayManager(XetraFuturesWithRolloversHolidayManager.INSTANCE);
-        registerHolidayManager(EurexFuturesHolidayManager.INSTANCE);
-        registerHolidayManager(EurexFuturesWithRolloversHolidayManager.INSTANCE);
+        //session and rollover logic queries these the most
+        registerHolidayManager(CompiledHolidayManager.maybeWrap(XetraFuturesHolidayManager.INSTANCE));
+        registerHolidayManager(CompiledHolidayManager.maybeWrap(XetraFuturesWithRolloversHolidayManager.INSTANCE));
+        registerHolidayManager(CompiledHolidayManager.maybeWrap(EurexFuturesHolidayManager.INSTANCE));
+        registerHolidayManager(CompiledHolidayManager.maybeWrap(EurexFuturesWithRolloversHolidayManager.INSTANCE));
         registerHolidayManager(DisabledHolidayManager.INSTANCE);
     }
 
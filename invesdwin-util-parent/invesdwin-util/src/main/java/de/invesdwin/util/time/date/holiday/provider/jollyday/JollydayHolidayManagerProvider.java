@@ -21,6 +21,7 @@ import de.invesdwin.util.lang.string.Strings;
 import de.invesdwin.util.time.date.holiday.IHolidayManager;
 import de.invesdwin.util.time.date.holiday.provider.IHolidayManagerProvider;
 import de.invesdwin.util.time.date.holiday.provider.custom.CachingHolidayManager;
+import de.invesdwin.util.time.date.holiday.provider.custom.CompiledHolidayManager;
 
 @Immutable
 public final class JollydayHolidayManagerProvider implements IHolidayManagerProvider {
@@ -56,7 +57,8 @@ public final class JollydayHolidayManagerProvider implements IHolidayManagerProv
             @Override
             protected Optional<IHolidayManager> loadValue(final String key) {
                 try {
-                    return Optional.of(new CachingHolidayManager(new JollydayHolidayManager(key)));
+                    final IHolidayManager caching = new CachingHolidayManager(new JollydayHolidayManager(key));
+                    return Optional.of(CompiledHolidayManager.maybeWrap(caching));
                 } catch (final Throwable t) {
                     return Optional.empty();
                 }
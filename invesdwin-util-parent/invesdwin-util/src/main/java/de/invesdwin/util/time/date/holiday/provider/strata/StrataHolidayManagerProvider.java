@@ -14,6 +14,7 @@ import de.invesdwin.util.lang.string.Strings;
 import de.invesdwin.util.time.date.holiday.IHolidayManager;
 import de.invesdwin.util.time.date.holiday.provider.IHolidayManagerProvider;
 import de.invesdwin.util.time.date.holiday.provider.custom.CachingHolidayManager;
+import de.invesdwin.util.time.date.holiday.provider.custom.CompiledHolidayManager;
 
 @Immutable
 public final class StrataHolidayManagerProvider implements IHolidayManagerProvider {
@@ -24,7 +25,8 @@ public final class StrataHolidayManagerProvider implements IHolidayManagerProvid
         @Override
         protected Optional<IHolidayManager> loadValue(final String key) {
             try {
-                return Optional.of(new CachingHolidayManager(new StrataHolidayManager(key)));
+                final IHolidayManager caching = new CachingHolidayManager(new StrataHolidayManager(key));
+                return Optional.of(CompiledHolidayManager.maybeWrap(caching));
             } catch (final Throwable t) {
                 return Optional.empty();
             }
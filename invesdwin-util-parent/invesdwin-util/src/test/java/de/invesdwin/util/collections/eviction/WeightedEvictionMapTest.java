@@ -0,0 +1,131 @@
+package de.invesdwin.util.collections.eviction;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.loadingcache.ALoadingCache;
+import de.invesdwin.util.collections.loadingcache.ALoadingCacheConfig;
+import de.invesdwin.util.concurrent.pool.MemoryBudget;
+
+@NotThreadSafe
+public class WeightedEvictionMapTest {
+
+    private static final IWeigher<String, byte[]> WEIGHER = (key, value) -> value.length;
+
+    @Test
+    public void testMaximumWeight() {
+        final WeightedEvictionMap<String, byte[]> map = new WeightedEvictionMap<>(Integer.MAX_VALUE, 100, WEIGHER);
+        map.put("1", new byte[40]);
+        map.put("2", new byte[40]);
+        Assertions.assertThat(map).hasSize(2);
+        Assertions.assertThat(map.getWeight()).isEqualTo(80);
+        map.get("1");
+        map.put("3", new byte[40]);
+        //least recently used is removed
+        Assertions.assertThat(map).hasSize(2);
+        Assertions.assertThat(map.get("2")).isNull();
+        Assertions.assertThat(map.getWeight()).isEqualTo(80);
+        map.put("1", new byte[10]);
+        Assertions.assertThat(map.getWeight()).isEqualTo(50);
+        //heavier than the maximum weight, thus not cached at all
+        map.put("4", new byte[101]);
+        Assertions.assertThat(map).isEmpty();
+        Assertions.assertThat(map.getWeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMaximumSize() {
+        final WeightedEvictionMap<String, byte[]> map = new WeightedEvictionMap<>(2, Long.MAX_VALUE, WEIGHER);
+        map.put("1", new byte[1]);
+        map.put("2", new byte[1]);
+        map.put("3", new byte[1]);
+        Assertions.assertThat(map).hasSize(2);
+        Assertions.assertThat(map.containsKey("1")).isFalse();
+        map.setMaximumSize(1);
+        Assertions.assertThat(map).hasSize(1);
+        Assertions.assertThat(map.getWeight()).isEqualTo(1);
+        map.remove("3");
+        Assertions.assertThat(map.getWeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMemoryBudgetEvictsColdestFirst() {
+        final WeightedEvictionMap<String, byte[]> cold = new WeightedEvictionMap<>(Integer.MAX_VALUE, Long.MAX_VALUE,
+                WEIGHER);
+        final WeightedEvictionMap<String, byte[]> hot = new WeightedEvictionMap<>(Integer.MAX_VALUE, Long.MAX_VALUE,
+                WEIGHER);
+        final long previousMaximumWeight = MemoryBudget.getMaximumWeight();
+        try {
+            cold.put("1", new byte[60]);
+            MemoryBudget.setMaximumWeight(MemoryBudget.getWeight() + 40);
+            hot.put("1", new byte[30]);
+            Assertions.assertThat(cold).hasSize(1);
+            hot.put("2", new byte[30]);
+            Assertions.assertThat(cold).isEmpty();
+            Assertions.assertThat(hot).hasSize(2);
+        } finally {
+            MemoryBudget.setMaximumWeight(previousMaximumWeight);
+            cold.clear();
+            hot.clear();
+        }
+    }
+
+    @Test
+    public void testMemoryBudgetCountsWeightOnceWhenEnabled() {
+        final WeightedEvictionMap<String, byte[]> map = new WeightedEvictionMap<>(Integer.MAX_VALUE, Long.MAX_VALUE,
+                WEIGHER);
+        final long previousMaximumWeight = MemoryBudget.getMaximumWeight();
+        try {
+            final long weightBefore = MemoryBudget.getWeight();
+            map.put("1", new byte[60]);
+            Assertions.assertThat(MemoryBudget.getWeight()).isEqualTo(weightBefore + 60);
+            MemoryBudget.setMaximumWeight(Long.MAX_VALUE - 1);
+            Assertions.assertThat(MemoryBudget.getWeight()).isEqualTo(weightBefore + 60);
+            map.put("2", new byte[30]);
+            map.remove("1");
+            Assertions.assertThat(MemoryBudget.getWeight()).isEqualTo(weightBefore + 30);
+            MemoryBudget.unregister(map);
+            Assertions.assertThat(MemoryBudget.getWeight()).isEqualTo(weightBefore);
+        } finally {
+            MemoryBudget.setMaximumWeight(previousMaximumWeight);
+        }
+    }
+
+    @Test
+    public void testLoadingCacheConfigRejectsOtherEvictionModes() {
+        final ALoadingCacheConfig<Integer, byte[]> config = new ALoadingCacheConfig<Integer, byte[]>() {
+            @Override
+            protected byte[] loadValue(final Integer key) {
+                return new byte[key];
+            }
+        };
+        config.setWeigherOverride((key, value) -> value.length);
+        config.setEvictionModeOverride(EvictionMode.LeastRecentlyAdded);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.newInstance());
+    }
+
+    @Test
+    public void testLoadingCacheConfig() {
+        final ALoadingCacheConfig<Integer, byte[]> config = new ALoadingCacheConfig<Integer, byte[]>() {
+            @Override
+            protected byte[] loadValue(final Integer key) {
+                return new byte[key];
+            }
+        };
+        config.setWeigherOverride((key, value) -> value.length);
+        config.setMaximumWeightOverride(30);
+        final ALoadingCache<Integer, byte[]> cache = config.newInstance();
+        for (int i = 1; i <= 10; i++) {
+            Assertions.assertThat(cache.get(i)).hasSize(i);
+        }
+        //10+9+8 = 27, so only the three most recent entries stay
+        Assertions.assertThat(cache.size()).isEqualTo(3);
+        Assertions.assertThat(cache.containsKey(8)).isTrue();
+        Assertions.assertThat(cache.containsKey(7)).isFalse();
+        //leave no weight behind for the memory budget test
+        cache.clear();
+    }
+
+}
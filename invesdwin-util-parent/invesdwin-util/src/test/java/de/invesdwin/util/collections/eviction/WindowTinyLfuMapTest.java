@@ -0,0 +1,98 @@
+package de.invesdwin.util.collections.eviction;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+
+@NotThreadSafe
+public class WindowTinyLfuMapTest {
+
+    private static final int MAXIMUM_SIZE = 100;
+    private static final int HOT_KEYS = MAXIMUM_SIZE / 2;
+    private static final int SCAN_KEYS = MAXIMUM_SIZE * 3;
+
+    @Test
+    public void testMaximumSize() {
+        final WindowTinyLfuMap<Integer, Integer> map = new WindowTinyLfuMap<>(3);
+        map.put(1, 1);
+        map.put(2, 2);
+        map.put(3, 3);
+        Assertions.assertThat(map).hasSize(3);
+        map.put(4, 4);
+        Assertions.assertThat(map).hasSize(3);
+        map.put(4, 4);
+        Assertions.assertThat(map).hasSize(3);
+        Assertions.assertThat(map.remove(4)).isEqualTo(4);
+        Assertions.assertThat(map).hasSize(2);
+        map.setMaximumSize(1);
+        Assertions.assertThat(map).hasSize(1);
+        map.clear();
+        Assertions.assertThat(map).isEmpty();
+    }
+
+    @Test
+    public void testSampleSizeDoesNotOverflow() {
+        Assertions.assertThat(WindowTinyLfuMap.newSampleSize(0)).isEqualTo(10);
+        Assertions.assertThat(WindowTinyLfuMap.newSampleSize(MAXIMUM_SIZE)).isEqualTo(MAXIMUM_SIZE * 10);
+        Assertions.assertThat(WindowTinyLfuMap.newSampleSize(Integer.MAX_VALUE / 10 + 1)).isEqualTo(Integer.MAX_VALUE);
+        Assertions.assertThat(WindowTinyLfuMap.newSampleSize(Integer.MAX_VALUE)).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testScanDoesNotEvictFrequentlyUsed() {
+        final WindowTinyLfuMap<Integer, Integer> map = new WindowTinyLfuMap<>(MAXIMUM_SIZE);
+        final CommonsLeastRecentlyUsedMap<Integer, Integer> lru = new CommonsLeastRecentlyUsedMap<>(MAXIMUM_SIZE);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < HOT_KEYS; i++) {
+                getOrPut(map, i);
+                getOrPut(lru, i);
+            }
+        }
+        for (int i = 0; i < SCAN_KEYS; i++) {
+            final int key = HOT_KEYS + i;
+            getOrPut(map, key);
+            getOrPut(lru, key);
+            Assertions.assertThat(map.size()).isLessThanOrEqualTo(MAXIMUM_SIZE);
+        }
+        Assertions.assertThat(map).hasSize(MAXIMUM_SIZE);
+        for (int i = 0; i < HOT_KEYS; i++) {
+            Assertions.assertThat(map.containsKey(i)).isTrue();
+            Assertions.assertThat(lru.containsKey(i)).isFalse();
+        }
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        final WindowTinyLfuMap<Integer, Integer> map = new WindowTinyLfuMap<>(MAXIMUM_SIZE);
+        for (int i = 0; i < MAXIMUM_SIZE * 2; i++) {
+            getOrPut(map, i);
+        }
+        final Iterator<Entry<Integer, Integer>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Entry<Integer, Integer> next = iterator.next();
+            if (next.getKey() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        for (final Integer key : map.keySet()) {
+            Assertions.assertThat(key % 2).isEqualTo(1);
+        }
+        //the queues still work after removing entries through the iterator
+        for (int i = 0; i < MAXIMUM_SIZE * 2; i++) {
+            getOrPut(map, i);
+            Assertions.assertThat(map.size()).isLessThanOrEqualTo(MAXIMUM_SIZE);
+        }
+    }
+
+    private static void getOrPut(final IEvictionMap<Integer, Integer> map, final int key) {
+        if (map.get(key) == null) {
+            map.put(key, key);
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package de.invesdwin.util.collections.iterable.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpscArrayQueue;
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.iterable.ACloseableIterator;
+import de.invesdwin.util.collections.iterable.ICloseableIterator;
+import de.invesdwin.util.collections.iterable.WrapperCloseableIterable;
+import de.invesdwin.util.collections.list.Lists;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+import de.invesdwin.util.concurrent.future.Futures;
+import de.invesdwin.util.lang.string.description.TextDescription;
+
+@NotThreadSafe
+public class AGenericProducerLockFreeQueueIteratorTest {
+
+    private static final int COUNT = 1000;
+    private static final int SMALL_QUEUE_SIZE = 4;
+
+    private List<Integer> newElements() {
+        final List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            elements.add(i);
+        }
+        return elements;
+    }
+
+    @Test
+    public void testOrderIsPreserved() {
+        for (final ProducerQueueWaitStrategy waitStrategy : ProducerQueueWaitStrategy.values()) {
+            //a small queue lets producer and consumer wait for each other
+            final AProducerLockFreeQueueIterator<Integer> iterator = new AProducerLockFreeQueueIterator<Integer>(
+                    "testOrderIsPreserved_" + waitStrategy, SMALL_QUEUE_SIZE, waitStrategy) {
+                @Override
+                protected ICloseableIterator<Integer> newProducer() {
+                    return WrapperCloseableIterable.maybeWrap(newElements()).iterator();
+                }
+            };
+            final List<Integer> results = Lists.toListWithoutHasNext(iterator);
+            Assertions.checkEquals(newElements(), results);
+        }
+    }
+
+    @Test
+    public void testProducerErrorIsPropagated() {
+        final AProducerLockFreeQueueIterator<Integer> iterator = new AProducerLockFreeQueueIterator<Integer>(
+                "testProducerErrorIsPropagated", SMALL_QUEUE_SIZE) {
+            @Override
+            protected ICloseableIterator<Integer> newProducer() {
+                return new ACloseableIterator<Integer>(new TextDescription("testProducerErrorIsPropagated")) {
+                    private int next;
+
+                    @Override
+                    protected boolean innerHasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    protected Integer innerNext() {
+                        if (next == COUNT / 2) {
+                            throw new IllegalStateException("expected");
+                        }
+                        return next++;
+                    }
+
+                    @Override
+                    protected void innerClose() {}
+                };
+            }
+        };
+        int count = 0;
+        try (ICloseableIterator<Integer> it = iterator) {
+            while (it.hasNext()) {
+                Assertions.checkEquals(count, it.next());
+                count++;
+            }
+            Assertions.failExceptionExpected();
+        } catch (final RuntimeException e) {
+            Assertions.checkTrue(e.getCause() instanceof IllegalStateException);
+            Assertions.checkTrue(count <= COUNT / 2);
+        }
+    }
+
+    @Test
+    public void testCloseReleasesBlockedProducer() throws InterruptedException {
+        final CountDownLatch producerClosed = new CountDownLatch(1);
+        final AProducerLockFreeQueueIterator<Integer> iterator = new AProducerLockFreeQueueIterator<Integer>(
+                "testCloseReleasesBlockedProducer", 1, ProducerQueueWaitStrategy.PARK) {
+            @Override
+            protected ICloseableIterator<Integer> newProducer() {
+                //never ends on its own
+                return new ACloseableIterator<Integer>(new TextDescription("testCloseReleasesBlockedProducer")) {
+                    private int next;
+
+                    @Override
+                    protected boolean innerHasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    protected Integer innerNext() {
+                        return next++;
+                    }
+
+                    @Override
+                    protected void innerClose() {
+                        producerClosed.countDown();
+                    }
+                };
+            }
+        };
+        Assertions.checkEquals(0, iterator.next());
+        //the producer fills the queue of size 1 and blocks on the next element
+        Assertions.checkFalse(producerClosed.await(10, TimeUnit.MILLISECONDS));
+        iterator.close();
+        Assertions.checkTrue(producerClosed.await(10, TimeUnit.SECONDS));
+        Assertions.checkFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testMultipleProducersWithMpscQueue() {
+        final int producers = 4;
+        final AGenericProducerLockFreeQueueIterator<Integer> iterator;
+        iterator = new AGenericProducerLockFreeQueueIterator<Integer>("testMultipleProducersWithMpscQueue",
+                SMALL_QUEUE_SIZE) {
+            @Override
+            protected MessagePassingQueue<Integer> newQueue(final int queueSize) {
+                return new MpscArrayQueue<Integer>(queueSize);
+            }
+
+            @Override
+            protected void internalProduce(final Consumer<Integer> consumer) {
+                final WrappedExecutorService executor = Executors
+                        .newFixedThreadPool("testMultipleProducersWithMpscQueue_producer", producers);
+                try {
+                    final List<Future<?>> futures = new ArrayList<>();
+                    for (int p = 0; p < producers; p++) {
+                        final int offset = p * COUNT;
+                        futures.add(executor.submit(() -> {
+                            for (int i = 0; i < COUNT; i++) {
+                                consumer.accept(offset + i);
+                            }
+                        }));
+                    }
+                    Futures.waitPropagatingNoInterrupt(futures);
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            @Override
+            protected void internalCloseProducer() {}
+        };
+        iterator.start();
+        final List<Integer> results = Lists.toListWithoutHasNext(iterator);
+        Assertions.checkEquals(producers * COUNT, results.size());
+        final int[] lastPerProducer = new int[producers];
+        Arrays.fill(lastPerProducer, -1);
+        for (final Integer result : results) {
+            final int producer = result / COUNT;
+            final int index = result % COUNT;
+            //each producer is a single writer, thus its elements stay in order
+            Assertions.checkEquals(lastPerProducer[producer] + 1, index);
+            lastPerProducer[producer] = index;
+        }
+        for (int p = 0; p < producers; p++) {
+            Assertions.checkEquals(COUNT - 1, lastPerProducer[p]);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package de.invesdwin.util.collections.iterable.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.iterable.ICloseableIterator;
+import de.invesdwin.util.collections.iterable.WrapperCloseableIterable;
+import de.invesdwin.util.collections.list.Lists;
+import de.invesdwin.util.time.date.FTimeUnit;
+
+@NotThreadSafe
+public class AParallelMapIterableTest {
+
+    private static final int COUNT = 100;
+
+    private List<Integer> newRequests() {
+        final List<Integer> requests = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            requests.add(i);
+        }
+        return requests;
+    }
+
+    @Test
+    public void testOrderIsPreserved() {
+        final AParallelMapIterable<Integer, Integer> iterable = new AParallelMapIterable<Integer, Integer>(
+                "testOrderIsPreserved", WrapperCloseableIterable.maybeWrap(newRequests()), 4) {
+            @Override
+            protected Integer doWork(final Integer request) {
+                //earlier requests finish later
+                if (request % 10 == 0) {
+                    try {
+                        FTimeUnit.MILLISECONDS.sleep(10);
+                    } catch (final InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return request * 2;
+            }
+        };
+        final List<Integer> results = Lists.toListWithoutHasNext(iterable);
+        Assertions.checkEquals(COUNT, results.size());
+        for (int i = 0; i < COUNT; i++) {
+            Assertions.checkEquals(i * 2, results.get(i));
+        }
+    }
+
+    @Test
+    public void testBufferedWeightLimit() {
+        final AParallelMapIterable<Integer, Integer> iterable = new AParallelMapIterable<Integer, Integer>(
+                "testBufferedWeightLimit", WrapperCloseableIterable.maybeWrap(newRequests()), 8, 1, null) {
+            @Override
+            protected Integer doWork(final Integer request) {
+                return request;
+            }
+
+            @Override
+            protected long getWeight(final Integer result) {
+                return 1L;
+            }
+        };
+        final List<Integer> results = Lists.toListWithoutHasNext(iterable);
+        Assertions.checkEquals(newRequests(), results);
+    }
+
+    @Test
+    public void testErrorIsPropagated() {
+        final AParallelMapIterable<Integer, Integer> iterable = new AParallelMapIterable<Integer, Integer>(
+                "testErrorIsPropagated", WrapperCloseableIterable.maybeWrap(newRequests()), 4) {
+            @Override
+            protected Integer doWork(final Integer request) {
+                if (request == COUNT / 2) {
+                    throw new IllegalStateException("expected");
+                }
+                return request;
+            }
+        };
+        int count = 0;
+        try (ICloseableIterator<Integer> it = iterable.iterator()) {
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            Assertions.failExceptionExpected();
+        } catch (final RuntimeException e) {
+            Assertions.checkEquals(COUNT / 2, count);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package de.invesdwin.util.collections.loadingcache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.loadingcache.stats.CacheStatsSnapshot;
+import de.invesdwin.util.collections.loadingcache.stats.LoadingCacheStats;
+
+@NotThreadSafe
+public class ALoadingCacheTest {
+
+    @Test
+    public void testGetAllSplitsMissesIntoBatches() {
+        final List<List<Integer>> batches = new ArrayList<>();
+        final ALoadingCacheConfig<Integer, Integer> config = new ALoadingCacheConfig<Integer, Integer>() {
+            @Override
+            protected Integer loadValue(final Integer key) {
+                throw new UnsupportedOperationException("should load in batches");
+            }
+
+            @Override
+            protected Map<Integer, Integer> loadValues(final Collection<Integer> keys) {
+                batches.add(new ArrayList<>(keys));
+                final Map<Integer, Integer> values = new HashMap<>();
+                for (final Integer key : keys) {
+                    values.put(key, key * 10);
+                }
+                return values;
+            }
+        };
+        config.setMaximumBatchSizeOverride(2);
+        final ALoadingCache<Integer, Integer> cache = config.newInstance();
+        final Map<Integer, Integer> values = cache.getAll(Arrays.asList(5, 4, 3, 2, 1));
+        Assertions.assertThat(new ArrayList<>(values.keySet())).containsExactly(5, 4, 3, 2, 1);
+        Assertions.assertThat(new ArrayList<>(values.values())).containsExactly(50, 40, 30, 20, 10);
+        Assertions.assertThat(batches).hasSize(3);
+        Assertions.assertThat(batches.get(0)).containsExactly(5, 4);
+        Assertions.assertThat(batches.get(1)).containsExactly(3, 2);
+        Assertions.assertThat(batches.get(2)).containsExactly(1);
+        Assertions.assertThat(cache.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void testGetAllPartialFailure() {
+        final List<Integer> loadedOneByOne = new ArrayList<>();
+        final ALoadingCacheConfig<Integer, Integer> config = new ALoadingCacheConfig<Integer, Integer>() {
+            @Override
+            protected Integer loadValue(final Integer key) {
+                loadedOneByOne.add(key);
+                if (key % 2 == 0) {
+                    throw new IllegalStateException("failing key: " + key);
+                }
+                return key * 10;
+            }
+
+            @Override
+            protected Map<Integer, Integer> loadValues(final Collection<Integer> keys) {
+                throw new IllegalStateException("batch failed");
+            }
+        };
+        final ALoadingCache<Integer, Integer> cache = config.newInstance();
+        try {
+            cache.getAll(Arrays.asList(1, 2, 3, 4));
+            Assertions.failExceptionExpected();
+        } catch (final IllegalStateException e) {
+            Assertions.assertThat(e.getMessage()).isEqualTo("failing key: 2");
+            Assertions.assertThat(e.getSuppressed()).hasSize(1);
+        }
+        Assertions.assertThat(loadedOneByOne).containsExactly(1, 2, 3, 4);
+        //the keys that did not fail stay cached
+        Assertions.assertThat(cache.getIfPresent(1)).isEqualTo(10);
+        Assertions.assertThat(cache.getIfPresent(3)).isEqualTo(30);
+        Assertions.assertThat(cache.containsKey(2)).isFalse();
+    }
+
+    @Test
+    public void testGetAllSinglePassIterableWithStats() {
+        final String name = ALoadingCacheTest.class.getName() + ".getAll";
+        LoadingCacheStats.setEnabled(true);
+        try {
+            final ALoadingCacheConfig<Integer, Integer> config = new ALoadingCacheConfig<Integer, Integer>() {
+                @Override
+                protected String getStatsName() {
+                    return name;
+                }
+
+                @Override
+                protected Integer loadValue(final Integer key) {
+                    return key * 10;
+                }
+            };
+            final ALoadingCache<Integer, Integer> cache = config.newInstance();
+            Assertions.assertThat(cache.get(2)).isEqualTo(20);
+            final Iterable<Integer> singlePass = new Iterable<Integer>() {
+                private boolean iterated;
+
+                @Override
+                public Iterator<Integer> iterator() {
+                    Assertions.checkFalse(iterated);
+                    iterated = true;
+                    return Arrays.asList(3, 2, 1).iterator();
+                }
+            };
+            final Map<Integer, Integer> values = cache.getAll(singlePass);
+            Assertions.assertThat(new ArrayList<>(values.keySet())).containsExactly(3, 2, 1);
+            Assertions.assertThat(new ArrayList<>(values.values())).containsExactly(30, 20, 10);
+            //the default batch loader goes through the same recording loader as get
+            final CacheStatsSnapshot snapshot = LoadingCacheStats.getSnapshot(name);
+            Assertions.assertThat(snapshot.getLoadCount()).isEqualTo(3);
+        } finally {
+            LoadingCacheStats.setEnabled(false);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package de.invesdwin.util.collections.loadingcache.disk;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.loadingcache.ALoadingCache;
+import de.invesdwin.util.collections.loadingcache.ALoadingCacheConfig;
+import de.invesdwin.util.lang.Files;
+import de.invesdwin.util.marshallers.serde.basic.IntegerSerde;
+import de.invesdwin.util.marshallers.serde.basic.StringUtf8Serde;
+
+@NotThreadSafe
+public class DiskTierTest {
+
+    /**
+     * header plus four records of an integer key and an integer value
+     */
+    private static final long FOUR_RECORDS_DISK_SIZE = 32 + 4 * 16;
+
+    private File directory;
+
+    @BeforeEach
+    public void before() throws IOException {
+        directory = java.nio.file.Files.createTempDirectory(DiskTierTest.class.getSimpleName()).toFile();
+    }
+
+    @AfterEach
+    public void after() {
+        Files.deleteQuietly(directory);
+    }
+
+    @Test
+    public void testRecoverAfterReopen() {
+        final File file = new File(directory, "values");
+        try (DiskTier<Integer, String> diskTier = newStringDiskTier(file)) {
+            diskTier.put(1, "one");
+            diskTier.put(2, "two");
+            diskTier.put(3, "three");
+            diskTier.put(2, "zwei");
+            diskTier.remove(3);
+            Assertions.assertThat(diskTier.size()).isEqualTo(2);
+        }
+        try (DiskTier<Integer, String> diskTier = newStringDiskTier(file)) {
+            Assertions.assertThat(diskTier.size()).isEqualTo(2);
+            Assertions.assertThat(diskTier.get(1)).isEqualTo("one");
+            Assertions.assertThat(diskTier.get(2)).isEqualTo("zwei");
+            Assertions.assertThat(diskTier.get(3)).isNull();
+        }
+    }
+
+    @Test
+    public void testDropOldestWhenFull() {
+        //small segments so that records span multiple files
+        try (DiskTier<Integer, Integer> diskTier = new DiskTier<>(new File(directory, "ring"), IntegerSerde.GET,
+                IntegerSerde.GET, FOUR_RECORDS_DISK_SIZE, 64)) {
+            for (int i = 0; i < 6; i++) {
+                diskTier.put(i, i * 10);
+            }
+            Assertions.assertThat(diskTier.size()).isEqualTo(4);
+            Assertions.assertThat(diskTier.get(0)).isNull();
+            Assertions.assertThat(diskTier.get(1)).isNull();
+            for (int i = 2; i < 6; i++) {
+                Assertions.assertThat(diskTier.get(i)).isEqualTo(i * 10);
+            }
+            final List<Integer> newest = new ArrayList<>();
+            diskTier.forEachNewest(2, (key, value) -> newest.add(key));
+            Assertions.assertThat(newest).containsExactly(4, 5);
+        }
+    }
+
+    @Test
+    public void testLoadingCacheSurvivesRestart() {
+        final File file = new File(directory, "cache");
+        final AtomicInteger loads = new AtomicInteger();
+        try (DiskTier<Integer, String> diskTier = newStringDiskTier(file)) {
+            final ALoadingCache<Integer, String> cache = newCache(diskTier, loads, false);
+            Assertions.assertThat(cache.get(1)).isEqualTo("1");
+            Assertions.assertThat(cache.get(2)).isEqualTo("2");
+            Assertions.assertThat(loads.get()).isEqualTo(2);
+        }
+        try (DiskTier<Integer, String> diskTier = newStringDiskTier(file)) {
+            final ALoadingCache<Integer, String> cache = newCache(diskTier, loads, false);
+            //promoted from disk instead of loading again
+            Assertions.assertThat(cache.get(1)).isEqualTo("1");
+            Assertions.assertThat(loads.get()).isEqualTo(2);
+            Assertions.assertThat(cache.get(3)).isEqualTo("3");
+            Assertions.assertThat(loads.get()).isEqualTo(3);
+        }
+        try (DiskTier<Integer, String> diskTier = newStringDiskTier(file)) {
+            final ALoadingCache<Integer, String> cache = newCache(diskTier, loads, true);
+            Assertions.assertThat(cache.size()).isEqualTo(3);
+            Assertions.assertThat(cache.containsKey(2)).isTrue();
+        }
+    }
+
+    @Test
+    public void testClearAfterClose() {
+        final DiskTier<Integer, String> diskTier = newStringDiskTier(new File(directory, "closed"));
+        diskTier.put(1, "one");
+        diskTier.close();
+        diskTier.clear();
+        Assertions.assertThat(diskTier.isClosed()).isTrue();
+        Assertions.assertThat(diskTier.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testCacheClearKeepsDiskTier() {
+        final AtomicInteger loads = new AtomicInteger();
+        try (DiskTier<Integer, String> diskTier = newStringDiskTier(new File(directory, "clear"))) {
+            final ALoadingCache<Integer, String> cache = newCache(diskTier, loads, false);
+            Assertions.assertThat(cache.get(1)).isEqualTo("1");
+            cache.clear();
+            Assertions.assertThat(cache.isEmpty()).isTrue();
+            Assertions.assertThat(diskTier.get(1)).isEqualTo("1");
+            //promoted from disk instead of loading again
+            Assertions.assertThat(cache.get(1)).isEqualTo("1");
+            Assertions.assertThat(loads.get()).isEqualTo(1);
+            diskTier.clear();
+            cache.clear();
+            Assertions.assertThat(cache.get(1)).isEqualTo("1");
+            Assertions.assertThat(loads.get()).isEqualTo(2);
+        }
+    }
+
+    private static DiskTier<Integer, String> newStringDiskTier(final File file) {
+        return new DiskTier<>(file, IntegerSerde.GET, StringUtf8Serde.GET, 1024 * 1024);
+    }
+
+    private static ALoadingCache<Integer, String> newCache(final DiskTier<Integer, String> diskTier,
+            final AtomicInteger loads, final boolean prewarm) {
+        final ALoadingCacheConfig<Integer, String> config = new ALoadingCacheConfig<Integer, String>() {
+            @Override
+            protected String loadValue(final Integer key) {
+                loads.incrementAndGet();
+                return String.valueOf(key);
+            }
+        };
+        config.setDiskTierOverride(diskTier);
+        config.setDiskTierPrewarmOverride(prewarm);
+        return config.newInstance();
+    }
+
+}
@@ -0,0 +1,187 @@
+package de.invesdwin.util.collections.loadingcache.historical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.list.Lists;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+import de.invesdwin.util.concurrent.future.Futures;
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+import de.invesdwin.util.time.date.FDates;
+
+@ThreadSafe
+public class AConcurrentGapHistoricalCacheTest {
+
+    private static final int VALUES = 1000;
+    private static final int MAX_RESULTS = 50;
+
+    private final FDate[] entities;
+    private final AtomicInteger countReadAllValuesAscendingFrom = new AtomicInteger();
+    private final AtomicInteger countReadLatestValueFor = new AtomicInteger();
+    private volatile int valuesInDb = VALUES;
+
+    public AConcurrentGapHistoricalCacheTest() {
+        entities = new FDate[VALUES];
+        FDate entity = FDateBuilder.newDate(2000);
+        for (int i = 0; i < VALUES; i++) {
+            entities[i] = entity;
+            //gaps of one to three days
+            entity = entity.addDays(1 + i % 3);
+        }
+    }
+
+    @Test
+    public void testGetValueSequential() {
+        final TestConcurrentGapHistoricalCache cache = new TestConcurrentGapHistoricalCache(
+                AConcurrentGapHistoricalCache.DEFAULT_MAXIMUM_SEGMENT_VALUES);
+        for (int i = 0; i < VALUES; i++) {
+            Assertions.checkEquals(entities[i], cache.query().getValue(entities[i]));
+            Assertions.checkEquals(entities[i], cache.query().getValue(entities[i].addHours(12)));
+        }
+        //the readBackStep gets loaded together with the requested value
+        Assertions.assertThat(countReadAllValuesAscendingFrom.get()).isLessThan(VALUES / 10);
+        Assertions.assertThat(countReadLatestValueFor.get()).isLessThan(VALUES / 10);
+        Assertions.assertThat(cache.getSegmentValuesCount()).isLessThanOrEqualTo(VALUES * 2);
+    }
+
+    @Test
+    public void testGetValueOutsideOfData() {
+        final TestConcurrentGapHistoricalCache cache = new TestConcurrentGapHistoricalCache(
+                AConcurrentGapHistoricalCache.DEFAULT_MAXIMUM_SEGMENT_VALUES);
+        Assertions.checkEquals(entities[0], cache.query().setFutureEnabled().getValue(FDates.MIN_DATE.addYears(1)));
+        Assertions.checkNull(cache.query().getValue(FDates.MIN_DATE.addYears(1)));
+        Assertions.checkEquals(entities[VALUES - 1], cache.query().getValue(FDates.MAX_DATE.addYears(-1)));
+        Assertions.checkEquals(entities[VALUES - 1], cache.query().getValue(entities[VALUES - 1].addYears(1)));
+    }
+
+    @Test
+    public void testGetValueAppendedAfterQuery() {
+        valuesInDb = VALUES - 10;
+        final TestConcurrentGapHistoricalCache cache = new TestConcurrentGapHistoricalCache(
+                AConcurrentGapHistoricalCache.DEFAULT_MAXIMUM_SEGMENT_VALUES);
+        Assertions.checkEquals(entities[VALUES - 11], cache.query().getValue(entities[VALUES - 11].addHours(1)));
+        Assertions.checkEquals(entities[VALUES - 11], cache.query().getValue(entities[VALUES - 10].addHours(-1)));
+        valuesInDb = VALUES;
+        Assertions.checkEquals(entities[VALUES - 10], cache.query().getValue(entities[VALUES - 10]));
+        Assertions.checkEquals(entities[VALUES - 1], cache.query().getValue(entities[VALUES - 1].addHours(1)));
+    }
+
+    @Test
+    public void testGetPreviousValues() {
+        final TestConcurrentGapHistoricalCache cache = new TestConcurrentGapHistoricalCache(
+                AConcurrentGapHistoricalCache.DEFAULT_MAXIMUM_SEGMENT_VALUES);
+        final List<FDate> previousValues = Lists
+                .toListWithoutHasNext(cache.query().getPreviousValues(entities[VALUES - 1], 10));
+        Assertions.checkEquals(Arrays.asList(entities).subList(VALUES - 10, VALUES), previousValues);
+    }
+
+    @Test
+    public void testEviction() {
+        final int maximumSegmentValues = MAX_RESULTS * 4;
+        final TestConcurrentGapHistoricalCache cache = new TestConcurrentGapHistoricalCache(maximumSegmentValues);
+        for (int i = 0; i < VALUES; i += 10) {
+            Assertions.checkEquals(entities[i], cache.query().getValue(entities[i]));
+            Assertions.assertThat(cache.getSegmentValuesCount()).isLessThanOrEqualTo(maximumSegmentValues);
+        }
+        cache.clear();
+        Assertions.checkEquals(0, cache.getSegmentsCount());
+        Assertions.checkEquals(entities[0], cache.query().getValue(entities[0]));
+    }
+
+    @Test
+    public void testGetValueConcurrent() throws InterruptedException {
+        final TestConcurrentGapHistoricalCache cache = new TestConcurrentGapHistoricalCache(MAX_RESULTS * 10);
+        final int threads = 8;
+        final WrappedExecutorService executor = Executors.newFixedThreadPool("testGetValueConcurrent", threads);
+        try {
+            final List<Runnable> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(t);
+                tasks.add(() -> {
+                    for (int i = 0; i < VALUES * 10; i++) {
+                        final int index = random.nextInt(VALUES);
+                        final FDate value = cache.query().getValue(entities[index].addHours(1));
+                        Assertions.checkEquals(entities[index], value);
+                    }
+                });
+            }
+            Futures.submitAndWaitRethrowing(executor, tasks);
+        } catch (final InterruptedException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int ceilingIndex(final FDate key) {
+        final int index = Arrays.binarySearch(entities, key);
+        if (index >= 0) {
+            return index;
+        } else {
+            return -index - 1;
+        }
+    }
+
+    private final class TestConcurrentGapHistoricalCache extends AConcurrentGapHistoricalCache<FDate> {
+
+        private final int maximumSegmentValues;
+
+        private TestConcurrentGapHistoricalCache(final int maximumSegmentValues) {
+            this.maximumSegmentValues = maximumSegmentValues;
+        }
+
+        @Override
+        protected int getMaximumSegmentValues() {
+            return maximumSegmentValues;
+        }
+
+        @Override
+        protected Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+            countReadAllValuesAscendingFrom.incrementAndGet();
+            final int fromIndex = Math.min(valuesInDb, ceilingIndex(key));
+            final int toIndex = Math.min(valuesInDb, fromIndex + MAX_RESULTS);
+            return Arrays.asList(entities).subList(fromIndex, toIndex);
+        }
+
+        @Override
+        protected FDate readLatestValueFor(final FDate key) {
+            countReadLatestValueFor.incrementAndGet();
+            final int index = ceilingIndex(key);
+            if (index < valuesInDb && entities[index].equalsNotNullSafe(key)) {
+                return entities[index];
+            }
+            return entities[Math.max(0, Math.min(valuesInDb, index) - 1)];
+        }
+
+        @Override
+        protected FDate innerExtractKey(final FDate value) {
+            return value;
+        }
+
+        @Override
+        protected FDate innerCalculatePreviousKey(final FDate key) {
+            final int index = ceilingIndex(key);
+            return entities[Math.max(0, index - 1)];
+        }
+
+        @Override
+        protected FDate innerCalculateNextKey(final FDate key) {
+            final int index = ceilingIndex(key.addMilliseconds(1));
+            return entities[Math.min(valuesInDb - 1, index)];
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package de.invesdwin.util.collections.loadingcache.historical;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.list.Lists;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+
+@ThreadSafe
+public class AGapHistoricalCacheReadAheadTest {
+
+    private static final int VALUES = 10_000;
+    private static final int MAX_RESULTS = 100;
+
+    private final FDate[] entities;
+    private final AtomicInteger countReadAheadReadAllValuesAscendingFrom = new AtomicInteger();
+    private volatile Thread testThread;
+
+    public AGapHistoricalCacheReadAheadTest() {
+        entities = new FDate[VALUES];
+        FDate entity = FDateBuilder.newDate(1990);
+        for (int i = 0; i < VALUES; i++) {
+            entities[i] = entity;
+            entity = entity.addDays(1);
+        }
+    }
+
+    @Test
+    public void testGetValueSequential() {
+        testThread = Thread.currentThread();
+        final TestGapHistoricalCache cache = new TestGapHistoricalCache();
+        for (int i = 0; i < VALUES; i++) {
+            Assertions.checkEquals(entities[i], cache.query().getValue(entities[i]));
+        }
+        //the batches after the first few get read on a background thread
+        Assertions.assertThat(countReadAheadReadAllValuesAscendingFrom.get()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testGetPreviousValuesSequentialWithClear() {
+        testThread = Thread.currentThread();
+        final TestGapHistoricalCache cache = new TestGapHistoricalCache();
+        for (int i = 0; i < VALUES; i++) {
+            if (i % (MAX_RESULTS * 5 + 1) == 0) {
+                //cancels a pending read ahead
+                cache.clear();
+            }
+            final List<FDate> previousValues = Lists
+                    .toListWithoutHasNext(cache.query().getPreviousValues(entities[i].addHours(1), 3));
+            Assertions.checkEquals(Arrays.asList(entities).subList(Math.max(0, i - 2), i + 1), previousValues);
+        }
+    }
+
+    @Test
+    public void testGetValueJumping() {
+        testThread = Thread.currentThread();
+        final TestGapHistoricalCache cache = new TestGapHistoricalCache();
+        for (int i = 0; i < VALUES; i += MAX_RESULTS / 2) {
+            Assertions.checkEquals(entities[i], cache.query().getValue(entities[i]));
+        }
+        for (int i = VALUES - 1; i >= 0; i -= MAX_RESULTS * 3) {
+            Assertions.checkEquals(entities[i], cache.query().getValue(entities[i]));
+        }
+    }
+
+    private int ceilingIndex(final FDate key) {
+        final int index = Arrays.binarySearch(entities, key);
+        if (index >= 0) {
+            return index;
+        } else {
+            return -index - 1;
+        }
+    }
+
+    private final class TestGapHistoricalCache extends AGapHistoricalCache<FDate> {
+
+        @Override
+        protected boolean isReadAheadEnabled() {
+            return true;
+        }
+
+        @Override
+        protected Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+            if (Thread.currentThread() != testThread) {
+                countReadAheadReadAllValuesAscendingFrom.incrementAndGet();
+            }
+            final int fromIndex = ceilingIndex(key);
+            final int toIndex = Math.min(VALUES, fromIndex + MAX_RESULTS);
+            return Arrays.asList(entities).subList(fromIndex, toIndex);
+        }
+
+        @Override
+        protected FDate readLatestValueFor(final FDate key) {
+            final int index = ceilingIndex(key);
+            if (index < VALUES && entities[index].equalsNotNullSafe(key)) {
+                return entities[index];
+            }
+            return entities[Math.max(0, index - 1)];
+        }
+
+        @Override
+        protected FDate innerExtractKey(final FDate value) {
+            return value;
+        }
+
+        @Override
+        protected FDate innerCalculatePreviousKey(final FDate key) {
+            return key.addDays(-1);
+        }
+
+        @Override
+        protected FDate innerCalculateNextKey(final FDate key) {
+            return key.addDays(1);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package de.invesdwin.util.collections.loadingcache.historical;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.list.Lists;
+import de.invesdwin.util.marshallers.serde.ISerde;
+import de.invesdwin.util.marshallers.serde.basic.FDateSerde;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+
+@NotThreadSafe
+public class OffHeapHistoricalEntryMapTest {
+
+    private static final int VALUES = 1000;
+    private static final int HEAP_MAXIMUM_SIZE = 10;
+
+    private final FDate[] entities;
+    private final TestGapHistoricalCache cache = new TestGapHistoricalCache();
+
+    public OffHeapHistoricalEntryMapTest() {
+        entities = new FDate[VALUES];
+        FDate entity = FDateBuilder.newDate(2000);
+        for (int i = 0; i < VALUES; i++) {
+            entities[i] = entity;
+            entity = entity.addDays(1);
+        }
+    }
+
+    @Test
+    public void testOffloadAndDecode() {
+        final int count = VALUES / 2;
+        final OffHeapHistoricalEntryMap<FDate> map = new OffHeapHistoricalEntryMap<>(cache.internalMethods,
+                FDateSerde.GET, VALUES, HEAP_MAXIMUM_SIZE, FDateSerde.FIXED_LENGTH);
+        for (int i = 0; i < count; i++) {
+            map.put(entities[i], newEntry(i));
+        }
+        Assertions.checkEquals(count, map.size());
+        for (int i = 0; i < count; i++) {
+            final IndexedHistoricalEntry<FDate> entry = (IndexedHistoricalEntry<FDate>) map.get(entities[i]);
+            Assertions.checkEquals(entities[i], entry.getKey());
+            Assertions.checkEquals(entities[i], entry.getValue());
+            if (i > 0) {
+                Assertions.checkEquals(entities[i - 1], entry.getPrevKeyIfPresent());
+            }
+            Assertions.checkEquals(entities[i + 1], entry.getNextKeyIfPresent());
+        }
+        Assertions.checkEquals(count, map.size());
+        Assertions.assertThat(map.remove(entities[0])).isNotNull();
+        Assertions.checkFalse(map.containsKey(entities[0]));
+        Assertions.checkEquals(count - 1, map.entrySet().size());
+        map.clear();
+        Assertions.checkTrue(map.isEmpty());
+        Assertions.checkNull(map.get(entities[1]));
+    }
+
+    @Test
+    public void testEvictionWrapsRing() {
+        final int maximumSize = 100;
+        //record size does not divide the ring capacity, thus the end of the ring gets padded
+        final OffHeapHistoricalEntryMap<FDate> map = new OffHeapHistoricalEntryMap<>(cache.internalMethods,
+                FDateSerde.GET, maximumSize, HEAP_MAXIMUM_SIZE, FDateSerde.FIXED_LENGTH + 8);
+        for (int i = 0; i < VALUES; i++) {
+            map.put(entities[i], newEntry(i));
+            Assertions.assertThat(map.size()).isLessThanOrEqualTo(maximumSize);
+        }
+        Assertions.checkEquals(maximumSize, map.size());
+        Assertions.checkFalse(map.containsKey(entities[VALUES - maximumSize - 1]));
+        for (int i = VALUES - maximumSize; i < VALUES; i++) {
+            Assertions.checkTrue(map.containsKey(entities[i]));
+        }
+        for (int i = VALUES - maximumSize; i < VALUES; i++) {
+            Assertions.checkEquals(entities[i], map.get(entities[i]).getValue());
+        }
+    }
+
+    @Test
+    public void testIncreaseMaximumSize() {
+        final OffHeapHistoricalEntryMap<FDate> map = new OffHeapHistoricalEntryMap<>(cache.internalMethods,
+                FDateSerde.GET, VALUES / 4, HEAP_MAXIMUM_SIZE, FDateSerde.FIXED_LENGTH);
+        for (int i = 0; i < VALUES / 4; i++) {
+            map.put(entities[i], newEntry(i));
+        }
+        map.setMaximumSize(VALUES);
+        for (int i = VALUES / 4; i < VALUES; i++) {
+            map.put(entities[i], newEntry(i));
+        }
+        Assertions.checkEquals(VALUES, map.size());
+        for (int i = 0; i < VALUES; i++) {
+            Assertions.checkEquals(entities[i], map.get(entities[i]).getValue());
+        }
+    }
+
+    @Test
+    public void testHistoricalCache() {
+        for (int reads = 0; reads < 2; reads++) {
+            for (int i = 0; i < VALUES; i++) {
+                Assertions.checkEquals(entities[i], cache.query().getValue(entities[i]));
+                Assertions.checkEquals(entities[i], cache.query().getValue(entities[i].addHours(1)));
+            }
+        }
+        final List<FDate> previousValues = Lists
+                .toListWithoutHasNext(cache.query().getPreviousValues(entities[VALUES - 1], 10));
+        Assertions.checkEquals(Arrays.asList(entities).subList(VALUES - 10, VALUES), previousValues);
+    }
+
+    private IndexedHistoricalEntry<FDate> newEntry(final int i) {
+        final IndexedHistoricalEntry<FDate> entry = new IndexedHistoricalEntry<>(cache.internalMethods, entities[i],
+                entities[i]);
+        if (i > 0) {
+            entry.setPrevKey(cache.internalMethods, entities[i - 1]);
+        }
+        if (i < VALUES - 1) {
+            entry.setNextKey(cache.internalMethods, entities[i + 1]);
+        }
+        return entry;
+    }
+
+    private int ceilingIndex(final FDate key) {
+        final int index = Arrays.binarySearch(entities, key);
+        if (index >= 0) {
+            return index;
+        } else {
+            return -index - 1;
+        }
+    }
+
+    private final class TestGapHistoricalCache extends AGapHistoricalCache<FDate> {
+
+        @Override
+        protected ISerde<FDate> getOffHeapValuesSerde() {
+            return FDateSerde.GET;
+        }
+
+        @Override
+        protected Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+            final int fromIndex = ceilingIndex(key);
+            final int toIndex = Math.min(VALUES, fromIndex + DEFAULT_READ_BACK_STEP_ELEMENTS * 5);
+            return Arrays.asList(entities).subList(fromIndex, toIndex);
+        }
+
+        @Override
+        protected FDate readLatestValueFor(final FDate key) {
+            final int index = ceilingIndex(key);
+            if (index < VALUES && entities[index].equalsNotNullSafe(key)) {
+                return entities[index];
+            }
+            return entities[Math.max(0, index - 1)];
+        }
+
+        @Override
+        protected FDate innerExtractKey(final FDate value) {
+            return value;
+        }
+
+        @Override
+        protected FDate innerCalculatePreviousKey(final FDate key) {
+            return key.addDays(-1);
+        }
+
+        @Override
+        protected FDate innerCalculateNextKey(final FDate key) {
+            return key.addDays(1);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package de.invesdwin.util.collections.loadingcache.historical.query.internal.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.list.Lists;
+import de.invesdwin.util.collections.loadingcache.historical.AGapHistoricalCache;
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+
+@NotThreadSafe
+public class SegmentedHistoricalCacheQueryCoreTest {
+
+    private static final int VALUES = 1000;
+    private static final int MAX_RESULTS = 50;
+
+    private final FDate[] entities;
+
+    public SegmentedHistoricalCacheQueryCoreTest() {
+        entities = new FDate[VALUES];
+        FDate entity = FDateBuilder.newDate(2000);
+        for (int i = 0; i < VALUES; i++) {
+            entities[i] = entity;
+            //gaps of one to three days
+            entity = entity.addDays(1 + i % 3);
+        }
+    }
+
+    @Test
+    public void testGetPreviousValuesSequential() {
+        final TestGapHistoricalCache cache = new TestGapHistoricalCache();
+        final int shiftBackUnits = 10;
+        for (int i = 0; i < VALUES; i++) {
+            final List<FDate> previousValues = Lists
+                    .toListWithoutHasNext(cache.query().getPreviousValues(entities[i].addHours(1), shiftBackUnits));
+            Assertions.checkEquals(expectedPreviousValues(i, shiftBackUnits), previousValues);
+        }
+        //walking forward only ever appends to the same segment
+        Assertions.checkEquals(1, cache.queryCore.getSegmentsCount());
+        Assertions.checkEquals(VALUES, cache.queryCore.getEntriesCount());
+    }
+
+    @Test
+    public void testGetPreviousValuesRandom() {
+        final TestGapHistoricalCache cache = new TestGapHistoricalCache();
+        final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(0);
+        for (int i = 0; i < VALUES * 10; i++) {
+            final int index = random.nextInt(VALUES);
+            final int shiftBackUnits = 1 + random.nextInt(MAX_RESULTS);
+            final List<FDate> previousValues = Lists
+                    .toListWithoutHasNext(cache.query().getPreviousValues(entities[index], shiftBackUnits));
+            Assertions.checkEquals(expectedPreviousValues(index, shiftBackUnits), previousValues);
+            Assertions.checkEquals(entities[Math.max(0, index - shiftBackUnits)],
+                    cache.query().getPreviousValue(entities[index].addHours(1), shiftBackUnits));
+            Assertions.checkEquals(entities[Math.min(VALUES - 1, index + shiftBackUnits)],
+                    cache.query().setFutureEnabled().getNextValue(entities[index], shiftBackUnits));
+        }
+        //random lookbacks merge into the segments until everything is covered
+        Assertions.checkEquals(1, cache.queryCore.getSegmentsCount());
+        Assertions.checkEquals(VALUES, cache.queryCore.getEntriesCount());
+    }
+
+    @Test
+    public void testGetPreviousValuesOutsideOfData() {
+        final TestGapHistoricalCache cache = new TestGapHistoricalCache();
+        Assertions.checkTrue(
+                Lists.toListWithoutHasNext(cache.query().getPreviousValues(entities[0].addDays(-1), 10)).isEmpty());
+        Assertions.checkNull(cache.query().getPreviousValue(entities[0].addDays(-1), 10));
+        Assertions.checkEquals(expectedPreviousValues(VALUES - 1, 10),
+                Lists.toListWithoutHasNext(cache.query().getPreviousValues(entities[VALUES - 1].addYears(1), 10)));
+        Assertions.checkEquals(entities[0], cache.query().getPreviousValue(entities[5], 100));
+        cache.clear();
+        Assertions.checkEquals(0, cache.queryCore.getSegmentsCount());
+    }
+
+    private List<FDate> expectedPreviousValues(final int index, final int shiftBackUnits) {
+        return Arrays.asList(entities).subList(Math.max(0, index - shiftBackUnits + 1), index + 1);
+    }
+
+    private int ceilingIndex(final FDate key) {
+        final int index = Arrays.binarySearch(entities, key);
+        if (index >= 0) {
+            return index;
+        } else {
+            return -index - 1;
+        }
+    }
+
+    private final class TestGapHistoricalCache extends AGapHistoricalCache<FDate> {
+
+        private SegmentedHistoricalCacheQueryCore<FDate> queryCore;
+
+        @Override
+        protected IHistoricalCacheQueryCore<FDate> newQueryCore() {
+            queryCore = new SegmentedHistoricalCacheQueryCore<>(internalMethods);
+            return queryCore;
+        }
+
+        @Override
+        protected Iterable<? extends FDate> readAllValuesAscendingFrom(final FDate key) {
+            final int fromIndex = ceilingIndex(key);
+            final int toIndex = Math.min(VALUES, fromIndex + MAX_RESULTS);
+            return Arrays.asList(entities).subList(fromIndex, toIndex);
+        }
+
+        @Override
+        protected FDate readLatestValueFor(final FDate key) {
+            final int index = ceilingIndex(key);
+            if (index < VALUES && entities[index].equalsNotNullSafe(key)) {
+                return entities[index];
+            }
+            return entities[Math.max(0, index - 1)];
+        }
+
+        @Override
+        protected FDate innerExtractKey(final FDate value) {
+            return value;
+        }
+
+        @Override
+        protected FDate innerCalculatePreviousKey(final FDate key) {
+            final int index = ceilingIndex(key);
+            return entities[Math.max(0, index - 1)];
+        }
+
+        @Override
+        protected FDate innerCalculateNextKey(final FDate key) {
+            final int index = ceilingIndex(key.addMilliseconds(1));
+            return entities[Math.min(VALUES - 1, index)];
+        }
+    }
+
+}
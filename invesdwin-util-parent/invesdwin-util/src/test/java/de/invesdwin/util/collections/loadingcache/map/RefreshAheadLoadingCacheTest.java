@@ -0,0 +1,168 @@
+package de.invesdwin.util.collections.loadingcache.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.loadingcache.ALoadingCache;
+import de.invesdwin.util.collections.loadingcache.ALoadingCacheConfig;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.duration.Duration;
+
+@ThreadSafe
+public class RefreshAheadLoadingCacheTest {
+
+    private static final Duration REFRESH_AFTER_WRITE = new Duration(200, FTimeUnit.MILLISECONDS);
+    private static final int MAX_WAIT_MILLIS = 10_000;
+
+    @Test
+    public void testServeStaleWhileRefreshing() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch finishRefresh = new CountDownLatch(1);
+        final ALoadingCacheConfig<Integer, Integer> config = new ALoadingCacheConfig<Integer, Integer>() {
+            @Override
+            protected Integer loadValue(final Integer key) {
+                final int load = loads.incrementAndGet();
+                if (load > 1) {
+                    refreshStarted.countDown();
+                    try {
+                        finishRefresh.await();
+                    } catch (final InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return load;
+            }
+        };
+        config.setRefreshAfterWriteOverride(REFRESH_AFTER_WRITE);
+        final ALoadingCache<Integer, Integer> cache = config.newInstance();
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        FTimeUnit.MILLISECONDS.sleep(REFRESH_AFTER_WRITE.longValue(FTimeUnit.MILLISECONDS) * 2);
+        //stale value is served while the reload is blocked in the background
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        refreshStarted.await();
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        }
+        finishRefresh.countDown();
+        waitForValue(cache, 1, 2);
+        //concurrent requests were coalesced into a single reload
+        Assertions.assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testExpireAfterWriteLoadsSynchronously() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final ALoadingCacheConfig<Integer, Integer> config = new ALoadingCacheConfig<Integer, Integer>() {
+            @Override
+            protected Integer loadValue(final Integer key) {
+                return loads.incrementAndGet();
+            }
+        };
+        config.setRefreshAfterWriteOverride(REFRESH_AFTER_WRITE);
+        config.setExpireAfterWriteOverride(REFRESH_AFTER_WRITE);
+        final ALoadingCache<Integer, Integer> cache = config.newInstance();
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        FTimeUnit.MILLISECONDS.sleep(REFRESH_AFTER_WRITE.longValue(FTimeUnit.MILLISECONDS) * 2);
+        Assertions.assertThat(cache.get(1)).isEqualTo(2);
+    }
+
+    @Test
+    public void testGetAllBatchesMisses() {
+        final List<Collection<Integer>> batches = new ArrayList<>();
+        final ALoadingCacheConfig<Integer, Integer> config = new ALoadingCacheConfig<Integer, Integer>() {
+            @Override
+            protected Integer loadValue(final Integer key) {
+                return key * 10;
+            }
+
+            @Override
+            protected Map<Integer, Integer> loadValues(final Collection<Integer> keys) {
+                batches.add(new ArrayList<>(keys));
+                return super.loadValues(keys);
+            }
+        };
+        final ALoadingCache<Integer, Integer> cache = config.newInstance();
+        Assertions.assertThat(cache.get(2)).isEqualTo(20);
+        final Map<Integer, Integer> values = cache.getAll(Arrays.asList(3, 2, 1));
+        Assertions.assertThat(new ArrayList<>(values.keySet())).containsExactly(3, 2, 1);
+        Assertions.assertThat(new ArrayList<>(values.values())).containsExactly(30, 20, 10);
+        Assertions.assertThat(batches).hasSize(1);
+        Assertions.assertThat(batches.get(0)).containsExactly(3, 1);
+        Assertions.assertThat(cache.containsKey(3)).isTrue();
+        cache.getAll(Arrays.asList(1, 2, 3));
+        Assertions.assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    public void testBackgroundRefreshAfterRemoveIsDiscarded() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch finishRefresh = new CountDownLatch(1);
+        final WrappedExecutorService refreshExecutor = Executors
+                .newFixedThreadPool("testBackgroundRefreshAfterRemoveIsDiscarded", 1);
+        final RefreshAheadLoadingCache<Integer, Integer> cache = new RefreshAheadLoadingCache<>(key -> {
+            final int load = loads.incrementAndGet();
+            if (load > 1) {
+                refreshStarted.countDown();
+                try {
+                    finishRefresh.await();
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return load;
+        }, ConcurrentMapLoadingCache::new, REFRESH_AFTER_WRITE, null, refreshExecutor);
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        FTimeUnit.MILLISECONDS.sleep(REFRESH_AFTER_WRITE.longValue(FTimeUnit.MILLISECONDS) * 2);
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        refreshStarted.await();
+        cache.remove(1);
+        finishRefresh.countDown();
+        refreshExecutor.shutdown();
+        Assertions.assertThat(refreshExecutor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        //the refreshed value must not resurrect the removed entry
+        Assertions.assertThat(cache.containsKey(1)).isFalse();
+    }
+
+    @Test
+    public void testSynchronousRefreshReturnsNullWhenValueIsGone() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final RefreshAheadLoadingCache<Integer, Integer> cache = new RefreshAheadLoadingCache<>(key -> {
+            if (loads.incrementAndGet() > 1) {
+                return null;
+            }
+            return 1;
+        }, ConcurrentMapLoadingCache::new, REFRESH_AFTER_WRITE, null, null);
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        FTimeUnit.MILLISECONDS.sleep(REFRESH_AFTER_WRITE.longValue(FTimeUnit.MILLISECONDS) * 2);
+        Assertions.assertThat(cache.get(1)).isNull();
+        Assertions.assertThat(cache.containsKey(1)).isFalse();
+    }
+
+    private static void waitForValue(final ALoadingCache<Integer, Integer> cache, final Integer key,
+            final Integer expected) throws InterruptedException {
+        for (int i = 0; i < MAX_WAIT_MILLIS; i++) {
+            if (expected.equals(cache.get(key))) {
+                return;
+            }
+            FTimeUnit.MILLISECONDS.sleep(1);
+        }
+        Assertions.assertThat(cache.get(key)).isEqualTo(expected);
+    }
+
+}
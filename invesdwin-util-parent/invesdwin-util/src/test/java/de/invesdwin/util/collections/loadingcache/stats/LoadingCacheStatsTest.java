@@ -0,0 +1,62 @@
+package de.invesdwin.util.collections.loadingcache.stats;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.loadingcache.ALoadingCache;
+import de.invesdwin.util.collections.loadingcache.ALoadingCacheConfig;
+
+@NotThreadSafe
+public class LoadingCacheStatsTest {
+
+    @Test
+    public void testDisabled() {
+        final ALoadingCache<Integer, Integer> cache = newConfig("disabled").newInstance();
+        Assertions.assertThat(cache.get(1)).isEqualTo(1);
+        Assertions.assertThat(LoadingCacheStats.getSnapshot("disabled")).isNull();
+    }
+
+    @Test
+    public void testHitsMissesEvictionsAndResets() {
+        final String name = LoadingCacheStatsTest.class.getName() + ".enabled";
+        LoadingCacheStats.setEnabled(true);
+        try {
+            final ALoadingCacheConfig<Integer, Integer> config = newConfig(name);
+            config.setInitialMaximumSizeOverride(2);
+            final ALoadingCache<Integer, Integer> cache = config.newInstance();
+            for (int i = 0; i < 4; i++) {
+                Assertions.assertThat(cache.get(i)).isEqualTo(i);
+                Assertions.assertThat(cache.get(i)).isEqualTo(i);
+            }
+            cache.clear();
+            final CacheStatsSnapshot snapshot = LoadingCacheStats.getSnapshot(name);
+            Assertions.assertThat(snapshot.getRequestCount()).isEqualTo(8);
+            Assertions.assertThat(snapshot.getMissCount()).isEqualTo(4);
+            Assertions.assertThat(snapshot.getHitCount()).isEqualTo(4);
+            Assertions.assertThat(snapshot.getHitRate()).isEqualTo(0.5D);
+            Assertions.assertThat(snapshot.getEvictionCount()).isEqualTo(2);
+            Assertions.assertThat(snapshot.getResetCount()).isEqualTo(1);
+            Assertions.assertThat(snapshot.getLoadNanosMax()).isGreaterThanOrEqualTo(snapshot.getLoadNanosP50());
+            Assertions.assertThat(LoadingCacheStats.getSnapshots()).isNotEmpty();
+        } finally {
+            LoadingCacheStats.setEnabled(false);
+        }
+    }
+
+    private static ALoadingCacheConfig<Integer, Integer> newConfig(final String name) {
+        return new ALoadingCacheConfig<Integer, Integer>() {
+            @Override
+            protected String getStatsName() {
+                return name;
+            }
+
+            @Override
+            protected Integer loadValue(final Integer key) {
+                return key;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,73 @@
+package de.invesdwin.util.collections.performance;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.iterable.ICloseableIterator;
+import de.invesdwin.util.collections.iterable.concurrent.AGenericProducerQueueIterator;
+import de.invesdwin.util.collections.iterable.concurrent.ProducerQueueIterable;
+import de.invesdwin.util.collections.iterable.concurrent.ProducerQueueWaitStrategy;
+import de.invesdwin.util.time.Instant;
+import de.invesdwin.util.time.date.FDate;
+
+/**
+ * Compares the blocking queue with condition polling against the lock free queue with the different wait strategies.
+ * A large queue measures throughput, a tiny queue forces a handoff per element and thus measures latency.
+ */
+@NotThreadSafe
+@Disabled("manual test")
+public class ProducerQueueIterablePerformanceTest extends ADatabasePerformanceTest {
+
+    private static final int LATENCY_QUEUE_SIZE = 1;
+
+    @Test
+    public void testBlockingQueueThroughput() {
+        read("BlockingQueueThroughput", AGenericProducerQueueIterator.DEFAULT_QUEUE_SIZE, null);
+    }
+
+    @Test
+    public void testBlockingQueueLatency() {
+        read("BlockingQueueLatency", LATENCY_QUEUE_SIZE, null);
+    }
+
+    @Test
+    public void testLockFreeQueueThroughput() {
+        for (final ProducerQueueWaitStrategy waitStrategy : ProducerQueueWaitStrategy.values()) {
+            read("LockFreeQueueThroughput_" + waitStrategy, AGenericProducerQueueIterator.DEFAULT_QUEUE_SIZE,
+                    waitStrategy);
+        }
+    }
+
+    @Test
+    public void testLockFreeQueueLatency() {
+        for (final ProducerQueueWaitStrategy waitStrategy : ProducerQueueWaitStrategy.values()) {
+            read("LockFreeQueueLatency_" + waitStrategy, LATENCY_QUEUE_SIZE, waitStrategy);
+        }
+    }
+
+    private void read(final String action, final int queueSize, final ProducerQueueWaitStrategy waitStrategy) {
+        final ProducerQueueIterable<FDate> iterable = new ProducerQueueIterable<>(action, newValues(), queueSize)
+                .setWaitStrategy(waitStrategy);
+        final Instant readsStart = new Instant();
+        for (int reads = 1; reads <= READS; reads++) {
+            FDate prevValue = null;
+            int count = 0;
+            try (ICloseableIterator<FDate> it = iterable.iterator()) {
+                while (it.hasNext()) {
+                    final FDate value = it.next();
+                    if (prevValue != null) {
+                        Assertions.checkTrue(prevValue.isBefore(value));
+                    }
+                    prevValue = value;
+                    count++;
+                }
+            }
+            Assertions.checkEquals(count, VALUES);
+        }
+        printProgress(action + "Finished", readsStart, VALUES * READS, VALUES * READS);
+    }
+
+}
@@ -0,0 +1,68 @@
+package de.invesdwin.util.collections.primitive.readwrite;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+
+@NotThreadSafe
+public class OptimisticInt2IntOpenHashMapTest {
+
+    @Test
+    public void testSameResultsAsLookups() {
+        final OptimisticInt2IntOpenHashMap map = new OptimisticInt2IntOpenHashMap();
+        map.defaultReturnValue(-1);
+        for (int i = -100; i < 100; i++) {
+            Assertions.checkEquals(map.get(i), map.getOptimistic(i));
+            Assertions.checkEquals(map.containsKey(i), map.containsKeyOptimistic(i));
+            map.put(i, i * 2);
+        }
+        for (int i = -200; i < 200; i++) {
+            Assertions.checkEquals(map.get(i), map.getOptimistic(i));
+            Assertions.checkEquals(map.containsKey(i), map.containsKeyOptimistic(i));
+        }
+        Assertions.checkEquals(0, map.getOptimistic(0));
+        Assertions.checkTrue(map.containsKeyOptimistic(0));
+    }
+
+    @Test
+    public void testObjectKeysSameResultsAsLookups() {
+        final OptimisticObject2ObjectLinkedOpenHashMap<String, String> map =
+                new OptimisticObject2ObjectLinkedOpenHashMap<>();
+        Assertions.checkNull(map.getOptimistic(null));
+        Assertions.checkFalse(map.containsKeyOptimistic(null));
+        map.put(null, "null");
+        for (int i = 0; i < 100; i++) {
+            map.put(String.valueOf(i), String.valueOf(i * 2));
+        }
+        for (int i = -100; i < 200; i++) {
+            final String key = String.valueOf(i);
+            Assertions.checkEquals(map.get(key), map.getOptimistic(key));
+            Assertions.checkEquals(map.containsKey(key), map.containsKeyOptimistic(key));
+        }
+        Assertions.checkEquals("null", map.getOptimistic(null));
+        Assertions.checkTrue(map.containsKeyOptimistic(null));
+    }
+
+    @Test
+    public void testProbeIsBoundedWhenTableIsFull() {
+        final FullTableInt2IntOpenHashMap map = new FullTableInt2IntOpenHashMap();
+        Assertions.checkEquals(30, map.getOptimistic(3));
+        Assertions.checkTrue(map.containsKeyOptimistic(4));
+        //a torn read might see a table without free slots, the probe needs to terminate anyway
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> map.getOptimistic(5));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> map.containsKeyOptimistic(5));
+    }
+
+    private static final class FullTableInt2IntOpenHashMap extends OptimisticInt2IntOpenHashMap {
+
+        private FullTableInt2IntOpenHashMap() {
+            key = new int[] { 1, 2, 3, 4 };
+            value = new int[] { 10, 20, 30, 40 };
+            mask = key.length - 1;
+        }
+
+    }
+
+}
@@ -179,6 +179,36 @@ public class ExecutorsTest {
         executor.awaitTermination();
     }
 
+    @Test
+    public void testVirtualThreadPoolConcurrencyLimit() throws InterruptedException {
+        final WrappedExecutorService executor = Executors.newVirtualThreadPool("testVirtualThreadPool", 4);
+        Assertions.assertThat(executor.getFullPendingCountCondition().getLimit()).isEqualTo(4);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    final int curRunning = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(curRunning, Math::max);
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(5);
+                    } catch (final InterruptedException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }
+            });
+        }
+        Futures.submitAndWait(executor, tasks);
+        Assertions.assertThat(maxRunning.get()).isBetween(1, 4);
+        Assertions.assertThat(executor.getPendingCount()).isEqualTo(0);
+        executor.shutdown();
+        executor.awaitTermination();
+    }
+
     private Runnable getWorker(final int i) {
         return new Thread() {
             @Override
@@ -0,0 +1,121 @@
+package de.invesdwin.util.concurrent.lock.padded;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.primitive.readwrite.ReadWriteLockedInt2IntMap;
+import de.invesdwin.util.concurrent.lock.Locks;
+import de.invesdwin.util.concurrent.lock.readwrite.IOptimisticReadWriteLock;
+
+@NotThreadSafe
+public class StampedReentrantReadWriteLockTest {
+
+    @Test
+    public void testValidate() {
+        final StampedReentrantReadWriteLock lock = new StampedReentrantReadWriteLock();
+        final long stamp = lock.tryOptimisticRead();
+        Assertions.assertThat(stamp).isNotZero();
+        Assertions.assertThat(lock.validate(stamp)).isTrue();
+        lock.readLock().lock();
+        lock.readLock().unlock();
+        //pessimistic reads do not invalidate
+        Assertions.assertThat(lock.validate(stamp)).isTrue();
+
+        lock.writeLock().lock();
+        Assertions.assertThat(lock.tryOptimisticRead()).isZero();
+        //reentrant
+        lock.writeLock().lock();
+        lock.readLock().lock();
+        lock.readLock().unlock();
+        lock.writeLock().unlock();
+        Assertions.assertThat(lock.tryOptimisticRead()).isZero();
+        lock.writeLock().unlock();
+
+        Assertions.assertThat(lock.validate(stamp)).isFalse();
+        final long newStamp = lock.tryOptimisticRead();
+        Assertions.assertThat(newStamp).isNotZero();
+        Assertions.assertThat(lock.validate(newStamp)).isTrue();
+    }
+
+    @Test
+    public void testWrapped() {
+        final IOptimisticReadWriteLock lock = Locks.newOptimisticReadWriteLock("testWrapped");
+        final long stamp = lock.tryOptimisticRead();
+        lock.writeLock().lock();
+        Assertions.assertThat(lock.isWriteLockedByCurrentThread()).isTrue();
+        Assertions.assertThat(lock.tryOptimisticRead()).isZero();
+        lock.writeLock().unlock();
+        Assertions.assertThat(lock.validate(stamp)).isFalse();
+    }
+
+    @Test
+    public void testOptimisticReadFallsBackToReadLock() {
+        final StampedReentrantReadWriteLock lock = new StampedReentrantReadWriteLock();
+        final AtomicInteger reads = new AtomicInteger();
+        Assertions.assertThat(lock.optimisticReadInt(reads::incrementAndGet)).isEqualTo(1);
+        //reentrant read while holding the write lock
+        lock.writeLock().lock();
+        try {
+            Assertions.assertThat(lock.optimisticReadInt(reads::incrementAndGet)).isEqualTo(2);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        //exceptions of the optimistic read are treated like a failed validation
+        Assertions.assertThat(lock.optimisticReadBoolean(() -> {
+            if (reads.incrementAndGet() == 3) {
+                throw new ArrayIndexOutOfBoundsException("torn read");
+            }
+            return true;
+        })).isTrue();
+        Assertions.assertThat(reads.get()).isEqualTo(4);
+
+        final IOptimisticReadWriteLock wrapped = Locks
+                .newOptimisticReadWriteLock("testOptimisticReadFallsBackToReadLock");
+        wrapped.writeLock().lock();
+        try {
+            Assertions.assertThat(wrapped.optimisticReadBoolean(() -> wrapped.getReadHoldCount() == 1)).isTrue();
+        } finally {
+            wrapped.writeLock().unlock();
+        }
+    }
+
+    @Test
+    public void testLookupsDuringRehashAreConsistent() throws InterruptedException {
+        final int keys = 10_000;
+        final ReadWriteLockedInt2IntMap map = new ReadWriteLockedInt2IntMap();
+        final AtomicBoolean finished = new AtomicBoolean();
+        final AtomicInteger inconsistent = new AtomicInteger();
+        final Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (!finished.get()) {
+                    for (int i = 1; i < keys; i++) {
+                        final int value = map.get(i);
+                        if (value != 0 && value != i * 2) {
+                            inconsistent.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        //causes many rehashes while the readers do lookups
+        for (int repetition = 0; repetition < 10; repetition++) {
+            for (int i = 1; i < keys; i++) {
+                map.put(i, i * 2);
+            }
+            map.clear();
+        }
+        finished.set(true);
+        for (int r = 0; r < readers.length; r++) {
+            readers[r].join();
+        }
+        Assertions.assertThat(inconsistent.get()).isZero();
+    }
+
+}
@@ -0,0 +1,84 @@
+package de.invesdwin.util.concurrent.lock.strategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.concurrent.lock.strategy.AdaptiveLockingStrategy.AdaptiveLockingMode;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.duration.Duration;
+
+@NotThreadSafe
+public class AdaptiveLockingStrategyTest {
+
+    private static final int ITERATIONS = 100;
+
+    private final AdaptiveLockingStrategy prototype = new AdaptiveLockingStrategy(
+            new Duration(100, FTimeUnit.MICROSECONDS), new Duration(500, FTimeUnit.MICROSECONDS), 1);
+
+    @Test
+    public void testShortHoldSpins() {
+        final AdaptiveLockingStrategy strategy = (AdaptiveLockingStrategy) prototype.forLock("short");
+        final ReentrantLock lock = new ReentrantLock();
+        for (int i = 0; i < ITERATIONS; i++) {
+            strategy.lock(lock);
+            strategy.unlock(lock);
+        }
+        Assertions.assertThat(strategy.getLockName()).isEqualTo("short");
+        Assertions.assertThat(strategy.getMode()).isEqualTo(AdaptiveLockingMode.Spin);
+        Assertions.assertThat(strategy.getAcquisitionCount()).isEqualTo(ITERATIONS);
+        Assertions.assertThat(strategy.getContendedCount()).isZero();
+        Assertions.assertThat(lock.isLocked()).isFalse();
+    }
+
+    @Test
+    public void testLongHoldParks() throws InterruptedException {
+        final AdaptiveLockingStrategy strategy = (AdaptiveLockingStrategy) prototype.forLock("long");
+        final ReentrantLock lock = new ReentrantLock();
+        for (int i = 0; i < 10; i++) {
+            strategy.lock(lock);
+            try {
+                FTimeUnit.MILLISECONDS.sleep(2);
+            } finally {
+                strategy.unlock(lock);
+            }
+        }
+        Assertions.assertThat(strategy.getMode()).isEqualTo(AdaptiveLockingMode.Park);
+        Assertions.assertThat(strategy.getAverageHold().isGreaterThan(new Duration(1, FTimeUnit.MILLISECONDS)))
+                .isTrue();
+        Assertions.assertThat(AdaptiveLockingStrategy.getActiveInstances()).contains(strategy);
+    }
+
+    @Test
+    public void testContendedTryLockTimesOut() throws InterruptedException {
+        final AdaptiveLockingStrategy strategy = (AdaptiveLockingStrategy) prototype.forLock("contended");
+        final ReentrantLock lock = new ReentrantLock();
+        final Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                FTimeUnit.MILLISECONDS.sleep(100);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.start();
+        while (!lock.isLocked()) {
+            Thread.yield();
+        }
+        Assertions.assertThat(strategy.tryLock(lock)).isFalse();
+        Assertions.assertThat(strategy.tryLock(lock, 1, TimeUnit.MILLISECONDS)).isFalse();
+        strategy.lockInterruptibly(lock);
+        strategy.unlock(lock);
+        holder.join();
+        Assertions.assertThat(strategy.getContendedCount()).isEqualTo(1);
+        Assertions.assertThat(strategy.getAcquisitionCount()).isEqualTo(1);
+        Assertions.assertThat(strategy.getMode()).isEqualTo(AdaptiveLockingMode.Park);
+    }
+
+}
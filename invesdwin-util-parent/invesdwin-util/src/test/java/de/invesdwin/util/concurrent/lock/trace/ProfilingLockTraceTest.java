@@ -0,0 +1,144 @@
+package de.invesdwin.util.concurrent.lock.trace;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.concurrent.lock.ILock;
+import de.invesdwin.util.concurrent.lock.Locks;
+import de.invesdwin.util.concurrent.lock.readwrite.IReentrantReadWriteLock;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.duration.Duration;
+
+@NotThreadSafe
+public class ProfilingLockTraceTest {
+
+    @Test
+    public void testContention() throws InterruptedException {
+        final ProfilingLockTrace trace = new ProfilingLockTrace(DisabledLockTrace.INSTANCE, 1, Duration.ZERO);
+        final ILock lock = trace.wrap("ProfilingLockTraceTest_lock_2", new ReentrantLock());
+        final CountDownLatch locked = new CountDownLatch(1);
+        final Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                FTimeUnit.MILLISECONDS.sleep(50);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+        lock.lock();
+        lock.unlock();
+        holder.join();
+
+        //the sequence number gets removed to aggregate all instances
+        Assertions.assertThat(trace.getSnapshot("ProfilingLockTraceTest_lock_2")).isNull();
+        final LockContentionSnapshot snapshot = trace.getSnapshot("ProfilingLockTraceTest_lock");
+        Assertions.assertThat(snapshot.getAcquisitionCount()).isEqualTo(2);
+        Assertions.assertThat(snapshot.getSampledHoldCount()).isEqualTo(2);
+        Assertions.assertThat(snapshot.getHoldNanosMax())
+                .isGreaterThanOrEqualTo(new Duration(40, FTimeUnit.MILLISECONDS).nanosValue());
+        Assertions.assertThat(snapshot.getContendedCount()).isEqualTo(1);
+        Assertions.assertThat(snapshot.getWaitNanosMax())
+                .isGreaterThanOrEqualTo(new Duration(10, FTimeUnit.MILLISECONDS).nanosValue());
+        Assertions.assertThat(snapshot.getTopCallSites()).hasSize(1);
+        Assertions.assertThat(snapshot.getTopCallSites().get(0).getCallSite())
+                .contains(ProfilingLockTraceTest.class.getName());
+        Assertions.assertThat(trace.dump()).contains("ProfilingLockTraceTest_lock");
+    }
+
+    @Test
+    public void testUncontendedDoesNotWait() throws InterruptedException {
+        final ProfilingLockTrace trace = new ProfilingLockTrace(DisabledLockTrace.INSTANCE, 1, Duration.ZERO);
+        final ILock lock = trace.wrap("ProfilingLockTraceTest_uncontendedLock", new ReentrantLock());
+        for (int i = 0; i < 10; i++) {
+            lock.lock();
+            lock.unlock();
+            lock.lockInterruptibly();
+            lock.unlock();
+            Assertions.assertThat(lock.tryLock(1, FTimeUnit.SECONDS.timeUnitValue())).isTrue();
+            lock.unlock();
+        }
+        final LockContentionSnapshot snapshot = trace.getSnapshot("ProfilingLockTraceTest_uncontendedLock");
+        Assertions.assertThat(snapshot.getAcquisitionCount()).isEqualTo(30);
+        Assertions.assertThat(snapshot.getSampledHoldCount()).isEqualTo(30);
+        Assertions.assertThat(snapshot.getSampledWaitCount()).isZero();
+        Assertions.assertThat(snapshot.getContendedCount()).isZero();
+    }
+
+    @Test
+    public void testFailedTryLockDoesNotWait() throws InterruptedException {
+        final ProfilingLockTrace trace = new ProfilingLockTrace(DisabledLockTrace.INSTANCE, 1, Duration.ZERO);
+        final ILock lock = trace.wrap("ProfilingLockTraceTest_failedLock", new ReentrantLock());
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+        Assertions.assertThat(lock.tryLock(1, FTimeUnit.MILLISECONDS.timeUnitValue())).isFalse();
+        release.countDown();
+        holder.join();
+        FTimeUnit.MILLISECONDS.sleep(20);
+        //the pending acquisition of the failed tryLock should not be attributed to this one
+        Assertions.assertThat(lock.tryLock()).isTrue();
+        lock.unlock();
+        final LockContentionSnapshot snapshot = trace.getSnapshot("ProfilingLockTraceTest_failedLock");
+        Assertions.assertThat(snapshot.getAcquisitionCount()).isEqualTo(2);
+        Assertions.assertThat(snapshot.getSampledWaitCount()).isZero();
+        Assertions.assertThat(snapshot.getContendedCount()).isZero();
+    }
+
+    @Test
+    public void testProfilingDoesNotEnableTrace() {
+        Assertions.assertThat(Locks.isLockTraceEnabled(new ProfilingLockTrace(DisabledLockTrace.INSTANCE))).isFalse();
+        Assertions.assertThat(Locks.isLockTraceEnabled(new ProfilingLockTrace(EnabledLockTrace.INSTANCE))).isTrue();
+    }
+
+    @Test
+    public void testSampling() {
+        final ProfilingLockTrace trace = new ProfilingLockTrace(DisabledLockTrace.INSTANCE, 10,
+                ProfilingLockTrace.DEFAULT_CALL_SITE_MIN_WAIT);
+        Assertions.assertThat(trace.getSampleInterval()).isEqualTo(16);
+        final IReentrantReadWriteLock lock = trace.wrap("ProfilingLockTraceTest_readWriteLock",
+                new ReentrantReadWriteLock());
+        for (int i = 0; i < 64; i++) {
+            lock.readLock().lock();
+            lock.readLock().unlock();
+            if (lock.writeLock().tryLock()) {
+                lock.writeLock().unlock();
+            }
+        }
+        final LockContentionSnapshot readSnapshot = trace
+                .getSnapshot("ProfilingLockTraceTest_readWriteLock_readLock");
+        Assertions.assertThat(readSnapshot.getAcquisitionCount()).isEqualTo(64);
+        final LockContentionSnapshot writeSnapshot = trace
+                .getSnapshot("ProfilingLockTraceTest_readWriteLock_writeLock");
+        Assertions.assertThat(writeSnapshot.getAcquisitionCount()).isEqualTo(64);
+        Assertions.assertThat(readSnapshot.getSampledHoldCount() + writeSnapshot.getSampledHoldCount())
+                .isEqualTo(128 / 16);
+        Assertions.assertThat(trace.getSnapshots(1)).hasSize(2);
+        trace.reset();
+        Assertions.assertThat(trace.getSnapshot("ProfilingLockTraceTest_readWriteLock_readLock").getAcquisitionCount())
+                .isZero();
+    }
+
+}
@@ -0,0 +1,192 @@
+package de.invesdwin.util.concurrent.priority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.concurrent.Executors;
+import de.invesdwin.util.concurrent.WrappedExecutorService;
+import de.invesdwin.util.concurrent.future.Futures;
+import de.invesdwin.util.time.date.FTimeUnit;
+import de.invesdwin.util.time.duration.Duration;
+
+@NotThreadSafe
+public class WorkStealingPriorityExecutorTest {
+
+    private int executed = 0;
+
+    @BeforeEach
+    public void before() {
+        executed = 0;
+    }
+
+    @Test
+    public void testCallable() throws InterruptedException {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(new IPriorityCallable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                Assertions.assertThat(executed).isEqualTo(0);
+                FTimeUnit.MILLISECONDS.sleep(100);
+                return null;
+            }
+
+            @Override
+            public double getPriority() {
+                return 0;
+            }
+        });
+        for (int i = 10; i >= 1; i--) {
+            final int priority = i;
+            tasks.add(new IPriorityCallable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    executed++;
+                    Assertions.assertThat(executed).isEqualTo(priority);
+                    FTimeUnit.MILLISECONDS.sleep(100);
+                    return null;
+                }
+
+                @Override
+                public double getPriority() {
+                    return priority;
+                }
+            });
+        }
+        final WrappedExecutorService executor = Executors.newFixedPriorityThreadPool("testCallable", 1);
+        Futures.submitAndGet(executor, tasks);
+    }
+
+    @Test
+    public void testRunnable() throws InterruptedException {
+        final List<Runnable> tasks = new ArrayList<>();
+        tasks.add(new IPriorityRunnable() {
+            @Override
+            public void run() {
+                Assertions.assertThat(executed).isEqualTo(0);
+                try {
+                    FTimeUnit.MILLISECONDS.sleep(100);
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override
+            public double getPriority() {
+                return 0;
+            }
+        });
+        for (int i = 10; i >= 1; i--) {
+            final int priority = i;
+            tasks.add(new IPriorityRunnable() {
+
+                @Override
+                public void run() {
+                    executed++;
+                    Assertions.assertThat(executed).isEqualTo(priority);
+                    try {
+                        FTimeUnit.MILLISECONDS.sleep(100);
+                    } catch (final InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+
+                @Override
+                public double getPriority() {
+                    return priority;
+                }
+            });
+        }
+        final WrappedExecutorService executor = Executors.newFixedPriorityThreadPool("testRunnable", 1);
+        Futures.submitAndWait(executor, tasks);
+    }
+
+    @Test
+    public void testAgingPreventsStarvation() throws InterruptedException {
+        final WorkStealingPriorityExecutor executor = new WorkStealingPriorityExecutor(1,
+                Executors.newFastThreadLocalThreadFactory("testAgingPreventsStarvation"),
+                new Duration(50, FTimeUnit.MILLISECONDS));
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        started.await();
+        executor.execute(newRecordingRunnable(order, "low", IPriorityProvider.MISSING_PRIORITY));
+        executor.execute(newRecordingRunnable(order, "high", 1));
+        FTimeUnit.MILLISECONDS.sleep(100);
+        release.countDown();
+        final ListenableFuture<?> future = executor.submit(newRecordingRunnable(order, "last", 2));
+        final AtomicBoolean listenerCalled = new AtomicBoolean();
+        future.addListener(() -> listenerCalled.set(true), Executors.SIMPLE_DISABLED_EXECUTOR);
+        Futures.waitNoInterrupt(future);
+        executor.shutdown();
+        Assertions.assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        //the low priority task waited longer than maxAge and thus runs before the high priority one
+        Assertions.assertThat(order).containsExactly("low", "high", "last");
+        Assertions.assertThat(listenerCalled.get()).isTrue();
+    }
+
+    @Test
+    public void testBlockingTasksRunConcurrentlyWhileOneWorkerIsIdle() throws InterruptedException {
+        final int parallelism = 4;
+        final WorkStealingPriorityExecutor executor = new WorkStealingPriorityExecutor(parallelism,
+                Executors.newFastThreadLocalThreadFactory("testBlockingTasksRunConcurrentlyWhileOneWorkerIsIdle"));
+        //let the first worker become idle
+        Futures.waitNoInterrupt(executor.submit(() -> {}));
+        FTimeUnit.MILLISECONDS.sleep(10);
+        Assertions.checkEquals(1, executor.getAliveCount());
+        final CountDownLatch barrier = new CountDownLatch(parallelism);
+        final List<ListenableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            futures.add(executor.submit(() -> {
+                barrier.countDown();
+                try {
+                    //only returns when all tasks run at the same time
+                    Assertions.checkTrue(barrier.await(10, TimeUnit.SECONDS));
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        Futures.waitPropagatingNoInterrupt(futures);
+        Assertions.checkEquals(parallelism, executor.getAliveCount());
+        executor.shutdown();
+        Assertions.assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+    }
+
+    private static IPriorityRunnable newRecordingRunnable(final List<String> order, final String name,
+            final double priority) {
+        return new IPriorityRunnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+
+            @Override
+            public double getPriority() {
+                return priority;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,34 @@
+package de.invesdwin.util.math.expression;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.collections.array.primitive.IDoublePrimitiveArray;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKeyBatch;
+
+@NotThreadSafe
+public class ExpressionBatchEvaluationTest {
+
+    @Test
+    public void testEvaluateDoubleKeyBatch() {
+        for (final String expression : KeyVariableExpressions.EXPRESSIONS) {
+            final IExpression parsed = KeyVariableExpressions.parse(expression);
+            final IEvaluateDoubleKey perKey = parsed.newEvaluateDoubleKey();
+            final IEvaluateDoubleKeyBatch batch = parsed.newEvaluateDoubleKeyBatch();
+            final IDoublePrimitiveArray values = IDoublePrimitiveArray.newInstance(20);
+            batch.evaluateDoubles(5, values);
+            for (int i = 0; i < values.size(); i++) {
+                Assertions.checkEquals(perKey.evaluateDouble(5 + i), values.get(i));
+            }
+            final IDoublePrimitiveArray slice = IDoublePrimitiveArray.newInstance(30).slice(10, 7);
+            batch.evaluateDoubles(3, slice);
+            for (int i = 0; i < slice.size(); i++) {
+                Assertions.checkEquals(perKey.evaluateDouble(3 + i), slice.get(i));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package de.invesdwin.util.math.expression;
+
+import javax.annotation.concurrent.Immutable;
+
+import de.invesdwin.util.math.expression.eval.variable.AVariableReference;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.variable.IDoubleVariable;
+
+/**
+ * Expressions over a variable x that depends on the key, used to compare the different evaluation paths against each
+ * other in tests and benchmarks.
+ */
+@Immutable
+public final class KeyVariableExpressions {
+
+    public static final String[] EXPRESSIONS = { "x", "x + 2 * x", "x / (x - 3)", "(x + 1) ^ 2 % 5",
+            "if(x > 2, x * 2, x - 1)", "if(1, x, 2)", "if(x >= 3 && x < 6, x, -x)", "x >= 3", "x == 4", "NaN + x",
+            "x > NaN", "sin(x) + cos(x) * x", "atan2(x, 2) ^ 2 - abs(-x)",
+            "if(x > 1, if(x > 4, 1, 2), sqrt(x)) - x / 2" };
+
+    public static final IDoubleVariable X = new IDoubleVariable() {
+
+        @Override
+        public String getExpressionName() {
+            return "x";
+        }
+
+        @Override
+        public String getName() {
+            return "x";
+        }
+
+        @Override
+        public String getDescription() {
+            return null;
+        }
+
+        @Override
+        public boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        public Object getProperty(final String property) {
+            return null;
+        }
+
+        @Override
+        public IEvaluateDoubleKey newEvaluateDoubleKey(final String context) {
+            return key -> value(key);
+        }
+
+        @Override
+        public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context) {
+            return key -> value(key.asFDate().millisValue());
+        }
+
+        @Override
+        public IEvaluateDouble newEvaluateDouble(final String context) {
+            return () -> value(0);
+        }
+    };
+
+    private KeyVariableExpressions() {}
+
+    public static double value(final long key) {
+        return key % 9 - 2;
+    }
+
+    public static IExpression parse(final String expression) {
+        return new ExpressionParser(expression) {
+            @Override
+            public AVariableReference<?> getVariable(final String context, final String name) {
+                if (X.getExpressionName().equals(name)) {
+                    return X.newReference(context);
+                }
+                return super.getVariable(context, name);
+            }
+        }.parse();
+    }
+
+}
@@ -0,0 +1,42 @@
+package de.invesdwin.util.math.expression.compiler;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.math.expression.IExpression;
+import de.invesdwin.util.math.expression.KeyVariableExpressions;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.time.date.FDate;
+
+@NotThreadSafe
+public class ExpressionCompilerTest {
+
+    @Test
+    public void testEvaluateDoubleKey() {
+        for (final String expression : KeyVariableExpressions.EXPRESSIONS) {
+            final IExpression parsed = KeyVariableExpressions.parse(expression);
+            final IEvaluateDoubleKey interpreted = parsed.newEvaluateDoubleKey();
+            final IEvaluateDoubleKey compiled = ExpressionCompiler.newEvaluateDoubleKey(parsed);
+            for (long key = 0; key < 20; key++) {
+                Assertions.checkEquals(interpreted.evaluateDouble(key), compiled.evaluateDouble(key));
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluateDoubleFDate() {
+        for (final String expression : KeyVariableExpressions.EXPRESSIONS) {
+            final IExpression parsed = KeyVariableExpressions.parse(expression);
+            final IEvaluateDoubleFDate interpreted = parsed.newEvaluateDoubleFDate();
+            final IEvaluateDoubleFDate compiled = ExpressionCompiler.newEvaluateDoubleFDate(parsed);
+            for (long key = 0; key < 20; key++) {
+                final FDate date = new FDate(key);
+                Assertions.checkEquals(interpreted.evaluateDouble(date), compiled.evaluateDouble(date));
+            }
+        }
+    }
+
+}
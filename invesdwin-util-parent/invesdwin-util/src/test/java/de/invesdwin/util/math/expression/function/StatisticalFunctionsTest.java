@@ -0,0 +1,171 @@
+package de.invesdwin.util.math.expression.function;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.math.Doubles;
+import de.invesdwin.util.math.expression.ExpressionParser;
+import de.invesdwin.util.math.expression.IExpression;
+import de.invesdwin.util.math.expression.eval.variable.AVariableReference;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDouble;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleFDate;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.expression.variable.IDoubleVariable;
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+import de.invesdwin.util.time.date.IFDateProvider;
+
+@NotThreadSafe
+public class StatisticalFunctionsTest {
+
+    private static final int VALUES_COUNT = 1_000;
+    private static final int WINDOW = 20;
+    private static final Offset<Double> TOLERANCE = Offset.offset(1E-6);
+    private static final String[] FUNCTIONS = { "count", "sum", "avg", "variance", "sampleVariance", "stddev",
+            "sampleStddev" };
+
+    private final double[] values = newValues();
+
+    @Test
+    public void testRollingSameAsHistorical() {
+        for (final String function : FUNCTIONS) {
+            final String rollingFunction = "rolling" + Character.toUpperCase(function.charAt(0))
+                    + function.substring(1);
+            final IEvaluateDoubleKey historicalF = parse(function + "(value, " + WINDOW + ")");
+            final IEvaluateDoubleKey rollingF = parse(rollingFunction + "(value, " + WINDOW + ")");
+            //sequential access
+            for (int key = 0; key < VALUES_COUNT; key++) {
+                assertEquals(historicalF.evaluateDouble(key), rollingF.evaluateDouble(key));
+            }
+            //full walk on a random key followed by sequential access
+            final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(1);
+            for (int i = 0; i < 20; i++) {
+                final int key = WINDOW + random.nextInt(VALUES_COUNT - WINDOW * 2);
+                for (int push = 0; push <= WINDOW; push++) {
+                    assertEquals(historicalF.evaluateDouble(key + push), rollingF.evaluateDouble(key + push));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHistoricalPicksUpChangedOlderValues() {
+        final IEvaluateDoubleKey sumF = parse("sum(value, " + WINDOW + ")");
+        final int key = WINDOW * 2;
+        final double sumBefore = sumF.evaluateDouble(key);
+        values[key - 5] += 100;
+        Assertions.assertThat(sumF.evaluateDouble(key)).isCloseTo(sumBefore + 100, TOLERANCE);
+        Assertions.assertThat(sumF.evaluateDouble(key + 1)).isCloseTo(naiveSum(key + 1), TOLERANCE);
+    }
+
+    private double naiveSum(final int key) {
+        double sum = 0D;
+        for (int i = key - WINDOW + 1; i <= key; i++) {
+            if (!Doubles.isNaN(values[i])) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    private IEvaluateDoubleKey parse(final String expression) {
+        final IExpression parsed = new ExpressionParser(expression) {
+            @Override
+            protected IPreviousKeyFunction getPreviousKeyFunction(final String context) {
+                return new IPreviousKeyFunction() {
+
+                    @Override
+                    public long getPreviousKey(final long key, final int index) {
+                        //clamp at the first key like a historical cache does
+                        return Math.max(0, key - index);
+                    }
+
+                    @Override
+                    public IFDateProvider getPreviousKey(final IFDateProvider key, final int index) {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public AVariableReference<?> getVariable(final String context, final String name) {
+                if ("value".equals(name)) {
+                    return new ValuesVariable().newReference(context);
+                }
+                return super.getVariable(context, name);
+            }
+        }.parse();
+        return parsed.newEvaluateDoubleKey();
+    }
+
+    private static void assertEquals(final double expected, final double actual) {
+        if (Doubles.isNaN(expected)) {
+            Assertions.checkEquals(expected, actual);
+        } else {
+            //the rolling variance accumulates rounding errors relative to the magnitude of the values
+            final double tolerance = Doubles.max(TOLERANCE.value, Math.abs(expected) * 1E-9);
+            Assertions.assertThat(actual).isCloseTo(expected, Offset.offset(tolerance));
+        }
+    }
+
+    private static double[] newValues() {
+        final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(0);
+        final double[] values = new double[VALUES_COUNT];
+        for (int i = 0; i < values.length; i++) {
+            if (i % 17 == 0) {
+                values[i] = Double.NaN;
+            } else {
+                values[i] = random.nextDouble() * 1000D - 500D;
+            }
+        }
+        return values;
+    }
+
+    private final class ValuesVariable implements IDoubleVariable {
+
+        @Override
+        public String getExpressionName() {
+            return "value";
+        }
+
+        @Override
+        public String getName() {
+            return "Value";
+        }
+
+        @Override
+        public String getDescription() {
+            return "The values of the test series.";
+        }
+
+        @Override
+        public boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        public Object getProperty(final String property) {
+            return null;
+        }
+
+        @Override
+        public IEvaluateDoubleKey newEvaluateDoubleKey(final String context) {
+            return key -> values[(int) key];
+        }
+
+        @Override
+        public IEvaluateDoubleFDate newEvaluateDoubleFDate(final String context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IEvaluateDouble newEvaluateDouble(final String context) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package de.invesdwin.util.math.expression.function.rolling;
+
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.math.Doubles;
+import de.invesdwin.util.math.expression.function.IPreviousKeyFunction;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+import de.invesdwin.util.math.random.IRandomGenerator;
+import de.invesdwin.util.math.random.PseudoRandomGenerators;
+import de.invesdwin.util.time.date.IFDateProvider;
+
+@NotThreadSafe
+public class RollingWindowEvaluateDoubleKeyTest {
+
+    private static final int VALUES_COUNT = 5_000;
+    private static final int WINDOW = 50;
+    private static final Offset<Double> TOLERANCE = Offset.offset(1E-6);
+
+    private static final IPreviousKeyFunction PREVIOUS_KEY_FUNCTION = new IPreviousKeyFunction() {
+
+        @Override
+        public long getPreviousKey(final long key, final int index) {
+            //clamp at the first key like a historical cache does
+            return Math.max(0, key - index);
+        }
+
+        @Override
+        public IFDateProvider getPreviousKey(final IFDateProvider key, final int index) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private final double[] values = newValues();
+
+    @Test
+    public void testSum() {
+        assertSameAsFullWalk(() -> new RollingSumAggregate());
+    }
+
+    @Test
+    public void testAvg() {
+        assertSameAsFullWalk(() -> new RollingAvgAggregate());
+    }
+
+    @Test
+    public void testCount() {
+        assertSameAsFullWalk(() -> new RollingCountAggregate());
+    }
+
+    @Test
+    public void testVariance() {
+        assertSameAsFullWalk(() -> RollingVarianceAggregate.newVariance());
+        assertSameAsFullWalk(() -> RollingVarianceAggregate.newSampleVariance());
+    }
+
+    @Test
+    public void testStandardDeviation() {
+        assertSameAsFullWalk(() -> RollingVarianceAggregate.newStandardDeviation());
+        assertSameAsFullWalk(() -> RollingVarianceAggregate.newSampleStandardDeviation());
+    }
+
+    @Test
+    public void testMinimum() {
+        assertSameAsFullWalk(() -> new RollingMinimumAggregate());
+    }
+
+    @Test
+    public void testMaximum() {
+        assertSameAsFullWalk(() -> new RollingMaximumAggregate());
+    }
+
+    @Test
+    public void testMedian() {
+        assertSameAsFullWalk(() -> new RollingSortedAggregate());
+    }
+
+    private void assertSameAsFullWalk(final Supplier<IRollingWindowAggregate> aggregateFactory) {
+        final IEvaluateDoubleKey valueF = key -> values[(int) key];
+        final RollingWindowEvaluateDoubleKey rolling = new RollingWindowEvaluateDoubleKey(valueF, key -> WINDOW,
+                PREVIOUS_KEY_FUNCTION, aggregateFactory.get());
+        //sequential access
+        for (int key = 0; key < VALUES_COUNT; key++) {
+            assertEquals(fullWalk(aggregateFactory.get(), key), rolling.evaluateDouble(key));
+            //repeated access on the same key
+            assertEquals(fullWalk(aggregateFactory.get(), key), rolling.evaluateDouble(key));
+        }
+        //random access
+        final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(1);
+        for (int i = 0; i < 1000; i++) {
+            final int key = random.nextInt(VALUES_COUNT);
+            assertEquals(fullWalk(aggregateFactory.get(), key), rolling.evaluateDouble(key));
+        }
+        //random access away from the clamped first key followed by sequential access
+        for (int i = 0; i < 100; i++) {
+            final int key = WINDOW + random.nextInt(VALUES_COUNT - WINDOW * 2);
+            for (int push = 0; push <= WINDOW; push++) {
+                assertEquals(fullWalk(aggregateFactory.get(), key + push), rolling.evaluateDouble(key + push));
+            }
+        }
+    }
+
+    @Test
+    public void testMaximumPushAfterFullWalk() {
+        final double[] window = { Double.NaN, 5, 1, 3, 2, 0, 0 };
+        final RollingWindowEvaluateDoubleKey rolling = new RollingWindowEvaluateDoubleKey(key -> window[(int) key],
+                key -> 3, PREVIOUS_KEY_FUNCTION, new RollingMaximumAggregate());
+        Assertions.checkEquals(5D, rolling.evaluateDouble(3));
+        Assertions.checkEquals(3D, rolling.evaluateDouble(4));
+        Assertions.checkEquals(3D, rolling.evaluateDouble(5));
+        Assertions.checkEquals(2D, rolling.evaluateDouble(6));
+    }
+
+    /**
+     * Naive recomputation that feeds the window from the oldest to the newest value.
+     */
+    private double fullWalk(final IRollingWindowAggregate aggregate, final long key) {
+        final double[] window = new double[WINDOW];
+        long curKey = key;
+        for (int i = WINDOW - 1; i >= 0; i--) {
+            window[i] = values[(int) curKey];
+            curKey = PREVIOUS_KEY_FUNCTION.getPreviousKey(curKey, 1);
+        }
+        for (int i = 0; i < window.length; i++) {
+            if (!Doubles.isNaN(window[i])) {
+                aggregate.add(window[i]);
+            }
+        }
+        return aggregate.getValue();
+    }
+
+    private static void assertEquals(final double expected, final double actual) {
+        if (Doubles.isNaN(expected)) {
+            Assertions.checkEquals(expected, actual);
+        } else {
+            Assertions.assertThat(actual).isCloseTo(expected, TOLERANCE);
+        }
+    }
+
+    private static double[] newValues() {
+        final IRandomGenerator random = PseudoRandomGenerators.newPseudoRandom(0);
+        final double[] values = new double[VALUES_COUNT];
+        for (int i = 0; i < values.length; i++) {
+            if (i % 17 == 0) {
+                values[i] = Double.NaN;
+            } else {
+                values[i] = random.nextDouble() * 1000D - 500D;
+            }
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,147 @@
+package de.invesdwin.util.math.expression.multiple;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.math.expression.IExpression;
+import de.invesdwin.util.math.expression.IFunctionParameterInfo;
+import de.invesdwin.util.math.expression.eval.IParsedExpression;
+import de.invesdwin.util.math.expression.eval.function.ADoubleUnaryFunction;
+import de.invesdwin.util.math.expression.eval.operation.DoubleBinaryOperation;
+import de.invesdwin.util.math.expression.eval.operation.Op;
+import de.invesdwin.util.math.expression.eval.operation.simple.IntegerBinaryOperation;
+import de.invesdwin.util.math.expression.function.AFunction;
+import de.invesdwin.util.math.expression.lambda.IEvaluateBooleanKey;
+import de.invesdwin.util.math.expression.lambda.IEvaluateDoubleKey;
+
+@NotThreadSafe
+public class SharedSubexpressionsTest {
+
+    private int evaluations;
+    private double offset;
+
+    private final AFunction tracked = new ADoubleUnaryFunction() {
+
+        @Override
+        public boolean isNaturalFunction(final IExpression[] args) {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return getExpressionName();
+        }
+
+        @Override
+        public String getExpressionName() {
+            return "tracked";
+        }
+
+        @Override
+        protected double eval(final double a) {
+            evaluations++;
+            return a + offset;
+        }
+
+        @Override
+        protected IFunctionParameterInfo getParameterInfo(final int index) {
+            return null;
+        }
+
+        @Override
+        public String getDescription() {
+            return null;
+        }
+
+        @Override
+        public Object getProperty(final String property) {
+            return null;
+        }
+    };
+
+    private IExpression parse(final String expression, final SharedSubexpressions sharedSubexpressions) {
+        return new MultipleExpressionParser(expression) {
+            @Override
+            protected AFunction getFunction(final String context, final String name) {
+                if (tracked.getExpressionName().equalsIgnoreCase(name)) {
+                    return tracked;
+                }
+                return super.getFunction(context, name);
+            }
+
+            @Override
+            protected SharedSubexpressions getSharedSubexpressions() {
+                return sharedSubexpressions;
+            }
+        }.parse();
+    }
+
+    @Test
+    public void testSharedBetweenExpressions() {
+        final SharedSubexpressions sharedSubexpressions = new SharedSubexpressions();
+        final IExpression entry = parse("tracked(2) * 3 > 1", sharedSubexpressions);
+        final IExpression exit = parse("var a = tracked(2) * 3; a < 10 && tracked(2) > 0", sharedSubexpressions);
+        final IEvaluateBooleanKey entryF = entry.newEvaluateBooleanKey();
+        final IEvaluateBooleanKey exitF = exit.newEvaluateBooleanKey();
+        for (long key = 0; key < 10; key++) {
+            Assertions.checkTrue(entryF.evaluateBoolean(key));
+            Assertions.checkTrue(exitF.evaluateBoolean(key));
+        }
+        Assertions.checkEquals(10, evaluations);
+    }
+
+    @Test
+    public void testNotShared() {
+        final IExpression entry = parse("tracked(2) * 3 > 1", null);
+        final IExpression exit = parse("var a = tracked(2) * 3; a < 10 && tracked(2) > 0", null);
+        final IEvaluateBooleanKey entryF = entry.newEvaluateBooleanKey();
+        final IEvaluateBooleanKey exitF = exit.newEvaluateBooleanKey();
+        for (long key = 0; key < 10; key++) {
+            Assertions.checkTrue(entryF.evaluateBoolean(key));
+            Assertions.checkTrue(exitF.evaluateBoolean(key));
+        }
+        Assertions.checkEquals(30, evaluations);
+    }
+
+    @Test
+    public void testSameVariableNameWithDifferentDefinition() {
+        final SharedSubexpressions sharedSubexpressions = new SharedSubexpressions();
+        final IEvaluateDoubleKey first = parse("var a = tracked(2); a + 1", sharedSubexpressions)
+                .newEvaluateDoubleKey();
+        final IEvaluateDoubleKey second = parse("var a = tracked(3); a + 1", sharedSubexpressions)
+                .newEvaluateDoubleKey();
+        Assertions.checkEquals(3D, first.evaluateDouble(0));
+        Assertions.checkEquals(4D, second.evaluateDouble(0));
+    }
+
+    @Test
+    public void testDifferentOperationClassesWithSameOp() {
+        final SharedSubexpressions sharedSubexpressions = new SharedSubexpressions();
+        final IParsedExpression left = (IParsedExpression) parse("tracked(2)", null);
+        final IParsedExpression right = (IParsedExpression) parse("tracked(3)", null);
+        final IParsedExpression doubleAdd = sharedSubexpressions.share(new DoubleBinaryOperation(Op.ADD, left, right));
+        final IParsedExpression integerAdd = sharedSubexpressions
+                .share(new IntegerBinaryOperation(Op.ADD, left, right));
+        Assertions.assertThat(integerAdd).isNotSameAs(doubleAdd);
+        Assertions.checkEquals(4, sharedSubexpressions.size());
+    }
+
+    @Test
+    public void testInvalidateAfterNewestValueChanged() {
+        final SharedSubexpressions sharedSubexpressions = new SharedSubexpressions();
+        final IEvaluateDoubleKey entryF = parse("tracked(2) * 3", sharedSubexpressions).newEvaluateDoubleKey();
+        final IEvaluateDoubleKey exitF = parse("tracked(2) * 3 + 1", sharedSubexpressions).newEvaluateDoubleKey();
+        Assertions.checkEquals(6D, entryF.evaluateDouble(5));
+        Assertions.checkEquals(7D, exitF.evaluateDouble(5));
+        //live update of the newest key
+        offset = 1;
+        Assertions.checkEquals(6D, entryF.evaluateDouble(5));
+        sharedSubexpressions.invalidate();
+        Assertions.checkEquals(9D, entryF.evaluateDouble(5));
+        Assertions.checkEquals(10D, exitF.evaluateDouble(5));
+        Assertions.checkEquals(2, evaluations);
+    }
+
+}
@@ -0,0 +1,34 @@
+package de.invesdwin.util.math.statistics;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+
+@NotThreadSafe
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Assertions.assertThat(histogram.getCount()).isEqualTo(1000);
+        Assertions.assertThat(histogram.getMax()).isEqualTo(1_000_000);
+        final long p50 = histogram.getValueAtPercentile(50);
+        Assertions.assertThat(p50).isBetween(500_000L, (long) (500_000 * 1.125));
+        final long p99 = histogram.getValueAtPercentile(99);
+        Assertions.assertThat(p99).isBetween(990_000L, 1_000_000L);
+        histogram.reset();
+        Assertions.assertThat(histogram.getValueAtPercentile(99)).isEqualTo(0);
+        for (long value = 0; value < 100_000; value += 7) {
+            final long highestEquivalentValue = LatencyHistogram
+                    .highestEquivalentValue(LatencyHistogram.bucketIndex(value));
+            Assertions.assertThat(highestEquivalentValue).isGreaterThanOrEqualTo(value);
+            Assertions.assertThat(highestEquivalentValue).isLessThan((long) (value * 1.125) + 1);
+        }
+    }
+
+}
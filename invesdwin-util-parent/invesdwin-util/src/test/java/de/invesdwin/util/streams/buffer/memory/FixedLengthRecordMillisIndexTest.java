@@ -0,0 +1,82 @@
+package de.invesdwin.util.streams.buffer.memory;
+
+import java.nio.ByteOrder;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.time.date.BisectDuplicateKeyHandling;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDates;
+
+@NotThreadSafe
+public class FixedLengthRecordMillisIndexTest {
+
+    private static final int RECORDS = 2000;
+    private static final int RECORD_LENGTH = 20;
+    private static final int MILLIS_OFFSET = 4;
+    private static final int DUPLICATES = 3;
+    private static final int STEP = 10;
+
+    @Test
+    public void testBisectWithoutSkipIndex() {
+        testBisect(ByteOrder.BIG_ENDIAN, FixedLengthRecordMillisIndex.NO_SKIP_INDEX);
+    }
+
+    @Test
+    public void testBisectWithSkipIndex() {
+        testBisect(ByteOrder.BIG_ENDIAN, 1);
+        testBisect(ByteOrder.BIG_ENDIAN, 2);
+        testBisect(ByteOrder.BIG_ENDIAN, 7);
+        testBisect(ByteOrder.BIG_ENDIAN, 64);
+        testBisect(ByteOrder.BIG_ENDIAN, RECORDS - 1);
+    }
+
+    @Test
+    public void testBisectLittleEndian() {
+        testBisect(ByteOrder.LITTLE_ENDIAN, 64);
+    }
+
+    @Test
+    public void testEmpty() {
+        final FixedLengthRecordMillisIndex index = new FixedLengthRecordMillisIndex(EmptyMemoryBuffer.INSTANCE,
+                RECORD_LENGTH, MILLIS_OFFSET);
+        Assertions.checkEquals(FDates.MISSING_INDEX, index.bisect(0L));
+    }
+
+    private void testBisect(final ByteOrder order, final int skipInterval) {
+        final FDate[] keys = new FDate[RECORDS];
+        final IMemoryBuffer buffer = MemoryBuffers.allocate((long) RECORDS * RECORD_LENGTH);
+        for (int i = 0; i < RECORDS; i++) {
+            final long millis = (long) (i / DUPLICATES) * STEP;
+            keys[i] = new FDate(millis);
+            final long index = (long) i * RECORD_LENGTH;
+            //fill the other fields so that a wrong offset gets noticed
+            buffer.putInt(index, -1);
+            if (order == ByteOrder.BIG_ENDIAN) {
+                buffer.putLong(index + MILLIS_OFFSET, millis);
+            } else {
+                buffer.putLongReverse(index + MILLIS_OFFSET, millis);
+            }
+            buffer.putLong(index + MILLIS_OFFSET + Long.BYTES, -1L);
+        }
+        final FixedLengthRecordMillisIndex index = new FixedLengthRecordMillisIndex(buffer, RECORD_LENGTH,
+                MILLIS_OFFSET, order, skipInterval);
+        Assertions.checkEquals((long) RECORDS, index.size());
+        final long maxMillis = keys[RECORDS - 1].millisValue();
+        for (long millis = -STEP; millis <= maxMillis + STEP; millis++) {
+            final FDate key = new FDate(millis);
+            Assertions.checkEquals((long) FDates.bisect(keys, key, BisectDuplicateKeyHandling.LOWEST),
+                    index.bisect(millis, BisectDuplicateKeyHandling.LOWEST));
+            Assertions.checkEquals((long) FDates.bisect(keys, key, BisectDuplicateKeyHandling.HIGHEST),
+                    index.bisect(millis, BisectDuplicateKeyHandling.HIGHEST));
+            //undefined has to return one of the duplicates
+            final long undefined = index.bisect(millis);
+            Assertions.checkEquals(keys[(int) undefined],
+                    keys[FDates.bisect(keys, key, BisectDuplicateKeyHandling.UNDEFINED)]);
+        }
+    }
+
+}
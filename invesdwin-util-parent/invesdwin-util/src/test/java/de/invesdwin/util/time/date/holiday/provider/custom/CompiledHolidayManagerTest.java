@@ -0,0 +1,149 @@
+package de.invesdwin.util.time.date.holiday.provider.custom;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.junit.jupiter.api.Test;
+
+import de.invesdwin.util.assertions.Assertions;
+import de.invesdwin.util.time.date.FDate;
+import de.invesdwin.util.time.date.FDateBuilder;
+import de.invesdwin.util.time.date.FDates;
+import de.invesdwin.util.time.date.holiday.HolidayManagers;
+import de.invesdwin.util.time.date.holiday.IHolidayManager;
+import de.invesdwin.util.time.date.holiday.provider.custom.specific.NewYearsEveHolidayManager;
+import de.invesdwin.util.time.date.holiday.provider.custom.specific.WeekendHolidayManager;
+import de.invesdwin.util.time.date.holiday.provider.custom.specific.XetraFuturesWithRolloversHolidayManager;
+import de.invesdwin.util.time.date.timezone.FTimeZone;
+import de.invesdwin.util.time.date.timezone.TimeZones;
+
+@NotThreadSafe
+public class CompiledHolidayManagerTest {
+
+    private static final int FROM_YEAR = 2000;
+    private static final int TO_YEAR = 2010;
+
+    private final IHolidayManager delegate = new OrCombinedHolidayManager("TEST", WeekendHolidayManager.INSTANCE,
+            NewYearsEveHolidayManager.INSTANCE);
+    private final CompiledHolidayManager compiled = new CompiledHolidayManager(delegate, FROM_YEAR, TO_YEAR);
+
+    @Test
+    public void testIsHoliday() {
+        //also check the fallback outside of the year range
+        final FDate to = FDateBuilder.newDate(TO_YEAR + 2);
+        FDate day = FDateBuilder.newDate(FROM_YEAR - 1).addHours(12);
+        while (day.isBefore(to)) {
+            Assertions.checkEquals(delegate.isHoliday(day), compiled.isHoliday(day));
+            Assertions.checkEquals(delegate.isHoliday(day), compiled.isHoliday(day.millisValue()));
+            day = day.addDays(1);
+        }
+    }
+
+    @Test
+    public void testNextAndPreviousNonHoliday() {
+        final FDate to = FDateBuilder.newDate(TO_YEAR + 2);
+        FDate day = FDateBuilder.newDate(FROM_YEAR - 1).addHours(12);
+        while (day.isBefore(to)) {
+            Assertions.checkEquals(day.getNextNonHoliday(delegate), compiled.getNextNonHoliday(day));
+            Assertions.checkEquals(day.getNextNonHoliday(delegate), day.getNextNonHoliday(compiled));
+            FDate previous = day.withoutTime();
+            while (delegate.isHoliday(previous)) {
+                previous = previous.addDays(-1);
+            }
+            Assertions.checkEquals(previous, compiled.getPreviousNonHoliday(day));
+            day = day.addDays(1);
+        }
+    }
+
+    @Test
+    public void testCountNonHolidays() {
+        final FDate[] dates = { FDateBuilder.newDate(FROM_YEAR - 1, 12, 20), FDateBuilder.newDate(FROM_YEAR),
+                FDateBuilder.newDate(FROM_YEAR, 3, 7), FDateBuilder.newDate(2005, 12, 31),
+                FDateBuilder.newDate(TO_YEAR, 12, 31), FDateBuilder.newDate(TO_YEAR + 1, 1, 15) };
+        for (int i = 0; i < dates.length; i++) {
+            for (int j = i; j < dates.length; j++) {
+                Assertions.checkEquals(countNonHolidays(dates[i], dates[j]),
+                        compiled.countNonHolidays(dates[i], dates[j]));
+            }
+        }
+        Assertions.checkEquals(0, compiled.countNonHolidays(dates[1], dates[0]));
+    }
+
+    @Test
+    public void testNonUtcDefaultTimeZone() {
+        //fixed offsets on both sides of UTC, the uncompiled loop itself is not aligned to days across DST changes
+        final FTimeZone[] timeZones = { new FTimeZone(TimeZones.getTimeZone("Etc/GMT-9")), FTimeZone.EST };
+        final FTimeZone previousDefaultTimeZone = FDates.getDefaultTimeZone();
+        try {
+            for (final FTimeZone timeZone : timeZones) {
+                FDates.setDefaultTimeZone(timeZone);
+                final CompiledHolidayManager zoned = new CompiledHolidayManager(delegate, FROM_YEAR, TO_YEAR);
+                Assertions.checkEquals(timeZone.equals(compiled.getTimeZone()), compiled.isDefaultTimeZone());
+                final FDate to = FDateBuilder.newDate(FROM_YEAR + 1, 2, 1);
+                //hours that are close to the day boundaries in UTC and in the timezone
+                FDate date = FDateBuilder.newDate(FROM_YEAR - 1, 12, 1);
+                while (date.isBefore(to)) {
+                    Assertions.checkEquals(delegate.isHoliday(date), zoned.isHoliday(date));
+                    Assertions.checkEquals(delegate.isHoliday(date), compiled.isHoliday(date));
+                    Assertions.checkEquals(date.getNextNonHoliday(delegate), date.getNextNonHoliday(zoned));
+                    Assertions.checkEquals(date.getNextNonHoliday(delegate), date.getNextNonHoliday(compiled));
+                    Assertions.checkEquals(countNonHolidays(date, to), zoned.countNonHolidays(date, to));
+                    date = date.addHours(7);
+                }
+            }
+        } finally {
+            FDates.setDefaultTimeZone(previousDefaultTimeZone);
+        }
+    }
+
+    @Test
+    public void testMaybeWrapIsCached() {
+        final FDate date = FDateBuilder.newDate(2005, 12, 31);
+        final CompiledHolidayManager wrapped = CompiledHolidayManager.maybeWrap(delegate);
+        Assertions.checkSame(wrapped, CompiledHolidayManager.maybeWrap(delegate));
+        Assertions.checkSame(wrapped, CompiledHolidayManager.maybeWrap(wrapped));
+        final FTimeZone previousDefaultTimeZone = FDates.getDefaultTimeZone();
+        try {
+            FDates.setDefaultTimeZone(FTimeZone.EST);
+            final CompiledHolidayManager recompiled = CompiledHolidayManager.maybeWrap(delegate);
+            Assertions.checkNotSame(wrapped, recompiled);
+            Assertions.checkTrue(recompiled.isDefaultTimeZone());
+            Assertions.checkEquals(delegate.isHoliday(date), recompiled.isHoliday(date));
+        } finally {
+            FDates.setDefaultTimeZone(previousDefaultTimeZone);
+        }
+    }
+
+    @Test
+    public void testCalendarsAreCompiled() {
+        Assertions.assertThat(HolidayManagers.XETRA).isInstanceOf(CompiledHolidayManager.class);
+        final IHolidayManager calendar = HolidayManagers.getInstance("XETRA_FUTURES_WITH_ROLLOVERS");
+        Assertions.assertThat(calendar).isInstanceOf(CompiledHolidayManager.class);
+        final IHolidayManager uncompiled = XetraFuturesWithRolloversHolidayManager.INSTANCE;
+        Assertions.checkSame(uncompiled, ((CompiledHolidayManager) calendar).getDelegate());
+        final FDate to = FDateBuilder.newDate(2022);
+        FDate day = FDateBuilder.newDate(2019).addHours(12);
+        while (day.isBefore(to)) {
+            Assertions.checkEquals(uncompiled.isHoliday(day), day.isHoliday(calendar));
+            Assertions.checkEquals(day.getNextNonHoliday(uncompiled), day.getNextNonHoliday(calendar));
+            Assertions.checkEquals(day.addWorkdays(3, uncompiled), day.addWorkdays(3, calendar));
+            day = day.addDays(1);
+        }
+        //good friday, the weekend and easter monday
+        Assertions.checkTrue(FDateBuilder.newDate(2021, 4, 2).isHoliday(calendar));
+        Assertions.checkEquals(FDateBuilder.newDate(2021, 4, 6),
+                FDateBuilder.newDate(2021, 4, 2).getNextNonHoliday(calendar));
+    }
+
+    private int countNonHolidays(final FDate fromInclusive, final FDate toInclusive) {
+        int count = 0;
+        FDate day = fromInclusive.withoutTime();
+        while (!day.isAfter(toInclusive)) {
+            if (!delegate.isHoliday(day)) {
+                count++;
+            }
+            day = day.addDays(1);
+        }
+        return count;
+    }
+
+}